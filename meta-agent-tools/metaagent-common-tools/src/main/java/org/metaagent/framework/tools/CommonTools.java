@@ -24,10 +24,12 @@
 
 package org.metaagent.framework.tools;
 
+import lombok.extern.slf4j.Slf4j;
 import org.metaagent.framework.core.tool.Tool;
 import org.metaagent.framework.core.tool.toolkit.Toolkit;
 import org.metaagent.framework.tools.file.find.GlobFileTool;
 import org.metaagent.framework.tools.file.find.GrepFileTool;
+import org.metaagent.framework.tools.file.find.WorkspaceTrigramIndexes;
 import org.metaagent.framework.tools.file.image.ReadImageFileTool;
 import org.metaagent.framework.tools.file.list.ListFileTool;
 import org.metaagent.framework.tools.file.text.EditTextFileTool;
@@ -52,9 +54,10 @@ import java.util.function.Supplier;
  *
  * @author MetaAgent
  */
+@Slf4j
 public enum CommonTools {
     GLOB_FILES_TOOL(GlobFileTool.TOOL_NAME, GlobFileTool::new),
-    GREP_TOOL(GrepFileTool.TOOL_NAME, GrepFileTool::new),
+    GREP_TOOL(GrepFileTool.TOOL_NAME, CommonTools::newGrepTool),
     LIST_FILES_TOOL(ListFileTool.TOOL_NAME, ListFileTool::new),
     READ_TEX_FILE_TOOL(ReadTextFileTool.TOOL_NAME, ReadTextFileTool::new),
     READ_MANY_FILES_TOOL(ReadManyFilesTool.TOOL_NAME, ReadManyFilesTool::new),
@@ -110,6 +113,38 @@ public enum CommonTools {
         return toolkit;
     }
 
+    /**
+     * Closes the instantiated tools which hold resources, e.g. the trigram indexes of the grep tool, so that
+     * the tools and the toolkit are instantiated again on their next use.
+     */
+    public static void closeToolkit() {
+        synchronized (CommonTools.class) {
+            for (CommonTools tool : CommonTools.values()) {
+                tool.closeInstance();
+            }
+            toolkit = null;
+        }
+    }
+
+    private synchronized void closeInstance() {
+        if (instance instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close tool {}", name, e);
+            }
+        }
+        instance = null;
+    }
+
+    private static Tool<?, ?> newGrepTool() {
+        // the trigram index is opt-in, since it watches and reads the whole workspace in the background
+        if (Boolean.parseBoolean(System.getenv("GREP_TRIGRAM_INDEX"))) {
+            return new GrepFileTool(new WorkspaceTrigramIndexes());
+        }
+        return new GrepFileTool();
+    }
+
     private static Toolkit createToolkit() {
         Tool<?, ?>[] tools = Arrays.stream(CommonTools.values()).map(CommonTools::getInstance).toArray(Tool[]::new);
         return Toolkit.fromTools(
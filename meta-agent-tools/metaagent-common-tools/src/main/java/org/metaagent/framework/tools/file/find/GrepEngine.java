@@ -0,0 +1,571 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.tools.file.find;
+
+import lombok.extern.slf4j.Slf4j;
+import org.metaagent.framework.common.ignorefile.GitUtils;
+import org.metaagent.framework.tools.file.util.FilePathFilter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * GrepEngine searches file contents for a regular expression in process, without external binaries.
+ * <p>
+ * The directory tree is walked in parallel on a fork/join pool, and directories ignored by the
+ * ignore files of the {@link FilePathFilter} are pruned instead of being walked. Large files are
+ * memory-mapped, files that look binary are skipped, and the {@link RequiredLiteral} of the pattern
+ * is searched in the raw bytes first, so that only the lines containing it are decoded and matched
+ * against the regular expression. The search stops as soon as the max results, the max bytes or
+ * the timeout is reached, and the matches of each file are delivered as soon as the file is done.
+ * </p>
+ *
+ * @author vyckey
+ */
+@Slf4j
+public class GrepEngine {
+    private static final int FILES_PER_TASK = 16;
+    private static final String TRUNCATED_LINE_SUFFIX = "...";
+
+    private final GrepConfig config;
+    private final ForkJoinPool pool;
+
+    public GrepEngine() {
+        this(new GrepConfig());
+    }
+
+    public GrepEngine(GrepConfig config) {
+        this.config = Objects.requireNonNull(config, "config is required");
+        this.pool = new ForkJoinPool(config.parallelism);
+    }
+
+    /**
+     * Searches the files under a directory and collects the matches, sorted by file path and line number.
+     *
+     * @param directory the directory to search in
+     * @param filter    the filter of the files to search
+     * @param query     the search query
+     * @param aborted   the signal to stop the search early
+     * @return the search result
+     */
+    public GrepResult search(Path directory, FilePathFilter filter, GrepQuery query, BooleanSupplier aborted) {
+        Collection<List<GrepMatchLine>> fileMatches = new ConcurrentLinkedQueue<>();
+        boolean truncated = search(directory, filter, query, aborted, fileMatches::add);
+        return toResult(fileMatches, truncated);
+    }
+
+    /**
+     * Searches the given files only, e.g. the candidate files of a {@link TrigramIndex}, and collects the matches
+     * like {@link #search(Path, FilePathFilter, GrepQuery, BooleanSupplier)}. The files outside the directory or
+     * not matched by the filter are skipped, so the result is the same as searching the whole directory as long
+     * as the files contain all the files which may match.
+     *
+     * @param directory the directory to search in, which the file paths of the result are relative to
+     * @param filter    the filter of the files to search
+     * @param files     the absolute paths of the files to search
+     * @param query     the search query
+     * @param aborted   the signal to stop the search early
+     * @return the search result
+     */
+    public GrepResult searchFiles(Path directory, FilePathFilter filter, Collection<Path> files, GrepQuery query,
+                                  BooleanSupplier aborted) {
+        Path root = directory.toAbsolutePath().normalize();
+        Collection<List<GrepMatchLine>> fileMatches = new ConcurrentLinkedQueue<>();
+        SearchState state = new SearchState(root, filter, query, aborted, fileMatches::add);
+        List<Path> matchedFiles = files.stream()
+                .filter(file -> file.startsWith(root) && filter.matchPath(root, file) == FilePathFilter.MatchType.MATCHED)
+                .toList();
+        invoke(new FilesTask(state, matchedFiles));
+        return toResult(fileMatches, state.truncated.get());
+    }
+
+    private static GrepResult toResult(Collection<List<GrepMatchLine>> fileMatches, boolean truncated) {
+        List<GrepMatchLine> matchLines = fileMatches.stream()
+                .sorted(Comparator.comparing(lines -> lines.get(0).filePath()))
+                .flatMap(List::stream)
+                .toList();
+        return new GrepResult(matchLines, truncated);
+    }
+
+    /**
+     * Searches the files under a directory, and streams the matches of each file to the consumer as soon as
+     * the file is searched. The consumer may be called concurrently from different threads.
+     *
+     * @param directory the directory to search in
+     * @param filter    the filter of the files to search
+     * @param query     the search query
+     * @param aborted   the signal to stop the search early
+     * @param consumer  the consumer of the matched lines of each file, along with their context lines
+     * @return {@code true} if the search stopped early because a limit was reached
+     */
+    public boolean search(Path directory, FilePathFilter filter, GrepQuery query, BooleanSupplier aborted,
+                          Consumer<List<GrepMatchLine>> consumer) {
+        Path root = directory.toAbsolutePath().normalize();
+        SearchState state = new SearchState(root, filter, query, aborted, consumer);
+        invoke(new DirectoryTask(state, root));
+        return state.truncated.get();
+    }
+
+    private void invoke(RecursiveAction task) {
+        try {
+            pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+            throw e;
+        }
+    }
+
+    private void searchFile(SearchState state, Path file, long size) {
+        if (size == 0 || size > config.maxFileBytes || state.stopped()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer;
+            if (size >= config.mmapThresholdBytes) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        break;
+                    }
+                }
+                buffer.flip();
+            }
+            if (isBinary(buffer)) {
+                return;
+            }
+            List<GrepMatchLine> lines = searchBuffer(state, state.root.relativize(file).toString(), buffer);
+            if (!lines.isEmpty()) {
+                state.consumer.accept(lines);
+            }
+        } catch (IOException e) {
+            log.debug("Failed to grep file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private boolean isBinary(ByteBuffer buffer) {
+        int probe = Math.min(buffer.limit(), config.binaryProbeBytes);
+        for (int i = 0; i < probe; i++) {
+            if (buffer.get(i) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<GrepMatchLine> searchBuffer(SearchState state, String filePath, ByteBuffer buffer) {
+        List<int[]> matches = findMatchedLines(state, buffer);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        int granted = state.reserveMatches(matches.size());
+        if (granted < matches.size()) {
+            matches = matches.subList(0, granted);
+        }
+        return buildMatchLines(state, filePath, buffer, matches);
+    }
+
+    /**
+     * Finds the matched lines in the buffer, each as {@code [lineNumber, start, end]}.
+     */
+    private List<int[]> findMatchedLines(SearchState state, ByteBuffer buffer) {
+        GrepQuery query = state.query;
+        RequiredLiteral literal = state.literal;
+        Matcher matcher = query.pattern().matcher("");
+        int limit = buffer.limit();
+        List<int[]> matches = new ArrayList<>();
+        int lineNumber = 1;
+        int lineStart = 0;
+        // one more match than the limit is collected, so that the result is marked truncated when it is reached
+        while (lineStart < limit && matches.size() <= query.maxResults()) {
+            if (literal != null) {
+                int found = literal.indexIn(buffer, state.literalBytes, lineStart, limit);
+                if (found < 0) {
+                    break;
+                }
+                int start = lineStartOf(buffer, found, lineStart);
+                lineNumber += countLines(buffer, lineStart, start);
+                lineStart = start;
+            }
+            int lineEnd = lineEndOf(buffer, lineStart, limit);
+            if (literal != null && literal.wholeRegex()
+                    || matcher.reset(decode(buffer, lineStart, lineEnd)).find()) {
+                matches.add(new int[]{lineNumber, lineStart, lineEnd});
+            }
+            lineStart = lineEnd + 1;
+            lineNumber++;
+        }
+        return matches;
+    }
+
+    private List<GrepMatchLine> buildMatchLines(SearchState state, String filePath, ByteBuffer buffer,
+                                                List<int[]> matches) {
+        int contextLines = state.query.contextLines();
+        int limit = buffer.limit();
+        List<GrepMatchLine> lines = new ArrayList<>();
+        int nextLineNumber = 1;
+        for (int k = 0; k < matches.size(); k++) {
+            int[] match = matches.get(k);
+            int beforeNumber = match[0];
+            int beforeStart = match[1];
+            for (int c = 0; c < contextLines && beforeNumber > nextLineNumber; c++) {
+                beforeStart = lineStartOf(buffer, beforeStart - 1, 0);
+                beforeNumber--;
+            }
+            for (int number = beforeNumber, start = beforeStart; number < match[0]; number++) {
+                int end = lineEndOf(buffer, start, limit);
+                if (!addLine(state, lines, filePath, number, buffer, start, end, true)) {
+                    return lines;
+                }
+                start = end + 1;
+            }
+            if (!addLine(state, lines, filePath, match[0], buffer, match[1], match[2], false)) {
+                return lines;
+            }
+
+            int nextMatchNumber = k + 1 < matches.size() ? matches.get(k + 1)[0] : Integer.MAX_VALUE;
+            int number = match[0] + 1;
+            int start = match[2] + 1;
+            for (int c = 0; c < contextLines && start < limit && number < nextMatchNumber; c++) {
+                int end = lineEndOf(buffer, start, limit);
+                if (!addLine(state, lines, filePath, number, buffer, start, end, true)) {
+                    return lines;
+                }
+                start = end + 1;
+                number++;
+            }
+            nextLineNumber = number;
+        }
+        return lines;
+    }
+
+    private boolean addLine(SearchState state, List<GrepMatchLine> lines, String filePath, int lineNumber,
+                            ByteBuffer buffer, int start, int end, boolean context) {
+        String content = decode(buffer, start, end);
+        if (content.length() > config.maxLineLength) {
+            content = content.substring(0, config.maxLineLength) + TRUNCATED_LINE_SUFFIX;
+        }
+        if (!state.reserveBytes(filePath.length() + content.length())) {
+            return false;
+        }
+        lines.add(new GrepMatchLine(filePath, lineNumber, content, context));
+        return true;
+    }
+
+    private static int lineStartOf(ByteBuffer buffer, int position, int lowerBound) {
+        int i = position;
+        while (i > lowerBound && buffer.get(i - 1) != '\n') {
+            i--;
+        }
+        return i;
+    }
+
+    private static int lineEndOf(ByteBuffer buffer, int start, int limit) {
+        int i = start;
+        while (i < limit && buffer.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int countLines(ByteBuffer buffer, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private final class SearchState {
+        private final Path root;
+        private final FilePathFilter filter;
+        private final GrepQuery query;
+        private final RequiredLiteral literal;
+        private final byte[] literalBytes;
+        private final BooleanSupplier aborted;
+        private final Consumer<List<GrepMatchLine>> consumer;
+        private final long deadline;
+        private final AtomicInteger matchCount = new AtomicInteger();
+        private final AtomicLong byteCount = new AtomicLong();
+        private final AtomicBoolean truncated = new AtomicBoolean();
+
+        SearchState(Path root, FilePathFilter filter, GrepQuery query, BooleanSupplier aborted,
+                    Consumer<List<GrepMatchLine>> consumer) {
+            this.root = root;
+            this.filter = filter;
+            this.query = Objects.requireNonNull(query, "query is required");
+            this.literal = RequiredLiteral.of(query.pattern());
+            this.literalBytes = literal != null ? literal.bytes() : null;
+            this.aborted = aborted != null ? aborted : () -> false;
+            this.consumer = consumer;
+            this.deadline = System.nanoTime() + config.timeout.toNanos();
+        }
+
+        boolean stopped() {
+            if (truncated.get() || aborted.getAsBoolean()) {
+                return true;
+            }
+            if (System.nanoTime() > deadline) {
+                truncated.set(true);
+                return true;
+            }
+            return false;
+        }
+
+        int reserveMatches(int wanted) {
+            while (true) {
+                int current = matchCount.get();
+                int granted = Math.max(0, Math.min(wanted, query.maxResults() - current));
+                if (granted < wanted) {
+                    truncated.set(true);
+                }
+                if (granted == 0 || matchCount.compareAndSet(current, current + granted)) {
+                    return granted;
+                }
+            }
+        }
+
+        boolean reserveBytes(int bytes) {
+            if (byteCount.addAndGet(bytes) > query.maxBytes()) {
+                truncated.set(true);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private final class DirectoryTask extends RecursiveAction {
+        private final SearchState state;
+        private final Path directory;
+
+        DirectoryTask(SearchState state, Path directory) {
+            this.state = state;
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            if (state.stopped()) {
+                return;
+            }
+            List<RecursiveAction> subtasks = new ArrayList<>();
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (attributes.isDirectory()) {
+                        if (!GitUtils.GIT_DIR_NAME.equals(entry.getFileName().toString())
+                                && !state.filter.isIgnored(entry)) {
+                            subtasks.add(new DirectoryTask(state, entry));
+                        }
+                    } else if (attributes.isRegularFile()
+                            && state.filter.matchPath(state.root, entry) == FilePathFilter.MatchType.MATCHED) {
+                        files.add(entry);
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Failed to list directory {}: {}", directory, e.getMessage());
+                return;
+            }
+            for (int i = 0; i < files.size(); i += FILES_PER_TASK) {
+                subtasks.add(new FilesTask(state, files.subList(i, Math.min(files.size(), i + FILES_PER_TASK))));
+            }
+            invokeAll(subtasks);
+        }
+    }
+
+    private final class FilesTask extends RecursiveAction {
+        private final SearchState state;
+        private final List<Path> files;
+
+        FilesTask(SearchState state, List<Path> files) {
+            this.state = state;
+            this.files = files;
+        }
+
+        @Override
+        protected void compute() {
+            if (files.size() > FILES_PER_TASK) {
+                int middle = files.size() / 2;
+                invokeAll(new FilesTask(state, files.subList(0, middle)),
+                        new FilesTask(state, files.subList(middle, files.size())));
+                return;
+            }
+            for (Path file : files) {
+                if (state.stopped()) {
+                    return;
+                }
+                try {
+                    searchFile(state, file, Files.size(file));
+                } catch (IOException e) {
+                    log.debug("Failed to grep file {}: {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * The query of a search.
+     *
+     * @param pattern      the regular expression to search for, matched against each line
+     * @param contextLines the number of lines to include before and after each matched line
+     * @param maxResults   the max number of matched lines
+     * @param maxBytes     the max number of characters of the result lines, including their file paths
+     */
+    public record GrepQuery(Pattern pattern, int contextLines, int maxResults, long maxBytes) {
+        public static final int DEFAULT_MAX_RESULTS = 1000;
+        public static final long DEFAULT_MAX_BYTES = 512 * 1024;
+
+        public GrepQuery {
+            Objects.requireNonNull(pattern, "pattern is required");
+            if (contextLines < 0) {
+                throw new IllegalArgumentException("contextLines must be non-negative");
+            }
+            if (maxResults <= 0 || maxBytes <= 0) {
+                throw new IllegalArgumentException("maxResults and maxBytes must be positive");
+            }
+        }
+
+        public static GrepQuery of(Pattern pattern) {
+            return new GrepQuery(pattern, 0, DEFAULT_MAX_RESULTS, DEFAULT_MAX_BYTES);
+        }
+    }
+
+    /**
+     * The result of a search.
+     *
+     * @param matchLines the matched lines along with their context lines, sorted by file path and line number
+     * @param truncated  whether the search stopped early because a limit was reached
+     */
+    public record GrepResult(List<GrepMatchLine> matchLines, boolean truncated) {
+    }
+
+    public static class GrepConfig {
+        private int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+        private long maxFileBytes = 16L * 1024 * 1024;
+        private long mmapThresholdBytes = 256 * 1024;
+        private int binaryProbeBytes = 8 * 1024;
+        private int maxLineLength = 1024;
+        private Duration timeout = Duration.ofSeconds(30);
+
+        public GrepConfig parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism must be positive");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public GrepConfig maxFileBytes(long maxFileBytes) {
+            if (maxFileBytes <= 0 || maxFileBytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("maxFileBytes must be positive and fit in an int");
+            }
+            this.maxFileBytes = maxFileBytes;
+            return this;
+        }
+
+        public GrepConfig mmapThresholdBytes(long mmapThresholdBytes) {
+            if (mmapThresholdBytes <= 0) {
+                throw new IllegalArgumentException("mmapThresholdBytes must be positive");
+            }
+            this.mmapThresholdBytes = mmapThresholdBytes;
+            return this;
+        }
+
+        public GrepConfig binaryProbeBytes(int binaryProbeBytes) {
+            if (binaryProbeBytes < 0) {
+                throw new IllegalArgumentException("binaryProbeBytes must be non-negative");
+            }
+            this.binaryProbeBytes = binaryProbeBytes;
+            return this;
+        }
+
+        public GrepConfig maxLineLength(int maxLineLength) {
+            if (maxLineLength <= 0) {
+                throw new IllegalArgumentException("maxLineLength must be positive");
+            }
+            this.maxLineLength = maxLineLength;
+            return this;
+        }
+
+        public GrepConfig timeout(Duration timeout) {
+            if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("timeout must be positive");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+    }
+}
@@ -27,6 +27,8 @@ package org.metaagent.framework.tools.file.find;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -48,6 +50,8 @@ import java.util.regex.Pattern;
 @Builder
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class GrepFileInput implements ToolDisplayable {
+    public static final int MAX_CONTEXT_LINES = 10;
+
     @NotBlank(message = "Grep pattern must be specified")
     @JsonProperty(required = true)
     @JsonPropertyDescription("The regular expression pattern to search for in file contents " +
@@ -60,6 +64,18 @@ public class GrepFileInput implements ToolDisplayable {
     @JsonPropertyDescription("The pattern to filter which files to search in (e.g., '*.js', '*.{ts,tsx}', 'src/**'). Optional, defaults to all files")
     private String include;
 
+    @Min(0)
+    @Max(MAX_CONTEXT_LINES)
+    @JsonPropertyDescription("The number of lines to show before and after each matched line. Optional, defaults to 0")
+    private Integer contextLines;
+
+    @Min(1)
+    @JsonPropertyDescription("The max number of matched lines to return. Optional, defaults to " + GrepEngine.GrepQuery.DEFAULT_MAX_RESULTS)
+    private Integer maxResults;
+
+    @JsonPropertyDescription("Whether the pattern is matched case-sensitively. Optional, defaults to false")
+    private Boolean caseSensitive;
+
     @JsonCreator
     public GrepFileInput(@JsonProperty("directory") String directory, @JsonProperty("pattern") Pattern pattern) {
         this.directory = directory;
@@ -25,7 +25,9 @@
 package org.metaagent.framework.tools.file.find;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import org.metaagent.framework.core.tool.schema.ToolDisplayable;
 
 import java.util.List;
@@ -40,9 +42,17 @@ public record GrepFileOutput(
         @JsonProperty(required = true)
         List<GrepMatchLine> matchLines,
 
+        @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+        @JsonPropertyDescription("Whether the results were truncated because a limit was reached")
+        boolean truncated,
+
         @JsonIgnore
         String display) implements ToolDisplayable {
 
+    public GrepFileOutput(List<GrepMatchLine> matchLines, String display) {
+        this(matchLines, false, display);
+    }
+
     public GrepFileOutput(List<GrepMatchLine> matchLines) {
         this(matchLines, "Found " + matchLines.size() + " matching lines");
     }
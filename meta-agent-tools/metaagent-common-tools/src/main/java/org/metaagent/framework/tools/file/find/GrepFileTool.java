@@ -25,10 +25,10 @@
 package org.metaagent.framework.tools.file.find;
 
 import com.google.common.collect.Lists;
-import com.google.common.io.CharStreams;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.metaagent.framework.common.abort.AbortException;
+import org.metaagent.framework.common.ignorefile.GitIgnoreLikeFileFilter;
 import org.metaagent.framework.core.security.approval.ApprovalStatus;
 import org.metaagent.framework.core.security.approval.PermissionApproval;
 import org.metaagent.framework.core.tool.Tool;
@@ -43,30 +43,32 @@ import org.metaagent.framework.core.tool.exception.ToolExecutionException;
 import org.metaagent.framework.core.tool.exception.ToolRejectException;
 import org.metaagent.framework.core.tool.schema.ToolArgsValidator;
 import org.metaagent.framework.tools.file.AbstractFileTool;
+import org.metaagent.framework.tools.file.util.FilePathFilter;
 import org.metaagent.framework.tools.file.util.FileUtils;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
 import java.util.regex.Pattern;
 
 /**
  * GrepFileTool is a tool for searching files in a directory based on a specified pattern.
+ * The search runs in process with a {@link GrepEngine}, so it does not depend on external binaries.
  *
  * @author vyckey
  */
 @Slf4j
 public class GrepFileTool extends AbstractFileTool<GrepFileInput, GrepFileOutput>
-        implements Tool<GrepFileInput, GrepFileOutput> {
+        implements Tool<GrepFileInput, GrepFileOutput>, AutoCloseable {
     public static final String TOOL_NAME = "grep_files";
     private static final ToolDefinition TOOL_DEFINITION = ToolDefinition.builder(TOOL_NAME)
             .description("Searches for a regular expression pattern within the content of files in a specified directory" +
                     " (default current working directory). Can filter files by a glob pattern. Returns the lines " +
-                    "containing matches, along with their file paths and line numbers.")
+                    "containing matches, along with their file paths and line numbers. Files ignored by .gitignore " +
+                    "and binary files are skipped, and the pattern is case-insensitive unless caseSensitive is true.")
             .inputSchema(GrepFileInput.class)
             .outputSchema(GrepFileOutput.class)
             .isConcurrencySafe(true)
@@ -74,6 +76,23 @@ public class GrepFileTool extends AbstractFileTool<GrepFileInput, GrepFileOutput
             .build();
     private static final ToolConverter<GrepFileInput, GrepFileOutput> TOOL_CONVERTER =
             ToolConverters.jsonConverter(GrepFileInput.class);
+    private static final GrepEngine GREP_ENGINE = new GrepEngine();
+
+    private final WorkspaceTrigramIndexes trigramIndexes;
+
+    public GrepFileTool() {
+        this(null);
+    }
+
+    /**
+     * Creates the tool with optional trigram indexes of the workspaces, which narrow the files to search
+     * when the index of the workspace is ready and covers the searched directory.
+     *
+     * @param trigramIndexes the trigram indexes, or {@code null} to always scan the directory
+     */
+    public GrepFileTool(WorkspaceTrigramIndexes trigramIndexes) {
+        this.trigramIndexes = trigramIndexes;
+    }
 
     @Override
     public ToolDefinition getDefinition() {
@@ -120,122 +139,95 @@ public class GrepFileTool extends AbstractFileTool<GrepFileInput, GrepFileOutput
             throw new AbortException("Tool " + getName() + " is cancelled");
         }
 
-        List<GrepMatchLine> matchLines;
+        GrepEngine.GrepResult result;
         try {
-            if (FileUtils.hasCommand("git", "--version")) {
-                matchLines = searchByGitGrep(directory, input.getPattern(), input.getInclude());
-            } else if (FileUtils.hasCommand("grep", "-h")) {
-                matchLines = searchByGrep(directory, input.getPattern(), input.getInclude());
+            FilePathFilter filePathFilter = buildFilePathFilter(directory, input.getInclude());
+            GrepEngine.GrepQuery query = buildGrepQuery(input);
+            BooleanSupplier aborted = () -> toolContext.getAbortSignal().isAborted();
+            Optional<List<Path>> candidates = trigramIndexes != null
+                    ? trigramIndexes.getIndex(toolContext.getToolExecutionConfig().workspaceConfig())
+                    .flatMap(index -> index.findCandidates(directory, query.pattern()))
+                    : Optional.empty();
+            if (candidates.isPresent()) {
+                result = GREP_ENGINE.searchFiles(directory, filePathFilter, candidates.get(), query, aborted);
             } else {
-                matchLines = searchByRead(directory, input.getPattern(), input.getInclude());
+                result = GREP_ENGINE.search(directory, filePathFilter, query, aborted);
             }
-        } catch (IOException e) {
-            log.warn("Failed to execute grep command", e);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to grep files in directory {}", directory, e);
             throw new ToolExecutionException(e.getMessage(), e);
         } catch (Exception e) {
-            log.warn("Failed to execute grep command", e);
+            log.warn("Failed to grep files in directory {}", directory, e);
             throw new ToolExecutionError(e.getMessage(), e);
         }
-        return buildGrepFileOutput(input, matchLines);
+        if (toolContext.getAbortSignal().isAborted()) {
+            throw new AbortException("Tool " + getName() + " is cancelled");
+        }
+        return buildGrepFileOutput(input, result);
     }
 
-    protected List<GrepMatchLine> searchByGitGrep(Path directory, Pattern pattern, String include) throws IOException {
-        List<String> command = Lists.newArrayList("git", "grep", "--untracked", "-n", "-E", "--ignore-case", pattern.toString());
+    protected FilePathFilter buildFilePathFilter(Path directory, String include) throws IOException {
+        List<Pattern> patterns = null;
         if (StringUtils.isNotBlank(include)) {
-            command.add("--");
-            command.add(include);
-        }
-        Process process = Runtime.getRuntime().exec(command.toArray(new String[0]), null, directory.toFile());
-        String error = CharStreams.toString(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8));
-        if (StringUtils.isNotEmpty(error)) {
-            throw new ToolExecutionException(error);
+            patterns = expandBraces(include.trim()).stream().map(GitIgnoreLikeFileFilter::compileAsPattern).toList();
         }
-
-        String output = CharStreams.toString(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
-        return parseSearchOutput(directory, output);
+        return FilePathFilter.builder(directory).patterns(patterns).build();
     }
 
-    protected List<GrepMatchLine> searchByGrep(Path directory, Pattern pattern, String include) throws IOException {
-        final String[] ignoreDirectories = {
-                ".git", "node_modules", "build", "dist"
-        };
-        List<String> command = Lists.newArrayList("grep", "-r", "-n", "-H", "-E", pattern.toString());
-        for (String ignoreDirectory : ignoreDirectories) {
-            command.add("--exclude-dir=" + ignoreDirectory);
+    /**
+     * Expands the brace alternatives of a glob pattern, e.g. {@code *.{ts,tsx}} to {@code *.ts} and {@code *.tsx}.
+     */
+    static List<String> expandBraces(String glob) {
+        int open = glob.indexOf('{');
+        int close = open < 0 ? -1 : glob.indexOf('}', open);
+        if (close < 0) {
+            return List.of(glob);
         }
-        if (StringUtils.isNotEmpty(include)) {
-            command.add("--include=" + include);
-        }
-        command.add(pattern.toString());
-        command.add(directory.toString());
-        Process process = Runtime.getRuntime().exec(command.toArray(new String[0]), null, directory.toFile());
-        String error = CharStreams.toString(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8));
-        if (StringUtils.isNotEmpty(error)) {
-            throw new ToolExecutionException(error);
-        }
-
-        String output = CharStreams.toString(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
-        return parseSearchOutput(directory, output);
-    }
-
-    protected List<GrepMatchLine> parseSearchOutput(Path directory, String output) {
-        List<GrepMatchLine> matchLines = Lists.newArrayList();
-        String[] lines = output.split("\n");
-        for (String line : lines) {
-            if (StringUtils.isBlank(line)) {
-                continue;
-            }
-            String[] parts = line.split(":", 3);
-            if (parts.length < 3) {
-                continue;
-            }
-            Path filePath = directory.relativize(Path.of(parts[0].trim()));
-            int lineNumber = Integer.parseInt(parts[1].trim());
-            String content = parts[2];
-            matchLines.add(new GrepMatchLine(filePath.toString(), lineNumber, content));
+        String prefix = glob.substring(0, open);
+        String suffix = glob.substring(close + 1);
+        List<String> globs = Lists.newArrayList();
+        for (String alternative : glob.substring(open + 1, close).split(",", -1)) {
+            globs.addAll(expandBraces(prefix + alternative.trim() + suffix));
         }
-        return matchLines;
+        return globs;
     }
 
-    protected List<GrepMatchLine> searchByRead(Path directory, Pattern pattern, String include) throws IOException {
-        GlobFileInput globFileInput = GlobFileInput.builder()
-                .directory(directory.toString())
-                .pattern(StringUtils.isEmpty(include) ? "**/*" : include)
-                .build();
-        GlobFileOutput globFileOutput = new GlobFileTool().run(ToolContext.create(), globFileInput);
-
-        List<GrepMatchLine> matchLines = Lists.newArrayList();
-        for (File file : globFileOutput.getFiles()) {
-            List<String> lines;
-            try {
-                lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
-            } catch (IOException e) {
-                continue;
-            }
-
-            for (int i = 0; i < lines.size(); i++) {
-                String line = lines.get(i);
-                if (pattern.matcher(line).find()) {
-                    String path = directory.relativize(file.toPath()).toString();
-                    GrepMatchLine matchLine = new GrepMatchLine(path, i + 1, line);
-                    matchLines.add(matchLine);
-                }
-            }
+    protected GrepEngine.GrepQuery buildGrepQuery(GrepFileInput input) {
+        int contextLines = input.getContextLines() != null ? input.getContextLines() : 0;
+        int maxResults = input.getMaxResults() != null ? input.getMaxResults() : GrepEngine.GrepQuery.DEFAULT_MAX_RESULTS;
+        Pattern pattern = input.getPattern();
+        if (!Boolean.TRUE.equals(input.getCaseSensitive())) {
+            pattern = Pattern.compile(pattern.pattern(), pattern.flags() | Pattern.CASE_INSENSITIVE);
         }
-        return matchLines;
+        return new GrepEngine.GrepQuery(pattern, contextLines, maxResults, GrepEngine.GrepQuery.DEFAULT_MAX_BYTES);
     }
 
-    protected GrepFileOutput buildGrepFileOutput(GrepFileInput input, List<GrepMatchLine> matchLines) {
+    protected GrepFileOutput buildGrepFileOutput(GrepFileInput input, GrepEngine.GrepResult result) {
+        List<GrepMatchLine> matchLines = result.matchLines();
+        long matchLineCount = matchLines.stream().filter(line -> !line.context()).count();
         long matchFileCount = matchLines.stream().map(GrepMatchLine::filePath).distinct().count();
-        StringBuilder displayBuilder = new StringBuilder("Found " + matchLines.size() + " matched line(s) in ")
+        StringBuilder displayBuilder = new StringBuilder("Found " + matchLineCount + " matched line(s) in ")
                 .append(matchFileCount).append(" file(s)");
         if (StringUtils.isNotBlank(input.getInclude())) {
             displayBuilder.append(" (").append(input.getInclude()).append(")");
         }
         displayBuilder.append(" with pattern '").append(input.getPattern().pattern()).append("'");
+        if (result.truncated()) {
+            displayBuilder.append(", results are truncated");
+        }
         matchLines = matchLines.stream().map(l ->
-                new GrepMatchLine(l.filePath(), l.lineNumber(), l.lineContent().trim())
+                new GrepMatchLine(l.filePath(), l.lineNumber(), l.lineContent().trim(), l.context())
         ).toList();
-        return new GrepFileOutput(matchLines, displayBuilder.toString());
+        return new GrepFileOutput(matchLines, result.truncated(), displayBuilder.toString());
+    }
+
+    /**
+     * Closes the trigram indexes of the workspaces, after which the searches scan the directories.
+     */
+    @Override
+    public void close() {
+        if (trigramIndexes != null) {
+            trigramIndexes.close();
+        }
     }
 }
@@ -24,8 +24,18 @@
 
 package org.metaagent.framework.tools.file.find;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+/**
+ * A line found by a grep operation, either a matched line or a context line around it.
+ *
+ * @param filePath    the file path relative to the searched directory
+ * @param lineNumber  the line number, starting from 1
+ * @param lineContent the content of the line
+ * @param context     whether the line is a context line rather than a matched line
+ * @author vyckey
+ */
 public record GrepMatchLine(
         @JsonProperty(required = true)
         String filePath,
@@ -34,10 +44,18 @@ public record GrepMatchLine(
         int lineNumber,
 
         @JsonProperty(required = true)
-        String lineContent) {
+        String lineContent,
+
+        @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+        boolean context) {
+
+    public GrepMatchLine(String filePath, int lineNumber, String lineContent) {
+        this(filePath, lineNumber, lineContent, false);
+    }
 
     @Override
     public String toString() {
-        return String.format("%s:%d: %s", filePath, lineNumber, lineContent.trim());
+        return String.format("%s%s%d%s %s", filePath, context ? "-" : ":", lineNumber, context ? "-" : ":",
+                lineContent.trim());
     }
 }
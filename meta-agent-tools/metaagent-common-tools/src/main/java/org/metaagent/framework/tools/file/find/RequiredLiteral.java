@@ -0,0 +1,344 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.tools.file.find;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * RequiredLiteral is the longest literal that every match of a regular expression contains.
+ * It is searched in the raw bytes of files before any decoding or regex matching, so that
+ * files and lines that cannot match are skipped cheaply.
+ * <p>
+ * The extraction is conservative: it only looks at the top-level sequence of the expression,
+ * gives up on top-level alternations, and skips groups, classes and optional atoms. Literals of
+ * case-insensitive expressions are only used when they are ASCII, and are compared ignoring case.
+ * </p>
+ *
+ * @param text        the literal text
+ * @param ignoreCase  whether the literal is compared ignoring ASCII case
+ * @param wholeRegex  whether the literal is the whole expression, so that containing it is a match
+ * @author vyckey
+ */
+record RequiredLiteral(String text, boolean ignoreCase, boolean wholeRegex) {
+    static final int MIN_LENGTH = 2;
+    private static final String NO_ARGUMENT_ESCAPES = "wWdDsSbBAGzZhHvVRX";
+
+    /**
+     * Extracts the required literal of a pattern.
+     *
+     * @param pattern the pattern
+     * @return the required literal, or {@code null} if there is none worth searching for
+     */
+    static RequiredLiteral of(Pattern pattern) {
+        int flags = pattern.flags();
+        String regex = pattern.pattern();
+        boolean ignoreCase = (flags & Pattern.CASE_INSENSITIVE) != 0;
+        if (ignoreCase && (flags & Pattern.UNICODE_CASE) != 0) {
+            // Unicode case folding maps some non-ASCII characters to ASCII letters, e.g. the Kelvin sign
+            return null;
+        }
+        if ((flags & Pattern.CANON_EQ) != 0) {
+            // canonical equivalence matches other byte sequences of the same characters
+            return null;
+        }
+        if ((flags & Pattern.LITERAL) != 0) {
+            return create(regex, ignoreCase, true);
+        }
+        if ((flags & Pattern.COMMENTS) != 0) {
+            return null;
+        }
+
+        Extraction extraction = new Extraction(regex);
+        if (!extraction.run()) {
+            return null;
+        }
+        return create(extraction.best, ignoreCase || extraction.ignoreCase,
+                !extraction.hasMeta && extraction.best.length() == regex.length());
+    }
+
+    private static RequiredLiteral create(String text, boolean ignoreCase, boolean wholeRegex) {
+        if (text == null || text.length() < MIN_LENGTH) {
+            return null;
+        }
+        if (ignoreCase && !text.chars().allMatch(c -> c < 0x80)) {
+            return null;
+        }
+        return new RequiredLiteral(ignoreCase ? text.toLowerCase() : text, ignoreCase, wholeRegex && !ignoreCase);
+    }
+
+    byte[] bytes() {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds the literal in a byte buffer.
+     *
+     * @param buffer  the buffer to search
+     * @param literal the UTF-8 bytes of the literal
+     * @param from    the index to start from
+     * @param to      the index to stop at, exclusive
+     * @return the index of the first occurrence, or {@code -1}
+     */
+    int indexIn(ByteBuffer buffer, byte[] literal, int from, int to) {
+        byte first = literal[0];
+        int last = to - literal.length;
+        for (int i = from; i <= last; i++) {
+            byte b = buffer.get(i);
+            if (b != first && !(ignoreCase && toLowerCase(b) == first)) {
+                continue;
+            }
+            int j = 1;
+            while (j < literal.length) {
+                byte c = buffer.get(i + j);
+                if (c != literal[j] && !(ignoreCase && toLowerCase(c) == literal[j])) {
+                    break;
+                }
+                j++;
+            }
+            if (j == literal.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static final class Extraction {
+        private final String regex;
+        private final StringBuilder run = new StringBuilder();
+        private String best = "";
+        private boolean ignoreCase;
+        private boolean hasMeta;
+        private int index;
+
+        Extraction(String regex) {
+            this.regex = regex;
+        }
+
+        boolean run() {
+            int length = regex.length();
+            while (index < length) {
+                char c = regex.charAt(index);
+                String atom = null;
+                switch (c) {
+                    case '\\' -> {
+                        if (index + 1 >= length) {
+                            return false;
+                        }
+                        char escaped = regex.charAt(index + 1);
+                        if (escaped == 'Q') {
+                            int end = regex.indexOf("\\E", index + 2);
+                            atom = end < 0 ? regex.substring(index + 2) : regex.substring(index + 2, end);
+                            index = end < 0 ? length : end + 2;
+                            hasMeta = true;
+                        } else if (!Character.isLetterOrDigit(escaped)) {
+                            atom = String.valueOf(escaped);
+                            index += 2;
+                            hasMeta = true;
+                        } else if ("tnrfae".indexOf(escaped) >= 0) {
+                            atom = String.valueOf("\t\n\r\f\u0007\u001B".charAt("tnrfae".indexOf(escaped)));
+                            index += 2;
+                            hasMeta = true;
+                        } else if (NO_ARGUMENT_ESCAPES.indexOf(escaped) >= 0) {
+                            index += 2;
+                            hasMeta = true;
+                        } else {
+                            // escapes with arguments or back references
+                            return false;
+                        }
+                    }
+                    case '[' -> {
+                        index = skipClass(index);
+                        hasMeta = true;
+                    }
+                    case '(' -> {
+                        int end = skipGroup(index);
+                        if (end < 0 || !inspectFlags(regex.substring(index, end))) {
+                            return false;
+                        }
+                        index = end;
+                        hasMeta = true;
+                    }
+                    case '|', ')' -> {
+                        return false;
+                    }
+                    case '.', '^', '$', '*', '+', '?', '{' -> {
+                        index++;
+                        hasMeta = true;
+                    }
+                    default -> {
+                        atom = String.valueOf(c);
+                        index++;
+                    }
+                }
+                if (index < 0) {
+                    return false;
+                }
+                applyQuantifier(atom);
+            }
+            endRun();
+            return true;
+        }
+
+        private void applyQuantifier(String atom) {
+            int length = regex.length();
+            boolean optional = false;
+            boolean quantified = false;
+            if (index < length) {
+                char q = regex.charAt(index);
+                if (q == '*' || q == '?') {
+                    optional = true;
+                    quantified = true;
+                    index++;
+                } else if (q == '+') {
+                    quantified = true;
+                    index++;
+                } else if (q == '{') {
+                    int close = regex.indexOf('}', index);
+                    if (close < 0) {
+                        index = -1;
+                        return;
+                    }
+                    String bounds = regex.substring(index + 1, close);
+                    int comma = bounds.indexOf(',');
+                    String min = (comma < 0 ? bounds : bounds.substring(0, comma)).trim();
+                    optional = min.isEmpty() || Integer.parseInt(min) == 0;
+                    quantified = true;
+                    index = close + 1;
+                }
+                if (quantified && index < length && (regex.charAt(index) == '?' || regex.charAt(index) == '+')) {
+                    index++;
+                }
+            }
+            if (quantified) {
+                hasMeta = true;
+            }
+
+            if (atom == null || atom.isEmpty()) {
+                endRun();
+            } else if (!quantified) {
+                run.append(atom);
+            } else {
+                // a quantifier applies to the last character of the atom only
+                run.append(atom, 0, optional ? atom.length() - 1 : atom.length());
+                endRun();
+            }
+        }
+
+        private void endRun() {
+            if (run.length() > best.length()) {
+                best = run.toString();
+            }
+            run.setLength(0);
+        }
+
+        private boolean inspectFlags(String group) {
+            if (group.length() < 3 || group.charAt(1) != '?') {
+                return true;
+            }
+            int end = 2;
+            while (end < group.length() && (Character.isLetter(group.charAt(end)) || group.charAt(end) == '-')) {
+                end++;
+            }
+            String flags = group.substring(2, end);
+            if (flags.indexOf('x') >= 0 || flags.indexOf('u') >= 0) {
+                return false;
+            }
+            if (flags.indexOf('i') >= 0) {
+                ignoreCase = true;
+            }
+            return true;
+        }
+
+        private int skipClass(int start) {
+            int length = regex.length();
+            int i = start + 1;
+            if (i < length && regex.charAt(i) == '^') {
+                i++;
+            }
+            if (i < length && regex.charAt(i) == ']') {
+                i++;
+            }
+            int depth = 1;
+            while (i < length) {
+                char c = regex.charAt(i);
+                if (c == '\\') {
+                    if (i + 1 < length && regex.charAt(i + 1) == 'Q') {
+                        int end = regex.indexOf("\\E", i + 2);
+                        i = end < 0 ? length : end + 2;
+                        continue;
+                    }
+                    i += 2;
+                    continue;
+                }
+                if (c == '[') {
+                    depth++;
+                } else if (c == ']' && --depth == 0) {
+                    return i + 1;
+                }
+                i++;
+            }
+            return -1;
+        }
+
+        private int skipGroup(int start) {
+            int length = regex.length();
+            int i = start + 1;
+            int depth = 1;
+            while (i < length) {
+                char c = regex.charAt(i);
+                if (c == '\\') {
+                    if (i + 1 < length && regex.charAt(i + 1) == 'Q') {
+                        int end = regex.indexOf("\\E", i + 2);
+                        i = end < 0 ? length : end + 2;
+                        continue;
+                    }
+                    i += 2;
+                    continue;
+                }
+                if (c == '[') {
+                    i = skipClass(i);
+                    if (i < 0) {
+                        return -1;
+                    }
+                    continue;
+                }
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')' && --depth == 0) {
+                    return i + 1;
+                }
+                i++;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,994 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.tools.file.find;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.metaagent.framework.common.ignorefile.GitUtils;
+import org.metaagent.framework.common.ignorefile.IgnoreFileFilter;
+import org.metaagent.framework.tools.file.util.FilePathFilter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * TrigramIndex is a local index of the files of a workspace, which narrows the files to search for a pattern
+ * down to the ones which may contain its {@link RequiredLiteral}.
+ * <p>
+ * Every file gets a small Bloom-filter signature of the (ASCII case folded) byte trigrams of its content, and
+ * a file is a candidate for a literal if its signature contains all the trigrams of the literal. A signature
+ * never misses a trigram of the file, so the candidates always contain every file which can match, and
+ * verifying them with {@link GrepEngine#searchFiles} gives the same result as a full scan.
+ * </p>
+ * <p>
+ * The index is built in the background by {@link #start()}, walking the workspace with the same ignore rules
+ * as {@link FilePathFilter}, and kept up to date with a {@link WatchService}. The pending file changes are
+ * applied before each lookup as well, and the index is rebuilt if the watch service overflows or an ignore
+ * file changes. If an index file is configured, the signatures are persisted there, so that a restart only
+ * re-reads the changed files. Until the index is ready, {@link #findCandidates} returns nothing and callers
+ * fall back to a full scan. A failed build, e.g. because the limit of watches of the user is reached, releases
+ * its watches and is retried later with a growing delay.
+ * </p>
+ * <p>
+ * Watch services deliver the changes asynchronously, and some of them only poll the file system every few
+ * seconds, so the index does not rely on the reported changes alone: every {@link IndexConfig#sweepInterval}
+ * the background refresh also compares the modified time of the watched directories and the size and modified
+ * time of the indexed files with the indexed ones, and rescans or re-reads the changed ones. A lookup does not
+ * touch the file system beyond the pending changes, so that it takes milliseconds on large workspaces, and it
+ * sees a change as soon as the watch service reports it, or at the latest after the next sweep.
+ * </p>
+ *
+ * @author vyckey
+ */
+@Slf4j
+public class TrigramIndex implements Closeable {
+    private static final int MAGIC = 0x54524749;
+    private static final int VERSION = 1;
+    private static final int TRIGRAM_LENGTH = 3;
+    private static final int MIN_SIGNATURE_BITS = 64;
+    private static final int MAX_SIGNATURE_BITS = 1 << 22;
+    /**
+     * Files modified this close to the time they were indexed may have changed again without a different
+     * modified time, so they are re-read when the persisted index is loaded.
+     */
+    private static final long RACY_MILLIS = 2000;
+    /**
+     * The retry delay of failed builds doubles up to 32 times the retry interval.
+     */
+    private static final int MAX_RETRY_SHIFT = 5;
+    private static final ThreadLocal<TrigramCollector> COLLECTORS = ThreadLocal.withInitial(TrigramCollector::new);
+
+    private final Path root;
+    private final IndexConfig config;
+    private final Optional<Path> gitRootPath;
+    private final Map<Path, FileEntry> entries = new ConcurrentHashMap<>();
+    private final Map<Path, WatchedDirectory> directories = new HashMap<>();
+    private final Map<Path, FileStamp> ignoreFiles = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final WatchService watchService;
+    private final ScheduledExecutorService executor;
+    private volatile boolean ready;
+    private volatile boolean closed;
+    private volatile FilePathFilter filter;
+    private long filterTime;
+    private long sweptTime;
+    private int failedBuilds;
+    private boolean loaded;
+
+    public TrigramIndex(Path root, IndexConfig config) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.config = Objects.requireNonNull(config, "config is required");
+        this.gitRootPath = GitUtils.findGitRootPath(this.root);
+        this.watchService = this.root.getFileSystem().newWatchService();
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("TrigramIndex-T%d").setDaemon(true).build());
+    }
+
+    public TrigramIndex(Path root) throws IOException {
+        this(root, new IndexConfig());
+    }
+
+    /**
+     * Starts building the index in the background, and applying the file changes periodically afterwards.
+     */
+    public void start() {
+        scheduleBuild();
+        long interval = config.refreshInterval.toMillis();
+        executor.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the number of indexed files.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Finds the files under a directory which may contain a match of the pattern.
+     *
+     * @param directory the directory to search in
+     * @param pattern   the pattern to search for
+     * @return the absolute paths of the candidate files, or empty if the index cannot narrow the search, e.g.
+     * because it is not ready, the directory is not covered or not indexed yet, or the pattern has no literal of
+     * three bytes
+     */
+    public Optional<List<Path>> findCandidates(Path directory, Pattern pattern) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        directory = directory.toAbsolutePath().normalize();
+        RequiredLiteral literal = RequiredLiteral.of(pattern);
+        if (literal == null || !covers(directory)) {
+            return Optional.empty();
+        }
+        int[] trigrams = trigramsOf(literal.bytes());
+        if (trigrams.length == 0) {
+            return Optional.empty();
+        }
+
+        lock.lock();
+        try {
+            // only the directories with pending changes are visited, the background refresh sweeps the others
+            if (!ready || !applyChanges() || !directories.containsKey(directory)) {
+                return Optional.empty();
+            }
+        } finally {
+            lock.unlock();
+        }
+        boolean wholeRoot = directory.equals(root);
+        Path searchDirectory = directory;
+        List<Path> candidates = entries.entrySet().parallelStream()
+                .filter(entry -> wholeRoot || entry.getKey().startsWith(searchDirectory))
+                .filter(entry -> entry.getValue().mayContain(trigrams))
+                .map(Map.Entry::getKey)
+                .toList();
+        return Optional.of(candidates);
+    }
+
+    /**
+     * Checks whether the files of a directory are walked with the same ignore rules as the index, which holds
+     * for the subdirectories sharing the git repository of the index root, unless they are ignored themselves.
+     */
+    private boolean covers(Path directory) {
+        if (directory.equals(root)) {
+            return true;
+        }
+        if (!directory.startsWith(root) || gitRootPath.isEmpty()
+                || !gitRootPath.equals(GitUtils.findGitRootPath(directory))) {
+            return false;
+        }
+        for (Path path = directory; !path.equals(root); path = path.getParent()) {
+            if (GitUtils.GIT_DIR_NAME.equals(path.getFileName().toString()) || filter.isIgnored(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void scheduleBuild() {
+        try {
+            executor.execute(this::build);
+        } catch (RejectedExecutionException e) {
+            log.debug("Trigram index of {} is closed", root);
+        }
+    }
+
+    private void build() {
+        if (closed) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            if (!loaded && config.indexFile != null) {
+                loaded = true;
+                load(config.indexFile);
+            }
+            Map<Path, BasicFileAttributes> files = new HashMap<>();
+            lock.lock();
+            try {
+                long scanTime = System.currentTimeMillis();
+                // the cached ignore rules are out of date if a changed ignore file triggered the rebuild
+                IgnoreFileFilter.evictCache(gitRootPath.orElse(root));
+                filter = FilePathFilter.builder(root).build();
+                filterTime = scanTime;
+                sweptTime = scanTime;
+                ignoreFiles.clear();
+                trackParentIgnoreFiles();
+                walk(root, files);
+                directories.entrySet().removeIf(entry -> {
+                    if (entry.getValue().scannedTime() < scanTime) {
+                        entry.getValue().key().cancel();
+                        return true;
+                    }
+                    return false;
+                });
+            } finally {
+                lock.unlock();
+            }
+            files.entrySet().parallelStream().forEach(file -> indexFile(file.getKey(), file.getValue()));
+            entries.keySet().retainAll(files.keySet());
+
+            lock.lock();
+            try {
+                ready = applyChanges();
+            } finally {
+                lock.unlock();
+            }
+            failedBuilds = 0;
+            log.info("Built trigram index of {} files in {} ms", entries.size(), System.currentTimeMillis() - startTime);
+            save();
+        } catch (IOException | ClosedWatchServiceException e) {
+            if (!closed) {
+                retryBuild(e);
+            }
+        }
+    }
+
+    /**
+     * Releases the watches of a failed build and schedules it again, doubling the delay after each failure,
+     * since the limit of watches may be reached because of other watching processes which go away later.
+     */
+    private void retryBuild(Exception e) {
+        lock.lock();
+        try {
+            directories.values().forEach(watched -> watched.key().cancel());
+            directories.clear();
+        } finally {
+            lock.unlock();
+        }
+        long delay = config.retryInterval.toMillis() << Math.min(failedBuilds++, MAX_RETRY_SHIFT);
+        log.warn("Failed to build trigram index of {}, searches scan the files until a retry in {} ms succeeds: {}",
+                root, delay, e.getMessage());
+        try {
+            executor.schedule(this::build, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            log.debug("Trigram index of {} is closed", root);
+        }
+    }
+
+    private void refresh() {
+        if (!ready) {
+            return;
+        }
+        try {
+            boolean sweep = System.currentTimeMillis() - sweptTime >= config.sweepInterval.toMillis();
+            Map<Path, WatchedDirectory> watchedDirectories;
+            lock.lock();
+            try {
+                if (ready) {
+                    ready = applyChanges() && checkIgnoreFiles();
+                }
+                if (!ready || !sweep) {
+                    return;
+                }
+                watchedDirectories = new HashMap<>(directories);
+            } finally {
+                lock.unlock();
+            }
+            sweptTime = System.currentTimeMillis();
+            if (sweepDirectories(watchedDirectories)) {
+                entries.forEach(this::refreshFile);
+            }
+        } catch (ClosedWatchServiceException e) {
+            ready = false;
+        }
+    }
+
+    /**
+     * Applies the pending file changes reported by the watch service. The caller must hold the lock.
+     *
+     * @return {@code false} if the changes are lost or the ignore rules changed, and the index is being rebuilt
+     */
+    private boolean applyChanges() {
+        boolean overflowed = false;
+        boolean ignoreRulesChanged = false;
+        WatchKey key;
+        while ((key = watchService.poll()) != null) {
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflowed = true;
+                } else if (!overflowed) {
+                    Path path = directory.resolve((Path) event.context());
+                    if (isIgnoreFile(path)) {
+                        ignoreRulesChanged |= ignoreFileChanged(path);
+                        continue;
+                    }
+                    try {
+                        applyChange(path);
+                    } catch (IOException e) {
+                        log.warn("Failed to update trigram index of {}: {}", directory, e.getMessage());
+                        overflowed = true;
+                    }
+                }
+            }
+            WatchKey watchKey = key;
+            if (!key.reset()) {
+                directories.computeIfPresent(directory, (path, watched) -> watched.key() == watchKey ? null : watched);
+            }
+        }
+        if (overflowed || ignoreRulesChanged) {
+            rebuild(overflowed ? "Lost file changes" : "Ignore rules changed");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the tracked ignore files are unchanged. The caller must hold the lock.
+     *
+     * @return {@code false} if an ignore file changed and the index is being rebuilt
+     */
+    private boolean checkIgnoreFiles() {
+        for (Path ignoreFile : ignoreFiles.keySet()) {
+            if (ignoreFileChanged(ignoreFile)) {
+                rebuild("Ignore file " + ignoreFile + " changed");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rescans the watched directories whose modified time differs from the one they were scanned with, since
+     * the watch service may not have reported their changes. The directories are checked without the lock, so
+     * that lookups only wait for the rescans of the changed ones.
+     *
+     * @param watchedDirectories a snapshot of the watched directories
+     * @return {@code false} if the index is being rebuilt
+     */
+    private boolean sweepDirectories(Map<Path, WatchedDirectory> watchedDirectories) {
+        Map<Path, BasicFileAttributes> changedDirectories = new HashMap<>();
+        for (Map.Entry<Path, WatchedDirectory> entry : watchedDirectories.entrySet()) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(entry.getKey(), BasicFileAttributes.class,
+                        LinkOption.NOFOLLOW_LINKS);
+                if (entry.getValue().isChanged(attributes)) {
+                    changedDirectories.put(entry.getKey(), attributes);
+                }
+            } catch (NoSuchFileException e) {
+                changedDirectories.put(entry.getKey(), null);
+            } catch (IOException e) {
+                log.warn("Failed to update trigram index of {}: {}", entry.getKey(), e.getMessage());
+                rebuild("Lost file changes");
+                return false;
+            }
+        }
+        if (changedDirectories.isEmpty()) {
+            return true;
+        }
+
+        lock.lock();
+        try {
+            for (Map.Entry<Path, BasicFileAttributes> entry : changedDirectories.entrySet()) {
+                Path changedDirectory = entry.getKey();
+                WatchedDirectory watched = directories.get(changedDirectory);
+                if (!ready || watched == null || watched != watchedDirectories.get(changedDirectory)) {
+                    // removed, rescanned or rebuilt meanwhile
+                    continue;
+                }
+                if (entry.getValue() == null) {
+                    remove(changedDirectory);
+                } else if (!rescan(changedDirectory, watched, entry.getValue())) {
+                    rebuild("Ignore rules changed");
+                    return false;
+                }
+            }
+            return ready;
+        } catch (IOException e) {
+            log.warn("Failed to update trigram index of {}: {}", root, e.getMessage());
+            rebuild("Lost file changes");
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies the new children of a changed directory, and removes the ones which are gone. The indexed files
+     * are left to {@link #refreshFile}, which re-reads them without the lock.
+     *
+     * @return {@code false} if an ignore file changed
+     */
+    private boolean rescan(Path directory, WatchedDirectory watched, BasicFileAttributes attributes) throws IOException {
+        directories.put(directory, new WatchedDirectory(watched.key(),
+                attributes.lastModifiedTime().toMillis(), System.currentTimeMillis()));
+        Set<Path> children;
+        try (Stream<Path> stream = Files.list(directory)) {
+            children = stream.collect(Collectors.toSet());
+        }
+        for (Path child : children) {
+            if (isIgnoreFile(child)) {
+                if (ignoreFileChanged(child)) {
+                    return false;
+                }
+            } else if (!entries.containsKey(child)) {
+                applyChange(child);
+            }
+        }
+        entries.keySet().removeIf(file -> directory.equals(file.getParent()) && !children.contains(file));
+        for (Path subdirectory : new ArrayList<>(directories.keySet())) {
+            if (directory.equals(subdirectory.getParent()) && !children.contains(subdirectory)) {
+                remove(subdirectory);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Re-reads an indexed file if its size or modified time differs from the indexed ones, since the watch
+     * service may not have reported its change. It runs without the lock, so the entry is only replaced or
+     * removed if it is still the given one, and a change applied meanwhile is kept.
+     */
+    private void refreshFile(Path file, FileEntry entry) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            if (attributes.isRegularFile()) {
+                FileEntry updated = readEntry(file, attributes, entry);
+                if (updated != entry) {
+                    entries.replace(file, entry, updated);
+                }
+                return;
+            }
+        } catch (NoSuchFileException e) {
+            // removed below
+        } catch (IOException e) {
+            // the file is verified by the search anyway
+            return;
+        }
+        entries.remove(file, entry);
+    }
+
+    private void rebuild(String reason) {
+        log.info("{}, rebuilding trigram index of {}", reason, root);
+        ready = false;
+        scheduleBuild();
+    }
+
+    private static boolean isIgnoreFile(Path path) {
+        Path fileName = path.getFileName();
+        return fileName != null && (IgnoreFileFilter.GIT_IGNORE_FILE_NAME.equalsIgnoreCase(fileName.toString())
+                || IgnoreFileFilter.AGENT_IGNORE_FILE_NAME.equalsIgnoreCase(fileName.toString()));
+    }
+
+    private boolean ignoreFileChanged(Path ignoreFile) {
+        return !FileStamp.of(ignoreFile).equals(ignoreFiles.get(ignoreFile));
+    }
+
+    /**
+     * Tracks the ignore files of the parent directories up to the git repository root, which apply to the
+     * files of the index as well. The caller must hold the lock.
+     */
+    private void trackParentIgnoreFiles() {
+        if (gitRootPath.isEmpty()) {
+            return;
+        }
+        for (Path directory = root.getParent(); directory != null && directory.startsWith(gitRootPath.get());
+             directory = directory.getParent()) {
+            trackIgnoreFile(directory.resolve(IgnoreFileFilter.GIT_IGNORE_FILE_NAME), FileStamp.of(
+                    directory.resolve(IgnoreFileFilter.GIT_IGNORE_FILE_NAME)));
+            trackIgnoreFile(directory.resolve(IgnoreFileFilter.AGENT_IGNORE_FILE_NAME), FileStamp.of(
+                    directory.resolve(IgnoreFileFilter.AGENT_IGNORE_FILE_NAME)));
+        }
+    }
+
+    private void trackIgnoreFile(Path ignoreFile, FileStamp stamp) {
+        // a file modified while the rules were read may have changed again without a different modified time
+        ignoreFiles.put(ignoreFile, stamp.modifiedTime() >= filterTime - RACY_MILLIS ? FileStamp.UNSTABLE : stamp);
+    }
+
+    private void applyChange(Path path) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            remove(path);
+            return;
+        }
+        if (attributes.isDirectory()) {
+            if (!directories.containsKey(path) && isWalkable(path)) {
+                Map<Path, BasicFileAttributes> files = new HashMap<>();
+                walk(path, files);
+                files.forEach(this::indexFile);
+            }
+        } else if (attributes.isRegularFile() && filter.matchPath(root, path) == FilePathFilter.MatchType.MATCHED) {
+            indexFile(path, attributes);
+        } else {
+            remove(path);
+        }
+    }
+
+    private void remove(Path path) {
+        if (entries.remove(path) != null) {
+            return;
+        }
+        WatchedDirectory watched = directories.remove(path);
+        if (watched != null) {
+            watched.key().cancel();
+            entries.keySet().removeIf(file -> file.startsWith(path));
+            directories.entrySet().removeIf(entry -> {
+                if (entry.getKey().startsWith(path)) {
+                    entry.getValue().key().cancel();
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    private boolean isWalkable(Path directory) {
+        return !GitUtils.GIT_DIR_NAME.equals(directory.getFileName().toString()) && !filter.isIgnored(directory);
+    }
+
+    /**
+     * Walks a directory like {@link GrepEngine}, watching the directories, tracking the ignore files and
+     * collecting the matched files. The caller must hold the lock.
+     */
+    private void walk(Path start, Map<Path, BasicFileAttributes> files) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+                if (!directory.equals(root) && !isWalkable(directory)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                long scannedTime = System.currentTimeMillis();
+                WatchedDirectory watched = directories.get(directory);
+                WatchKey key = watched != null ? watched.key() : directory.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                directories.put(directory, new WatchedDirectory(key, attributes.lastModifiedTime().toMillis(), scannedTime));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (isIgnoreFile(file)) {
+                    trackIgnoreFile(file, FileStamp.of(attributes));
+                }
+                if (attributes.isRegularFile() && filter.matchPath(root, file) == FilePathFilter.MatchType.MATCHED) {
+                    files.put(file, attributes);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void indexFile(Path file, BasicFileAttributes attributes) {
+        FileEntry entry = entries.get(file);
+        FileEntry updated = readEntry(file, attributes, entry);
+        if (updated != entry) {
+            entries.put(file, updated);
+        }
+    }
+
+    /**
+     * Reads the signature of a file, unless its size and modified time are the ones of its entry.
+     *
+     * @return the given entry if the file is unchanged, otherwise a new entry
+     */
+    private FileEntry readEntry(Path file, BasicFileAttributes attributes, FileEntry entry) {
+        long size = attributes.size();
+        long modifiedTime = attributes.lastModifiedTime().toMillis();
+        if (entry != null && entry.size == size && entry.modifiedTime == modifiedTime
+                && modifiedTime < entry.indexedTime - RACY_MILLIS) {
+            return entry;
+        }
+
+        long indexedTime = System.currentTimeMillis();
+        long[] signature;
+        if (size > config.maxFileBytes) {
+            signature = null;
+        } else {
+            try {
+                signature = signatureOf(Files.readAllBytes(file));
+            } catch (IOException e) {
+                // the file is verified by the search anyway
+                signature = null;
+            }
+        }
+        return new FileEntry(size, modifiedTime, indexedTime, signature);
+    }
+
+    private long[] signatureOf(byte[] content) {
+        int probe = Math.min(content.length, config.binaryProbeBytes);
+        for (int i = 0; i < probe; i++) {
+            if (content[i] == 0) {
+                return FileEntry.NO_MATCH;
+            }
+        }
+        TrigramCollector collector = COLLECTORS.get();
+        int count = collector.collect(content);
+        if (count == 0) {
+            return FileEntry.NO_MATCH;
+        }
+        long wanted = (long) count * config.bitsPerTrigram;
+        int bits = (int) Math.min(MAX_SIGNATURE_BITS, Math.max(MIN_SIGNATURE_BITS, Long.highestOneBit(wanted - 1) << 1));
+        long[] signature = new long[bits / Long.SIZE];
+        for (int i = 0; i < count; i++) {
+            int trigram = collector.trigrams[i];
+            setBit(signature, hash1(trigram));
+            setBit(signature, hash2(trigram));
+        }
+        collector.clear(count);
+        return signature;
+    }
+
+    static int[] trigramsOf(byte[] literal) {
+        Set<Integer> trigrams = new HashSet<>();
+        for (int i = 0; i + TRIGRAM_LENGTH <= literal.length; i++) {
+            trigrams.add(trigram(literal, i));
+        }
+        return trigrams.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int trigram(byte[] bytes, int offset) {
+        return fold(bytes[offset]) << 16 | fold(bytes[offset + 1]) << 8 | fold(bytes[offset + 2]);
+    }
+
+    private static int fold(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b & 0xFF;
+    }
+
+    private static int hash1(int trigram) {
+        int h = trigram * 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash2(int trigram) {
+        int h = trigram * 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    private static void setBit(long[] signature, int hash) {
+        int bit = hash & (signature.length * Long.SIZE - 1);
+        signature[bit >>> 6] |= 1L << bit;
+    }
+
+    private static boolean hasBit(long[] signature, int hash) {
+        int bit = hash & (signature.length * Long.SIZE - 1);
+        return (signature[bit >>> 6] & 1L << bit) != 0;
+    }
+
+    private void load(Path indexFile) {
+        if (!Files.isRegularFile(indexFile)) {
+            return;
+        }
+        try (InputStream inputStream = Files.newInputStream(indexFile);
+             DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION || !root.toString().equals(input.readUTF())) {
+                log.info("Ignored incompatible trigram index file {}", indexFile);
+                return;
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                Path file = root.resolve(input.readUTF());
+                long size = input.readLong();
+                long modifiedTime = input.readLong();
+                long indexedTime = input.readLong();
+                int length = input.readInt();
+                long[] signature = null;
+                if (length >= 0) {
+                    signature = new long[length];
+                    for (int j = 0; j < length; j++) {
+                        signature[j] = input.readLong();
+                    }
+                }
+                entries.put(file, new FileEntry(size, modifiedTime, indexedTime, signature));
+            }
+        } catch (IOException e) {
+            log.warn("Failed to load trigram index file {}: {}", indexFile, e.getMessage());
+            entries.clear();
+        }
+    }
+
+    private void save() {
+        Path indexFile = config.indexFile;
+        if (indexFile == null || !ready) {
+            return;
+        }
+        try {
+            Path parent = indexFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tempFile = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeUTF(root.toString());
+                List<Map.Entry<Path, FileEntry>> snapshot = new ArrayList<>(entries.entrySet());
+                output.writeInt(snapshot.size());
+                for (Map.Entry<Path, FileEntry> entry : snapshot) {
+                    FileEntry fileEntry = entry.getValue();
+                    output.writeUTF(root.relativize(entry.getKey()).toString());
+                    output.writeLong(fileEntry.size);
+                    output.writeLong(fileEntry.modifiedTime);
+                    output.writeLong(fileEntry.indexedTime);
+                    output.writeInt(fileEntry.signature != null ? fileEntry.signature.length : -1);
+                    if (fileEntry.signature != null) {
+                        for (long word : fileEntry.signature) {
+                            output.writeLong(word);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to save trigram index file {}: {}", indexFile, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            save();
+            ready = false;
+            watchService.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The indexed state of a file.
+     *
+     * @param signature the trigram signature, empty if the file cannot match, or {@code null} if the file is not
+     *                  indexed, e.g. because it is too large, so that it is always a candidate
+     */
+    private record FileEntry(long size, long modifiedTime, long indexedTime, long[] signature) {
+        static final long[] NO_MATCH = new long[0];
+
+        boolean mayContain(int[] trigrams) {
+            if (signature == null) {
+                return true;
+            }
+            if (signature.length == 0) {
+                return false;
+            }
+            for (int trigram : trigrams) {
+                if (!hasBit(signature, hash1(trigram)) || !hasBit(signature, hash2(trigram))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A watched directory.
+     *
+     * @param modifiedTime the modified time of the directory when it was scanned
+     * @param scannedTime  the time the directory was scanned
+     */
+    private record WatchedDirectory(WatchKey key, long modifiedTime, long scannedTime) {
+        boolean isChanged(BasicFileAttributes attributes) {
+            // entries added right after the scan may not change the modified time of the directory
+            return attributes.lastModifiedTime().toMillis() != modifiedTime || modifiedTime >= scannedTime - RACY_MILLIS;
+        }
+    }
+
+    /**
+     * The size and modified time of a file, used to detect the changes of the ignore files.
+     */
+    private record FileStamp(long size, long modifiedTime) {
+        static final FileStamp MISSING = new FileStamp(-1, -1);
+        /**
+         * A stamp which differs from any file, for the files which have to be considered changed.
+         */
+        static final FileStamp UNSTABLE = new FileStamp(-2, -2);
+
+        static FileStamp of(BasicFileAttributes attributes) {
+            return new FileStamp(attributes.size(), attributes.lastModifiedTime().toMillis());
+        }
+
+        static FileStamp of(Path file) {
+            try {
+                return of(Files.readAttributes(file, BasicFileAttributes.class));
+            } catch (IOException e) {
+                return MISSING;
+            }
+        }
+    }
+
+    /**
+     * Collects the distinct trigrams of a content, with a bit set over all the 2^24 trigrams reused across files.
+     */
+    private static final class TrigramCollector {
+        private final long[] seen = new long[(1 << 24) / Long.SIZE];
+        private int[] trigrams = new int[1024];
+
+        int collect(byte[] content) {
+            int count = 0;
+            for (int i = 0; i + TRIGRAM_LENGTH <= content.length; i++) {
+                int trigram = trigram(content, i);
+                long mask = 1L << trigram;
+                if ((seen[trigram >>> 6] & mask) == 0) {
+                    seen[trigram >>> 6] |= mask;
+                    if (count == trigrams.length) {
+                        trigrams = Arrays.copyOf(trigrams, count * 2);
+                    }
+                    trigrams[count++] = trigram;
+                }
+            }
+            return count;
+        }
+
+        void clear(int count) {
+            for (int i = 0; i < count; i++) {
+                seen[trigrams[i] >>> 6] = 0;
+            }
+        }
+    }
+
+    public static class IndexConfig {
+        private Path indexFile;
+        private int bitsPerTrigram = 4;
+        private long maxFileBytes = 16L * 1024 * 1024;
+        private int binaryProbeBytes = 8 * 1024;
+        private Duration refreshInterval = Duration.ofSeconds(1);
+        private Duration sweepInterval = Duration.ofSeconds(5);
+        private Duration retryInterval = Duration.ofSeconds(30);
+
+        /**
+         * Sets the file to persist the index to, which is not persisted by default.
+         */
+        public IndexConfig indexFile(Path indexFile) {
+            this.indexFile = indexFile;
+            return this;
+        }
+
+        /**
+         * Sets the signature bits per distinct trigram of a file, 4 by default. More bits take more memory,
+         * and give less false candidates.
+         */
+        public IndexConfig bitsPerTrigram(int bitsPerTrigram) {
+            if (bitsPerTrigram <= 0) {
+                throw new IllegalArgumentException("bitsPerTrigram must be positive");
+            }
+            this.bitsPerTrigram = bitsPerTrigram;
+            return this;
+        }
+
+        /**
+         * Sets the max size of the indexed files, 16MB by default. Larger files are always candidates.
+         */
+        public IndexConfig maxFileBytes(long maxFileBytes) {
+            if (maxFileBytes <= 0 || maxFileBytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("maxFileBytes must be positive and fit in an int");
+            }
+            this.maxFileBytes = maxFileBytes;
+            return this;
+        }
+
+        /**
+         * Sets how many leading bytes are probed for a NUL byte to skip binary files, 8KB by default.
+         * It must not exceed the one of the {@link GrepEngine.GrepConfig} of the search, otherwise files
+         * searched by the engine could be skipped by the index.
+         */
+        public IndexConfig binaryProbeBytes(int binaryProbeBytes) {
+            if (binaryProbeBytes < 0) {
+                throw new IllegalArgumentException("binaryProbeBytes must be non-negative");
+            }
+            this.binaryProbeBytes = binaryProbeBytes;
+            return this;
+        }
+
+        /**
+         * Sets how often the file changes are applied in the background, 1 second by default.
+         */
+        public IndexConfig refreshInterval(Duration refreshInterval) {
+            if (refreshInterval == null || refreshInterval.isNegative() || refreshInterval.isZero()) {
+                throw new IllegalArgumentException("refreshInterval must be positive");
+            }
+            this.refreshInterval = refreshInterval;
+            return this;
+        }
+
+        /**
+         * Sets how often the background refresh compares the watched directories and the indexed files with the
+         * file system, to find the changes the watch service has not reported, 5 seconds by default.
+         */
+        public IndexConfig sweepInterval(Duration sweepInterval) {
+            if (sweepInterval == null || sweepInterval.isNegative() || sweepInterval.isZero()) {
+                throw new IllegalArgumentException("sweepInterval must be positive");
+            }
+            this.sweepInterval = sweepInterval;
+            return this;
+        }
+
+        /**
+         * Sets the delay before a failed build is retried, 30 seconds by default. The delay doubles after each
+         * failure in a row.
+         */
+        public IndexConfig retryInterval(Duration retryInterval) {
+            if (retryInterval == null || retryInterval.isNegative() || retryInterval.isZero()) {
+                throw new IllegalArgumentException("retryInterval must be positive");
+            }
+            this.retryInterval = retryInterval;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.tools.file.find;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListeners;
+import com.google.common.cache.RemovalNotification;
+import lombok.extern.slf4j.Slf4j;
+import org.metaagent.framework.core.config.WorkspaceConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * WorkspaceTrigramIndexes keeps a {@link TrigramIndex} per workspace, so that a tool shared by several
+ * workspaces can narrow its searches. The index of a workspace is rooted at its project directory, or its
+ * current working directory if it is not in a git repository, and is created and started by the first search
+ * in the workspace.
+ * <p>
+ * Each index watches and holds the signatures of a whole workspace, so at most {@code maxIndexes} indexes are
+ * kept, and the ones not searched for {@code idleTimeout} are closed. An index which cannot be created, e.g.
+ * because the limit of watch services of the user is reached, is not created again before {@code idleTimeout}
+ * either, and the searches of its workspace scan the files meanwhile.
+ * </p>
+ *
+ * @author vyckey
+ */
+@Slf4j
+public class WorkspaceTrigramIndexes implements Closeable {
+    public static final int DEFAULT_MAX_INDEXES = 8;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    private final Function<Path, TrigramIndex.IndexConfig> configProvider;
+    private final Cache<Path, TrigramIndex> indexes;
+    private final Cache<Path, Boolean> failedRoots;
+    private volatile boolean closed;
+
+    /**
+     * Creates the indexes with a config provider, e.g. to persist the index of each workspace to its own file.
+     *
+     * @param configProvider the provider of the index config by the workspace root
+     * @param maxIndexes     the max number of indexes to keep, the least recently searched one is closed first
+     * @param idleTimeout    the time after which an index which is not searched is closed
+     */
+    public WorkspaceTrigramIndexes(Function<Path, TrigramIndex.IndexConfig> configProvider, int maxIndexes,
+                                   Duration idleTimeout) {
+        this.configProvider = Objects.requireNonNull(configProvider, "configProvider is required");
+        if (maxIndexes <= 0) {
+            throw new IllegalArgumentException("maxIndexes must be positive");
+        }
+        if (idleTimeout == null || idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must be positive");
+        }
+        // closing an index waits for its background tasks, so the evicted ones are closed off the search thread
+        this.indexes = CacheBuilder.newBuilder()
+                .maximumSize(maxIndexes)
+                .expireAfterAccess(idleTimeout)
+                .removalListener(RemovalListeners.asynchronous(this::onRemoval, ForkJoinPool.commonPool()))
+                .build();
+        this.failedRoots = CacheBuilder.newBuilder()
+                .maximumSize(1024)
+                .expireAfterWrite(idleTimeout)
+                .build();
+    }
+
+    public WorkspaceTrigramIndexes(Function<Path, TrigramIndex.IndexConfig> configProvider) {
+        this(configProvider, DEFAULT_MAX_INDEXES, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public WorkspaceTrigramIndexes() {
+        this(root -> new TrigramIndex.IndexConfig());
+    }
+
+    /**
+     * Gets the index of a workspace, creating and starting it on the first call.
+     *
+     * @param workspaceConfig the workspace config
+     * @return the index of the workspace, or empty if it cannot be created or the indexes are closed
+     */
+    public Optional<TrigramIndex> getIndex(WorkspaceConfig workspaceConfig) {
+        if (closed) {
+            return Optional.empty();
+        }
+        // closes the idle indexes, which are not evicted until the cache is accessed otherwise
+        indexes.cleanUp();
+        Path root = workspaceConfig.projectDirectory() != null
+                ? workspaceConfig.projectDirectory() : workspaceConfig.currentWorkingDirectory();
+        root = root.toAbsolutePath().normalize();
+        if (failedRoots.getIfPresent(root) != null) {
+            return Optional.empty();
+        }
+        TrigramIndex index = indexes.asMap().computeIfAbsent(root, this::createIndex);
+        if (closed && index != null) {
+            // created while closing
+            indexes.invalidate(root);
+            closeIndex(index);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(index);
+    }
+
+    /**
+     * Returns the number of open indexes.
+     */
+    public long size() {
+        indexes.cleanUp();
+        return indexes.size();
+    }
+
+    private TrigramIndex createIndex(Path root) {
+        try {
+            TrigramIndex index = new TrigramIndex(root, configProvider.apply(root));
+            index.start();
+            return index;
+        } catch (IOException e) {
+            log.warn("Failed to create trigram index of {}, searches scan the files: {}", root, e.getMessage());
+            failedRoots.put(root, Boolean.TRUE);
+            return null;
+        }
+    }
+
+    private void onRemoval(RemovalNotification<Path, TrigramIndex> notification) {
+        // the explicitly removed indexes are closed by close()
+        if (notification.wasEvicted() && notification.getValue() != null) {
+            closeIndex(notification.getValue());
+        }
+    }
+
+    private static void closeIndex(TrigramIndex index) {
+        try {
+            index.close();
+        } catch (IOException e) {
+            log.warn("Failed to close trigram index of {}: {}", index.getRoot(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        List<TrigramIndex> openIndexes = new ArrayList<>(indexes.asMap().values());
+        indexes.invalidateAll();
+        openIndexes.forEach(WorkspaceTrigramIndexes::closeIndex);
+    }
+}
@@ -95,12 +95,26 @@ public record FilePathFilter(List<Pattern> patterns,
                 return MatchType.EXCLUDED;
             }
         }
+        if (isIgnored(filePath)) {
+            return MatchType.IGNORED;
+        }
+        return MatchType.MATCHED;
+    }
+
+    /**
+     * Checks whether a file or directory is ignored by the ignore files, regardless of the patterns.
+     * Directory walkers use it to prune ignored directories instead of matching every file inside.
+     *
+     * @param filePath the absolute path of the file or directory
+     * @return {@code true} if the path is ignored
+     */
+    public boolean isIgnored(Path filePath) {
         for (IgnoreFileFilter ignoreFileFilter : ignoreFileFilters) {
             if (ignoreFileFilter.ignoreFile(filePath)) {
-                return MatchType.IGNORED;
+                return true;
             }
         }
-        return MatchType.MATCHED;
+        return false;
     }
 
     public enum MatchType {
@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.tools.file.find;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.metaagent.framework.tools.file.util.FilePathFilter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link GrepEngine}.
+ *
+ * @author vyckey
+ */
+class GrepEngineTest {
+    @TempDir
+    Path tempDir;
+
+    private final GrepEngine grepEngine = new GrepEngine(new GrepEngine.GrepConfig().mmapThresholdBytes(64));
+
+    private GrepEngine.GrepResult search(GrepEngine.GrepQuery query) throws IOException {
+        return grepEngine.search(tempDir, FilePathFilter.builder(tempDir).build(), query, () -> false);
+    }
+
+    @Test
+    void searchMatchedLines() throws IOException {
+        Files.writeString(tempDir.resolve("a.txt"), "hello world\nfoo bar\r\nhello again\n");
+        Files.createDirectories(tempDir.resolve("sub"));
+        Files.writeString(tempDir.resolve("sub/b.txt"), "nothing here\n".repeat(10) + "say hello\n");
+        Files.write(tempDir.resolve("c.bin"), new byte[]{'h', 'e', 'l', 'l', 'o', 0, 1});
+
+        GrepEngine.GrepResult result = search(GrepEngine.GrepQuery.of(Pattern.compile("hel+o")));
+        assertFalse(result.truncated());
+        List<String> lines = result.matchLines().stream().map(GrepMatchLine::toString).toList();
+        assertEquals(List.of("a.txt:1: hello world", "a.txt:3: hello again",
+                Path.of("sub", "b.txt") + ":11: say hello"), lines);
+
+        result = search(GrepEngine.GrepQuery.of(Pattern.compile("(?i)FOO\\s+BAR$")));
+        assertEquals(1, result.matchLines().size());
+        assertEquals("foo bar", result.matchLines().get(0).lineContent());
+    }
+
+    @Test
+    void searchWithContextLines() throws IOException {
+        Files.writeString(tempDir.resolve("a.txt"), "l1\nl2\nmatch3\nl4\nmatch5\nl6\nl7\nl8\n");
+
+        GrepEngine.GrepResult result = search(new GrepEngine.GrepQuery(Pattern.compile("match"), 1, 10, 1024));
+        List<String> lines = result.matchLines().stream().map(GrepMatchLine::toString).toList();
+        assertEquals(List.of("a.txt-2- l2", "a.txt:3: match3", "a.txt-4- l4", "a.txt:5: match5", "a.txt-6- l6"),
+                lines);
+    }
+
+    @Test
+    void searchShouldStopAtMaxResults() throws IOException {
+        Files.writeString(tempDir.resolve("a.txt"), "match\n".repeat(5));
+
+        GrepEngine.GrepResult result = search(new GrepEngine.GrepQuery(Pattern.compile("match"), 0, 5, 1024));
+        assertEquals(5, result.matchLines().size());
+        assertFalse(result.truncated());
+
+        result = search(new GrepEngine.GrepQuery(Pattern.compile("match"), 0, 3, 1024));
+        assertEquals(3, result.matchLines().size());
+        assertTrue(result.truncated());
+    }
+
+    @Test
+    void searchShouldSkipIgnoredFiles() throws IOException {
+        Files.writeString(tempDir.resolve(".agentignore"), "build/\n*.log\n");
+        Files.createDirectories(tempDir.resolve("build"));
+        Files.writeString(tempDir.resolve("build/out.txt"), "needle\n");
+        Files.writeString(tempDir.resolve("app.log"), "needle\n");
+        Files.writeString(tempDir.resolve("app.txt"), "needle\n");
+
+        GrepEngine.GrepResult result = search(GrepEngine.GrepQuery.of(Pattern.compile("needle")));
+        assertEquals(List.of("app.txt"), result.matchLines().stream().map(GrepMatchLine::filePath).toList());
+    }
+
+    @Test
+    void requiredLiteral() {
+        RequiredLiteral literal = RequiredLiteral.of(Pattern.compile("import\\s+\\w+"));
+        assertNotNull(literal);
+        assertEquals("import", literal.text());
+        assertFalse(literal.wholeRegex());
+
+        literal = RequiredLiteral.of(Pattern.compile("(?i)Hello"));
+        assertNotNull(literal);
+        assertEquals("hello", literal.text());
+        assertTrue(literal.ignoreCase());
+        assertFalse(literal.wholeRegex());
+
+        literal = RequiredLiteral.of(Pattern.compile("TODO:"));
+        assertNotNull(literal);
+        assertTrue(literal.wholeRegex());
+
+        assertNull(RequiredLiteral.of(Pattern.compile("foo|bar")));
+        assertNull(RequiredLiteral.of(Pattern.compile("a?b*")));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.tools.file.find;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.metaagent.framework.core.agent.MetaAgent;
+import org.metaagent.framework.core.security.SecurityLevel;
+import org.metaagent.framework.core.tool.ToolContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link GrepFileTool}.
+ *
+ * @author vyckey
+ */
+class GrepFileToolTest {
+    @TempDir
+    Path tempDir;
+
+    private final GrepFileTool tool = new GrepFileTool();
+    private final ToolContext toolContext = ToolContext.builder()
+            .agent(mock(MetaAgent.class))
+            .securityLevel(SecurityLevel.UNRESTRICTED_DANGEROUSLY)
+            .build();
+
+    private List<String> grep(GrepFileInput input) {
+        return tool.run(toolContext, input).matchLines().stream().map(GrepMatchLine::lineContent).toList();
+    }
+
+    @Test
+    void grepCaseInsensitiveByDefault() throws IOException {
+        Files.writeString(tempDir.resolve("a.txt"), "Hello World\nhello world\nHELLO WORLD\nbye\n");
+
+        GrepFileInput input = GrepFileInput.builder().directory(tempDir.toString())
+                .pattern(Pattern.compile("hello world")).build();
+        assertEquals(List.of("Hello World", "hello world", "HELLO WORLD"), grep(input));
+
+        input = GrepFileInput.builder().directory(tempDir.toString())
+                .pattern(Pattern.compile("hello world")).caseSensitive(true).build();
+        assertEquals(List.of("hello world"), grep(input));
+    }
+}
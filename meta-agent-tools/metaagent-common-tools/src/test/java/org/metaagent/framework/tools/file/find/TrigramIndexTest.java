@@ -0,0 +1,197 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.tools.file.find;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.metaagent.framework.tools.file.util.FilePathFilter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link TrigramIndex}.
+ *
+ * @author vyckey
+ */
+class TrigramIndexTest {
+    @TempDir
+    Path tempDir;
+
+    private final GrepEngine grepEngine = new GrepEngine();
+    private Path workspace;
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workspace = Files.createDirectories(tempDir.resolve("workspace"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    private TrigramIndex startIndex() throws Exception {
+        TrigramIndex trigramIndex = new TrigramIndex(workspace, new TrigramIndex.IndexConfig()
+                .indexFile(tempDir.resolve("index/trigrams.bin"))
+                .refreshInterval(Duration.ofMillis(50))
+                .sweepInterval(Duration.ofMillis(200)));
+        trigramIndex.start();
+        await(trigramIndex::isReady);
+        return trigramIndex;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(20);
+        }
+    }
+
+    private List<String> candidateNames(String regex) {
+        return index.findCandidates(workspace, Pattern.compile(regex)).orElseThrow().stream()
+                .map(path -> workspace.relativize(path).toString())
+                .sorted()
+                .toList();
+    }
+
+    private void assertSameAsFullScan(String regex) throws IOException {
+        GrepEngine.GrepQuery query = GrepEngine.GrepQuery.of(Pattern.compile(regex));
+        FilePathFilter filter = FilePathFilter.builder(workspace).build();
+        List<Path> candidates = index.findCandidates(workspace, query.pattern()).orElseThrow();
+        assertEquals(grepEngine.search(workspace, filter, query, () -> false),
+                grepEngine.searchFiles(workspace, filter, candidates, query, () -> false));
+    }
+
+    @Test
+    void findCandidates() throws Exception {
+        Files.writeString(workspace.resolve("a.java"), "class Alpha { void hello() {} }\n");
+        Files.createDirectories(workspace.resolve("src"));
+        Files.writeString(workspace.resolve("src/b.java"), "class Beta { void world() {} }\n");
+        Files.write(workspace.resolve("c.bin"), new byte[]{'h', 'e', 'l', 'l', 'o', 0});
+        index = startIndex();
+
+        assertEquals(3, index.size());
+        assertEquals(List.of("a.java"), candidateNames("hello\\(\\)"));
+        assertEquals(List.of(Path.of("src", "b.java").toString()), candidateNames("(?i)BETA"));
+        assertTrue(candidateNames("missing").isEmpty());
+        assertFalse(index.findCandidates(workspace, Pattern.compile("a|b")).isPresent());
+        assertFalse(index.findCandidates(tempDir, Pattern.compile("hello")).isPresent());
+        assertSameAsFullScan("void \\w+\\(");
+        assertSameAsFullScan("class\\s+Beta");
+    }
+
+    @Test
+    void updateOnFileChanges() throws Exception {
+        Files.writeString(workspace.resolve("a.txt"), "first version\n");
+        index = startIndex();
+        assertTrue(candidateNames("second").isEmpty());
+
+        Files.writeString(workspace.resolve("a.txt"), "second version\n");
+        Files.createDirectories(workspace.resolve("new/dir"));
+        Files.writeString(workspace.resolve("new/dir/b.txt"), "second file\n");
+        await(() -> candidateNames("second").size() == 2);
+        assertSameAsFullScan("second");
+
+        Files.delete(workspace.resolve("a.txt"));
+        await(() -> candidateNames("version").isEmpty());
+    }
+
+    @Test
+    void sweepChangesNotReported() throws Exception {
+        Path file = Files.writeString(workspace.resolve("a.txt"), "first version\n");
+        // the watch service of the workspace does not report the writes through a link outside of it
+        Path link = Files.createLink(tempDir.resolve("link.txt"), file);
+        index = startIndex();
+
+        Files.writeString(link, "other version\n");
+        await(() -> candidateNames("other").equals(List.of("a.txt")));
+        assertSameAsFullScan("other");
+    }
+
+    @Test
+    void findCandidatesWithoutStatingFiles() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            Path directory = Files.createDirectories(workspace.resolve("dir" + i));
+            for (int j = 0; j < 100; j++) {
+                Files.writeString(directory.resolve("file" + j + ".txt"), "content of file " + i + "-" + j + "\n");
+            }
+        }
+        index = startIndex();
+        assertEquals(5000, index.size());
+        assertEquals(List.of(Path.of("dir7", "file42.txt").toString()), candidateNames("file 7-42\\b"));
+
+        // the lookup only filters the signatures, so it takes far less than statting the 5000 files would
+        int lookups = 20;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            assertTrue(index.findCandidates(workspace, Pattern.compile("file " + i + "-0\\b")).isPresent());
+        }
+        long averageMillis = (System.nanoTime() - startTime) / lookups / 1_000_000;
+        assertTrue(averageMillis < 20, "average lookup took " + averageMillis + " ms");
+    }
+
+    @Test
+    void rebuildOnIgnoreFileChanges() throws Exception {
+        Files.writeString(workspace.resolve("a.txt"), "some content\n");
+        Files.writeString(workspace.resolve("b.log"), "more content\n");
+        index = startIndex();
+        assertEquals(List.of("a.txt", "b.log"), candidateNames("content"));
+
+        Files.writeString(workspace.resolve(".agentignore"), "*.log\n");
+        await(() -> index.findCandidates(workspace, Pattern.compile("content"))
+                .filter(candidates -> candidates.equals(List.of(workspace.resolve("a.txt")))).isPresent());
+        assertSameAsFullScan("content");
+    }
+
+    @Test
+    void reloadPersistedIndex() throws Exception {
+        Files.writeString(workspace.resolve("a.txt"), "persisted content\n");
+        index = startIndex();
+        index.close();
+
+        index = startIndex();
+        assertEquals(List.of("a.txt"), candidateNames("persisted"));
+        Optional<List<Path>> candidates = index.findCandidates(workspace, Pattern.compile("content"));
+        assertEquals(1, candidates.orElseThrow().size());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.tools.file.find;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.metaagent.framework.core.config.WorkspaceConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link WorkspaceTrigramIndexes}.
+ *
+ * @author vyckey
+ */
+class WorkspaceTrigramIndexesTest {
+    @TempDir
+    Path tempDir;
+
+    private WorkspaceTrigramIndexes indexes;
+
+    @AfterEach
+    void tearDown() {
+        if (indexes != null) {
+            indexes.close();
+        }
+    }
+
+    private WorkspaceConfig workspace(String name) throws IOException {
+        Path directory = Files.createDirectories(tempDir.resolve(name));
+        Files.writeString(directory.resolve("a.txt"), "content of " + name + "\n");
+        return new WorkspaceConfig(directory, Set.of(directory), directory);
+    }
+
+    private TrigramIndex readyIndex(WorkspaceConfig workspace) throws InterruptedException {
+        TrigramIndex index = indexes.getIndex(workspace).orElseThrow();
+        await(index::isReady);
+        return index;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void closeLeastRecentlySearchedIndex() throws Exception {
+        indexes = new WorkspaceTrigramIndexes(root -> new TrigramIndex.IndexConfig(), 1, Duration.ofMinutes(1));
+        WorkspaceConfig first = workspace("first");
+        TrigramIndex firstIndex = readyIndex(first);
+        assertSame(firstIndex, indexes.getIndex(first).orElseThrow());
+
+        TrigramIndex secondIndex = readyIndex(workspace("second"));
+        await(() -> !firstIndex.isReady());
+        assertEquals(1, indexes.size());
+        assertTrue(secondIndex.isReady());
+        assertNotSame(firstIndex, indexes.getIndex(first).orElseThrow());
+    }
+
+    @Test
+    void closeIdleIndexes() throws Exception {
+        indexes = new WorkspaceTrigramIndexes(root -> new TrigramIndex.IndexConfig(), 4, Duration.ofMillis(200));
+        TrigramIndex index = readyIndex(workspace("idle"));
+
+        Thread.sleep(300);
+        assertEquals(0, indexes.size());
+        await(() -> !index.isReady());
+    }
+
+    @Test
+    void closeAllIndexes() throws Exception {
+        indexes = new WorkspaceTrigramIndexes();
+        WorkspaceConfig workspace = workspace("closed");
+        TrigramIndex index = readyIndex(workspace);
+
+        indexes.close();
+        assertFalse(index.isReady());
+        assertFalse(indexes.getIndex(workspace).isPresent());
+    }
+}
@@ -24,18 +24,25 @@
 
 package org.metaagent.framework.agents.chat;
 
-import com.google.common.collect.Lists;
 import org.metaagent.framework.agents.chat.context.ChatAgentStepContext;
 import org.metaagent.framework.agents.chat.input.ChatAgentInput;
 import org.metaagent.framework.agents.chat.output.ChatAgentOutput;
+import org.metaagent.framework.common.metadata.MetadataProvider;
 import org.metaagent.framework.core.agent.AbstractStreamAgent;
+import org.metaagent.framework.core.agent.MetaAgent;
 import org.metaagent.framework.core.agent.chat.conversation.Conversation;
 import org.metaagent.framework.core.agent.chat.message.Message;
 import org.metaagent.framework.core.agent.chat.message.MessageId;
 import org.metaagent.framework.core.agent.chat.message.MessageInfo;
+import org.metaagent.framework.core.agent.chat.message.MessageMetadataKeys;
 import org.metaagent.framework.core.agent.chat.message.RoleMessage;
+import org.metaagent.framework.core.agent.chat.message.RoleMessageInfo;
 import org.metaagent.framework.core.agent.chat.message.part.MessagePart;
+import org.metaagent.framework.core.agent.chat.message.part.TextMessagePart;
 import org.metaagent.framework.core.agent.chat.session.Session;
+import org.metaagent.framework.core.agent.chat.session.SessionManager;
+import org.metaagent.framework.core.agent.chat.session.SessionStatus;
+import org.metaagent.framework.core.agent.event.AgentEvent;
 import org.metaagent.framework.core.agent.event.AgentEventBus;
 import org.metaagent.framework.core.agent.event.AgentMessageEvent;
 import org.metaagent.framework.core.agent.exception.AgentExecutionException;
@@ -44,13 +51,25 @@ import org.metaagent.framework.core.agents.llm.LlmStreamingAgent;
 import org.metaagent.framework.core.agents.llm.context.DefaultLlmAgentContext;
 import org.metaagent.framework.core.agents.llm.context.LlmAgentContext;
 import org.metaagent.framework.core.agents.llm.input.LlmAgentInput;
+import org.metaagent.framework.core.agents.llm.message.LlmFinishMessagePart;
+import org.metaagent.framework.core.agents.llm.message.MessageConverter;
 import org.metaagent.framework.core.agents.llm.output.LlmAgentStreamOutput;
+import org.metaagent.framework.core.model.chat.compression.CompressOptions;
+import org.metaagent.framework.core.model.chat.compression.CompressionModel;
+import org.metaagent.framework.core.model.chat.compression.CompressionRequest;
+import org.metaagent.framework.core.model.chat.compression.CompressionResult;
+import org.metaagent.framework.core.model.chat.compression.DefaultCompressOptions;
+import org.metaagent.framework.core.model.chat.compression.IncrementalCompressionModel;
+import org.metaagent.framework.core.model.token.TokenCounter;
 import reactor.core.publisher.Flux;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -59,32 +78,86 @@ import java.util.stream.Collectors;
  * @author vyckey
  */
 public class ChatAgent extends AbstractStreamAgent<ChatAgentInput, ChatAgentOutput, ChatAgentStepContext, MessagePart> {
-    private final SessionService sessionService = null;
+    public static final int DEFAULT_MAX_HISTORY_TOKENS = 64_000;
+
+    private final SessionService sessionService;
     private final LlmStreamingAgent llmAgent = new LlmStreamingAgent("llm-agent");
+    private TokenCounter tokenCounter = TokenCounter.defaultCounter();
+    private int maxHistoryTokens = DEFAULT_MAX_HISTORY_TOKENS;
+    private final MessageConverter messageConverter = new MessageConverter(llmAgent.getConversionCache());
+    private CompressionModel compressionModel;
 
-    public ChatAgent(String name) {
+    public ChatAgent(String name, SessionService sessionService) {
         super(name);
+        this.sessionService = Objects.requireNonNull(sessionService, "sessionService is required");
+    }
+
+    public ChatAgent(String name) {
+        this(name, SessionManager.global()::getOrCreateSession);
+    }
+
+    public int getMaxHistoryTokens() {
+        return maxHistoryTokens;
+    }
+
+    public void setMaxHistoryTokens(int maxHistoryTokens) {
+        if (maxHistoryTokens <= 0) {
+            throw new IllegalArgumentException("maxHistoryTokens must be positive");
+        }
+        this.maxHistoryTokens = maxHistoryTokens;
+    }
+
+    public void setTokenCounter(TokenCounter tokenCounter) {
+        this.tokenCounter = Objects.requireNonNull(tokenCounter, "tokenCounter is required");
+    }
+
+    public CompressionModel getCompressionModel() {
+        return compressionModel;
+    }
+
+    /**
+     * Sets the model to compress the history with, e.g. an {@link IncrementalCompressionModel}.
+     * The history is not compressed by default.
+     *
+     * @param compressionModel the compression model, or {@code null} to disable compression
+     */
+    public void setCompressionModel(CompressionModel compressionModel) {
+        this.compressionModel = compressionModel;
     }
 
     @Override
     protected ChatAgentInput preprocess(ChatAgentInput input) {
         ChatAgentInput agentInput = super.preprocess(input);
         Session session = sessionService.getSession(agentInput.sessionId());
+        // A busy session is never hibernated, so its conversation stays open for the whole run
+        session.setStatus(SessionStatus.BUSY);
+        try {
+            List<Message> historyMessages = appendInputMessages(session.conversation(), input.messages());
+            return agentInput.toBuilder()
+                    .messages(historyMessages)
+                    .build();
+        } catch (RuntimeException e) {
+            session.setStatus(SessionStatus.IDLE);
+            throw e;
+        }
+    }
 
-        Conversation conversation = session.conversation();
+    private List<Message> appendInputMessages(Conversation conversation, List<Message> inputMessages) {
+        conversation.addListener(llmAgent.getConversionCache());
         try {
-            // Validate input messages IDs
-            Set<MessageId> newMessageIds = input.messages().stream().map(Message::info).map(MessageInfo::id).collect(Collectors.toSet());
-            List<Message> invalidMessages = conversation.findMessages(message -> newMessageIds.contains(message.info().id()), false);
-            if (!invalidMessages.isEmpty()) {
-                String invalidMessageIds = invalidMessages.stream().map(Message::info)
-                        .map(MessageInfo::id).map(MessageId::value)
+            // Validate input messages IDs, looked up by ID instead of walking the whole branch
+            List<MessageId> invalidMessageIds = inputMessages.stream()
+                    .map(Message::info).map(MessageInfo::id)
+                    .filter(messageId -> conversation.getMessage(messageId).isPresent())
+                    .toList();
+            if (!invalidMessageIds.isEmpty()) {
+                String invalidMessageIdValues = invalidMessageIds.stream().map(MessageId::value)
                         .collect(Collectors.joining(", "));
-                throw new AgentExecutionException("Invalid input messages with IDs: " + invalidMessageIds);
+                throw new AgentExecutionException("Invalid input messages with IDs: " + invalidMessageIdValues);
             }
 
             // Append input messages to conversation
-            for (Message message : input.messages()) {
+            for (Message message : inputMessages) {
                 conversation.appendMessage(message);
             }
             conversation.flush();
@@ -92,10 +165,128 @@ public class ChatAgent extends AbstractStreamAgent<ChatAgentInput, ChatAgentOutp
             throw new AgentExecutionException("Failed to append messages to conversation", e);
         }
 
-        List<Message> allMessages = Lists.newArrayList(conversation.iterator());
-        return agentInput.toBuilder()
-                .messages(allMessages)
+        List<Message> historyMessages = loadHistoryWindow(conversation, inputMessages.size());
+        return compressHistory(conversation, historyMessages, inputMessages.size());
+    }
+
+    /**
+     * Loads the most recent messages of the current branch that fit into the history token budget.
+     * The branch is walked backwards page by page, so older messages are never loaded. The latest
+     * compression summary replaces the messages before it, except for the messages it has kept,
+     * and it is moved in front of them.
+     *
+     * @param conversation the conversation
+     * @param minMessages  the number of latest messages to include regardless of the budget
+     * @return the messages in chronological order
+     */
+    protected List<Message> loadHistoryWindow(Conversation conversation, int minMessages) {
+        List<Message> window = new ArrayList<>();
+        Message summary = null;
+        int keptCount = 0;
+        int tokenCount = 0;
+        Iterator<Message> iterator = conversation.reverse();
+        while (iterator.hasNext()) {
+            if (summary != null && keptCount-- <= 0) {
+                break;
+            }
+            Message message = iterator.next();
+            if (summary != null && isCompressionSummary(message)) {
+                // Older summaries are covered by the latest one
+                keptCount++;
+                continue;
+            }
+            int messageTokens = TokenCounter.TOKENS_PER_MESSAGE + tokenCounter.countTokens(message.content());
+            if (window.size() >= minMessages && tokenCount + messageTokens > maxHistoryTokens) {
+                break;
+            }
+            tokenCount += messageTokens;
+            if (summary == null && isCompressionSummary(message)) {
+                summary = message;
+                keptCount = message.info().metadata()
+                        .getProperty(MessageMetadataKeys.KEY_COMPRESSION_KEPT_COUNT, Number.class, 0).intValue();
+            } else {
+                window.add(message);
+            }
+        }
+        if (summary != null) {
+            window.add(summary);
+        }
+        Collections.reverse(window);
+        return window;
+    }
+
+    /**
+     * Compresses the history window if a compression model is set. A new summary is appended to the
+     * conversation with the number of messages it keeps, so the following windows start from it.
+     * The window is used uncompressed if the compression fails.
+     *
+     * @param conversation     the conversation
+     * @param window           the history window
+     * @param reservedMessages the number of latest messages which must not be compressed
+     * @return the compressed history window
+     */
+    protected List<Message> compressHistory(Conversation conversation, List<Message> window, int reservedMessages) {
+        if (compressionModel == null || window.size() <= reservedMessages) {
+            return window;
+        }
+
+        // A message may be converted into several prompt messages, the offsets map them back
+        List<org.springframework.ai.chat.messages.Message> promptMessages = new ArrayList<>();
+        int[] offsets = new int[window.size() + 1];
+        for (int i = 0; i < window.size(); i++) {
+            offsets[i] = promptMessages.size();
+            promptMessages.addAll(messageConverter.convert(window.get(i)));
+        }
+        offsets[window.size()] = promptMessages.size();
+
+        CompressOptions options = DefaultCompressOptions.builder()
+                .maxTokens(maxHistoryTokens)
+                .reservedMessagesCount(promptMessages.size() - offsets[window.size() - reservedMessages])
+                .build();
+        CompressionResult result;
+        try {
+            result = compressionModel.call(new CompressionRequest(promptMessages, options)).getResult();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to compress {} history messages, continue uncompressed", window.size(), e);
+            return window;
+        }
+        if (result == null || !result.isCompressed() || result.getSummary() == null) {
+            return window;
+        }
+
+        // Messages only partly covered by the summary are kept
+        int removedCount = result.getRemovedMessages().size();
+        int keptIndex = 0;
+        while (keptIndex < window.size() - reservedMessages && offsets[keptIndex + 1] <= removedCount) {
+            keptIndex++;
+        }
+        if (keptIndex == 0 || keptIndex == 1 && isCompressionSummary(window.get(0))) {
+            return window;
+        }
+
+        List<Message> keptMessages = window.subList(keptIndex, window.size());
+        Message summary = RoleMessage.builder()
+                .info(RoleMessageInfo.assistant()
+                        .sessionId(conversation.sessionId())
+                        .id(sessionService.messageIdGenerator().nextId())
+                        .parentId(conversation.currentLeafId().orElse(null))
+                        .metadata(MetadataProvider.create()
+                                .setProperty(MessageMetadataKeys.KEY_COMPRESSION_SUMMARY, true)
+                                .setProperty(MessageMetadataKeys.KEY_COMPRESSION_KEPT_COUNT, keptMessages.size()))
+                        .build())
+                .addPart(new TextMessagePart(result.getSummary().getText()))
                 .build();
+        conversation.appendMessage(summary);
+
+        List<Message> compressedWindow = new ArrayList<>(keptMessages.size() + 1);
+        compressedWindow.add(summary);
+        compressedWindow.addAll(keptMessages);
+        return compressedWindow;
+    }
+
+    private static boolean isCompressionSummary(Message message) {
+        return Boolean.TRUE.equals(message.info().metadata()
+                .getProperty(MessageMetadataKeys.KEY_COMPRESSION_SUMMARY, Boolean.class));
     }
 
     @Override
@@ -117,12 +308,28 @@ public class ChatAgent extends AbstractStreamAgent<ChatAgentInput, ChatAgentOutp
         return false;
     }
 
+    @Override
+    public Flux<MessagePart> runStream(ChatAgentInput agentInput, ChatAgentStepContext stepContext) {
+        return super.runStream(agentInput, stepContext).doFinally(signalType -> {
+            // The session is set idle once the output message is sealed, or here if no step has opened one
+            if (stepContext.getOutputMessageInfo() == null) {
+                stepContext.getSession().setStatus(SessionStatus.IDLE);
+            }
+        });
+    }
+
     @Override
     protected Flux<MessagePart> doStepStream(ChatAgentInput agentInput, ChatAgentStepContext stepContext) {
         AgentEventBus llmAgentEventBus = AgentEventBus.create();
         llmAgentEventBus.subscribe(event -> {
             if (event instanceof AgentMessageEvent messageEvent) {
                 handleLlmAgentMessageEvent(messageEvent, stepContext);
+            } else if (event instanceof OutputEndEvent) {
+                try {
+                    sealOutputMessage(stepContext);
+                } finally {
+                    stepContext.getSession().setStatus(SessionStatus.IDLE);
+                }
             }
         });
 
@@ -146,31 +353,36 @@ public class ChatAgent extends AbstractStreamAgent<ChatAgentInput, ChatAgentOutp
                 .sessionId(agentInput.sessionId())
                 .build();
         stepContext.setOutputMessageInfo(messageInfo);
-        return llmAgentOutput.stream();
+        return llmAgentOutput.stream()
+                .doFinally(signalType -> {
+                    // The output message is sealed on every terminal signal, not only on a finish part which
+                    // is missing when the stream fails, is cancelled or stops at the max steps or token budget.
+                    // The seal goes through the event bus, so it is applied after the parts still pending.
+                    llmAgentEventBus.publish(new OutputEndEvent(this, Instant.now()));
+                    // Pending events are still delivered after the event bus of the run is closed
+                    llmAgentEventBus.close();
+                });
     }
 
     private void handleLlmAgentMessageEvent(AgentMessageEvent messageEvent, ChatAgentStepContext stepContext) {
-        Session session = stepContext.getSession();
-        Conversation conversation = session.conversation();
-
-        MessageId outputMessageId = stepContext.getOutputMessageId();
-        Optional<Message> messageOptional = conversation.getMessage(outputMessageId);
-        Message outputMessage;
-        if (messageOptional.isPresent()) {
-            outputMessage = messageOptional.get().toBuilder()
-                    .addPart(messageEvent.messagePart())
-                    .build();
-        } else {
-            outputMessage = RoleMessage.builder()
-                    .info(stepContext.getOutputMessageInfo())
-                    .addPart(messageEvent.messagePart())
-                    .build();
+        Conversation conversation = stepContext.getSession().conversation();
+
+        // Parts are appended to the open output message and persisted once it is sealed
+        MessagePart messagePart = messageEvent.messagePart();
+        conversation.appendMessagePart(stepContext.getOutputMessageInfo(), messagePart);
+        if (messagePart instanceof LlmFinishMessagePart) {
+            conversation.sealMessage(stepContext.getOutputMessageId());
         }
+    }
 
-        if (messageOptional.isPresent()) {
-            conversation.updateMessage(outputMessage);
-        } else {
-            conversation.appendMessage(outputMessage);
+    /**
+     * Seals the output message if it has been opened, sealing a sealed message does nothing.
+     */
+    private void sealOutputMessage(ChatAgentStepContext stepContext) {
+        MessageInfo outputMessageInfo = stepContext.getOutputMessageInfo();
+        Conversation conversation = stepContext.getSession().conversation();
+        if (outputMessageInfo != null && conversation.getMessage(outputMessageInfo.id()).isPresent()) {
+            conversation.sealMessage(outputMessageInfo.id());
         }
     }
 
@@ -178,4 +390,10 @@ public class ChatAgent extends AbstractStreamAgent<ChatAgentInput, ChatAgentOutp
     public void close() {
         llmAgent.close();
     }
+
+    /**
+     * Published on the event bus of a step after the last message part of the LLM agent.
+     */
+    private record OutputEndEvent(MetaAgent<?, ?> agent, Instant occurredTime) implements AgentEvent {
+    }
 }
@@ -0,0 +1,219 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.agents.chat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.metaagent.framework.common.metadata.MetadataProvider;
+import org.metaagent.framework.core.agent.chat.conversation.DefaultConversation;
+import org.metaagent.framework.core.agent.chat.conversation.InMemoryConversationStore;
+import org.metaagent.framework.core.agent.chat.message.Message;
+import org.metaagent.framework.core.agent.chat.message.MessageId;
+import org.metaagent.framework.core.agent.chat.message.MessageMetadataKeys;
+import org.metaagent.framework.core.agent.chat.message.RoleMessage;
+import org.metaagent.framework.core.agent.chat.message.RoleMessageInfo;
+import org.metaagent.framework.core.agent.chat.message.part.TextMessagePart;
+import org.metaagent.framework.core.agent.chat.session.SessionId;
+import org.metaagent.framework.core.model.chat.compression.CompressionModel;
+import org.metaagent.framework.core.model.chat.compression.CompressionRequest;
+import org.metaagent.framework.core.model.chat.compression.CompressionResponse;
+import org.metaagent.framework.core.model.chat.compression.CompressionResult;
+import org.metaagent.framework.core.model.chat.compression.DefaultCompressionResult;
+import org.springframework.ai.chat.messages.AssistantMessage;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the history window and compression of {@link ChatAgent}.
+ *
+ * @author vyckey
+ */
+class ChatAgentTest {
+    private static final int MESSAGE_TOKENS = 100;
+
+    private final SessionId sessionId = SessionId.of("chat-session");
+    private DefaultConversation conversation;
+    private ChatAgent chatAgent;
+
+    @BeforeEach
+    void setUp() {
+        conversation = new DefaultConversation(sessionId, new InMemoryConversationStore(),
+                new DefaultConversation.ConversationConfig().messageLoadPageSize(3));
+        chatAgent = new ChatAgent("chat-agent", id -> {
+            throw new UnsupportedOperationException();
+        });
+        // One token per character, so every message costs exactly MESSAGE_TOKENS
+        chatAgent.setTokenCounter(String::length);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        conversation.close();
+        chatAgent.close();
+    }
+
+    private void appendMessages(int count, int summaryIndex) throws IOException {
+        for (int i = 0; i < count; i++) {
+            MetadataProvider metadata = MetadataProvider.create();
+            if (i == summaryIndex) {
+                metadata.setProperty(MessageMetadataKeys.KEY_COMPRESSION_SUMMARY, true);
+            }
+            appendMessage("msg" + i, metadata);
+        }
+        conversation.flush();
+    }
+
+    private void appendMessage(String id, MetadataProvider metadata) {
+        conversation.appendMessage(RoleMessage.builder()
+                .info(RoleMessageInfo.user().sessionId(sessionId).id(MessageId.of(id))
+                        .parentId(conversation.currentLeafId().orElse(null))
+                        .metadata(metadata).build())
+                .addPart(new TextMessagePart(id + "x".repeat(MESSAGE_TOKENS - 3 - id.length())))
+                .build());
+    }
+
+    private static MetadataProvider summaryMetadata(int keptCount) {
+        return MetadataProvider.create()
+                .setProperty(MessageMetadataKeys.KEY_COMPRESSION_SUMMARY, true)
+                .setProperty(MessageMetadataKeys.KEY_COMPRESSION_KEPT_COUNT, keptCount);
+    }
+
+    private static List<String> messageIds(List<Message> messages) {
+        return messages.stream().map(message -> message.info().id().value()).toList();
+    }
+
+    @Test
+    void cutHistoryAtTokenBudget() throws IOException {
+        appendMessages(10, -1);
+        chatAgent.setMaxHistoryTokens(3 * MESSAGE_TOKENS + MESSAGE_TOKENS / 2);
+
+        List<Message> window = chatAgent.loadHistoryWindow(conversation, 1);
+        assertEquals(List.of("msg7", "msg8", "msg9"), messageIds(window));
+    }
+
+    @Test
+    void keepMinMessagesBeyondTokenBudget() throws IOException {
+        appendMessages(10, -1);
+        chatAgent.setMaxHistoryTokens(2 * MESSAGE_TOKENS);
+
+        List<Message> window = chatAgent.loadHistoryWindow(conversation, 5);
+        assertEquals(List.of("msg5", "msg6", "msg7", "msg8", "msg9"), messageIds(window));
+
+        // The floor is never more than the whole branch
+        window = chatAgent.loadHistoryWindow(conversation, 20);
+        assertEquals(10, window.size());
+        assertEquals("msg0", window.get(0).info().id().value());
+    }
+
+    @Test
+    void stopAtCompressionSummary() throws IOException {
+        appendMessages(10, 4);
+        chatAgent.setMaxHistoryTokens(100 * MESSAGE_TOKENS);
+
+        List<Message> window = chatAgent.loadHistoryWindow(conversation, 1);
+        assertEquals(List.of("msg4", "msg5", "msg6", "msg7", "msg8", "msg9"), messageIds(window));
+
+        // The summary ends the window even if the min messages reach beyond it
+        window = chatAgent.loadHistoryWindow(conversation, 8);
+        assertEquals("msg4", window.get(0).info().id().value());
+    }
+
+    @Test
+    void moveSummaryInFrontOfKeptMessages() throws IOException {
+        appendMessages(6, -1);
+        appendMessage("summary1", summaryMetadata(3));
+        appendMessage("msg6", MetadataProvider.create());
+        // The latest summary keeps two messages and covers the older summary
+        appendMessage("summary2", summaryMetadata(2));
+        appendMessage("msg7", MetadataProvider.create());
+        chatAgent.setMaxHistoryTokens(100 * MESSAGE_TOKENS);
+
+        List<Message> window = chatAgent.loadHistoryWindow(conversation, 1);
+        assertEquals(List.of("summary2", "msg5", "msg6", "msg7"), messageIds(window));
+    }
+
+    @Test
+    void persistCompressionSummary() throws IOException {
+        appendMessages(6, -1);
+        chatAgent.setMaxHistoryTokens(100 * MESSAGE_TOKENS);
+        chatAgent.setCompressionModel(new PrefixCompressionModel(4));
+
+        List<Message> window = chatAgent.compressHistory(conversation,
+                chatAgent.loadHistoryWindow(conversation, 1), 1);
+        assertEquals(3, window.size());
+        assertEquals("summary of 4", window.get(0).content());
+        assertEquals(List.of("msg4", "msg5"), messageIds(window.subList(1, 3)));
+
+        // The summary is persisted, so the next window starts from it
+        Message summary = conversation.lastMessage().orElseThrow();
+        assertEquals(Boolean.TRUE, summary.info().metadata()
+                .getProperty(MessageMetadataKeys.KEY_COMPRESSION_SUMMARY, Boolean.class));
+        appendMessage("msg6", MetadataProvider.create());
+        chatAgent.setCompressionModel(null);
+        assertEquals(List.of(summary.info().id().value(), "msg4", "msg5", "msg6"),
+                messageIds(chatAgent.loadHistoryWindow(conversation, 1)));
+    }
+
+    @Test
+    void keepWindowUncompressedWhenCompressionFails() throws IOException {
+        appendMessages(6, -1);
+        chatAgent.setMaxHistoryTokens(100 * MESSAGE_TOKENS);
+        chatAgent.setCompressionModel(new PrefixCompressionModel(-1));
+
+        List<Message> window = chatAgent.loadHistoryWindow(conversation, 1);
+        assertEquals(window, chatAgent.compressHistory(conversation, window, 1));
+        assertEquals("msg5", conversation.lastMessage().orElseThrow().info().id().value());
+    }
+
+    /**
+     * Summarizes a fixed number of leading messages, or fails if the number is negative.
+     */
+    private record PrefixCompressionModel(int removedCount) implements CompressionModel {
+        @Override
+        public int countTokens(List<org.springframework.ai.chat.messages.Message> messages) {
+            return messages.size() * MESSAGE_TOKENS;
+        }
+
+        @Override
+        public CompressionResponse call(CompressionRequest compressionRequest) {
+            if (removedCount < 0) {
+                throw new IllegalStateException("Compression failed");
+            }
+            List<org.springframework.ai.chat.messages.Message> messages = compressionRequest.getInstructions();
+            CompressionResult result = DefaultCompressionResult.builder()
+                    .compressed(true)
+                    .summary(AssistantMessage.builder().content("summary of " + removedCount).build())
+                    .removedMessages(messages.subList(0, removedCount))
+                    .retainedMessages(messages.subList(removedCount, messages.size()))
+                    .build();
+            return new CompressionResponse(List.of(result));
+        }
+    }
+}
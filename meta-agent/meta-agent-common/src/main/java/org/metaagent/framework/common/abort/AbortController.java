@@ -94,6 +94,11 @@ public class AbortController {
             listeners.add(listener);
         }
 
+        @Override
+        public void removeAbortListener(AbortListener listener) {
+            listeners.remove(listener);
+        }
+
         void abort(Throwable cause) {
             if (aborted.compareAndSet(false, true)) {
                 abortReason = cause;
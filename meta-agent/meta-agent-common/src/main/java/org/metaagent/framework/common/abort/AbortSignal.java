@@ -50,4 +50,12 @@ public interface AbortSignal {
      * @param listener the abort listener
      */
     void addAbortListener(AbortListener listener);
+
+    /**
+     * Removes an abort listener which is no longer interested in the signal.
+     *
+     * @param listener the abort listener
+     */
+    default void removeAbortListener(AbortListener listener) {
+    }
 }
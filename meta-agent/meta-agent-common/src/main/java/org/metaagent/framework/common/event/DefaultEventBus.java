@@ -24,6 +24,7 @@
 
 package org.metaagent.framework.common.event;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,23 +32,61 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Default implementation of EventBus.
  * Provides thread-safe event publishing and subscription management.
+ * <p>
+ * Events are delivered synchronously, on a thread pool owned by the event bus, or on a shared executor.
+ * With a shared executor the events of one event bus are delivered one at a time in publishing order,
+ * and closing the event bus does not shut the executor down.
+ * </p>
+ * <p>
+ * Publishing never blocks. An asynchronous event bus holds at most the maximum number of undelivered
+ * events; a slot is reserved atomically for every published event, and events published while all slots
+ * are taken are dropped and counted, see {@link #handleDroppedEvent(Event, String)}.
+ * </p>
  *
  * @param <E> the type of event
  * @param <L> the type of event listener
  * @author vyckey
  */
 public class DefaultEventBus<E extends Event, L extends EventListener<E>> implements EventBus<E, L> {
+    public static final int DEFAULT_MAX_PENDING_EVENTS = 1000;
     private static final Logger log = LoggerFactory.getLogger(DefaultEventBus.class);
     private final Set<L> listeners;
+    private final Executor executor;
     private final ExecutorService threadPool;
+    private final int maxPendingEvents;
+    private final AtomicInteger pendingEvents = new AtomicInteger();
+    private final AtomicLong publishedEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
     private volatile boolean closed = false;
 
+    /**
+     * Creates a new DefaultEventBus instance.
+     *
+     * @param listeners        the set to store listeners (must be thread-safe)
+     * @param executor         the executor to deliver events, or synchronous if null
+     * @param threadPool       the thread pool owned by this event bus and shut down on close, may be null
+     * @param maxPendingEvents the maximum number of undelivered events, further events are dropped
+     */
+    protected DefaultEventBus(Set<L> listeners, Executor executor, ExecutorService threadPool, int maxPendingEvents) {
+        if (maxPendingEvents <= 0) {
+            throw new IllegalArgumentException("maxPendingEvents must be positive");
+        }
+        this.listeners = Objects.requireNonNull(listeners, "listeners cannot be null");
+        this.executor = executor;
+        this.threadPool = threadPool;
+        this.maxPendingEvents = maxPendingEvents;
+    }
+
     /**
      * Creates a new DefaultEventBus instance with custom listener storage.
      *
@@ -55,8 +94,7 @@ public class DefaultEventBus<E extends Event, L extends EventListener<E>> implem
      * @param threadPool the executor service to use for asynchronous event processing, or synchronous if null
      */
     protected DefaultEventBus(Set<L> listeners, ExecutorService threadPool) {
-        this.listeners = Objects.requireNonNull(listeners, "listeners cannot be null");
-        this.threadPool = threadPool;
+        this(listeners, threadPool, threadPool, DEFAULT_MAX_PENDING_EVENTS);
     }
 
     /**
@@ -76,6 +114,32 @@ public class DefaultEventBus<E extends Event, L extends EventListener<E>> implem
         this(new CopyOnWriteArraySet<>(), null);
     }
 
+    /**
+     * Creates a new DefaultEventBus instance backed by a shared executor.
+     * Events are delivered in publishing order, and the executor is left running when the event bus is closed.
+     *
+     * @param sharedExecutor   the shared executor to deliver events
+     * @param maxPendingEvents the maximum number of undelivered events, further events are dropped
+     * @param <E>              the type of event
+     * @param <L>              the type of event listener
+     * @return a new DefaultEventBus instance
+     */
+    public static <E extends Event, L extends EventListener<E>> DefaultEventBus<E, L> shared(
+            Executor sharedExecutor, int maxPendingEvents) {
+        return new DefaultEventBus<>(new CopyOnWriteArraySet<>(),
+                sequentialExecutor(sharedExecutor), null, maxPendingEvents);
+    }
+
+    /**
+     * Wraps a shared executor so that tasks submitted through the returned executor run one at a time in order.
+     *
+     * @param sharedExecutor the shared executor
+     * @return the sequential executor
+     */
+    protected static Executor sequentialExecutor(Executor sharedExecutor) {
+        return MoreExecutors.newSequentialExecutor(Objects.requireNonNull(sharedExecutor, "sharedExecutor cannot be null"));
+    }
+
     /**
      * Checks if the event bus is closed.
      *
@@ -104,6 +168,11 @@ public class DefaultEventBus<E extends Event, L extends EventListener<E>> implem
         return listeners.stream().toList();
     }
 
+    @Override
+    public EventBusMetrics metrics() {
+        return new EventBusMetrics(publishedEvents.get(), pendingEvents.get(), maxPendingEvents, droppedEvents.get());
+    }
+
     @Override
     public void publish(E event) {
         if (closed) {
@@ -113,28 +182,55 @@ public class DefaultEventBus<E extends Event, L extends EventListener<E>> implem
             throw new IllegalArgumentException("Event cannot be null");
         }
 
+        publishedEvents.incrementAndGet();
         notifyListeners(event);
     }
 
     protected void notifyListeners(E event) {
-        if (threadPool != null) {
-            threadPool.submit(() -> {
-                for (L listener : listeners) {
-                    try {
-                        listener.onEvent(event);
-                    } catch (Exception e) {
-                        handleListenerException(listener, event, e);
-                    }
-                }
-            });
-        } else {
-            for (L listener : listeners) {
-                try {
-                    listener.onEvent(event);
-                } catch (Exception e) {
-                    handleListenerException(listener, event, e);
+        if (executor == null) {
+            deliver(event);
+            return;
+        }
+
+        if (!tryReserveSlot()) {
+            handleDroppedEvent(event, "too many pending events");
+            return;
+        }
+        Runnable task = () -> {
+            try {
+                deliver(event);
+            } finally {
+                if (pendingEvents.decrementAndGet() == 0 && closed) {
+                    listeners.clear();
                 }
             }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("Executor rejected event {}, deliver it in the publisher thread", event);
+            task.run();
+        }
+    }
+
+    private boolean tryReserveSlot() {
+        int pending;
+        do {
+            pending = pendingEvents.get();
+            if (pending >= maxPendingEvents) {
+                return false;
+            }
+        } while (!pendingEvents.compareAndSet(pending, pending + 1));
+        return true;
+    }
+
+    private void deliver(E event) {
+        for (L listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (Exception e) {
+                handleListenerException(listener, event, e);
+            }
         }
     }
 
@@ -150,6 +246,18 @@ public class DefaultEventBus<E extends Event, L extends EventListener<E>> implem
         log.error("Failed to publish event {} to listener {}", event, listener, exception);
     }
 
+    /**
+     * Handles events dropped because the event bus is saturated.
+     * Can be overridden by subclasses to provide custom handling.
+     *
+     * @param event  the dropped event
+     * @param reason the reason why the event is dropped
+     */
+    protected void handleDroppedEvent(E event, String reason) {
+        long droppedCount = droppedEvents.incrementAndGet();
+        log.warn("Dropped event {} ({}), {} events dropped in total", event, reason, droppedCount);
+    }
+
     @Override
     public void subscribe(L listener) {
         if (closed) {
@@ -190,8 +298,6 @@ public class DefaultEventBus<E extends Event, L extends EventListener<E>> implem
         }
 
         closed = true;
-        unsubscribeAll();
-
         if (threadPool != null && !threadPool.isShutdown()) {
             threadPool.shutdown();
             try {
@@ -203,5 +309,10 @@ public class DefaultEventBus<E extends Event, L extends EventListener<E>> implem
                 Thread.currentThread().interrupt();
             }
         }
+
+        // Pending events on a shared executor are still delivered, the last one clears the listeners
+        if (pendingEvents.get() == 0 || threadPool != null) {
+            listeners.clear();
+        }
     }
-}
\ No newline at end of file
+}
@@ -54,6 +54,13 @@ public interface EventBus<E extends Event, L extends EventListener<E>> extends A
      */
     void publish(E event);
 
+    /**
+     * Get the runtime metrics of the event bus.
+     *
+     * @return the event bus metrics
+     */
+    EventBusMetrics metrics();
+
     /**
      * Get all event listeners.
      *
@@ -79,4 +86,10 @@ public interface EventBus<E extends Event, L extends EventListener<E>> extends A
      * Unsubscribe all event listeners.
      */
     void unsubscribeAll();
+
+    /**
+     * Close the event bus. Events published before closing are still delivered.
+     */
+    @Override
+    void close();
 }
@@ -81,6 +81,16 @@ public class IgnoreFileFilter {
         return ignoreFileFilter;
     }
 
+    /**
+     * Evicts the cached filters of a root path, so that the ignore files are read again when they change.
+     *
+     * @param rootPath the root path of the filters
+     */
+    public static void evictCache(Path rootPath) {
+        String prefix = rootPath.toAbsolutePath().normalize() + "|";
+        FILTER_CACHE.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
     private static String cacheKey(Path rootPath, String ignoreFileName) {
         return rootPath.toAbsolutePath().normalize() + "|" + ignoreFileName.trim().toLowerCase();
     }
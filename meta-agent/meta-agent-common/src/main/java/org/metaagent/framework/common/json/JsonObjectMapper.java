@@ -169,4 +169,8 @@ public class JsonObjectMapper {
     public <T> T convert(Object object, TypeReference<T> type) {
         return jsonMapper.convertValue(object, type);
     }
+
+    public <T> T convert(Object object, JavaType type) {
+        return jsonMapper.convertValue(object, type);
+    }
 }
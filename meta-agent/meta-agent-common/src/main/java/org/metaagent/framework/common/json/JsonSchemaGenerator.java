@@ -35,6 +35,8 @@ import com.github.victools.jsonschema.generator.SchemaVersion;
 import com.github.victools.jsonschema.module.jackson.JacksonOption;
 import com.github.victools.jsonschema.module.jackson.JacksonSchemaModule;
 import com.github.victools.jsonschema.module.swagger2.Swagger2Module;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.node.ArrayNode;
 import tools.jackson.databind.node.ObjectNode;
@@ -43,17 +45,36 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 /**
  * Utilities to generate JSON Schemas from Java entities.
+ * <p>
+ * Schemas are emitted in compact form, since they mostly end up in prompts, and are memoized
+ * per method or type and options, so asking for the schema of a tool again is only a map lookup.
+ * Schemas of methods and classes are kept with their class and released when it is unloaded,
+ * schemas of other types, such as parameterized types, are kept in a bounded cache.
+ * </p>
  *
  * @author vyckey
  */
 public final class JsonSchemaGenerator {
+    private static final ClassValue<Map<SchemaKey, String>> CLASS_SCHEMAS = new ClassValue<>() {
+        @Override
+        protected Map<SchemaKey, String> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final Cache<SchemaKey, String> TYPE_SCHEMAS = CacheBuilder.newBuilder()
+            .maximumSize(1024)
+            .build();
 
     private static final SchemaGenerator TYPE_SCHEMA_GENERATOR;
 
@@ -84,6 +105,13 @@ public final class JsonSchemaGenerator {
      * Generate a JSON Schema for a method's input parameters.
      */
     public static String generateForMethod(Method method, SchemaOption... schemaOptions) {
+        Objects.requireNonNull(method, "method cannot be null");
+        return CLASS_SCHEMAS.get(method.getDeclaringClass()).computeIfAbsent(
+                new SchemaKey(method, SchemaOption.toSet(schemaOptions)),
+                key -> doGenerateForMethod(method, schemaOptions));
+    }
+
+    private static String doGenerateForMethod(Method method, SchemaOption... schemaOptions) {
         ObjectNode schema = SUBTYPE_SCHEMA_GENERATOR.generateSchema(Object.class);
         schema.put("$schema", SchemaVersion.DRAFT_2020_12.getIdentifier());
         schema.put("type", "object");
@@ -122,7 +150,7 @@ public final class JsonSchemaGenerator {
         if (SchemaOption.hasOption(schemaOptions, SchemaOption.UPPER_CASE_TYPE_VALUES)) {
             convertTypeValuesToUpperCase(schema);
         }
-        return schema.toPrettyString();
+        return schema.toString();
     }
 
     private static boolean isParameterRequired(Method method, int index) {
@@ -134,8 +162,15 @@ public final class JsonSchemaGenerator {
      * Generate a JSON Schema for a class type.
      */
     public static String generateForType(Type type, SchemaOption... schemaOptions) {
-        ObjectNode schema = TYPE_SCHEMA_GENERATOR.generateSchema(
-                Objects.requireNonNull(type, "type cannot be null"));
+        Objects.requireNonNull(type, "type cannot be null");
+        Map<SchemaKey, String> schemas = type instanceof Class<?> clazz
+                ? CLASS_SCHEMAS.get(clazz) : TYPE_SCHEMAS.asMap();
+        return schemas.computeIfAbsent(new SchemaKey(type, SchemaOption.toSet(schemaOptions)),
+                key -> doGenerateForType(type, schemaOptions));
+    }
+
+    private static String doGenerateForType(Type type, SchemaOption... schemaOptions) {
+        ObjectNode schema = TYPE_SCHEMA_GENERATOR.generateSchema(type);
         if ((type == Void.class) && !schema.has("properties")) {
             schema.putObject("properties");
         }
@@ -145,7 +180,7 @@ public final class JsonSchemaGenerator {
         if (SchemaOption.hasOption(schemaOptions, SchemaOption.UPPER_CASE_TYPE_VALUES)) {
             convertTypeValuesToUpperCase(schema);
         }
-        return schema.toPrettyString();
+        return schema.toString();
     }
 
     private static void convertTypeValuesToUpperCase(ObjectNode node) {
@@ -203,5 +238,12 @@ public final class JsonSchemaGenerator {
         public static boolean noOption(SchemaOption[] options, SchemaOption option) {
             return Stream.of(options).noneMatch(o -> o == option);
         }
+
+        static Set<SchemaOption> toSet(SchemaOption[] options) {
+            return options.length == 0 ? EnumSet.noneOf(SchemaOption.class) : EnumSet.copyOf(Arrays.asList(options));
+        }
+    }
+
+    private record SchemaKey(Object target, Set<SchemaOption> options) {
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.common.template;
+
+import java.util.Map;
+
+/**
+ * A template which has been parsed by a {@link TemplateRenderer}, so that rendering it
+ * is mostly variable substitution. Compiled templates are immutable and thread-safe.
+ *
+ * @author vyckey
+ * @see TemplateRenderer#compile(String)
+ */
+public interface CompiledTemplate {
+    /**
+     * Get the source of the template.
+     *
+     * @return the template source
+     */
+    String template();
+
+    /**
+     * Render the template with the given variables.
+     *
+     * @param variables the variables to use in the template
+     * @return the rendered template
+     */
+    String render(Map<String, Object> variables);
+
+    /**
+     * Render the template with the given arguments.
+     *
+     * @param args the arguments to use in the template
+     * @return the rendered template
+     */
+    String render(Object... args);
+}
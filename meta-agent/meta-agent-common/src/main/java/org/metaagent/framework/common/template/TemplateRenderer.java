@@ -25,6 +25,7 @@
 package org.metaagent.framework.common.template;
 
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Interface for rendering templates with variables.
@@ -56,4 +57,34 @@ public interface TemplateRenderer {
      * @return the rendered template
      */
     String render(String template, Object... args);
+
+    /**
+     * Compile a template, so that it can be rendered repeatedly without being parsed again.
+     * Renderers which parse templates cache the compiled templates, the default implementation
+     * renders the source each time.
+     *
+     * @param template the template to compile
+     * @return the compiled template
+     * @throws TemplateRenderException if the template is invalid
+     */
+    default CompiledTemplate compile(String template) {
+        Objects.requireNonNull(template, "template must not be null");
+        TemplateRenderer renderer = this;
+        return new CompiledTemplate() {
+            @Override
+            public String template() {
+                return template;
+            }
+
+            @Override
+            public String render(Map<String, Object> variables) {
+                return renderer.render(template, variables);
+            }
+
+            @Override
+            public String render(Object... args) {
+                return renderer.render(template, args);
+            }
+        };
+    }
 }
@@ -24,17 +24,23 @@
 
 package org.metaagent.framework.common.template.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.apache.commons.text.StringSubstitutor;
 import org.apache.commons.text.TextStringBuilder;
+import org.metaagent.framework.common.template.CompiledTemplate;
 import org.metaagent.framework.common.template.TemplateRenderException;
 import org.metaagent.framework.common.template.TemplateRenderer;
 import org.metaagent.framework.common.template.TemplateVariableExtractor;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Default implementation of StringFormatter that uses Apache Commons Text for variable substitution.
@@ -56,6 +62,10 @@ import java.util.Map;
 public class DefaultTemplateRenderer implements TemplateRenderer, TemplateVariableExtractor {
     public static final String NAME = "default";
     public static final DefaultTemplateRenderer INSTANCE = new DefaultTemplateRenderer();
+    private static final Cache<String, CompiledStringTemplate> COMPILED_TEMPLATES = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterAccess(Duration.ofHours(12))
+            .build();
 
     @Override
     public String name() {
@@ -82,6 +92,19 @@ public class DefaultTemplateRenderer implements TemplateRenderer, TemplateVariab
 
     @Override
     public String render(String template, Map<String, Object> variables) {
+        return compile(template).render(variables);
+    }
+
+    @Override
+    public CompiledTemplate compile(String template) {
+        try {
+            return COMPILED_TEMPLATES.get(template, () -> new CompiledStringTemplate(template));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new TemplateRenderException("Failed to compile template: " + e.getMessage(), e.getCause());
+        }
+    }
+
+    static String substitute(String template, Map<String, Object> variables) {
         VariableSubstitutor substitutor = new VariableSubstitutor(variables);
         try {
             return substitutor.replace(template);
@@ -114,4 +137,86 @@ public class DefaultTemplateRenderer implements TemplateRenderer, TemplateVariab
             return super.resolveVariable(variableName, buf, startPos, endPos);
         }
     }
+
+    /**
+     * A template split into literals and variables. Templates with escapes or nested variables,
+     * and variable values which contain variables themselves, are rendered by the substitutor,
+     * so that the result is always the same as {@link StringSubstitutor}'s.
+     */
+    static class CompiledStringTemplate implements CompiledTemplate {
+        private static final String PREFIX = "${";
+        private static final char SUFFIX = '}';
+        private static final char VALUE_DELIMITER = ':';
+
+        private final String template;
+        private final String[] literals;
+        private final String[] names;
+        private final String[] defaultValues;
+
+        CompiledStringTemplate(String template) {
+            this.template = template;
+            List<String> literalList = new ArrayList<>();
+            List<String> nameList = new ArrayList<>();
+            List<String> defaultValueList = new ArrayList<>();
+            boolean simple = true;
+            int start = 0;
+            int index;
+            while ((index = template.indexOf(PREFIX, start)) >= 0) {
+                int end = template.indexOf(SUFFIX, index + PREFIX.length());
+                if (end < 0) {
+                    break;
+                }
+                String body = template.substring(index + PREFIX.length(), end);
+                if (index > 0 && template.charAt(index - 1) == '$' || body.isEmpty() || body.contains(PREFIX)) {
+                    simple = false;
+                    break;
+                }
+                literalList.add(template.substring(start, index));
+                int delimiter = body.indexOf(VALUE_DELIMITER);
+                nameList.add(delimiter < 0 ? body : body.substring(0, delimiter));
+                defaultValueList.add(delimiter < 0 ? null : body.substring(delimiter + 1));
+                start = end + 1;
+            }
+            literalList.add(template.substring(start));
+
+            this.literals = simple ? literalList.toArray(String[]::new) : null;
+            this.names = nameList.toArray(String[]::new);
+            this.defaultValues = defaultValueList.toArray(String[]::new);
+        }
+
+        @Override
+        public String template() {
+            return template;
+        }
+
+        @Override
+        public String render(Object... args) {
+            return render(toMapVariables(args));
+        }
+
+        @Override
+        public String render(Map<String, Object> variables) {
+            if (literals == null) {
+                return substitute(template, variables);
+            }
+            String[] values = new String[names.length];
+            int length = 0;
+            for (int i = 0; i < names.length; i++) {
+                Object value = variables.get(names[i]);
+                String text = value != null ? value.toString() : defaultValues[i];
+                if (text == null || text.contains(PREFIX)) {
+                    // let the substitutor resolve recursive values and report undefined variables
+                    return substitute(template, variables);
+                }
+                values[i] = text;
+                length += text.length();
+            }
+
+            StringBuilder sb = new StringBuilder(template.length() + length);
+            for (int i = 0; i < values.length; i++) {
+                sb.append(literals[i]).append(values[i]);
+            }
+            return sb.append(literals[literals.length - 1]).toString();
+        }
+    }
 }
@@ -24,16 +24,29 @@
 
 package org.metaagent.framework.common.template.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.hubspot.jinjava.Jinjava;
+import com.hubspot.jinjava.interpret.Context;
+import com.hubspot.jinjava.interpret.FatalTemplateErrorsException;
 import com.hubspot.jinjava.interpret.InterpretException;
+import com.hubspot.jinjava.interpret.JinjavaInterpreter;
+import com.hubspot.jinjava.interpret.TemplateError;
+import com.hubspot.jinjava.tree.Node;
+import org.metaagent.framework.common.template.CompiledTemplate;
 import org.metaagent.framework.common.template.TemplateRenderException;
 import org.metaagent.framework.common.template.TemplateRenderer;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Jinja2TemplateRenderer is an implementation of TemplateRenderer that uses Jinjava for template rendering.
  * It provides methods to format strings using Jinja2 syntax and extract variables from templates.
+ * Templates are parsed once and the syntax trees are cached, so rendering a template again only evaluates it.
  *
  * @author vyckey
  * @see TemplateRenderer
@@ -42,6 +55,10 @@ public class Jinja2TemplateRenderer implements TemplateRenderer {
     public static final Jinja2TemplateRenderer INSTANCE = new Jinja2TemplateRenderer();
     public static final String NAME = "jinja2";
     private static final Jinjava JINJAVA = new Jinjava();
+    private static final Cache<String, CompiledJinja2Template> COMPILED_TEMPLATES = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterAccess(Duration.ofHours(12))
+            .build();
 
     @Override
     public String name() {
@@ -56,11 +73,81 @@ public class Jinja2TemplateRenderer implements TemplateRenderer {
 
     @Override
     public String render(String template, Map<String, Object> args) {
+        return compile(template).render(args);
+    }
+
+    @Override
+    public CompiledTemplate compile(String template) {
         try {
-            return JINJAVA.render(template, args);
-        } catch (InterpretException e) {
+            return COMPILED_TEMPLATES.get(template, () -> new CompiledJinja2Template(template));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof TemplateRenderException) {
+                throw (TemplateRenderException) e.getCause();
+            }
+            throw new TemplateRenderException("Failed to compile template", e.getCause());
+        }
+    }
+
+    private static JinjavaInterpreter newInterpreter(Map<String, ?> variables) {
+        Context context = new Context(JINJAVA.getGlobalContext(), variables, JINJAVA.getGlobalConfig().getDisabled());
+        return new JinjavaInterpreter(JINJAVA, context, JINJAVA.getGlobalConfig());
+    }
+
+    private static void checkErrors(String template, JinjavaInterpreter interpreter) {
+        List<TemplateError> fatalErrors = interpreter.getErrorsCopy().stream()
+                .filter(error -> error.getSeverity() == TemplateError.ErrorType.FATAL)
+                .toList();
+        if (!fatalErrors.isEmpty()) {
+            FatalTemplateErrorsException e = new FatalTemplateErrorsException(template, fatalErrors);
             throw new TemplateRenderException(e.getMessage(), e);
         }
     }
 
+    /**
+     * A template with its parsed syntax tree, which is evaluated by a new interpreter on each render.
+     */
+    static class CompiledJinja2Template implements CompiledTemplate {
+        private final String template;
+        private final Node root;
+
+        CompiledJinja2Template(String template) {
+            this.template = template;
+            JinjavaInterpreter interpreter = newInterpreter(Map.of());
+            JinjavaInterpreter.pushCurrent(interpreter);
+            try {
+                this.root = interpreter.parse(template);
+            } catch (InterpretException e) {
+                throw new TemplateRenderException(e.getMessage(), e);
+            } finally {
+                JinjavaInterpreter.popCurrent();
+            }
+            checkErrors(template, interpreter);
+        }
+
+        @Override
+        public String template() {
+            return template;
+        }
+
+        @Override
+        public String render(Object... args) {
+            return render(DefaultTemplateRenderer.toMapVariables(args));
+        }
+
+        @Override
+        public String render(Map<String, Object> variables) {
+            JinjavaInterpreter interpreter = newInterpreter(variables);
+            JinjavaInterpreter.pushCurrent(interpreter);
+            String output;
+            try {
+                output = interpreter.render(root, true);
+            } catch (InterpretException e) {
+                throw new TemplateRenderException(e.getMessage(), e);
+            } finally {
+                JinjavaInterpreter.popCurrent();
+            }
+            checkErrors(template, interpreter);
+            return output;
+        }
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.common.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultEventBusTest {
+    record TestEvent(int value, Instant occurredTime) implements Event {
+        TestEvent(int value) {
+            this(value, Instant.now());
+        }
+    }
+
+    private static EventListener<TestEvent> listener(Consumer<TestEvent> consumer) {
+        return new EventListener<>() {
+            @Override
+            public boolean accepts(TestEvent event) {
+                return true;
+            }
+
+            @Override
+            public void onEvent(TestEvent event) {
+                consumer.accept(event);
+            }
+        };
+    }
+
+    @Test
+    void sharedExecutorDeliversInOrder() throws InterruptedException {
+        ExecutorService sharedExecutor = Executors.newFixedThreadPool(4);
+        try {
+            DefaultEventBus<TestEvent, EventListener<TestEvent>> eventBus = DefaultEventBus.shared(sharedExecutor, 1000);
+            List<Integer> received = new CopyOnWriteArrayList<>();
+            CountDownLatch latch = new CountDownLatch(100);
+            eventBus.subscribe(listener(event -> {
+                received.add(event.value());
+                latch.countDown();
+            }));
+
+            IntStream.range(0, 100).forEach(i -> eventBus.publish(new TestEvent(i)));
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(IntStream.range(0, 100).boxed().toList(), received);
+            assertEquals(100, eventBus.metrics().publishedCount());
+
+            eventBus.close();
+            assertFalse(sharedExecutor.isShutdown());
+            assertThrows(IllegalStateException.class, () -> eventBus.publish(new TestEvent(100)));
+        } finally {
+            sharedExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void dropEventsWhenSaturatedAndDeliverPendingOnClose() throws InterruptedException {
+        ExecutorService sharedExecutor = Executors.newSingleThreadExecutor();
+        try {
+            DefaultEventBus<TestEvent, EventListener<TestEvent>> eventBus = DefaultEventBus.shared(sharedExecutor, 2);
+            CountDownLatch blocker = new CountDownLatch(1);
+            List<Integer> received = new CopyOnWriteArrayList<>();
+            eventBus.subscribe(listener(event -> {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.add(event.value());
+            }));
+
+            IntStream.range(0, 5).forEach(i -> eventBus.publish(new TestEvent(i)));
+            EventBusMetrics metrics = eventBus.metrics();
+            assertEquals(5, metrics.publishedCount());
+            assertEquals(2, metrics.pendingCount());
+            assertEquals(2, metrics.maxPendingCount());
+            assertEquals(3, metrics.droppedCount());
+
+            eventBus.close();
+            blocker.countDown();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (received.size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(List.of(0, 1), received);
+            assertEquals(0, eventBus.metrics().pendingCount());
+        } finally {
+            sharedExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentPublishersNeverExceedCapacity() throws InterruptedException {
+        ExecutorService sharedExecutor = Executors.newSingleThreadExecutor();
+        ExecutorService publishers = Executors.newFixedThreadPool(8);
+        try {
+            DefaultEventBus<TestEvent, EventListener<TestEvent>> eventBus = DefaultEventBus.shared(sharedExecutor, 10);
+            CountDownLatch blocker = new CountDownLatch(1);
+            eventBus.subscribe(listener(event -> {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+
+            CountDownLatch published = new CountDownLatch(8);
+            for (int i = 0; i < 8; i++) {
+                publishers.execute(() -> {
+                    IntStream.range(0, 100).forEach(j -> eventBus.publish(new TestEvent(j)));
+                    published.countDown();
+                });
+            }
+            assertTrue(published.await(5, TimeUnit.SECONDS));
+            EventBusMetrics metrics = eventBus.metrics();
+            assertEquals(800, metrics.publishedCount());
+            assertEquals(10, metrics.pendingCount());
+            assertEquals(790, metrics.droppedCount());
+            blocker.countDown();
+        } finally {
+            publishers.shutdownNow();
+            sharedExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void listenerPublishesWithoutWaiting() throws InterruptedException {
+        ExecutorService sharedExecutor = Executors.newSingleThreadExecutor();
+        try {
+            DefaultEventBus<TestEvent, EventListener<TestEvent>> eventBus = DefaultEventBus.shared(sharedExecutor, 4);
+            CountDownLatch delivered = new CountDownLatch(4);
+            eventBus.subscribe(listener(event -> {
+                if (event.value() == 0) {
+                    IntStream.range(1, 4).forEach(i -> eventBus.publish(new TestEvent(i)));
+                }
+                delivered.countDown();
+            }));
+
+            eventBus.publish(new TestEvent(0));
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(4, eventBus.metrics().publishedCount());
+            assertEquals(0, eventBus.metrics().droppedCount());
+        } finally {
+            sharedExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void closeOwnedThreadPool() {
+        ExecutorService threadPool = Executors.newSingleThreadExecutor();
+        DefaultEventBus<TestEvent, EventListener<TestEvent>> eventBus = new DefaultEventBus<>(threadPool);
+        eventBus.subscribe(listener(event -> {
+        }));
+        eventBus.publish(new TestEvent(1));
+
+        eventBus.close();
+        assertTrue(threadPool.isShutdown());
+        assertEquals(0, eventBus.getListenerCount());
+    }
+}
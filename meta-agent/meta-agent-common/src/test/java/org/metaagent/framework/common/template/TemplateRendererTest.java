@@ -27,8 +27,11 @@ package org.metaagent.framework.common.template;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class TemplateRendererTest {
     @Test
@@ -55,4 +58,26 @@ class TemplateRendererTest {
         TemplateRenderer renderer = TemplateRendererRegistry.getInstance().getRenderer("jinja2");
         assertEquals("Hello, World!", renderer.render("Hello, {{name}}!", "name", "World"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCompiledDefaultTemplate() {
+        TemplateRenderer renderer = TemplateRendererRegistry.getDefaultRenderer();
+        CompiledTemplate template = renderer.compile("Hello, ${name}! You have ${count:no} new messages.");
+        assertSame(template, renderer.compile("Hello, ${name}! You have ${count:no} new messages."));
+        assertEquals("Hello, Alice! You have 5 new messages.", template.render("name", "Alice", "count", 5));
+        assertEquals("Hello, Bob! You have no new messages.", template.render(Map.of("name", "Bob")));
+        assertEquals("Hello, Bob! You have 2 new messages.",
+                template.render(Map.of("name", "${first}", "first", "Bob", "count", 2)));
+        assertThrows(TemplateRenderException.class, () -> template.render(Map.of("count", 1)));
+
+        assertEquals("Price: ${price}, Hello!", renderer.render("Price: $${price}, ${greeting}!", "greeting", "Hello"));
+    }
+
+    @Test
+    void testCompiledJinja2Template() {
+        TemplateRenderer renderer = TemplateRendererRegistry.getInstance().getRenderer("jinja2");
+        CompiledTemplate template = renderer.compile("{% for item in items %}{{ item | upper }} {% endfor %}");
+        assertEquals("A B ", template.render(Map.of("items", List.of("a", "b"))));
+        assertEquals("C ", template.render(Map.of("items", List.of("c"))));
+    }
+}
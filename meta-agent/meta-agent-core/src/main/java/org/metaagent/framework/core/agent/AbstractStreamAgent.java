@@ -25,6 +25,8 @@
 package org.metaagent.framework.core.agent;
 
 import org.metaagent.framework.common.abort.AbortException;
+import org.metaagent.framework.common.abort.AbortListener;
+import org.metaagent.framework.common.abort.AbortSignal;
 import org.metaagent.framework.core.agent.context.AgentStepContext;
 import org.metaagent.framework.core.agent.exception.AgentExecutionException;
 import org.metaagent.framework.core.agent.exception.AgentInterruptedException;
@@ -38,8 +40,12 @@ import org.metaagent.framework.core.agent.listener.DefaultAgentListenerRegistry;
 import org.metaagent.framework.core.agent.output.AgentStreamOutput;
 import org.metaagent.framework.core.agent.profile.AgentProfile;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Abstract {@link StreamingAgent} implementation.
@@ -53,6 +59,7 @@ public abstract class AbstractStreamAgent<
         S>
         extends AbstractMetaAgent<I, O> implements StreamingAgent<I, O, C, S> {
     protected AgentStepListenerRegistry<I, O, C> stepListenerRegistry;
+    protected StepLoopConfig stepLoopConfig = new StepLoopConfig();
 
     protected AbstractStreamAgent(String name) {
         super(name);
@@ -73,6 +80,14 @@ public abstract class AbstractStreamAgent<
         return stepListenerRegistry;
     }
 
+    public StepLoopConfig getStepLoopConfig() {
+        return stepLoopConfig;
+    }
+
+    public void setStepLoopConfig(StepLoopConfig stepLoopConfig) {
+        this.stepLoopConfig = Objects.requireNonNull(stepLoopConfig, "stepLoopConfig is required");
+    }
+
     public AgentFallbackStrategy<Agent<I, O, C>, I, O> getFallbackStrategy() {
         return new FastFailAgentFallbackStrategy<>();
     }
@@ -176,27 +191,84 @@ public abstract class AbstractStreamAgent<
 
     /**
      * Run the streaming agent with looping.
+     * <p>
+     * Steps are run one after another by re-subscribing to the step stream while the loop should continue,
+     * so the stack depth and the operator chain stay constant however many steps a run takes, and the
+     * downstream demand is propagated to every step. The loop stops when {@link #shouldContinueLoop} says so,
+     * when the max steps or the token budget of the {@link StepLoopConfig} is reached, or with an
+     * {@link AbortException} when the abort signal of the agent context is aborted.
      *
      * @param agentInput  The input to run the agent with
      * @param stepContext The step context
      * @return the output of the agent
      */
     protected Flux<S> doRunStream(I agentInput, C stepContext) {
-        return stepStream(agentInput, stepContext)
-                .concatWith(Flux.defer(() -> {
-                    if (shouldContinueLoop(agentInput, stepContext)) {
-                        stepContext.getLoopCounter().incrementAndGet();
-                        return stepStream(buildNextInput(agentInput, stepContext), stepContext);
-                    } else {
-                        return Flux.empty();
+        AtomicReference<I> stepInput = new AtomicReference<>(agentInput);
+        Flux<S> stream = Flux.defer(() -> stepStream(stepInput.get(), stepContext))
+                .repeat(() -> {
+                    if (!shouldContinueStepLoop(stepInput.get(), stepContext)) {
+                        return false;
                     }
-                }));
+                    stepContext.getLoopCounter().incrementAndGet();
+                    stepInput.set(buildNextInput(stepInput.get(), stepContext));
+                    return true;
+                });
+        AbortSignal abortSignal = agentInput.context() != null ? agentInput.context().abortSignal() : null;
+        return abortSignal != null ? abortable(stream, abortSignal) : stream;
+    }
+
+    private boolean shouldContinueStepLoop(I agentInput, C stepContext) {
+        AbortSignal abortSignal = agentInput.context() != null ? agentInput.context().abortSignal() : null;
+        if (abortSignal != null && abortSignal.isAborted()) {
+            return false;
+        }
+        int maxSteps = getMaxSteps(agentInput);
+        if (maxSteps > 0 && stepContext.getLoopCounter().get() + 1 >= maxSteps) {
+            logger.debug("Agent {} stops after reaching max steps {}", name(), maxSteps);
+            return false;
+        }
+        long tokenBudget = stepLoopConfig.tokenBudget;
+        if (tokenBudget > 0 && stepContext.getConsumedTokens() >= tokenBudget) {
+            logger.debug("Agent {} stops after exhausting the token budget {}", name(), tokenBudget);
+            return false;
+        }
+        return shouldContinueLoop(agentInput, stepContext);
     }
 
     /**
-     * Builds the next input for the agent.
+     * Returns the max number of steps of a run.
      *
-     * @param agentInput  the agent input
+     * @param agentInput the agent input
+     * @return the max number of steps, or 0 if unlimited
+     */
+    protected int getMaxSteps(I agentInput) {
+        return stepLoopConfig.maxSteps;
+    }
+
+    private Flux<S> abortable(Flux<S> stream, AbortSignal abortSignal) {
+        return Flux.defer(() -> {
+            if (abortSignal.isAborted()) {
+                return Flux.error(toAbortException(abortSignal));
+            }
+            Sinks.One<Boolean> aborted = Sinks.one();
+            AbortListener abortListener = signal -> aborted.tryEmitValue(true);
+            abortSignal.addAbortListener(abortListener);
+            return stream.takeUntilOther(aborted.asMono())
+                    .concatWith(Mono.defer(() -> abortSignal.isAborted()
+                            ? Mono.error(toAbortException(abortSignal)) : Mono.empty()))
+                    .doFinally(signalType -> abortSignal.removeAbortListener(abortListener));
+        });
+    }
+
+    private static AbortException toAbortException(AbortSignal abortSignal) {
+        Throwable reason = abortSignal.abortReason();
+        return reason instanceof AbortException ex ? ex : new AbortException("Aborted", reason);
+    }
+
+    /**
+     * Builds the input of the next step from the input of the previous step.
+     *
+     * @param agentInput  the input of the previous step
      * @param stepContext the agent step context
      * @return the next input
      */
@@ -244,4 +316,42 @@ public abstract class AbstractStreamAgent<
      */
     protected abstract Flux<S> doStepStream(I agentInput, C stepContext);
 
+    /**
+     * Configuration of the step loop of {@link AbstractStreamAgent}.
+     */
+    public static class StepLoopConfig {
+        /**
+         * Maximum number of steps of a run. The step loop is unlimited if value is set to 0.
+         */
+        private int maxSteps = 100;
+        /**
+         * Maximum number of tokens consumed by a run, checked before each step.
+         * The token budget is unlimited if value is set to 0.
+         */
+        private long tokenBudget = 0;
+
+        public StepLoopConfig maxSteps(int maxSteps) {
+            if (maxSteps < 0) {
+                throw new IllegalArgumentException("maxSteps must not be negative");
+            }
+            this.maxSteps = maxSteps;
+            return this;
+        }
+
+        public StepLoopConfig tokenBudget(long tokenBudget) {
+            if (tokenBudget < 0) {
+                throw new IllegalArgumentException("tokenBudget must not be negative");
+            }
+            this.tokenBudget = tokenBudget;
+            return this;
+        }
+
+        public int maxSteps() {
+            return maxSteps;
+        }
+
+        public long tokenBudget() {
+            return tokenBudget;
+        }
+    }
 }
@@ -26,6 +26,8 @@ package org.metaagent.framework.core.agent.chat.conversation;
 
 import org.metaagent.framework.core.agent.chat.message.Message;
 import org.metaagent.framework.core.agent.chat.message.MessageId;
+import org.metaagent.framework.core.agent.chat.message.MessageInfo;
+import org.metaagent.framework.core.agent.chat.message.part.MessagePart;
 import org.metaagent.framework.core.agent.chat.session.SessionId;
 
 import java.io.Closeable;
@@ -79,6 +81,31 @@ public interface Conversation extends Iterable<Message>, Flushable, Closeable {
      */
     void appendMessage(Message message);
 
+    /**
+     * Appends a part to an open message at the end of the current branch.
+     * This is intended for messages that are produced incrementally, such as streamed model output.
+     * The first part opens the message with the given info, links it to the current branch leaf
+     * in the same way as {@link #appendMessage(Message)} and makes it the current leaf.
+     * Subsequent parts are appended to the open message without rewriting it, and the message
+     * is persisted once when it is sealed by {@link #sealMessage(MessageId)}, or with the regular
+     * flush if it stays open for a long time.
+     *
+     * @param messageInfo the info of the open message (must not be null)
+     * @param part        the part to append (must not be null)
+     * @throws IllegalArgumentException if the message already exists and has been sealed,
+     *                                  or if its parent ID does not match the current branch leaf
+     */
+    void appendMessagePart(MessageInfo messageInfo, MessagePart part);
+
+    /**
+     * Seals an open message so that no more parts can be appended to it, and schedules it for persistence.
+     * Sealing a message that is not open (e.g. already sealed) has no effect.
+     *
+     * @param messageId the ID of the open message (must not be null)
+     * @throws IllegalArgumentException if the message does not exist
+     */
+    void sealMessage(MessageId messageId);
+
     /**
      * Updates an existing message on the current branch.
      * The message's ID must exist and belong to the current branch.
@@ -223,6 +250,33 @@ public interface Conversation extends Iterable<Message>, Flushable, Closeable {
      */
     Conversation copy(SessionId newSessionId, Supplier<MessageId> messageIdGenerator);
 
+    /**
+     * Creates a branch of this conversation under a new session, starting from the current leaf.
+     * Unlike {@link #copy(SessionId, Supplier)}, the messages keep their IDs and the history is
+     * shared through {@link ConversationStore#forkSession(SessionId, MessageId, SessionId)}, so
+     * branching a long conversation is cheap if the store supports it. Both conversations
+     * evolve independently afterwards.
+     *
+     * @param newSessionId the ID of the new session, which must not have messages yet
+     * @return a new {@code Conversation} instance representing the branch
+     * @throws IllegalArgumentException if the new session already has messages
+     */
+    Conversation branch(SessionId newSessionId);
+
+    /**
+     * Adds a listener notified when messages of this conversation are updated, deleted or released.
+     *
+     * @param listener the listener to add
+     */
+    void addListener(ConversationListener listener);
+
+    /**
+     * Removes a listener added by {@link #addListener(ConversationListener)}.
+     *
+     * @param listener the listener to remove
+     */
+    void removeListener(ConversationListener listener);
+
     /**
      * Removes all messages from this conversation.
      * This operation is irreversible and will also clear all branches.
@@ -241,7 +295,8 @@ public interface Conversation extends Iterable<Message>, Flushable, Closeable {
 
     /**
      * Releases any resources held by this conversation (e.g., caches, open connections).
-     * After closing, the conversation should not be used further.
+     * Buffered and open messages are flushed, and any further write is rejected
+     * with an {@link IllegalStateException}.
      *
      * @throws IOException if an error occurs during closing
      */
@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.agent.chat.conversation;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide write-behind scheduler for conversations.
+ * <p>
+ * Conversations buffer new messages in memory and hand a flush task to this scheduler once
+ * they become dirty, so all conversations share a fixed number of flush threads instead of
+ * each one owning a timer thread. Idle conversations are not scheduled at all.
+ * </p>
+ *
+ * @author vyckey
+ */
+@Slf4j
+public class ConversationFlusher implements Closeable {
+    private static final ConversationFlusher SHARED = new ConversationFlusher(1);
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final AtomicInteger pendingFlushes = new AtomicInteger();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * Creates a flusher with the given number of threads.
+     *
+     * @param threads the number of flush threads
+     */
+    public ConversationFlusher(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        this.scheduler = new ScheduledThreadPoolExecutor(threads,
+                new ThreadFactoryBuilder().setNameFormat("ConversationFlusher-T%d").setDaemon(true).build());
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Gets the flusher shared by all conversations of this process.
+     */
+    public static ConversationFlusher shared() {
+        return SHARED;
+    }
+
+    /**
+     * Schedules a flush of the target after the given delay.
+     * Failures are logged, the target is expected to keep its data and schedule a retry.
+     *
+     * @param target      the target to flush
+     * @param delayMillis the delay in millis
+     * @return the future of the scheduled flush, which can be cancelled
+     */
+    public Future<?> schedule(Flushable target, long delayMillis) {
+        Objects.requireNonNull(target, "target must not be null");
+        long scheduledAt = System.nanoTime();
+        pendingFlushes.incrementAndGet();
+        return scheduler.schedule(() -> {
+            pendingFlushes.decrementAndGet();
+            try {
+                target.flush();
+                recordLatency(System.nanoTime() - scheduledAt);
+            } catch (Exception e) {
+                failureCount.incrementAndGet();
+                log.warn("Failed to flush {}", target, e);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marks a scheduled flush as cancelled, so it is no longer counted as pending.
+     *
+     * @param future the future returned by {@link #schedule(Flushable, long)}
+     */
+    public void cancel(Future<?> future) {
+        if (future != null && future.cancel(false)) {
+            pendingFlushes.decrementAndGet();
+        }
+    }
+
+    private void recordLatency(long latencyNanos) {
+        flushCount.incrementAndGet();
+        totalLatencyNanos.addAndGet(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    /**
+     * Gets a snapshot of the flush statistics.
+     */
+    public Stats stats() {
+        long flushes = flushCount.get();
+        long averageNanos = flushes > 0 ? totalLatencyNanos.get() / flushes : 0;
+        return new Stats(pendingFlushes.get(), flushes, failureCount.get(),
+                TimeUnit.NANOSECONDS.toMillis(averageNanos), TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get()));
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Flush statistics. Latency is measured from scheduling a flush to its completion,
+     * i.e. how long buffered messages stayed unpersisted.
+     *
+     * @param queueSize            the number of scheduled flushes not yet started
+     * @param flushCount           the number of completed flushes
+     * @param failureCount         the number of failed flushes
+     * @param averageLatencyMillis the average flush latency in millis
+     * @param maxLatencyMillis     the maximum flush latency in millis
+     */
+    public record Stats(int queueSize, long flushCount, long failureCount,
+                        long averageLatencyMillis, long maxLatencyMillis) {
+    }
+}
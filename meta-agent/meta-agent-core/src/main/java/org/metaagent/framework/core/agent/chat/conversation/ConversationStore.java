@@ -27,8 +27,12 @@ package org.metaagent.framework.core.agent.chat.conversation;
 import org.metaagent.framework.common.util.PageResult;
 import org.metaagent.framework.core.agent.chat.message.Message;
 import org.metaagent.framework.core.agent.chat.message.MessageId;
+import org.metaagent.framework.core.agent.chat.message.part.MessagePart;
 import org.metaagent.framework.core.agent.chat.session.SessionId;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -89,6 +93,31 @@ public interface ConversationStore {
      */
     void updateMessage(SessionId sessionId, Message message);
 
+    /**
+     * Appends parts to the end of an existing message in the conversation.
+     * <p>
+     * This is the part-level counterpart of {@link #updateMessage} used when a message is
+     * persisted while it is still being streamed. The default implementation rewrites the
+     * whole message; stores that can append deltas natively should override it.
+     * </p>
+     *
+     * @param sessionId the session identifier (must not be {@code null})
+     * @param messageId the ID of the message to append to (must not be {@code null})
+     * @param parts     the parts to append, in order (must not be {@code null})
+     * @throws IllegalArgumentException if the message ID does not exist
+     */
+    default void appendMessageParts(SessionId sessionId, MessageId messageId, List<MessagePart> parts) {
+        if (parts.isEmpty()) {
+            return;
+        }
+        Message message = getMessage(sessionId, messageId)
+                .orElseThrow(() -> new IllegalArgumentException("Message does not exist: " + messageId));
+        List<MessagePart> newParts = new ArrayList<>(message.parts().size() + parts.size());
+        newParts.addAll(message.parts());
+        newParts.addAll(parts);
+        updateMessage(sessionId, message.toBuilder().parts(newParts).build());
+    }
+
     /**
      * Retrieves a specific message by its ID within a session.
      *
@@ -177,6 +206,36 @@ public interface ConversationStore {
      */
     Set<MessageId> deleteMessages(SessionId sessionId, MessageId rootMessageId, boolean inclusive);
 
+    /**
+     * Forks the conversation of a session at the given message into another session.
+     * <p>
+     * The target session starts with the path from the root to {@code forkPointId}, which becomes
+     * its only leaf, and both sessions evolve independently afterwards. Shared messages keep their
+     * IDs and infos. The default implementation copies the path; stores that can share the history
+     * between sessions should override it, so that forking does not depend on the conversation length.
+     * </p>
+     *
+     * @param sourceSessionId the session to fork (must not be {@code null})
+     * @param forkPointId     the ID of the last message shared with the fork (must not be {@code null})
+     * @param targetSessionId the session of the fork (must not be {@code null})
+     * @throws IllegalArgumentException if the fork point does not exist or the target session is not empty
+     */
+    default void forkSession(SessionId sourceSessionId, MessageId forkPointId, SessionId targetSessionId) {
+        Message forkPoint = getMessage(sourceSessionId, forkPointId)
+                .orElseThrow(() -> new IllegalArgumentException("Fork point message not found: " + forkPointId));
+        if (getLastMessage(targetSessionId).isPresent()) {
+            throw new IllegalArgumentException("Conversation already exists: " + targetSessionId);
+        }
+
+        Deque<Message> path = new ArrayDeque<>();
+        for (Message message = forkPoint; message != null; ) {
+            path.addFirst(message);
+            MessageId parentId = message.info().parentId();
+            message = parentId != null ? getMessage(sourceSessionId, parentId).orElse(null) : null;
+        }
+        appendMessages(targetSessionId, new ArrayList<>(path));
+    }
+
     /**
      * Deletes all messages belonging to the specified session.
      * <p>
@@ -186,4 +245,16 @@ public interface ConversationStore {
      * @param sessionId the session identifier (must not be {@code null})
      */
     void deleteMessages(SessionId sessionId);
+
+    /**
+     * Releases the in-memory state and open resources the store keeps for a session.
+     * <p>
+     * This is a hint when a session is not expected to be used for a while, no message is lost:
+     * the session is loaded again on its next access. The default implementation does nothing.
+     * </p>
+     *
+     * @param sessionId the session identifier (must not be {@code null})
+     */
+    default void releaseSession(SessionId sessionId) {
+    }
 }
\ No newline at end of file
@@ -24,14 +24,21 @@
 
 package org.metaagent.framework.core.agent.chat.conversation;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
 import org.metaagent.framework.common.util.PageResult;
 import org.metaagent.framework.core.agent.chat.message.Message;
 import org.metaagent.framework.core.agent.chat.message.MessageId;
 import org.metaagent.framework.core.agent.chat.message.MessageInfo;
+import org.metaagent.framework.core.agent.chat.message.RoleMessage;
+import org.metaagent.framework.core.agent.chat.message.part.MessagePart;
 import org.metaagent.framework.core.agent.chat.session.SessionId;
 
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.time.ZoneId;
@@ -40,18 +47,20 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.metaagent.framework.core.agent.chat.message.Message.TIME_FORMATTER;
@@ -60,25 +69,39 @@ import static org.metaagent.framework.core.agent.chat.message.Message.TIME_FORMA
  * Thread-safe default implementation of {@link Conversation} backed by a {@link ConversationStore}.
  * <p>
  * This implementation uses lazy loading with a message cache. Messages are loaded on demand
- * through iterators or specific queries. The cache holds all loaded messages regardless of branch.
+ * through iterators or specific queries. The cache holds loaded messages regardless of branch and
+ * is bounded by their approximate size, evicted messages are loaded from the store again. The current
+ * leaf, open messages and messages not yet flushed are always kept in memory.
  * </p>
  *
  * @author vyckey
  */
+@Slf4j
 public class DefaultConversation implements Conversation {
     private final SessionId sessionId;
     private final ConversationStore store;
     private final ConversationConfig config;
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
-    // Message cache: ID -> Message (holds all loaded messages)
-    private final Map<MessageId, Message> messageCache = new HashMap<>();
+    // Message cache: ID -> Message (holds loaded messages up to maxCachedBytes)
+    private final Cache<MessageId, Message> messageCache;
 
     // Message buffer: holds messages that are not yet persisted
     private final List<Message> messageBuffer = new ArrayList<>();
-    private ScheduledExecutorService flushExecutor;
+    private long bufferedBytes = 0;
     private boolean flushing = false;
 
+    // Write-behind flush scheduled on the shared flusher, null if none is pending
+    private final ConversationFlusher flusher;
+    private final Flushable scheduledFlushTask = new ScheduledFlushTask();
+    private Future<?> scheduledFlush;
+    private boolean closed = false;
+
+    // Open messages: ID -> message whose parts are still being appended
+    private final Map<MessageId, OpenMessage> openMessages = new LinkedHashMap<>();
+
+    private final Set<ConversationListener> listeners = new CopyOnWriteArraySet<>();
+
     // Current branch state - only stores the leaf message, path is loaded lazily
     private Message currentLeaf;
     private boolean currentLeafLoaded = false;
@@ -94,13 +117,13 @@ public class DefaultConversation implements Conversation {
         this.sessionId = Objects.requireNonNull(sessionId, "sessionId must not be null");
         this.store = Objects.requireNonNull(store, "store must not be null");
         this.config = Objects.requireNonNull(config, "config must not be null");
-        if (config.flushIntervalMillis > 0) {
-            flushExecutor = Executors.newScheduledThreadPool(1);
-            flushExecutor.scheduleWithFixedDelay(
-                    this::flushNow,
-                    config.flushIntervalMillis, config.flushIntervalMillis, TimeUnit.MILLISECONDS
-            );
-        }
+        this.flusher = config.flusher != null ? config.flusher : ConversationFlusher.shared();
+        this.messageCache = CacheBuilder.newBuilder()
+                .maximumWeight(config.maxCachedBytes)
+                .weigher((MessageId id, Message message) ->
+                        (int) Math.min(MessageWeigher.weigh(message), Integer.MAX_VALUE))
+                .recordStats()
+                .build();
     }
 
     public DefaultConversation(SessionId sessionId, ConversationStore store) {
@@ -119,13 +142,38 @@ public class DefaultConversation implements Conversation {
             this.currentLeaf = currentLeaf;
             this.currentLeafLoaded = true;
             if (currentLeaf != null) {
-                this.messageCache.put(currentLeaf.info().id(), currentLeaf);
+                cacheMessage(currentLeaf);
             }
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    private void cacheMessage(Message message) {
+        if (!(message instanceof OpenMessage)) {
+            messageCache.put(message.info().id(), message);
+        }
+    }
+
+    /**
+     * Looks up a message in memory without loading it from store. Must be called with the lock held.
+     */
+    private Message cachedMessage(MessageId messageId) {
+        if (currentLeaf != null && currentLeaf.info().id().equals(messageId)) {
+            return currentLeaf;
+        }
+        OpenMessage openMessage = openMessages.get(messageId);
+        if (openMessage != null) {
+            return openMessage;
+        }
+        // Buffered messages are not in the store yet, so they must not be lost by a cache eviction
+        int bufferIndex = indexOfBufferedMessage(messageId);
+        if (bufferIndex >= 0) {
+            return messageBuffer.get(bufferIndex);
+        }
+        return messageCache.getIfPresent(messageId);
+    }
+
     /**
      * Gets a message from cache or loads it from store.
      */
@@ -134,7 +182,7 @@ public class DefaultConversation implements Conversation {
 
         lock.readLock().lock();
         try {
-            Message cached = messageCache.get(messageId);
+            Message cached = cachedMessage(messageId);
             if (cached != null) {
                 return Optional.of(cached);
             }
@@ -145,13 +193,28 @@ public class DefaultConversation implements Conversation {
         // Not in cache, load from store
         lock.writeLock().lock();
         try {
-            Message message = messageCache.computeIfAbsent(messageId, id -> store.getMessage(sessionId, id).orElse(null));
+            Message message = cachedMessage(messageId);
+            if (message == null) {
+                message = store.getMessage(sessionId, messageId).orElse(null);
+                if (message != null) {
+                    cacheMessage(message);
+                }
+            }
             return Optional.ofNullable(message);
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    /**
+     * Returns the statistics of the message cache. Misses are lookups that had to go to the store.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats cacheStats() {
+        return messageCache.stats();
+    }
+
     // ========== Conversation Interface Implementation ==========
 
     @Override
@@ -170,6 +233,7 @@ public class DefaultConversation implements Conversation {
 
         lock.writeLock().lock();
         try {
+            checkOpen();
             Optional<MessageId> currentLeafId = currentLeafId();
             MessageId parentId = message.info().parentId();
             // Auto-set parent if not specified
@@ -183,23 +247,125 @@ public class DefaultConversation implements Conversation {
                         + currentLeafId.orElse(null) + ", but got " + parentId);
             }
 
+            // An open message can not receive more parts once it has a child
+            currentLeafId.ifPresent(this::sealOpenMessage);
+
             // Set message to current leaf
             setCurrentLeaf(message);
 
             // Add message to buffer and flush if required
-            messageBuffer.add(message);
-            flushIfRequired();
+            bufferMessage(message);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void appendMessagePart(MessageInfo messageInfo, MessagePart part) {
+        Objects.requireNonNull(messageInfo, "messageInfo must not be null");
+        Objects.requireNonNull(part, "part must not be null");
+
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            OpenMessage openMessage = openMessages.get(messageInfo.id());
+            if (openMessage == null) {
+                openMessage = openMessage(messageInfo);
+            }
+            openMessage.addPart(part);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Conversation has been closed: " + sessionId);
+        }
+    }
+
+    private OpenMessage openMessage(MessageInfo messageInfo) {
+        MessageId messageId = messageInfo.id();
+        if (getMessage(messageId).isPresent()) {
+            throw new IllegalArgumentException("Message has been sealed: " + messageId);
+        }
+
+        Optional<MessageId> currentLeafId = currentLeafId();
+        MessageId parentId = messageInfo.parentId();
+        // Auto-set parent if not specified
+        if (currentLeafId.isPresent() && parentId == null) {
+            parentId = currentLeafId.get();
+            messageInfo = messageInfo.toBuilder().parentId(parentId).build();
+        }
+
+        // Validate parent matches current leaf
+        if (!Objects.equals(parentId, currentLeafId.orElse(null))) {
+            throw new IllegalArgumentException("Parent ID must match current branch leaf: expected "
+                    + currentLeafId.orElse(null) + ", but got " + parentId);
+        }
+        currentLeafId.ifPresent(this::sealOpenMessage);
+
+        // The open message is cached as a live view, so readers see the parts appended so far
+        OpenMessage openMessage = new OpenMessage(messageInfo);
+        openMessages.put(messageId, openMessage);
+        setCurrentLeaf(openMessage);
+        scheduleFlushIfRequired();
+        return openMessage;
+    }
+
+    @Override
+    public void sealMessage(MessageId messageId) {
+        Objects.requireNonNull(messageId, "messageId must not be null");
+
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            if (!openMessages.containsKey(messageId)) {
+                if (getMessage(messageId).isEmpty()) {
+                    throw new IllegalArgumentException("Message does not exist: " + messageId);
+                }
+                return;
+            }
+            sealOpenMessage(messageId);
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    private void sealOpenMessage(MessageId messageId) {
+        OpenMessage openMessage = openMessages.remove(messageId);
+        if (openMessage == null) {
+            return;
+        }
+
+        Message message = openMessage.toMessage();
+        cacheMessage(message);
+        if (currentLeaf == openMessage) {
+            setCurrentLeaf(message);
+        }
+
+        if (openMessage.persistedPartCount < 0) {
+            // Never persisted, so it goes through the message buffer like any other message
+            bufferMessage(message);
+        } else {
+            List<MessagePart> parts = message.parts();
+            store.appendMessageParts(sessionId, messageId, parts.subList(openMessage.persistedPartCount, parts.size()));
+        }
+    }
+
+    private void sealOpenMessages() {
+        for (MessageId messageId : List.copyOf(openMessages.keySet())) {
+            sealOpenMessage(messageId);
+        }
+    }
+
     @Override
     public void updateMessage(Message newMessage) {
         Objects.requireNonNull(newMessage, "newMessage must not be null");
 
         lock.writeLock().lock();
         try {
+            checkOpen();
             MessageId messageId = newMessage.info().id();
             // Verify message exists in cache or store
             Optional<Message> existing = getMessage(messageId);
@@ -210,13 +376,22 @@ public class DefaultConversation implements Conversation {
             // Verify it's on current branch (simplified - would need full branch check)
             // For now, we'll skip this check for simplicity
 
-            store.updateMessage(sessionId, newMessage);
-            messageCache.put(messageId, newMessage);
+            // Replacing an open message seals it, the message may then still wait in the buffer
+            sealOpenMessage(messageId);
+            int bufferIndex = indexOfBufferedMessage(messageId);
+            if (bufferIndex >= 0) {
+                Message oldMessage = messageBuffer.set(bufferIndex, newMessage);
+                bufferedBytes += MessageWeigher.weigh(newMessage) - MessageWeigher.weigh(oldMessage);
+            } else {
+                store.updateMessage(sessionId, newMessage);
+            }
+            cacheMessage(newMessage);
 
             // If this was the current leaf, need to update leaf message
             if (messageId.equals(currentLeafId().orElse(null))) {
                 setCurrentLeaf(newMessage);
             }
+            notifyMessagesChanged();
         } finally {
             lock.writeLock().unlock();
         }
@@ -228,8 +403,12 @@ public class DefaultConversation implements Conversation {
 
         lock.writeLock().lock();
         try {
+            checkOpen();
+            sealOpenMessages();
+
             // Check if message is in buffer
             if (deleteMessagesInBufferIfPresent(messageId, inclusive)) {
+                notifyMessagesChanged();
                 return;
             }
 
@@ -244,25 +423,31 @@ public class DefaultConversation implements Conversation {
 
             // Delete messages from store
             Set<MessageId> deletedMessageIds = store.deleteMessages(sessionId, messageId, inclusive);
-            deletedMessageIds.forEach(messageCache::remove);
+            messageCache.invalidateAll(deletedMessageIds);
 
             // Reset current leaf message
             resetLeafMessage(foundMessage.get(), inclusive);
+            notifyMessagesChanged();
         } finally {
             lock.writeLock().unlock();
         }
     }
 
-    private boolean deleteMessagesInBufferIfPresent(MessageId messageId, boolean inclusive) {
-        int messageIndex = IntStream.range(0, messageBuffer.size())
+    private int indexOfBufferedMessage(MessageId messageId) {
+        return IntStream.range(0, messageBuffer.size())
                 .filter(idx -> messageBuffer.get(idx).info().id().equals(messageId))
                 .findFirst().orElse(-1);
+    }
+
+    private boolean deleteMessagesInBufferIfPresent(MessageId messageId, boolean inclusive) {
+        int messageIndex = indexOfBufferedMessage(messageId);
         if (messageIndex < 0) {
             return false;
         }
 
         Message message = messageBuffer.remove(messageIndex);
         messageBuffer.subList(inclusive ? messageIndex : messageIndex + 1, messageBuffer.size()).clear();
+        bufferedBytes = MessageWeigher.weigh(messageBuffer);
         resetLeafMessage(message, inclusive);
         return true;
     }
@@ -304,7 +489,7 @@ public class DefaultConversation implements Conversation {
             Optional<Message> lastMessage = store.getLastMessage(sessionId);
             lastMessage.ifPresent(message -> {
                 currentLeaf = message;
-                messageCache.put(message.info().id(), message);
+                cacheMessage(message);
             });
             currentLeafLoaded = true;
             return lastMessage;
@@ -380,6 +565,7 @@ public class DefaultConversation implements Conversation {
 
         lock.writeLock().lock();
         try {
+            checkOpen();
             if (currentLeaf != null && Objects.equals(currentLeaf.info().id(), leafMessageId)) {
                 // No need to update
             } else {
@@ -390,6 +576,7 @@ public class DefaultConversation implements Conversation {
                 }
 
                 // Force flush message buffer on the current branch
+                sealOpenMessages();
                 flushNow();
 
                 // Set the leaf message as current leaf
@@ -434,6 +621,7 @@ public class DefaultConversation implements Conversation {
 
         lock.writeLock().lock();
         try {
+            checkOpen();
             // Verify parent exists and is a leaf
             Optional<Message> parentOpt = getMessage(parentMessageId);
             if (parentOpt.isEmpty()) {
@@ -454,11 +642,11 @@ public class DefaultConversation implements Conversation {
             }
 
             // Force flush message buffer on the current branch
+            sealOpenMessages();
             flushNow();
 
             // Add message to buffer
-            messageBuffer.add(message);
-            flushIfRequired();
+            bufferMessage(message);
 
             // Switch to new branch
             setCurrentLeaf(message);
@@ -471,10 +659,14 @@ public class DefaultConversation implements Conversation {
     public void clear() {
         lock.writeLock().lock();
         try {
+            checkOpen();
             messageBuffer.clear();
-            messageCache.clear();
+            bufferedBytes = 0;
+            openMessages.clear();
+            messageCache.invalidateAll();
             store.deleteMessages(sessionId);
             setCurrentLeaf(null);
+            notifyMessagesChanged();
         } finally {
             lock.writeLock().unlock();
         }
@@ -486,6 +678,12 @@ public class DefaultConversation implements Conversation {
         Objects.requireNonNull(messageIdGenerator, "messageIdGenerator must not be null");
 
         // Load all messages in current branch
+        lock.writeLock().lock();
+        try {
+            sealOpenMessages();
+        } finally {
+            lock.writeLock().unlock();
+        }
         ForwardBranchIterator iterator = new ForwardBranchIterator();
         List<Message> messages = Lists.newArrayList(iterator);
 
@@ -513,16 +711,61 @@ public class DefaultConversation implements Conversation {
         return conversation;
     }
 
+    @Override
+    public Conversation branch(SessionId newSessionId) {
+        Objects.requireNonNull(newSessionId, "newSessionId must not be null");
+
+        lock.writeLock().lock();
+        try {
+            // The store shares persisted messages only
+            sealOpenMessages();
+            flushNow();
+            Optional<MessageId> leafId = currentLeafId();
+            if (leafId.isPresent()) {
+                store.forkSession(sessionId, leafId.get(), newSessionId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new DefaultConversation(newSessionId, store, config);
+    }
+
+    private void bufferMessage(Message message) {
+        messageBuffer.add(message);
+        bufferedBytes += MessageWeigher.weigh(message);
+        flushIfRequired();
+    }
+
     private void flushIfRequired() {
+        // Flushing in the caller thread applies backpressure when the buffer grows too large
         if (messageBuffer.size() >= config.maxMessageBufferSize
+                || bufferedBytes >= config.maxBufferedBytes
                 || config.flushIntervalMillis <= 0) {
             flushNow();
         }
+        scheduleFlushIfRequired();
+    }
+
+    /**
+     * Schedules a write-behind flush on the shared flusher if there is data to persist
+     * and no flush is pending yet. Must be called with the write lock held.
+     */
+    private void scheduleFlushIfRequired() {
+        if (closed || scheduledFlush != null || config.flushIntervalMillis <= 0) {
+            return;
+        }
+        boolean flushOpenMessages = !openMessages.isEmpty() && config.openMessageFlushIntervalMillis > 0;
+        if (!messageBuffer.isEmpty()) {
+            scheduledFlush = flusher.schedule(scheduledFlushTask, config.flushIntervalMillis);
+        } else if (flushOpenMessages) {
+            long delayMillis = Math.max(config.flushIntervalMillis, config.openMessageFlushIntervalMillis);
+            scheduledFlush = flusher.schedule(scheduledFlushTask, delayMillis);
+        }
     }
 
     private void flushNow() {
         try {
-            flush();
+            flush(false);
         } catch (IOException e) {
             throw new UncheckedIOException("Failed to flush message buffer", e);
         }
@@ -530,8 +773,17 @@ public class DefaultConversation implements Conversation {
 
     @Override
     public void flush() throws IOException {
+        flush(true);
+    }
+
+    private void flush(boolean forceOpenMessages) throws IOException {
         if (flushing) return;
 
+        flushMessageBuffer();
+        flushOpenMessages(forceOpenMessages);
+    }
+
+    private void flushMessageBuffer() throws IOException {
         List<Message> toFlush;
         lock.writeLock().lock();
         try {
@@ -543,6 +795,7 @@ public class DefaultConversation implements Conversation {
             flushing = true;
             toFlush = Lists.newArrayList(messageBuffer);
             messageBuffer.clear();
+            bufferedBytes = 0;
         } finally {
             lock.writeLock().unlock();
         }
@@ -558,6 +811,7 @@ public class DefaultConversation implements Conversation {
             try {
                 // Refill messages to buffer if flush failed
                 messageBuffer.addAll(0, toFlush);
+                bufferedBytes = MessageWeigher.weigh(messageBuffer);
             } finally {
                 lock.writeLock().unlock();
             }
@@ -572,27 +826,103 @@ public class DefaultConversation implements Conversation {
         }
     }
 
+    /**
+     * Persists the parts appended to open messages since their last flush. Open messages are only
+     * persisted once they have been open for {@code openMessageFlushIntervalMillis}, unless forced.
+     */
+    private void flushOpenMessages(boolean force) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (openMessages.isEmpty() || flushing) {
+                // Nothing to flush, or the parent messages are being flushed by another thread
+                return;
+            }
+
+            long now = System.nanoTime();
+            long intervalNanos = TimeUnit.MILLISECONDS.toNanos(config.openMessageFlushIntervalMillis);
+            for (OpenMessage openMessage : openMessages.values()) {
+                if (!force && (intervalNanos <= 0 || now - openMessage.lastFlushNanos < intervalNanos)) {
+                    continue;
+                }
+
+                List<MessagePart> parts = openMessage.parts();
+                if (openMessage.persistedPartCount < 0) {
+                    store.appendMessage(sessionId, new RoleMessage(openMessage.info(), parts));
+                } else if (openMessage.persistedPartCount < parts.size()) {
+                    store.appendMessageParts(sessionId, openMessage.info().id(),
+                            parts.subList(openMessage.persistedPartCount, parts.size()));
+                }
+                openMessage.persistedPartCount = parts.size();
+                openMessage.lastFlushNanos = now;
+            }
+        } catch (Exception e) {
+            throw new IOException("Failed to flush open messages", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
     @Override
     public void close() throws IOException {
         lock.writeLock().lock();
         try {
+            closed = true;
+            flusher.cancel(scheduledFlush);
+            scheduledFlush = null;
             flush();
         } finally {
-            messageCache.clear();
+            openMessages.clear();
+            messageCache.invalidateAll();
             setCurrentLeaf(null);
+            notifyMessagesChanged();
             lock.writeLock().unlock();
         }
+    }
+
+    @Override
+    public void addListener(ConversationListener listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener must not be null"));
+    }
+
+    @Override
+    public void removeListener(ConversationListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyMessagesChanged() {
+        for (ConversationListener listener : listeners) {
+            try {
+                listener.onMessagesChanged(sessionId);
+            } catch (Exception e) {
+                log.warn("Conversation listener failed for session {}", sessionId, e);
+            }
+        }
+    }
 
-        if (flushExecutor != null) {
+    /**
+     * Flush task run by the shared flusher. It reschedules itself as long as there is
+     * data left to persist, which also retries failed flushes.
+     */
+    private class ScheduledFlushTask implements Flushable {
+        @Override
+        public void flush() throws IOException {
             try {
-                if (!flushExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
-                    flushExecutor.shutdownNow();
+                DefaultConversation.this.flush(false);
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    scheduledFlush = null;
+                    scheduleFlushIfRequired();
+                } finally {
+                    lock.writeLock().unlock();
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                flushExecutor.shutdownNow();
             }
         }
+
+        @Override
+        public String toString() {
+            return "ConversationFlush(" + sessionId + ")";
+        }
     }
 
     private void appendMessages(StringBuilder sb, List<Message> messages, int maxMessageLength) {
@@ -657,32 +987,38 @@ public class DefaultConversation implements Conversation {
             try {
                 if (fullyLoaded) return;
 
+                // The last loaded page is kept locally, as the cache may evict it before it is walked
+                Map<MessageId, Message> loadedPage = new HashMap<>();
                 MessageId lastMessageId = null;
                 MessageId currentMessageId = leafMessageId;
                 while (currentMessageId != null) {
-                    if (!messageCache.containsKey(currentMessageId)) {
-                        if (lastMessageId != null) {
-                            // Try loading multiple messages that are close in time to the current message at once
-                            PageResult<Message> pageResult = store.loadMessagesBefore(
-                                    sessionId, lastMessageId, config.messageLoadPageSize, null);
-                            for (Message message : pageResult.items()) {
-                                messageCache.put(message.info().id(), message);
-                            }
+                    Message currentMessage = loadedPage.get(currentMessageId);
+                    if (currentMessage == null) {
+                        currentMessage = cachedMessage(currentMessageId);
+                    }
+                    if (currentMessage == null && lastMessageId != null) {
+                        // Try loading multiple messages that are close in time to the current message at once
+                        PageResult<Message> pageResult = store.loadMessagesBefore(
+                                sessionId, lastMessageId, config.messageLoadPageSize, null);
+                        loadedPage.clear();
+                        for (Message message : pageResult.items()) {
+                            cacheMessage(message);
+                            loadedPage.put(message.info().id(), message);
                         }
-
-                        if (!messageCache.containsKey(currentMessageId)) {
-                            // If we do not find the parent message, we need to retrieve it by specific ID
-                            store.getMessage(sessionId, currentMessageId)
-                                    .ifPresent(message -> messageCache.put(message.info().id(), message));
+                        currentMessage = loadedPage.get(currentMessageId);
+                    }
+                    if (currentMessage == null) {
+                        // If we do not find the parent message, we need to retrieve it by specific ID
+                        currentMessage = store.getMessage(sessionId, currentMessageId).orElse(null);
+                        if (currentMessage == null) {
+                            break;
                         }
+                        cacheMessage(currentMessage);
                     }
 
-                    Message currentMessage = messageCache.get(currentMessageId);
-                    if (currentMessage != null) {
-                        branchPath.add(0, currentMessage);
-                        lastMessageId = currentMessageId;
-                        currentMessageId = currentMessage.info().parentId();
-                    }
+                    branchPath.add(0, currentMessage);
+                    lastMessageId = currentMessageId;
+                    currentMessageId = currentMessage.info().parentId();
                 }
 
                 fullyLoaded = true;
@@ -712,6 +1048,7 @@ public class DefaultConversation implements Conversation {
         private boolean initialized;
         private MessageId prevId;
         private MessageId nextId;
+        private Message nextMessage;
         private boolean fullyLoaded;
 
         private void initialize() {
@@ -720,6 +1057,7 @@ public class DefaultConversation implements Conversation {
                 Optional<Message> lastMessage = lastMessage();
                 if (lastMessage.isPresent()) {
                     nextId = lastMessage.get().info().id();
+                    nextMessage = lastMessage.get();
                 } else {
                     fullyLoaded = true;
                 }
@@ -731,26 +1069,34 @@ public class DefaultConversation implements Conversation {
         }
 
         private void loadMessagesIfNeeded() {
-            if (fullyLoaded || messageCache.containsKey(nextId)) return;
+            if (nextId == null || nextMessage != null) return;
 
             lock.writeLock().lock();
             try {
+                nextMessage = cachedMessage(nextId);
                 String nextCursor = null;
-                boolean foundNext = false;
-                do {
+                while (nextMessage == null && !fullyLoaded) {
                     PageResult<Message> pageResult = store.loadMessagesBefore(
                             sessionId, prevId, config.messageLoadPageSize, nextCursor);
                     for (Message message : pageResult.items()) {
-                        messageCache.put(message.info().id(), message);
+                        cacheMessage(message);
                         if (Objects.equals(message.info().id(), nextId)) {
-                            foundNext = true;
+                            nextMessage = message;
                         }
                     }
                     nextCursor = pageResult.nextCursor();
                     if (!pageResult.hasMore()) {
                         fullyLoaded = true;
                     }
-                } while (!(foundNext || fullyLoaded));
+                }
+
+                if (nextMessage == null) {
+                    // The message may have been evicted from cache after all pages were loaded
+                    nextMessage = store.getMessage(sessionId, nextId).orElse(null);
+                    if (nextMessage != null) {
+                        cacheMessage(nextMessage);
+                    }
+                }
             } finally {
                 lock.writeLock().unlock();
             }
@@ -761,7 +1107,7 @@ public class DefaultConversation implements Conversation {
             if (!initialized) initialize();
             loadMessagesIfNeeded();
 
-            return nextId != null;
+            return nextMessage != null;
         }
 
         @Override
@@ -770,15 +1116,60 @@ public class DefaultConversation implements Conversation {
                 throw new NoSuchElementException();
             }
 
-            lock.readLock().lock();
-            try {
-                Message nextMessage = messageCache.get(nextId);
-                prevId = nextId;
-                nextId = nextMessage.info().parentId();
-                return nextMessage;
-            } finally {
-                lock.readLock().unlock();
+            Message message = nextMessage;
+            prevId = nextId;
+            nextId = message.info().parentId();
+            nextMessage = null;
+            return message;
+        }
+    }
+
+    /**
+     * A message whose parts are still being appended. It is kept in the message cache as a live view,
+     * and the immutable list of parts is only rebuilt when it is read after new parts were appended.
+     */
+    private static final class OpenMessage implements Message {
+        private final MessageInfo info;
+        private final List<MessagePart> parts = new ArrayList<>();
+        private List<MessagePart> partsSnapshot = List.of();
+        // Number of parts already in the store, or -1 if the message has never been persisted
+        private int persistedPartCount = -1;
+        private long lastFlushNanos = System.nanoTime();
+
+        OpenMessage(MessageInfo info) {
+            this.info = info;
+        }
+
+        synchronized void addPart(MessagePart part) {
+            parts.add(part);
+            partsSnapshot = null;
+        }
+
+        @Override
+        public MessageInfo info() {
+            return info;
+        }
+
+        @Override
+        public synchronized List<MessagePart> parts() {
+            if (partsSnapshot == null) {
+                partsSnapshot = List.copyOf(parts);
             }
+            return partsSnapshot;
+        }
+
+        @Override
+        public String content() {
+            return parts().stream().map(MessagePart::content).collect(Collectors.joining("\n"));
+        }
+
+        @Override
+        public Message.Builder toBuilder() {
+            return RoleMessage.builder().info(info).parts(parts());
+        }
+
+        Message toMessage() {
+            return new RoleMessage(info, parts());
         }
     }
 
@@ -800,6 +1191,26 @@ public class DefaultConversation implements Conversation {
          * Messages are flushed to the store every {@code flushIntervalMillis}.
          */
         private int flushIntervalMillis = 30;
+        /**
+         * Maximum time in millis a streamed (open) message stays only in memory.
+         * Open messages are persisted when sealed, and otherwise with the next flush after this interval.
+         * Open messages are only persisted when sealed or flushed explicitly if value is set to 0.
+         */
+        private int openMessageFlushIntervalMillis = 1000;
+        /**
+         * Maximum approximate size in bytes of the buffered messages.
+         * Appending a message that exceeds it flushes the buffer in the caller thread.
+         */
+        private long maxBufferedBytes = 1024 * 1024;
+        /**
+         * Flusher to schedule write-behind flushes on, defaults to {@link ConversationFlusher#shared()}.
+         */
+        private ConversationFlusher flusher;
+        /**
+         * Maximum approximate size in bytes of the messages cached in memory.
+         * Evicted messages are loaded from the store again when needed.
+         */
+        private long maxCachedBytes = 4 * 1024 * 1024;
 
         public ConversationConfig messageLoadPageSize(int messageLoadPageSize) {
             if (messageLoadPageSize <= 0) {
@@ -822,5 +1233,34 @@ public class DefaultConversation implements Conversation {
             return this;
         }
 
+        public ConversationConfig openMessageFlushIntervalMillis(int openMessageFlushIntervalMillis) {
+            if (openMessageFlushIntervalMillis < 0) {
+                throw new IllegalArgumentException("openMessageFlushIntervalMillis must not be negative");
+            }
+            this.openMessageFlushIntervalMillis = openMessageFlushIntervalMillis;
+            return this;
+        }
+
+        public ConversationConfig maxBufferedBytes(long maxBufferedBytes) {
+            if (maxBufferedBytes < 0) {
+                throw new IllegalArgumentException("maxBufferedBytes must not be negative");
+            }
+            this.maxBufferedBytes = maxBufferedBytes;
+            return this;
+        }
+
+        public ConversationConfig maxCachedBytes(long maxCachedBytes) {
+            if (maxCachedBytes < 0) {
+                throw new IllegalArgumentException("maxCachedBytes must not be negative");
+            }
+            this.maxCachedBytes = maxCachedBytes;
+            return this;
+        }
+
+        public ConversationConfig flusher(ConversationFlusher flusher) {
+            this.flusher = flusher;
+            return this;
+        }
+
     }
 }
\ No newline at end of file
@@ -24,31 +24,39 @@
 
 package org.metaagent.framework.core.agent.chat.conversation;
 
-import org.apache.commons.collections.MapUtils;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import org.metaagent.framework.common.util.PageResult;
 import org.metaagent.framework.core.agent.chat.message.Message;
 import org.metaagent.framework.core.agent.chat.message.MessageId;
-import org.metaagent.framework.core.agent.chat.message.MessageInfo;
+import org.metaagent.framework.core.agent.chat.message.part.MessagePart;
 import org.metaagent.framework.core.agent.chat.session.SessionId;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 /**
  * In-memory implementation of {@link ConversationStore}.
  * <p>
- * This implementation stores all data in concurrent maps and is suitable for
+ * This implementation stores all data in indexed in-memory maps and is suitable for
  * testing, demonstration, or lightweight scenarios where persistence is not required.
- * It is thread-safe and supports all tree-aware operations.
+ * It is thread-safe and supports all tree-aware operations. Lookups are O(1), paging is
+ * O(log n + page) and deleting a subtree is proportional to the size of the subtree.
+ * Forking a session is O(1), the fork shares the history of its source copy-on-write.
  * </p>
  *
  * @author vyckey
@@ -67,104 +75,311 @@ public class InMemoryConversationStore implements ConversationStore {
 
     /**
      * Internal data structure for a conversation.
+     * <p>
+     * Messages are indexed by ID, ordered by an insertion sequence number and linked to their
+     * children, so lookups, paging and leaf queries never scan the whole conversation.
+     * </p>
+     * <p>
+     * A forked conversation references the data of its source instead of copying it: it shares
+     * the path from the root to the fork point, and only stores its own messages and the shared
+     * messages it has updated. Its own sequence numbers continue after the fork point, so paging
+     * merges both without renumbering. All conversations of a fork lineage share one lock, and a
+     * fork copies the shared path into its own data before the source deletes any of it.
+     * </p>
      */
     private static class ConversationData {
         private final SessionId sessionId;
-        private final List<Message> messages = new ArrayList<>();  // Maintains insertion order
-        private final Map<MessageId, Message> messageMap = new HashMap<>();
+        private final Map<MessageId, MessageNode> messageMap = new HashMap<>();
+        private final NavigableMap<Long, MessageNode> ordered = new TreeMap<>();  // Maintains insertion order
         private final Map<MessageId, Set<MessageId>> parentToChildren = new HashMap<>();
-        private final Object lock = new Object();  // Per-session lock for consistency
+        private final Set<MessageId> leaves = new LinkedHashSet<>();
+        private final Object lock;  // Per-lineage lock for consistency
+        private long nextSequence;
+
+        // Fork state, the base is null if the conversation is not a fork or has been materialized
+        private ConversationData base;
+        private MessageId forkPointId;
+        private long forkSequence = -1;
+        private Set<MessageId> sharedIds;  // Lazily resolved path from the root to the fork point
+        private final Map<MessageId, MessageNode> overrides = new HashMap<>();  // Copy-on-write shared messages
+        private final List<ConversationData> forks = new ArrayList<>();
 
         ConversationData(SessionId sessionId) {
             this.sessionId = sessionId;
+            this.lock = new Object();
+        }
+
+        ConversationData(SessionId sessionId, ConversationData base, MessageNode forkPoint) {
+            this.sessionId = sessionId;
+            this.lock = base.lock;
+            this.base = base;
+            this.forkPointId = forkPoint.message.info().id();
+            this.forkSequence = forkPoint.sequence;
+            this.nextSequence = forkPoint.sequence + 1;
+        }
+
+        /**
+         * Finds the node of a visible message whose sequence is not greater than the given one.
+         */
+        MessageNode findNode(MessageId messageId, long maxSequence) {
+            MessageNode node = messageMap.get(messageId);
+            if (node != null) {
+                return node.sequence <= maxSequence ? node : null;
+            }
+            if (base == null || !sharedIds().contains(messageId)) {
+                return null;
+            }
+            node = overrides.get(messageId);
+            if (node == null) {
+                node = base.findNode(messageId, forkSequence);
+            }
+            return node != null && node.sequence <= maxSequence ? node : null;
+        }
+
+        /**
+         * Gets the IDs of the messages shared with the base, resolved once by walking up from the fork point.
+         */
+        private Set<MessageId> sharedIds() {
+            if (sharedIds == null) {
+                Set<MessageId> ids = new HashSet<>();
+                MessageNode node = base.findNode(forkPointId, forkSequence);
+                while (node != null) {
+                    ids.add(node.message.info().id());
+                    MessageId parentId = node.message.info().parentId();
+                    node = parentId != null ? base.findNode(parentId, forkSequence) : null;
+                }
+                sharedIds = ids;
+            }
+            return sharedIds;
+        }
+
+        /**
+         * Iterates the visible messages with a sequence in the given inclusive range.
+         */
+        Iterator<MessageNode> nodes(long fromSequence, long toSequence, boolean descending) {
+            if (fromSequence > toSequence) {
+                return Collections.emptyIterator();
+            }
+            NavigableMap<Long, MessageNode> range = ordered.subMap(fromSequence, true, toSequence, true);
+            Iterator<MessageNode> own = (descending ? range.descendingMap() : range).values().iterator();
+            if (base == null || fromSequence > forkSequence) {
+                return own;
+            }
+
+            Set<MessageId> shared = sharedIds();
+            Iterator<MessageNode> inherited = Iterators.transform(
+                    Iterators.filter(base.nodes(fromSequence, Math.min(toSequence, forkSequence), descending),
+                            node -> shared.contains(node.message.info().id())),
+                    node -> overrides.getOrDefault(node.message.info().id(), node));
+            return descending ? Iterators.concat(own, inherited) : Iterators.concat(inherited, own);
         }
 
         /**
          * Gets a message by ID.
          */
         Optional<Message> getMessage(MessageId messageId) {
-            return Optional.ofNullable(messageMap.get(messageId));
+            MessageNode node = findNode(messageId, Long.MAX_VALUE);
+            return node != null ? Optional.of(node.message) : Optional.empty();
         }
 
-        int findMessageIndex(MessageId messageId) {
-            for (int i = 0; i < messages.size(); i++) {
-                if (messages.get(i).info().id().equals(messageId)) {
-                    return i;
-                }
+        /**
+         * Gets the most recently appended message, which is the fork point if a fork has no own messages.
+         */
+        Optional<Message> getLastMessage() {
+            Map.Entry<Long, MessageNode> lastEntry = ordered.lastEntry();
+            if (lastEntry != null) {
+                return Optional.of(lastEntry.getValue().message);
             }
-            return -1;
+            return base != null ? getMessage(forkPointId) : Optional.empty();
+        }
+
+        /**
+         * Gets the leaf message IDs, the fork point stays a leaf until the fork appends a child to it.
+         */
+        List<MessageId> getLeafMessageIds() {
+            if (base == null || parentToChildren.containsKey(forkPointId)) {
+                return List.copyOf(leaves);
+            }
+            List<MessageId> leafIds = new ArrayList<>(leaves.size() + 1);
+            leafIds.add(forkPointId);
+            leafIds.addAll(leaves);
+            return leafIds;
+        }
+
+        /**
+         * Gets the number of visible messages.
+         */
+        int getMessageCount() {
+            return messageMap.size() + (base != null ? sharedIds().size() : 0);
+        }
+
+        boolean isEmpty() {
+            return messageMap.isEmpty() && base == null;
         }
 
         /**
          * Adds a message to the session.
          */
         void addMessage(Message message) {
-            messageMap.put(message.info().id(), message);
-            messages.add(message);
+            MessageNode node = new MessageNode(message, nextSequence++);
+            MessageId messageId = message.info().id();
+            messageMap.put(messageId, node);
+            ordered.put(node.sequence, node);
 
             MessageId parentId = message.info().parentId();
-            parentToChildren.computeIfAbsent(parentId, k -> ConcurrentHashMap.newKeySet())
-                    .add(message.info().id());
+            if (parentId != null) {
+                parentToChildren.computeIfAbsent(parentId, k -> new LinkedHashSet<>()).add(messageId);
+                leaves.remove(parentId);
+            }
+            leaves.add(messageId);
         }
 
         /**
-         * Updates an existing message.
+         * Updates an existing message, a shared message is copied on write.
          */
         void updateMessage(Message message) {
-            messageMap.put(message.info().id(), message);
             // Note: parentId change is not supported as per interface contract
+            MessageId messageId = message.info().id();
+            MessageNode node = findNode(messageId, Long.MAX_VALUE);
+            for (ConversationData fork : forks) {
+                // Forks keep seeing the message as it was at the fork point
+                if (node.sequence <= fork.forkSequence && fork.sharedIds().contains(messageId)) {
+                    fork.overrides.putIfAbsent(messageId, node);
+                }
+            }
+
+            MessageNode updatedNode = new MessageNode(message, node.sequence);
+            if (messageMap.containsKey(messageId)) {
+                messageMap.put(messageId, updatedNode);
+                ordered.put(updatedNode.sequence, updatedNode);
+            } else {
+                overrides.put(messageId, updatedNode);
+            }
         }
 
         /**
          * Checks if a message exists.
          */
         boolean containsMessage(MessageId messageId) {
-            return messageMap.containsKey(messageId);
+            return findNode(messageId, Long.MAX_VALUE) != null;
         }
 
         /**
-         * Gets all messages in insertion order.
+         * Gets the insertion sequence of a message, or -1 if it does not exist.
          */
-        List<Message> getAllMessages() {
-            return Collections.unmodifiableList(messages);
+        long sequenceOf(MessageId messageId) {
+            MessageNode node = findNode(messageId, Long.MAX_VALUE);
+            return node != null ? node.sequence : -1;
+        }
+
+        /**
+         * Reads a page of messages from an ordered view, the cursor is the sequence of the last message.
+         */
+        PageResult<Message> readPage(Iterator<MessageNode> iterator, int limit) {
+            List<Message> items = new ArrayList<>(Math.min(limit, getMessageCount()));
+            MessageNode lastNode = null;
+            while (items.size() < limit && iterator.hasNext()) {
+                lastNode = iterator.next();
+                items.add(lastNode.message);
+            }
+            if (iterator.hasNext()) {
+                return new PageResult<>(items, String.valueOf(lastNode.sequence), true);
+            }
+            return new PageResult<>(items, null, false);
         }
 
         /**
          * Deletes a subtree rooted at the given message.
          */
         Set<MessageId> deleteSubtree(MessageId rootMessageId, boolean inclusive) {
+            if (base != null && !messageMap.containsKey(rootMessageId)) {
+                // The subtree starts in the shared path, which is owned by the base
+                materialize();
+            }
+
             Set<MessageId> toDelete = new HashSet<>();
-            collectSubtreeIds(rootMessageId, inclusive, toDelete);
-
-            if (!toDelete.isEmpty()) {
-                // Remove from parent-to-children mapping
-                for (MessageId id : toDelete) {
-                    Message msg = messageMap.get(id);
-                    if (msg != null && msg.info().parentId() != null) {
-                        Set<MessageId> siblings = parentToChildren.get(msg.info().parentId());
-                        if (siblings != null) {
-                            siblings.remove(id);
+            long minSequence = Long.MAX_VALUE;
+            Deque<MessageId> pending = new ArrayDeque<>();
+            pending.push(rootMessageId);
+            Set<MessageId> visited = new HashSet<>();
+            while (!pending.isEmpty()) {
+                MessageId id = pending.pop();
+                if (!visited.add(id)) {
+                    continue;
+                }
+                // Children without a message, e.g. removed by an overlapping delete, are skipped
+                MessageNode node = messageMap.get(id);
+                if (node != null && (inclusive || !id.equals(rootMessageId))) {
+                    toDelete.add(id);
+                    minSequence = Math.min(minSequence, node.sequence);
+                }
+                parentToChildren.getOrDefault(id, Collections.emptySet()).forEach(pending::push);
+            }
+            for (ConversationData fork : List.copyOf(forks)) {
+                if (minSequence <= fork.forkSequence) {
+                    fork.materialize();
+                }
+            }
+
+            for (MessageId id : toDelete) {
+                MessageNode node = messageMap.remove(id);
+                ordered.remove(node.sequence);
+                parentToChildren.remove(id);
+                leaves.remove(id);
+
+                // Remove from parent-to-children mapping, the parent becomes a leaf if it is kept
+                MessageId parentId = node.message.info().parentId();
+                Set<MessageId> siblings = parentId != null ? parentToChildren.get(parentId) : null;
+                if (siblings != null) {
+                    siblings.remove(id);
+                    if (siblings.isEmpty()) {
+                        parentToChildren.remove(parentId);
+                        if (messageMap.containsKey(parentId)) {
+                            leaves.add(parentId);
                         }
                     }
-                    parentToChildren.remove(id);
                 }
-
-                // Remove from messageMap and messages list
-                messageMap.keySet().removeAll(toDelete);
-                messages.removeIf(msg -> toDelete.contains(msg.info().id()));
             }
 
             return toDelete;
         }
 
-        private void collectSubtreeIds(MessageId messageId, boolean includeCurrent, Set<MessageId> result) {
-            if (includeCurrent) {
-                result.add(messageId);
+        /**
+         * Copies the shared path into the own data and detaches the conversation from its base.
+         * Message nodes are immutable, so they are shared rather than duplicated.
+         */
+        void materialize() {
+            if (base == null) {
+                return;
+            }
+            List<MessageNode> sharedNodes = Lists.newArrayList(nodes(0, forkSequence, false));
+            for (MessageNode node : sharedNodes) {
+                MessageId messageId = node.message.info().id();
+                messageMap.put(messageId, node);
+                ordered.put(node.sequence, node);
+                MessageId parentId = node.message.info().parentId();
+                if (parentId != null) {
+                    parentToChildren.computeIfAbsent(parentId, k -> new LinkedHashSet<>()).add(messageId);
+                }
             }
 
-            Set<MessageId> children = parentToChildren.getOrDefault(messageId, Collections.emptySet());
-            for (MessageId childId : children) {
-                collectSubtreeIds(childId, true, result);
+            List<MessageId> leafIds = getLeafMessageIds();
+            leaves.clear();
+            leaves.addAll(leafIds);
+            detach();
+            base = null;
+            forkPointId = null;
+            forkSequence = -1;
+            sharedIds = null;
+            overrides.clear();
+        }
+
+        /**
+         * Unregisters from the base, so that it no longer preserves the shared path for this conversation.
+         */
+        void detach() {
+            if (base != null) {
+                base.forks.remove(this);
             }
         }
 
@@ -172,9 +387,23 @@ public class InMemoryConversationStore implements ConversationStore {
          * Clears all messages.
          */
         void clear() {
-            messages.clear();
             messageMap.clear();
+            ordered.clear();
             parentToChildren.clear();
+            leaves.clear();
+        }
+    }
+
+    /**
+     * A stored message with its insertion sequence. Nodes are immutable, so they can be shared by forks.
+     */
+    private static class MessageNode {
+        private final long sequence;
+        private final Message message;
+
+        MessageNode(Message message, long sequence) {
+            this.message = message;
+            this.sequence = sequence;
         }
     }
 
@@ -223,18 +452,16 @@ public class InMemoryConversationStore implements ConversationStore {
 
         ConversationData session = getOrCreateConversation(sessionId);
         synchronized (session.lock) {
-            // Validate all messages before adding
-            Set<MessageId> existingIds = new HashSet<>(session.messageMap.keySet());
-
+            // Validate all messages before adding, only the new IDs are collected
+            Set<MessageId> newIds = new HashSet<>();
             for (Message msg : messages) {
                 MessageId parentId = msg.info().parentId();
-                if (parentId != null && !existingIds.contains(parentId)) {
+                if (parentId != null && !session.containsMessage(parentId) && !newIds.contains(parentId)) {
                     throw new IllegalArgumentException("Parent message not found: " + parentId);
                 }
-                if (existingIds.contains(msg.info().id())) {
+                if (session.containsMessage(msg.info().id()) || !newIds.add(msg.info().id())) {
                     throw new IllegalArgumentException("Duplicate message ID: " + msg.info().id());
                 }
-                existingIds.add(msg.info().id());
             }
 
             // Add all messages
@@ -262,6 +489,27 @@ public class InMemoryConversationStore implements ConversationStore {
         }
     }
 
+    @Override
+    public void appendMessageParts(SessionId sessionId, MessageId messageId, List<MessagePart> parts) {
+        Objects.requireNonNull(sessionId, "sessionId must not be null");
+        Objects.requireNonNull(messageId, "messageId must not be null");
+        Objects.requireNonNull(parts, "parts must not be null");
+
+        ConversationData conversation = getConversationIfExists(sessionId);
+        if (conversation == null) {
+            throw new IllegalArgumentException("Conversation not found: " + sessionId);
+        }
+
+        synchronized (conversation.lock) {
+            Message message = conversation.getMessage(messageId)
+                    .orElseThrow(() -> new IllegalArgumentException("Message not found: " + messageId));
+            List<MessagePart> newParts = new ArrayList<>(message.parts().size() + parts.size());
+            newParts.addAll(message.parts());
+            newParts.addAll(parts);
+            conversation.updateMessage(message.toBuilder().parts(newParts).build());
+        }
+    }
+
     @Override
     public Optional<Message> getMessage(SessionId sessionId, MessageId messageId) {
         Objects.requireNonNull(sessionId, "sessionId must not be null");
@@ -287,11 +535,7 @@ public class InMemoryConversationStore implements ConversationStore {
         }
 
         synchronized (conversation.lock) {
-            List<Message> messages = conversation.getAllMessages();
-            if (messages.isEmpty()) {
-                return Optional.empty();
-            }
-            return Optional.of(messages.get(messages.size() - 1));
+            return conversation.getLastMessage();
         }
     }
 
@@ -300,20 +544,12 @@ public class InMemoryConversationStore implements ConversationStore {
         Objects.requireNonNull(sessionId, "sessionId must not be null");
 
         ConversationData conversation = getConversationIfExists(sessionId);
-        if (conversation == null || MapUtils.isEmpty(conversation.messageMap)) {
+        if (conversation == null) {
             return Collections.emptyList();
         }
 
         synchronized (conversation.lock) {
-            Set<MessageId> allIds = conversation.messageMap.keySet();
-            Set<MessageId> parentIds = conversation.messageMap.values().stream()
-                    .map(Message::info).map(MessageInfo::parentId)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toSet());
-
-            return allIds.stream()
-                    .filter(id -> !parentIds.contains(id))
-                    .collect(Collectors.toList());
+            return conversation.getLeafMessageIds();
         }
     }
 
@@ -330,26 +566,20 @@ public class InMemoryConversationStore implements ConversationStore {
         }
 
         synchronized (conversation.lock) {
-            List<Message> messages = conversation.getAllMessages();
-            if (messages.isEmpty()) {
-                return PageResult.empty();
-            }
-
-            int endIdx; // exclusive end index
-
+            long toSequence;
             if (cursor != null) {
-                endIdx = Integer.parseInt(cursor);
+                toSequence = Long.parseLong(cursor) - 1;
             } else if (messageId == null) {
-                endIdx = messages.size();
+                toSequence = Long.MAX_VALUE;
             } else {
-                endIdx = conversation.findMessageIndex(messageId); // messages BEFORE ref, exclusive
+                long sequence = conversation.sequenceOf(messageId); // messages BEFORE ref, exclusive
+                if (sequence < 0) {
+                    return PageResult.empty();
+                }
+                toSequence = sequence - 1;
             }
-
-            int startIdx = Math.max(0, endIdx - limit);
-            List<Message> items = new ArrayList<>(messages.subList(startIdx, endIdx));
-            String nextCursor = startIdx > 0 ? String.valueOf(startIdx) : null;
-            boolean hasMore = startIdx > 0;
-            return new PageResult<>(items, nextCursor, hasMore);
+            // Newest to oldest, as required by the interface contract
+            return conversation.readPage(conversation.nodes(0, toSequence, true), limit);
         }
     }
 
@@ -366,27 +596,19 @@ public class InMemoryConversationStore implements ConversationStore {
         }
 
         synchronized (conversation.lock) {
-            List<Message> messages = conversation.getAllMessages();
-            if (messages.isEmpty()) {
-                return PageResult.empty();
-            }
-
-            int startIdx; // inclusive start index
-
+            long fromSequence;
             if (cursor != null) {
-                startIdx = Integer.parseInt(cursor);
+                fromSequence = Long.parseLong(cursor) + 1;
             } else if (messageId == null) {
-                startIdx = 0;
+                fromSequence = 0;
             } else {
-                startIdx = conversation.findMessageIndex(messageId) + 1; // messages AFTER ref, exclusive
+                long sequence = conversation.sequenceOf(messageId); // messages AFTER ref, exclusive
+                if (sequence < 0) {
+                    return PageResult.empty();
+                }
+                fromSequence = sequence + 1;
             }
-
-            int endIdx = Math.min(startIdx + limit, messages.size());
-            List<Message> items = new ArrayList<>(messages.subList(startIdx, endIdx));
-
-            String nextCursor = endIdx < messages.size() ? String.valueOf(endIdx) : null;
-            boolean hasMore = endIdx < messages.size();
-            return new PageResult<>(items, nextCursor, hasMore);
+            return conversation.readPage(conversation.nodes(fromSequence, Long.MAX_VALUE, false), limit);
         }
     }
 
@@ -412,7 +634,52 @@ public class InMemoryConversationStore implements ConversationStore {
     @Override
     public void deleteMessages(SessionId sessionId) {
         Objects.requireNonNull(sessionId, "sessionId must not be null");
-        conversations.remove(sessionId);
+
+        ConversationData conversation = getConversationIfExists(sessionId);
+        if (conversation == null) {
+            return;
+        }
+        synchronized (conversation.lock) {
+            // Forks must not lose the shared path, nor see later changes of the base through it
+            for (ConversationData fork : List.copyOf(conversation.forks)) {
+                fork.materialize();
+            }
+            conversation.detach();
+            conversations.remove(sessionId, conversation);
+        }
+    }
+
+    /**
+     * Forks a conversation without copying it. The fork references the path from the root to the
+     * fork point in the source conversation, so forking takes constant time and memory regardless
+     * of the conversation length. Updating a shared message in either conversation copies it on
+     * write, and the fork copies the shared path only when the source deletes a part of it.
+     */
+    @Override
+    public void forkSession(SessionId sourceSessionId, MessageId forkPointId, SessionId targetSessionId) {
+        Objects.requireNonNull(sourceSessionId, "sourceSessionId must not be null");
+        Objects.requireNonNull(forkPointId, "forkPointId must not be null");
+        Objects.requireNonNull(targetSessionId, "targetSessionId must not be null");
+
+        ConversationData source = getConversationIfExists(sourceSessionId);
+        if (source == null) {
+            throw new IllegalArgumentException("Conversation not found: " + sourceSessionId);
+        }
+
+        synchronized (source.lock) {
+            MessageNode forkPoint = source.findNode(forkPointId, Long.MAX_VALUE);
+            if (forkPoint == null) {
+                throw new IllegalArgumentException("Fork point message not found: " + forkPointId);
+            }
+            ConversationData fork = new ConversationData(targetSessionId, source, forkPoint);
+            conversations.compute(targetSessionId, (id, existing) -> {
+                if (existing != null && !existing.isEmpty()) {
+                    throw new IllegalArgumentException("Conversation already exists: " + targetSessionId);
+                }
+                return fork;
+            });
+            source.forks.add(fork);
+        }
     }
 
     // ==================== Additional Utility Methods ====================
@@ -439,7 +706,7 @@ public class InMemoryConversationStore implements ConversationStore {
             return 0;
         }
         synchronized (conversation.lock) {
-            return conversation.messageMap.size();
+            return conversation.getMessageCount();
         }
     }
 
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.agent.chat.conversation;
+
+import org.metaagent.framework.common.content.MediaResource;
+import org.metaagent.framework.core.agent.chat.message.Message;
+import org.metaagent.framework.core.agent.chat.message.part.MediaMessagePart;
+import org.metaagent.framework.core.agent.chat.message.part.MessagePart;
+
+import java.util.List;
+
+/**
+ * Estimates the heap footprint of messages, used to bound message buffers and caches.
+ * Text is counted with two bytes per char and inline media with the size of its data,
+ * plus a fixed overhead per message and part.
+ *
+ * @author vyckey
+ */
+final class MessageWeigher {
+    private static final int MESSAGE_OVERHEAD_BYTES = 64;
+    private static final int PART_OVERHEAD_BYTES = 32;
+
+    private MessageWeigher() {
+    }
+
+    static long weigh(Message message) {
+        long bytes = MESSAGE_OVERHEAD_BYTES;
+        for (MessagePart part : message.parts()) {
+            bytes += PART_OVERHEAD_BYTES;
+            if (part instanceof MediaMessagePart mediaPart) {
+                bytes += weigh(mediaPart.media());
+            } else {
+                bytes += (long) part.content().length() * Character.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    static long weigh(List<Message> messages) {
+        long bytes = 0;
+        for (Message message : messages) {
+            bytes += weigh(message);
+        }
+        return bytes;
+    }
+
+    private static long weigh(MediaResource media) {
+        Object data = media.data();
+        if (data instanceof byte[] bytes) {
+            return bytes.length;
+        } else if (data instanceof String text) {
+            return (long) text.length() * Character.BYTES;
+        }
+        // Media referenced by URI or file is not held in memory
+        return (long) media.uri().toString().length() * Character.BYTES;
+    }
+}
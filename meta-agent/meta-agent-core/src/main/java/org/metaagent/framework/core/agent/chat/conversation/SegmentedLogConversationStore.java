@@ -0,0 +1,1261 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.agent.chat.conversation;
+
+import com.google.common.io.CountingInputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.metaagent.framework.common.util.PageResult;
+import org.metaagent.framework.core.agent.chat.message.Message;
+import org.metaagent.framework.core.agent.chat.message.MessageId;
+import org.metaagent.framework.core.agent.chat.message.MessageSerializer;
+import org.metaagent.framework.core.agent.chat.session.SessionId;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Append-only segmented log implementation of {@link ConversationStore}.
+ * <p>
+ * Each session owns a directory with a sequence of append-only segment files and a compact
+ * binary index log. Message payloads are appended to the active segment as JSON lines, and every
+ * append, update or delete is recorded in the index log as a small record (message ID, parent ID,
+ * segment, offset and length). The index is replayed once when a session is first accessed and
+ * then kept in memory, so {@link #getMessage} reads exactly one record from disk and cursor paging
+ * only reads the requested page.
+ * </p>
+ * <p>
+ * Updates and deletes leave stale records in the segments. Once the stale bytes of a session exceed
+ * the configured ratio, the session is compacted in the background: live records are copied into
+ * fresh segments, a rewritten index is swapped in atomically and the old segments are removed.
+ * Every session has its own read-write lock, so sessions never wait on each other.
+ * </p>
+ * <p>
+ * Segment records are never modified once written, so a forked session shares them with its
+ * source: the segments holding the shared path are hard linked into the fork directory and only
+ * the index of the path is written, the message payloads are never duplicated on disk.
+ * </p>
+ * <p>
+ * Sessions which are not accessed for the configured idle time, or released explicitly with
+ * {@link #releaseSession(SessionId)}, drop their in-memory index and close their files. They are
+ * loaded again transparently on the next access.
+ * </p>
+ *
+ * @author vyckey
+ */
+@Slf4j
+public class SegmentedLogConversationStore implements ConversationStore, Closeable {
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_FILE = "index.idx";
+    private static final String INDEX_TEMP_FILE = "index.idx.tmp";
+    private static final byte OP_APPEND = 1;
+    private static final byte OP_UPDATE = 2;
+    private static final byte OP_DELETE = 3;
+    private static final byte OP_FORK = 4;
+    private static final int MAX_READ_CHANNELS = 4;
+
+    private final Path storageRoot;
+    private final Function<SessionId, String> dirNameResolver;
+    private final StoreConfig config;
+    private final ObjectWriter messageWriter;
+    private final ObjectReader messageReader;
+    private final Map<SessionId, SessionLog> sessionLogs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService backgroundExecutor;
+
+    /**
+     * Constructs a new SegmentedLogConversationStore with the given storage root directory.
+     *
+     * @param storageRoot     the directory where session directories will be stored
+     * @param dirNameResolver the function to resolve directory names from session IDs
+     * @param config          the store configuration
+     * @throws IOException if the directory cannot be created
+     */
+    public SegmentedLogConversationStore(Path storageRoot, Function<SessionId, String> dirNameResolver,
+                                         StoreConfig config) throws IOException {
+        this.storageRoot = storageRoot.toAbsolutePath().normalize();
+        this.dirNameResolver = Objects.requireNonNull(dirNameResolver, "dirNameResolver cannot be null");
+        this.config = Objects.requireNonNull(config, "config cannot be null");
+        this.messageWriter = MessageSerializer.getJsonMapper().writerFor(Message.class);
+        this.messageReader = MessageSerializer.getJsonMapper().readerFor(Message.class);
+        this.backgroundExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("ConversationLog-%d").setDaemon(true).build()
+        );
+        Files.createDirectories(this.storageRoot);
+        long evictionIntervalMillis = Math.max(1, config.idleEvictionMillis / 2);
+        this.backgroundExecutor.scheduleWithFixedDelay(this::evictIdleSessions,
+                evictionIntervalMillis, evictionIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public SegmentedLogConversationStore(Path storageRoot, StoreConfig config) throws IOException {
+        this(storageRoot, sessionId -> "session-" + sessionId.value(), config);
+    }
+
+    public SegmentedLogConversationStore(Path storageRoot) throws IOException {
+        this(storageRoot, new StoreConfig());
+    }
+
+    // ==================== Session Access ====================
+
+    /**
+     * Gets the log of a session. A log which is evicted concurrently must not be used after its lock
+     * is acquired, the callers check {@link SessionLog#evicted} and get the log again.
+     */
+    private SessionLog getSessionLog(SessionId sessionId) {
+        Objects.requireNonNull(sessionId, "sessionId must not be null");
+        SessionLog sessionLog = sessionLogs.computeIfAbsent(sessionId,
+                id -> new SessionLog(id, storageRoot.resolve(dirNameResolver.apply(id))));
+        sessionLog.lastAccessNanos = System.nanoTime();
+        return sessionLog;
+    }
+
+    private <T> T withReadLock(SessionId sessionId, Function<SessionLog, T> action) {
+        while (true) {
+            SessionLog sessionLog = getSessionLog(sessionId);
+            sessionLog.ensureLoaded();
+            sessionLog.lock.readLock().lock();
+            try {
+                if (!sessionLog.evicted) {
+                    return action.apply(sessionLog);
+                }
+            } finally {
+                sessionLog.lock.readLock().unlock();
+            }
+        }
+    }
+
+    private <T> T withWriteLock(SessionId sessionId, Function<SessionLog, T> action) {
+        while (true) {
+            SessionLog sessionLog = getSessionLog(sessionId);
+            sessionLog.lock.writeLock().lock();
+            try {
+                if (sessionLog.evicted) {
+                    continue;
+                }
+                sessionLog.load();
+                T result = action.apply(sessionLog);
+                sessionLog.flushIndex();
+                scheduleCompactionIfRequired(sessionLog);
+                return result;
+            } finally {
+                sessionLog.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // ==================== Interface Implementations ====================
+
+    @Override
+    public void appendMessage(SessionId sessionId, Message message) {
+        Objects.requireNonNull(message, "message must not be null");
+        appendMessages(sessionId, List.of(message));
+    }
+
+    @Override
+    public void appendMessages(SessionId sessionId, List<Message> messagesToAdd) {
+        Objects.requireNonNull(messagesToAdd, "messages must not be null");
+        if (messagesToAdd.isEmpty()) {
+            return;
+        }
+
+        withWriteLock(sessionId, sessionLog -> {
+            // Validate all messages before writing anything
+            Set<MessageId> pendingIds = new HashSet<>();
+            for (Message msg : messagesToAdd) {
+                MessageId parentId = msg.info().parentId();
+                if (parentId != null && !sessionLog.entries.containsKey(parentId) && !pendingIds.contains(parentId)) {
+                    throw new IllegalArgumentException("Parent message not found: " + parentId);
+                }
+                if (sessionLog.entries.containsKey(msg.info().id()) || !pendingIds.add(msg.info().id())) {
+                    throw new IllegalArgumentException("Message already exists: " + msg.info().id());
+                }
+            }
+
+            for (Message msg : messagesToAdd) {
+                sessionLog.append(msg);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void updateMessage(SessionId sessionId, Message message) {
+        Objects.requireNonNull(message, "message must not be null");
+
+        withWriteLock(sessionId, sessionLog -> {
+            IndexEntry entry = sessionLog.entries.get(message.info().id());
+            if (entry == null) {
+                throw new IllegalArgumentException("Message not found: " + message.info().id());
+            }
+            sessionLog.update(entry, message);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Message> getMessage(SessionId sessionId, MessageId messageId) {
+        Objects.requireNonNull(messageId, "messageId must not be null");
+
+        return withReadLock(sessionId, sessionLog -> {
+            IndexEntry entry = sessionLog.entries.get(messageId);
+            return entry != null ? Optional.of(sessionLog.read(entry)) : Optional.empty();
+        });
+    }
+
+    @Override
+    public Optional<Message> getLastMessage(SessionId sessionId) {
+        return withReadLock(sessionId, sessionLog -> {
+            Map.Entry<Long, IndexEntry> lastEntry = sessionLog.ordered.lastEntry();
+            return lastEntry != null ? Optional.of(sessionLog.read(lastEntry.getValue())) : Optional.empty();
+        });
+    }
+
+    @Override
+    public PageResult<Message> loadMessagesBefore(SessionId sessionId, MessageId messageId, int limit, String cursor) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+
+        return withReadLock(sessionId, sessionLog -> {
+            NavigableMap<Long, IndexEntry> view;
+            if (cursor != null) {
+                view = sessionLog.ordered.headMap(Long.parseLong(cursor), false);
+            } else if (messageId == null) {
+                view = sessionLog.ordered;
+            } else {
+                IndexEntry entry = sessionLog.entries.get(messageId);
+                if (entry == null) {
+                    return PageResult.empty();
+                }
+                view = sessionLog.ordered.headMap(entry.sequence, false);
+            }
+            // Newest to oldest, as required by the interface contract
+            return sessionLog.readPage(view.descendingMap().values().iterator(), limit);
+        });
+    }
+
+    @Override
+    public PageResult<Message> loadMessagesAfter(SessionId sessionId, MessageId messageId, int limit, String cursor) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+
+        return withReadLock(sessionId, sessionLog -> {
+            NavigableMap<Long, IndexEntry> view;
+            if (cursor != null) {
+                view = sessionLog.ordered.tailMap(Long.parseLong(cursor), false);
+            } else if (messageId == null) {
+                view = sessionLog.ordered;
+            } else {
+                IndexEntry entry = sessionLog.entries.get(messageId);
+                if (entry == null) {
+                    return PageResult.empty();
+                }
+                view = sessionLog.ordered.tailMap(entry.sequence, false);
+            }
+            return sessionLog.readPage(view.values().iterator(), limit);
+        });
+    }
+
+    @Override
+    public List<MessageId> getLeafMessageIds(SessionId sessionId) {
+        return withReadLock(sessionId, sessionLog -> List.copyOf(sessionLog.leaves));
+    }
+
+    @Override
+    public Set<MessageId> deleteMessages(SessionId sessionId, MessageId rootMessageId, boolean inclusive) {
+        Objects.requireNonNull(rootMessageId, "rootMessageId must not be null");
+
+        return withWriteLock(sessionId, sessionLog -> {
+            if (!sessionLog.entries.containsKey(rootMessageId)) {
+                throw new IllegalArgumentException("Root message not found: " + rootMessageId);
+            }
+
+            // Collect the subtree from the children index, deepest messages first
+            List<MessageId> toDelete = new ArrayList<>();
+            Deque<MessageId> pending = new ArrayDeque<>();
+            pending.push(rootMessageId);
+            while (!pending.isEmpty()) {
+                MessageId id = pending.pop();
+                if (inclusive || !id.equals(rootMessageId)) {
+                    toDelete.add(id);
+                }
+                sessionLog.children.getOrDefault(id, Collections.emptySet()).forEach(pending::push);
+            }
+            Collections.reverse(toDelete);
+
+            for (MessageId id : toDelete) {
+                sessionLog.delete(id);
+            }
+            return new HashSet<>(toDelete);
+        });
+    }
+
+    @Override
+    public void deleteMessages(SessionId sessionId) {
+        withWriteLock(sessionId, sessionLog -> {
+            sessionLog.closeFiles();
+            try {
+                FileUtils.deleteDirectory(sessionLog.directory.toFile());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete session directory: " + sessionLog.directory, e);
+            }
+            sessionLog.reset();
+            return null;
+        });
+    }
+
+    @Override
+    public void forkSession(SessionId sourceSessionId, MessageId forkPointId, SessionId targetSessionId) {
+        Objects.requireNonNull(forkPointId, "forkPointId must not be null");
+        while (!tryForkSession(sourceSessionId, forkPointId, targetSessionId)) {
+            log.debug("Session log evicted while forking {}, retry", sourceSessionId);
+        }
+    }
+
+    private boolean tryForkSession(SessionId sourceSessionId, MessageId forkPointId, SessionId targetSessionId) {
+        SessionLog source = getSessionLog(sourceSessionId);
+        SessionLog target = getSessionLog(targetSessionId);
+        if (source == target) {
+            throw new IllegalArgumentException("Cannot fork a session into itself: " + sourceSessionId);
+        }
+
+        // Lock in a stable order, so that concurrent forks between two sessions cannot deadlock
+        boolean sourceFirst = source.directory.compareTo(target.directory) < 0;
+        ReentrantReadWriteLock firstLock = sourceFirst ? source.lock : target.lock;
+        ReentrantReadWriteLock secondLock = sourceFirst ? target.lock : source.lock;
+        firstLock.writeLock().lock();
+        secondLock.writeLock().lock();
+        try {
+            if (source.evicted || target.evicted) {
+                return false;
+            }
+            source.load();
+            target.load();
+            IndexEntry forkPoint = source.entries.get(forkPointId);
+            if (forkPoint == null) {
+                throw new IllegalArgumentException("Fork point message not found: " + forkPointId);
+            }
+            if (!target.entries.isEmpty()) {
+                throw new IllegalArgumentException("Conversation already exists: " + targetSessionId);
+            }
+
+            source.flushIndex();
+            source.rollActiveSegment();
+            target.forkFrom(source, source.pathTo(forkPoint));
+            target.flushIndex();
+            return true;
+        } catch (IOException e) {
+            // Leave no partial fork behind
+            target.closeFiles();
+            FileUtils.deleteQuietly(target.directory.toFile());
+            target.reset();
+            throw new UncheckedIOException("Failed to fork conversation log: " + source.directory, e);
+        } finally {
+            secondLock.writeLock().unlock();
+            firstLock.writeLock().unlock();
+        }
+    }
+
+    // ==================== Compaction ====================
+
+    private void scheduleCompactionIfRequired(SessionLog sessionLog) {
+        if (sessionLog.compactionScheduled || sessionLog.staleBytes < config.compactionMinStaleBytes) {
+            return;
+        }
+        long totalBytes = sessionLog.staleBytes + sessionLog.liveBytes;
+        if (sessionLog.staleBytes >= totalBytes * config.compactionStaleRatio) {
+            sessionLog.compactionScheduled = true;
+            backgroundExecutor.execute(() -> {
+                try {
+                    compact(sessionLog);
+                } catch (Exception e) {
+                    log.warn("Failed to compact conversation log {}", sessionLog.directory, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Compacts the segments of the given session immediately, dropping stale records
+     * left behind by updates and deletes.
+     *
+     * @param sessionId the session identifier
+     */
+    public void compact(SessionId sessionId) {
+        while (!compact(getSessionLog(sessionId))) {
+            log.debug("Session log evicted while compacting {}, retry", sessionId);
+        }
+    }
+
+    private boolean compact(SessionLog sessionLog) {
+        sessionLog.lock.writeLock().lock();
+        try {
+            if (sessionLog.evicted) {
+                return false;
+            }
+            sessionLog.compactionScheduled = false;
+            sessionLog.load();
+            if (sessionLog.staleBytes > 0) {
+                sessionLog.compact();
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact conversation log: " + sessionLog.directory, e);
+        } finally {
+            sessionLog.lock.writeLock().unlock();
+        }
+    }
+
+    // ==================== Eviction ====================
+
+    /**
+     * Closes the files of a session and drops its in-memory index. The session is loaded again
+     * on the next access, so this only releases resources and never loses messages.
+     *
+     * @param sessionId the session identifier
+     */
+    @Override
+    public void releaseSession(SessionId sessionId) {
+        SessionLog sessionLog = sessionLogs.get(sessionId);
+        if (sessionLog != null) {
+            evict(sessionLog, true);
+        }
+    }
+
+    /**
+     * Returns the number of sessions whose index is kept in memory.
+     */
+    public int loadedSessionCount() {
+        return sessionLogs.size();
+    }
+
+    private void evictIdleSessions() {
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(config.idleEvictionMillis);
+        int evicted = 0;
+        for (SessionLog sessionLog : sessionLogs.values()) {
+            if (sessionLog.lastAccessNanos - idleBefore < 0 && evict(sessionLog, false)) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle conversation logs under {}", evicted, storageRoot);
+        }
+    }
+
+    private boolean evict(SessionLog sessionLog, boolean wait) {
+        if (wait) {
+            sessionLog.lock.writeLock().lock();
+        } else if (!sessionLog.lock.writeLock().tryLock()) {
+            return false;
+        }
+        try {
+            if (sessionLog.evicted) {
+                return false;
+            }
+            sessionLog.closeFiles();
+            sessionLog.reset();
+            // Removed under the lock, so a caller that sees the eviction gets a fresh log
+            sessionLog.evicted = true;
+            sessionLogs.remove(sessionLog.sessionId, sessionLog);
+            return true;
+        } finally {
+            sessionLog.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        backgroundExecutor.shutdown();
+        try {
+            if (!backgroundExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                backgroundExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            backgroundExecutor.shutdownNow();
+        }
+
+        for (SessionLog sessionLog : sessionLogs.values()) {
+            sessionLog.lock.writeLock().lock();
+            try {
+                sessionLog.closeFiles();
+            } finally {
+                sessionLog.lock.writeLock().unlock();
+            }
+        }
+        sessionLogs.clear();
+    }
+
+    // ==================== Session Log ====================
+
+    /**
+     * Location of a message record, in the order the message was appended.
+     */
+    private static final class IndexEntry {
+        private final MessageId id;
+        private final MessageId parentId;
+        private final long sequence;
+        private int segment;
+        private long offset;
+        private int length;
+
+        IndexEntry(MessageId id, MessageId parentId, long sequence, int segment, long offset, int length) {
+            this.id = id;
+            this.parentId = parentId;
+            this.sequence = sequence;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        long recordBytes() {
+            return length + 1L;
+        }
+    }
+
+    /**
+     * Segment files, index log and in-memory index of a single session.
+     */
+    private final class SessionLog {
+        private final SessionId sessionId;
+        private final Path directory;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<MessageId, IndexEntry> entries = new HashMap<>();
+        private final NavigableMap<Long, IndexEntry> ordered = new TreeMap<>();
+        private final Map<MessageId, Set<MessageId>> children = new HashMap<>();
+        private final Set<MessageId> leaves = new LinkedHashSet<>();
+        private volatile boolean loaded;
+        private long nextSequence;
+        private int activeSegment;
+        private long activeSegmentSize;
+        private long liveBytes;
+        private long staleBytes;
+        private FileChannel activeChannel;
+        private DataOutputStream indexOutput;
+        /**
+         * Read channels of the recently read segments, least recently used first. Reads only hold
+         * the read lock, so the cache is guarded by its own monitor.
+         */
+        private final LinkedHashMap<Integer, FileChannel> readChannels = new LinkedHashMap<>(16, 0.75f, true);
+        private boolean compactionScheduled;
+        private volatile boolean evicted;
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        SessionLog(SessionId sessionId, Path directory) {
+            this.sessionId = sessionId;
+            this.directory = directory;
+        }
+
+        void ensureLoaded() {
+            if (loaded) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                load();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Replays the index log and removes segments which are not referenced anymore,
+         * e.g. left behind by an interrupted compaction. Must hold the write lock.
+         */
+        void load() {
+            if (loaded || evicted) {
+                return;
+            }
+            reset();
+            try {
+                if (Files.isDirectory(directory)) {
+                    replayIndex();
+                    cleanUpSegments();
+                }
+            } catch (IOException e) {
+                reset();
+                throw new UncheckedIOException("Failed to load conversation log: " + directory, e);
+            }
+            loaded = true;
+        }
+
+        void reset() {
+            loaded = false;
+            entries.clear();
+            ordered.clear();
+            children.clear();
+            leaves.clear();
+            nextSequence = 0;
+            activeSegment = 0;
+            activeSegmentSize = 0;
+            liveBytes = 0;
+            staleBytes = 0;
+        }
+
+        private void replayIndex() throws IOException {
+            Path indexFile = directory.resolve(INDEX_FILE);
+            if (!Files.exists(indexFile)) {
+                return;
+            }
+
+            long validLength = 0;
+            boolean truncated = false;
+            try (CountingInputStream countingInput = new CountingInputStream(
+                    new BufferedInputStream(Files.newInputStream(indexFile)));
+                 DataInputStream input = new DataInputStream(countingInput)) {
+                while (true) {
+                    int op = input.read();
+                    if (op < 0) {
+                        break;
+                    }
+                    try {
+                        replayRecord((byte) op, input);
+                        validLength = countingInput.getCount();
+                    } catch (EOFException e) {
+                        truncated = true;
+                        break;
+                    }
+                }
+            }
+
+            if (truncated) {
+                // Drop the partially written record at the tail of the index
+                log.warn("Truncate incomplete index record of conversation log {}", directory);
+                try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.WRITE)) {
+                    channel.truncate(validLength);
+                }
+            }
+        }
+
+        private void replayRecord(byte op, DataInputStream input) throws IOException {
+            switch (op) {
+                case OP_APPEND -> {
+                    MessageId id = MessageId.of(input.readUTF());
+                    MessageId parentId = input.readBoolean() ? MessageId.of(input.readUTF()) : null;
+                    IndexEntry entry = new IndexEntry(id, parentId, nextSequence++,
+                            input.readInt(), input.readLong(), input.readInt());
+                    applyAppend(entry);
+                }
+                case OP_UPDATE -> {
+                    MessageId id = MessageId.of(input.readUTF());
+                    int segment = input.readInt();
+                    long offset = input.readLong();
+                    int length = input.readInt();
+                    IndexEntry entry = entries.get(id);
+                    if (entry != null) {
+                        applyUpdate(entry, segment, offset, length);
+                    }
+                }
+                case OP_DELETE -> applyDelete(MessageId.of(input.readUTF()));
+                case OP_FORK -> activeSegment = Math.max(activeSegment, input.readInt() + 1);
+                default -> throw new IOException("Unknown index record type " + op + " in " + directory);
+            }
+        }
+
+        private void cleanUpSegments() throws IOException {
+            Set<Integer> referencedSegments = new HashSet<>();
+            for (IndexEntry entry : entries.values()) {
+                referencedSegments.add(entry.segment);
+                activeSegment = Math.max(activeSegment, entry.segment);
+            }
+
+            long totalBytes = 0;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+                for (Path segmentFile : stream) {
+                    int segment = parseSegmentNumber(segmentFile);
+                    if (segment < 0) {
+                        continue;
+                    }
+                    if (referencedSegments.contains(segment)) {
+                        long size = Files.size(segmentFile);
+                        totalBytes += size;
+                        if (segment == activeSegment) {
+                            activeSegmentSize = size;
+                        }
+                    } else {
+                        Files.deleteIfExists(segmentFile);
+                    }
+                }
+            }
+            Files.deleteIfExists(directory.resolve(INDEX_TEMP_FILE));
+            staleBytes = Math.max(0, totalBytes - liveBytes);
+        }
+
+        private int parseSegmentNumber(Path segmentFile) {
+            String fileName = segmentFile.getFileName().toString();
+            try {
+                return Integer.parseInt(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        private Path segmentFile(int segment) {
+            return directory.resolve(String.format("%08d%s", segment, SEGMENT_SUFFIX));
+        }
+
+        // ---------- index maintenance ----------
+
+        private void applyAppend(IndexEntry entry) {
+            entries.put(entry.id, entry);
+            ordered.put(entry.sequence, entry);
+            if (entry.parentId != null) {
+                children.computeIfAbsent(entry.parentId, k -> new LinkedHashSet<>()).add(entry.id);
+                leaves.remove(entry.parentId);
+            }
+            leaves.add(entry.id);
+            liveBytes += entry.recordBytes();
+        }
+
+        private void applyUpdate(IndexEntry entry, int segment, long offset, int length) {
+            staleBytes += entry.recordBytes();
+            liveBytes -= entry.recordBytes();
+            entry.segment = segment;
+            entry.offset = offset;
+            entry.length = length;
+            liveBytes += entry.recordBytes();
+        }
+
+        private void applyDelete(MessageId id) {
+            IndexEntry entry = entries.remove(id);
+            if (entry == null) {
+                return;
+            }
+            ordered.remove(entry.sequence);
+            children.remove(id);
+            leaves.remove(id);
+            if (entry.parentId != null) {
+                Set<MessageId> siblings = children.get(entry.parentId);
+                if (siblings != null) {
+                    siblings.remove(id);
+                    if (siblings.isEmpty()) {
+                        children.remove(entry.parentId);
+                        if (entries.containsKey(entry.parentId)) {
+                            leaves.add(entry.parentId);
+                        }
+                    }
+                }
+            }
+            liveBytes -= entry.recordBytes();
+            staleBytes += entry.recordBytes();
+        }
+
+        // ---------- write path ----------
+
+        void append(Message message) {
+            byte[] payload = serialize(message);
+            try {
+                long offset = writeRecord(payload);
+                IndexEntry entry = new IndexEntry(message.info().id(), message.info().parentId(),
+                        nextSequence++, activeSegment, offset, payload.length);
+
+                writeAppendRecord(indexOutput(), entry, entry.segment, entry.offset);
+                applyAppend(entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append message to conversation log: " + directory, e);
+            }
+        }
+
+        void update(IndexEntry entry, Message message) {
+            byte[] payload = serialize(message);
+            try {
+                long offset = writeRecord(payload);
+
+                DataOutputStream output = indexOutput();
+                output.writeByte(OP_UPDATE);
+                output.writeUTF(entry.id.value());
+                output.writeInt(activeSegment);
+                output.writeLong(offset);
+                output.writeInt(payload.length);
+                applyUpdate(entry, activeSegment, offset, payload.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to update message in conversation log: " + directory, e);
+            }
+        }
+
+        void delete(MessageId id) {
+            try {
+                DataOutputStream output = indexOutput();
+                output.writeByte(OP_DELETE);
+                output.writeUTF(id.value());
+                applyDelete(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete message in conversation log: " + directory, e);
+            }
+        }
+
+        /**
+         * Collects the index entries of the path from the root to the given message, root first.
+         */
+        List<IndexEntry> pathTo(IndexEntry entry) {
+            Deque<IndexEntry> path = new ArrayDeque<>();
+            for (IndexEntry current = entry; current != null; ) {
+                path.addFirst(current);
+                current = current.parentId != null ? entries.get(current.parentId) : null;
+            }
+            return new ArrayList<>(path);
+        }
+
+        /**
+         * Closes the active segment, so that the next record is written to a new segment
+         * instead of growing a segment which has just been linked into a fork.
+         */
+        void rollActiveSegment() {
+            closeFiles();
+            activeSegment++;
+            activeSegmentSize = 0;
+        }
+
+        /**
+         * Initializes this empty session as a fork sharing the given path of the source session.
+         * The referenced segments are hard linked, or copied if the file system does not support
+         * links, and new records are written to segments after the shared ones. Must hold the
+         * write locks of both sessions.
+         */
+        void forkFrom(SessionLog source, List<IndexEntry> path) throws IOException {
+            closeFiles();
+            FileUtils.deleteDirectory(directory.toFile());
+            reset();
+            Files.createDirectories(directory);
+
+            TreeSet<Integer> sharedSegments = new TreeSet<>();
+            for (IndexEntry entry : path) {
+                sharedSegments.add(entry.segment);
+            }
+            long totalBytes = 0;
+            for (int segment : sharedSegments) {
+                Path sourceFile = source.segmentFile(segment);
+                Path targetFile = segmentFile(segment);
+                try {
+                    Files.createLink(targetFile, sourceFile);
+                } catch (UnsupportedOperationException | IOException e) {
+                    log.debug("Failed to link segment {}, copy it instead", sourceFile, e);
+                    Files.copy(sourceFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                totalBytes += Files.size(targetFile);
+            }
+
+            int lastSharedSegment = sharedSegments.isEmpty() ? 0 : sharedSegments.last();
+            DataOutputStream output = indexOutput();
+            output.writeByte(OP_FORK);
+            output.writeInt(lastSharedSegment);
+            for (IndexEntry sourceEntry : path) {
+                IndexEntry entry = new IndexEntry(sourceEntry.id, sourceEntry.parentId, nextSequence++,
+                        sourceEntry.segment, sourceEntry.offset, sourceEntry.length);
+                writeAppendRecord(output, entry, entry.segment, entry.offset);
+                applyAppend(entry);
+            }
+            activeSegment = lastSharedSegment + 1;
+            staleBytes = Math.max(0, totalBytes - liveBytes);
+            loaded = true;
+        }
+
+        void flushIndex() {
+            if (indexOutput == null) {
+                return;
+            }
+            try {
+                indexOutput.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to flush conversation index: " + directory, e);
+            }
+        }
+
+        private byte[] serialize(Message message) {
+            try {
+                return messageWriter.writeValueAsBytes(message);
+            } catch (JacksonException e) {
+                throw new UncheckedIOException("Failed to serialize message: " + message.info().id(), new IOException(e));
+            }
+        }
+
+        /**
+         * Appends a record to the active segment, rolling over to a new segment when it is full.
+         *
+         * @return the offset of the record in the active segment
+         */
+        private long writeRecord(byte[] payload) throws IOException {
+            long recordBytes = payload.length + 1L;
+            if (activeChannel == null) {
+                openActiveSegment(Math.max(activeSegment, 1));
+            }
+            if (activeSegmentSize > 0 && activeSegmentSize + recordBytes > config.maxSegmentBytes) {
+                openActiveSegment(activeSegment + 1);
+            }
+
+            long offset = activeSegmentSize;
+            ByteBuffer buffer = ByteBuffer.allocate((int) recordBytes).put(payload).put((byte) '\n').flip();
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += activeChannel.write(buffer, position);
+            }
+            activeSegmentSize += recordBytes;
+            return offset;
+        }
+
+        private void openActiveSegment(int segment) throws IOException {
+            if (activeChannel != null) {
+                activeChannel.close();
+                activeChannel = null;
+            }
+            Files.createDirectories(directory);
+            Path segmentFile = segmentFile(segment);
+            activeChannel = FileChannel.open(segmentFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            activeSegment = segment;
+            activeSegmentSize = activeChannel.size();
+        }
+
+        private void writeAppendRecord(DataOutputStream output, IndexEntry entry,
+                                       int segment, long offset) throws IOException {
+            output.writeByte(OP_APPEND);
+            output.writeUTF(entry.id.value());
+            output.writeBoolean(entry.parentId != null);
+            if (entry.parentId != null) {
+                output.writeUTF(entry.parentId.value());
+            }
+            output.writeInt(segment);
+            output.writeLong(offset);
+            output.writeInt(entry.length);
+        }
+
+        private DataOutputStream indexOutput() throws IOException {
+            if (indexOutput == null) {
+                Files.createDirectories(directory);
+                indexOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                        directory.resolve(INDEX_FILE), StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+            }
+            return indexOutput;
+        }
+
+        // ---------- read path ----------
+
+        Message read(IndexEntry entry) {
+            byte[] payload;
+            try {
+                payload = readBytes(entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read message " + entry.id + " from " + directory, e);
+            }
+            try {
+                return messageReader.readValue(payload);
+            } catch (JacksonException e) {
+                throw new UncheckedIOException("Failed to deserialize message: " + entry.id, new IOException(e));
+            }
+        }
+
+        private byte[] readBytes(IndexEntry entry) throws IOException {
+            if (entry.segment == activeSegment && activeChannel != null) {
+                return readBytes(activeChannel, entry);
+            }
+            FileChannel channel = readChannel(entry.segment);
+            try {
+                return readBytes(channel, entry);
+            } catch (ClosedChannelException e) {
+                // evicted by a concurrent reader, read through a channel of our own
+                try (FileChannel ownChannel = FileChannel.open(segmentFile(entry.segment), StandardOpenOption.READ)) {
+                    return readBytes(ownChannel, entry);
+                }
+            }
+        }
+
+        private FileChannel readChannel(int segment) throws IOException {
+            synchronized (readChannels) {
+                FileChannel channel = readChannels.get(segment);
+                if (channel != null && channel.isOpen()) {
+                    return channel;
+                }
+                channel = FileChannel.open(segmentFile(segment), StandardOpenOption.READ);
+                readChannels.put(segment, channel);
+                if (readChannels.size() > MAX_READ_CHANNELS) {
+                    Iterator<FileChannel> iterator = readChannels.values().iterator();
+                    FileChannel eldest = iterator.next();
+                    iterator.remove();
+                    closeQuietly(eldest);
+                }
+                return channel;
+            }
+        }
+
+        private void closeReadChannels() {
+            synchronized (readChannels) {
+                for (FileChannel channel : readChannels.values()) {
+                    closeQuietly(channel);
+                }
+                readChannels.clear();
+            }
+        }
+
+        private void closeQuietly(FileChannel channel) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close segment of conversation log {}", directory, e);
+            }
+        }
+
+        private byte[] readBytes(FileChannel channel, IndexEntry entry) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+            long position = entry.offset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException("Unexpected end of segment in " + directory);
+                }
+                position += read;
+            }
+            return buffer.array();
+        }
+
+        PageResult<Message> readPage(Iterator<IndexEntry> iterator, int limit) {
+            List<Message> items = new ArrayList<>(Math.min(limit, entries.size()));
+            IndexEntry lastEntry = null;
+            while (items.size() < limit && iterator.hasNext()) {
+                lastEntry = iterator.next();
+                items.add(read(lastEntry));
+            }
+            if (iterator.hasNext()) {
+                return PageResult.of(items, String.valueOf(lastEntry.sequence), true);
+            }
+            return PageResult.of(items, null, false);
+        }
+
+        // ---------- compaction ----------
+
+        /**
+         * Copies all live records into new segments and swaps in a rewritten index. The new segments,
+         * the new index and the directory entry of the index are forced to disk before the old
+         * segments are removed, so an interrupted compaction or a crash leaves either the previous
+         * or the new state intact. Must hold the write lock.
+         */
+        void compact() throws IOException {
+            closeFiles();
+
+            int firstSegment = activeSegment + 1;
+            int segment = firstSegment;
+            long segmentSize = 0;
+            Map<MessageId, long[]> newLocations = new HashMap<>();
+            Map<Integer, FileChannel> sourceChannels = new HashMap<>();
+            Path indexTempFile = directory.resolve(INDEX_TEMP_FILE);
+            FileChannel channel = null;
+            try (FileChannel indexChannel = FileChannel.open(indexTempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                         Channels.newOutputStream(indexChannel)))) {
+                for (IndexEntry entry : ordered.values()) {
+                    if (channel == null || segmentSize > 0 && segmentSize + entry.recordBytes() > config.maxSegmentBytes) {
+                        if (channel != null) {
+                            channel.force(true);
+                            channel.close();
+                            segment++;
+                        }
+                        channel = FileChannel.open(segmentFile(segment), StandardOpenOption.CREATE,
+                                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                        segmentSize = 0;
+                    }
+
+                    FileChannel sourceChannel = sourceChannels.get(entry.segment);
+                    if (sourceChannel == null) {
+                        sourceChannel = FileChannel.open(segmentFile(entry.segment), StandardOpenOption.READ);
+                        sourceChannels.put(entry.segment, sourceChannel);
+                    }
+                    ByteBuffer buffer = ByteBuffer.allocate((int) entry.recordBytes())
+                            .put(readBytes(sourceChannel, entry)).put((byte) '\n').flip();
+                    long position = segmentSize;
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                    newLocations.put(entry.id, new long[]{segment, segmentSize});
+
+                    writeAppendRecord(output, entry, segment, segmentSize);
+                    segmentSize += entry.recordBytes();
+                }
+                if (channel != null) {
+                    channel.force(true);
+                }
+                output.flush();
+                indexChannel.force(true);
+            } catch (IOException e) {
+                if (channel != null) {
+                    channel.close();
+                }
+                for (int i = firstSegment; i <= segment; i++) {
+                    Files.deleteIfExists(segmentFile(i));
+                }
+                Files.deleteIfExists(indexTempFile);
+                throw e;
+            } finally {
+                if (channel != null && channel.isOpen()) {
+                    channel.close();
+                }
+                for (FileChannel sourceChannel : sourceChannels.values()) {
+                    sourceChannel.close();
+                }
+            }
+
+            Files.move(indexTempFile, directory.resolve(INDEX_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory();
+            for (int i = 0; i < firstSegment; i++) {
+                Files.deleteIfExists(segmentFile(i));
+            }
+
+            for (IndexEntry entry : ordered.values()) {
+                long[] location = newLocations.get(entry.id);
+                entry.segment = (int) location[0];
+                entry.offset = location[1];
+            }
+            activeSegment = newLocations.isEmpty() ? firstSegment - 1 : segment;
+            activeSegmentSize = newLocations.isEmpty() ? 0 : segmentSize;
+            staleBytes = 0;
+            log.debug("Compacted conversation log {} into {} segment(s)", directory, segment - firstSegment + 1);
+        }
+
+        /**
+         * Forces the directory entries to disk, so that a moved index survives a crash. Not every
+         * platform can open a directory as a channel, in which case the move is left to the file system.
+         */
+        private void forceDirectory() {
+            try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException e) {
+                log.debug("Failed to force directory {} to disk", directory, e);
+            }
+        }
+
+        void closeFiles() {
+            closeReadChannels();
+            try {
+                if (indexOutput != null) {
+                    indexOutput.close();
+                }
+                if (activeChannel != null) {
+                    activeChannel.close();
+                }
+            } catch (IOException e) {
+                log.warn("Failed to close conversation log {}", directory, e);
+            } finally {
+                indexOutput = null;
+                activeChannel = null;
+            }
+        }
+    }
+
+    /**
+     * Configuration for {@link SegmentedLogConversationStore}.
+     */
+    public static class StoreConfig {
+        /**
+         * Maximum size of a segment file in bytes before rolling over to a new segment.
+         */
+        private long maxSegmentBytes = 16L * 1024 * 1024;
+        /**
+         * Minimum ratio of stale bytes to total bytes of a session to trigger compaction.
+         */
+        private double compactionStaleRatio = 0.5;
+        /**
+         * Minimum stale bytes of a session to trigger compaction.
+         */
+        private long compactionMinStaleBytes = 1024 * 1024;
+        /**
+         * Time in millis after which the index and files of a session which is not accessed are released.
+         */
+        private long idleEvictionMillis = TimeUnit.MINUTES.toMillis(10);
+
+        public StoreConfig maxSegmentBytes(long maxSegmentBytes) {
+            if (maxSegmentBytes <= 0) {
+                throw new IllegalArgumentException("maxSegmentBytes must be positive");
+            }
+            this.maxSegmentBytes = maxSegmentBytes;
+            return this;
+        }
+
+        public StoreConfig compactionStaleRatio(double compactionStaleRatio) {
+            if (compactionStaleRatio <= 0 || compactionStaleRatio > 1) {
+                throw new IllegalArgumentException("compactionStaleRatio must be in (0, 1]");
+            }
+            this.compactionStaleRatio = compactionStaleRatio;
+            return this;
+        }
+
+        public StoreConfig compactionMinStaleBytes(long compactionMinStaleBytes) {
+            if (compactionMinStaleBytes < 0) {
+                throw new IllegalArgumentException("compactionMinStaleBytes must not be negative");
+            }
+            this.compactionMinStaleBytes = compactionMinStaleBytes;
+            return this;
+        }
+
+        public StoreConfig idleEvictionMillis(long idleEvictionMillis) {
+            if (idleEvictionMillis <= 0) {
+                throw new IllegalArgumentException("idleEvictionMillis must be positive");
+            }
+            this.idleEvictionMillis = idleEvictionMillis;
+            return this;
+        }
+    }
+}
@@ -36,4 +36,14 @@ public interface MessageMetadataKeys {
     String KEY_REASONING_CONTENT = "reasoningContent";
     String KEY_CREATED_AT = "createdAt";
     String KEY_UPDATED_AT = "updatedAt";
+    /**
+     * Marks a message that summarizes the messages before it on the branch,
+     * except for the ones counted by {@link #KEY_COMPRESSION_KEPT_COUNT}.
+     */
+    String KEY_COMPRESSION_SUMMARY = "compressionSummary";
+    /**
+     * The number of latest messages before a compression summary on the branch, older summaries
+     * excluded, which are not covered by the summary and follow it in the history.
+     */
+    String KEY_COMPRESSION_KEPT_COUNT = "compressionKeptCount";
 }
@@ -0,0 +1,428 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.agent.chat.session;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.metaagent.framework.common.metadata.MetadataProvider;
+import org.metaagent.framework.core.agent.chat.conversation.Conversation;
+import org.metaagent.framework.core.agent.chat.conversation.ConversationStore;
+import org.metaagent.framework.core.agent.chat.conversation.DefaultConversation;
+import org.metaagent.framework.core.agent.chat.conversation.InMemoryConversationStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Manages the sessions of a process and keeps only the conversations of active sessions in memory.
+ * <p>
+ * Sessions that stay idle for longer than the idle TTL, or the least recently used ones when there are
+ * more resident sessions than allowed, are hibernated: their conversation is flushed to the
+ * {@link ConversationStore} and closed, and the store releases its resources of the session, so only
+ * a small session shell stays in memory. A hibernated session is rehydrated transparently the next
+ * time its conversation is accessed. Busy sessions are never hibernated.
+ * </p>
+ *
+ * @author vyckey
+ */
+@Slf4j
+public class SessionManager implements Closeable {
+    private final ConversationStore store;
+    private final ManagerConfig config;
+    private final Map<SessionId, ManagedSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger residentCount = new AtomicInteger();
+    private final AtomicLong hibernationCount = new AtomicLong();
+    private final AtomicLong rehydrationCount = new AtomicLong();
+    private final ScheduledExecutorService sweepExecutor;
+
+    public SessionManager(ConversationStore store, ManagerConfig config) {
+        this.store = Objects.requireNonNull(store, "store must not be null");
+        this.config = Objects.requireNonNull(config, "config must not be null");
+        this.sweepExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("SessionManager-T%d").setDaemon(true).build());
+        this.sweepExecutor.scheduleWithFixedDelay(this::sweepQuietly,
+                config.sweepIntervalMillis, config.sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public SessionManager(ConversationStore store) {
+        this(store, new ManagerConfig());
+    }
+
+    /**
+     * Gets the global session manager backed by the global in-memory conversation store.
+     */
+    public static SessionManager global() {
+        return GlobalHolder.MANAGER;
+    }
+
+    /**
+     * Creates a new session.
+     *
+     * @param id       the session ID
+     * @param parentId the parent session ID, may be null
+     * @param name     the session name
+     * @return the created session
+     * @throws IllegalArgumentException if the session already exists
+     */
+    public Session createSession(SessionId id, SessionId parentId, String name) {
+        Objects.requireNonNull(id, "id must not be null");
+        ManagedSession session = new ManagedSession(id, parentId, name);
+        if (sessions.putIfAbsent(id, session) != null) {
+            throw new IllegalArgumentException("Session already exists: " + id);
+        }
+        return session;
+    }
+
+    /**
+     * Gets a session, the session is rehydrated when its conversation is accessed.
+     *
+     * @param id the session ID
+     * @return the session
+     * @throws SessionNotFoundException if the session does not exist
+     */
+    public Session getSession(SessionId id) {
+        return findSession(id).orElseThrow(() -> new SessionNotFoundException(id));
+    }
+
+    /**
+     * Finds a session.
+     *
+     * @param id the session ID
+     * @return the session, or empty if it does not exist
+     */
+    public Optional<Session> findSession(SessionId id) {
+        Objects.requireNonNull(id, "id must not be null");
+        ManagedSession session = sessions.get(id);
+        if (session != null) {
+            session.touch();
+        }
+        return Optional.ofNullable(session);
+    }
+
+    /**
+     * Gets a session, or creates it with its ID as name if it does not exist.
+     *
+     * @param id the session ID
+     * @return the session
+     */
+    public Session getOrCreateSession(SessionId id) {
+        Objects.requireNonNull(id, "id must not be null");
+        ManagedSession session = sessions.computeIfAbsent(id, key -> new ManagedSession(key, null, key.value()));
+        session.touch();
+        return session;
+    }
+
+    /**
+     * Removes a session and deletes its messages from the store.
+     *
+     * @param id the session ID
+     * @return true if the session existed
+     */
+    public boolean removeSession(SessionId id) {
+        ManagedSession session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        session.release();
+        store.deleteMessages(id);
+        return true;
+    }
+
+    /**
+     * Hibernates sessions idle for longer than the idle TTL, and then the least recently used ones
+     * until the number of resident sessions is within the limit.
+     *
+     * @return the number of hibernated sessions
+     */
+    public int sweep() {
+        int hibernated = 0;
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(config.idleTtlMillis);
+        for (ManagedSession session : sessions.values()) {
+            if (session.lastAccessNanos - idleBefore < 0 && session.hibernate()) {
+                hibernated++;
+            }
+        }
+        return hibernated + enforceResidentLimit();
+    }
+
+    private void sweepQuietly() {
+        try {
+            int hibernated = sweep();
+            if (hibernated > 0) {
+                log.debug("Hibernated {} sessions, {}", hibernated, stats());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to hibernate idle sessions", e);
+        }
+    }
+
+    private int enforceResidentLimit() {
+        int excess = residentCount.get() - config.maxResidentSessions;
+        if (excess <= 0) {
+            return 0;
+        }
+
+        List<ManagedSession> candidates = new ArrayList<>();
+        for (ManagedSession session : sessions.values()) {
+            if (session.isResident()) {
+                candidates.add(session);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(session -> session.lastAccessNanos));
+
+        int hibernated = 0;
+        for (int i = 0; i < candidates.size() && hibernated < excess; i++) {
+            if (candidates.get(i).hibernate()) {
+                hibernated++;
+            }
+        }
+        return hibernated;
+    }
+
+    /**
+     * Gets the session statistics.
+     */
+    public Stats stats() {
+        int resident = residentCount.get();
+        return new Stats(resident, sessions.size() - resident, hibernationCount.get(), rehydrationCount.get());
+    }
+
+    /**
+     * Stops the sweeper and hibernates all sessions, so their conversations are flushed to the store.
+     */
+    @Override
+    public void close() {
+        sweepExecutor.shutdownNow();
+        for (ManagedSession session : sessions.values()) {
+            session.release();
+        }
+    }
+
+    /**
+     * A session whose conversation is loaded on demand and released when it is hibernated.
+     */
+    private final class ManagedSession implements Session {
+        private final SessionId id;
+        private final SessionId parentId;
+        private final MetadataProvider metadata = MetadataProvider.create();
+        private final Instant createdAt = Instant.now();
+        private volatile String name;
+        private volatile SessionStatus status = SessionStatus.IDLE;
+        private volatile Instant updatedAt = createdAt;
+        private volatile long lastAccessNanos = System.nanoTime();
+        private DefaultConversation conversation;
+
+        ManagedSession(SessionId id, SessionId parentId, String name) {
+            this.id = id;
+            this.parentId = parentId;
+            this.name = Objects.requireNonNull(name, "name is required");
+        }
+
+        void touch() {
+            lastAccessNanos = System.nanoTime();
+        }
+
+        synchronized boolean isResident() {
+            return conversation != null;
+        }
+
+        synchronized boolean hibernate() {
+            if (status == SessionStatus.BUSY || !release()) {
+                return false;
+            }
+            store.releaseSession(id);
+            hibernationCount.incrementAndGet();
+            log.debug("Session {} is hibernated", id);
+            return true;
+        }
+
+        synchronized boolean release() {
+            if (conversation == null) {
+                return false;
+            }
+            try {
+                conversation.close();
+            } catch (IOException e) {
+                log.warn("Failed to flush conversation of session {}, keep it resident", id, e);
+                return false;
+            }
+            conversation = null;
+            residentCount.decrementAndGet();
+            return true;
+        }
+
+        @Override
+        public Conversation conversation() {
+            touch();
+            boolean rehydrated = false;
+            Conversation current;
+            synchronized (this) {
+                if (conversation == null) {
+                    conversation = new DefaultConversation(id, store, config.conversationConfig);
+                    residentCount.incrementAndGet();
+                    rehydrated = true;
+                }
+                current = conversation;
+            }
+            if (rehydrated) {
+                rehydrationCount.incrementAndGet();
+                enforceResidentLimit();
+            }
+            return current;
+        }
+
+        @Override
+        public SessionId id() {
+            return id;
+        }
+
+        @Override
+        public SessionId parentId() {
+            return parentId;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void setName(String name) {
+            this.name = Objects.requireNonNull(name, "name is required");
+            this.updatedAt = Instant.now();
+        }
+
+        @Override
+        public SessionStatus status() {
+            return status;
+        }
+
+        @Override
+        public synchronized void setStatus(SessionStatus status) {
+            this.status = Objects.requireNonNull(status, "status is required");
+            this.updatedAt = Instant.now();
+            touch();
+        }
+
+        @Override
+        public Instant createdAt() {
+            return createdAt;
+        }
+
+        @Override
+        public Instant updatedAt() {
+            return updatedAt;
+        }
+
+        @Override
+        public MetadataProvider metadata() {
+            return metadata;
+        }
+
+        @Override
+        public String toString() {
+            return "ManagedSession{id=" + id + ", name='" + name + "', status=" + status.code() + "}";
+        }
+    }
+
+    /**
+     * Session statistics.
+     *
+     * @param residentSessions   the number of sessions whose conversation is in memory
+     * @param hibernatedSessions the number of hibernated sessions
+     * @param hibernationCount   the number of hibernations so far
+     * @param rehydrationCount   the number of times a conversation was loaded, including the first time
+     */
+    public record Stats(int residentSessions, int hibernatedSessions, long hibernationCount, long rehydrationCount) {
+    }
+
+    /**
+     * Configuration for {@link SessionManager}.
+     */
+    public static class ManagerConfig {
+        /**
+         * Maximum number of sessions whose conversation is kept in memory.
+         */
+        private int maxResidentSessions = 1000;
+        /**
+         * Time in millis after which an idle session is hibernated.
+         */
+        private long idleTtlMillis = TimeUnit.MINUTES.toMillis(30);
+        /**
+         * Interval in millis to check for idle sessions.
+         */
+        private long sweepIntervalMillis = TimeUnit.MINUTES.toMillis(1);
+        /**
+         * Configuration of the conversations of the sessions.
+         */
+        private DefaultConversation.ConversationConfig conversationConfig = new DefaultConversation.ConversationConfig();
+
+        public ManagerConfig maxResidentSessions(int maxResidentSessions) {
+            if (maxResidentSessions <= 0) {
+                throw new IllegalArgumentException("maxResidentSessions must be positive");
+            }
+            this.maxResidentSessions = maxResidentSessions;
+            return this;
+        }
+
+        public ManagerConfig idleTtlMillis(long idleTtlMillis) {
+            if (idleTtlMillis <= 0) {
+                throw new IllegalArgumentException("idleTtlMillis must be positive");
+            }
+            this.idleTtlMillis = idleTtlMillis;
+            return this;
+        }
+
+        public ManagerConfig sweepIntervalMillis(long sweepIntervalMillis) {
+            if (sweepIntervalMillis <= 0) {
+                throw new IllegalArgumentException("sweepIntervalMillis must be positive");
+            }
+            this.sweepIntervalMillis = sweepIntervalMillis;
+            return this;
+        }
+
+        public ManagerConfig conversationConfig(DefaultConversation.ConversationConfig conversationConfig) {
+            this.conversationConfig = Objects.requireNonNull(conversationConfig, "conversationConfig must not be null");
+            return this;
+        }
+    }
+
+    private static final class GlobalHolder {
+        static final SessionManager MANAGER = new SessionManager(InMemoryConversationStore.global());
+    }
+}
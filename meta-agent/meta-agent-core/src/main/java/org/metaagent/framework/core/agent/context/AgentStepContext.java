@@ -39,6 +39,15 @@ public interface AgentStepContext {
      */
     AtomicInteger getLoopCounter();
 
+    /**
+     * Get the number of tokens consumed by the steps so far, used to enforce the token budget of a run.
+     *
+     * @return the number of consumed tokens, or 0 if the agent does not track tokens
+     */
+    default long getConsumedTokens() {
+        return 0;
+    }
+
     /**
      * Reset the step context.
      */
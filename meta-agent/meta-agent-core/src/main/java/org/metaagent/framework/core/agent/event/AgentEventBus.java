@@ -33,11 +33,13 @@ import org.metaagent.framework.common.event.EventBus;
  */
 public interface AgentEventBus extends EventBus<AgentEvent, AgentEventListener> {
     /**
-     * Creates a new agent event bus.
+     * Creates a new agent event bus backed by a shared executor.
+     * Events are delivered in publishing order, and closing the event bus releases no threads,
+     * so it is cheap to create one per agent run.
      *
      * @return a new agent event bus
      */
     static AgentEventBus create() {
-        return DefaultAgentEventBus.create(1);
+        return DefaultAgentEventBus.shared();
     }
 }
@@ -24,10 +24,14 @@
 
 package org.metaagent.framework.core.agent.event;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.metaagent.framework.common.event.DefaultEventBus;
 
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -45,6 +49,10 @@ public class DefaultAgentEventBus extends DefaultEventBus<AgentEvent, AgentEvent
         super();
     }
 
+    protected DefaultAgentEventBus(Executor sharedExecutor, int maxPendingEvents) {
+        super(new CopyOnWriteArraySet<>(), sequentialExecutor(sharedExecutor), null, maxPendingEvents);
+    }
+
     public static DefaultAgentEventBus create(int corePoolSize) {
         return new DefaultAgentEventBus(new ThreadPoolExecutor(
                 corePoolSize, corePoolSize,
@@ -53,4 +61,35 @@ public class DefaultAgentEventBus extends DefaultEventBus<AgentEvent, AgentEvent
                 r -> new Thread(r, "AgentEventBus-Thread")
         ));
     }
+
+    /**
+     * Creates an agent event bus backed by the executor shared by all agent event buses.
+     * Events are delivered in publishing order, and no thread is bound to the event bus,
+     * so the number of threads stays flat however many event buses are created.
+     *
+     * @param maxPendingEvents the maximum number of undelivered events, further events are dropped
+     * @return a new agent event bus
+     */
+    public static DefaultAgentEventBus shared(int maxPendingEvents) {
+        return new DefaultAgentEventBus(SharedExecutorHolder.EXECUTOR, maxPendingEvents);
+    }
+
+    public static DefaultAgentEventBus shared() {
+        return shared(DEFAULT_MAX_PENDING_EVENTS);
+    }
+
+    private static final class SharedExecutorHolder {
+        static final ThreadPoolExecutor EXECUTOR = createSharedExecutor();
+
+        private static ThreadPoolExecutor createSharedExecutor() {
+            int threadCount = Math.max(2, Runtime.getRuntime().availableProcessors());
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount,
+                    60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    new ThreadFactoryBuilder().setNameFormat("AgentEventBus-T%d").setDaemon(true).build()
+            );
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
 }
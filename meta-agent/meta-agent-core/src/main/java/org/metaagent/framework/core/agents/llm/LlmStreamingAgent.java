@@ -44,7 +44,9 @@ import org.metaagent.framework.core.agents.llm.input.LlmAgentInput;
 import org.metaagent.framework.core.agents.llm.message.LlmFinishMessagePart;
 import org.metaagent.framework.core.agents.llm.message.LlmStartMessagePart;
 import org.metaagent.framework.core.agents.llm.message.LlmStreamMessageAggregator;
+import org.metaagent.framework.core.agents.llm.message.MessageConversionCache;
 import org.metaagent.framework.core.agents.llm.message.MessageConverter;
+import org.metaagent.framework.core.agents.llm.message.ReasoningMessagePart;
 import org.metaagent.framework.core.agents.llm.message.ToolCallMessagePart;
 import org.metaagent.framework.core.agents.llm.output.LlmAgentStreamOutput;
 import org.metaagent.framework.core.model.chat.ChatModelInstance;
@@ -66,7 +68,6 @@ import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.model.tool.DefaultToolCallingManager;
-import org.springframework.ai.model.tool.ToolCallingChatOptions;
 import org.springframework.ai.model.tool.ToolCallingManager;
 import org.springframework.ai.model.tool.ToolExecutionResult;
 import org.springframework.ai.tool.execution.DefaultToolExecutionExceptionProcessor;
@@ -93,12 +94,23 @@ import java.util.function.Consumer;
  * @see LlmAgentStreamOutput
  */
 public class LlmStreamingAgent extends AbstractStreamAgent<LlmAgentInput, LlmAgentStreamOutput, LlmAgentStepContext, MessagePart> {
-    private final MessageConverter messageConverter = new MessageConverter();
+    private final MessageConversionCache conversionCache = MessageConversionCache.shared();
+    private final MessageConverter messageConverter = new MessageConverter(conversionCache);
 
     public LlmStreamingAgent(String name) {
         super(name);
     }
 
+    /**
+     * Returns the cache of the converted history messages. Conversations feeding this agent should
+     * register it as a listener, so edited or deleted messages are evicted.
+     *
+     * @return the message conversion cache
+     */
+    public MessageConversionCache getConversionCache() {
+        return conversionCache;
+    }
+
     @Override
     public LlmAgentStepContext createStepContext(LlmAgentInput agentInput) {
         List<SystemMessage> systemMessages = Collections.emptyList();
@@ -131,11 +143,9 @@ public class LlmStreamingAgent extends AbstractStreamAgent<LlmAgentInput, LlmAge
 
     protected ChatOptions buildChatOptions(LlmAgentInput agentInput, ChatOptions defaultOptions) {
         LlmAgentContext agentContext = agentInput.context();
-        ChatOptions chatOptions = ToolCallingChatOptions.builder().build();
-        chatOptions = ToolCallbackUtils.buildChatOptionsWithTools(
-                chatOptions, agentContext.toolManager(), agentContext.toolExecutorContext().getToolExecutor(), false
+        return ToolCallbackUtils.buildChatOptionsWithTools(
+                agentContext.toolManager(), agentContext.toolExecutorContext().getToolExecutor(), false
         );
-        return chatOptions;
     }
 
     @Override
@@ -147,12 +157,15 @@ public class LlmStreamingAgent extends AbstractStreamAgent<LlmAgentInput, LlmAge
     }
 
     @Override
-    protected boolean shouldContinueLoop(LlmAgentInput agentInput, LlmAgentStepContext stepContext) {
-        int currentIteration = stepContext.getLoopCounter().get();
-        if (agentInput.maxSteps() != null && agentInput.maxSteps() > 0 && currentIteration >= agentInput.maxSteps()) {
-            return false;
+    protected int getMaxSteps(LlmAgentInput agentInput) {
+        if (agentInput.maxSteps() != null && agentInput.maxSteps() > 0) {
+            return agentInput.maxSteps();
         }
+        return super.getMaxSteps(agentInput);
+    }
 
+    @Override
+    protected boolean shouldContinueLoop(LlmAgentInput agentInput, LlmAgentStepContext stepContext) {
         return !stepContext.isFinished();
     }
 
@@ -174,7 +187,9 @@ public class LlmStreamingAgent extends AbstractStreamAgent<LlmAgentInput, LlmAge
 
         return super.runStream(agentInput, stepContext)
                 .doOnNext(messagePublisher::add)
-                .doFinally(signalType -> messagePublisher.flush());
+                // Flush before the terminal signal reaches subscribers, which may close the event bus
+                .doOnTerminate(messagePublisher::flush)
+                .doOnCancel(messagePublisher::flush);
     }
 
     /**
@@ -214,6 +229,7 @@ public class LlmStreamingAgent extends AbstractStreamAgent<LlmAgentInput, LlmAge
                                     .build())
                             .build());
                 }))
+                .concatWith(Mono.fromRunnable(() -> commitStreamingMessage(stepContext)))
                 .concatWith(Mono.defer(() -> {
                     if (stepContext.isFinished()) {
                         LlmFinishMessagePart finishMessagePart = LlmFinishMessagePart.builder()
@@ -233,8 +249,6 @@ public class LlmStreamingAgent extends AbstractStreamAgent<LlmAgentInput, LlmAge
 
         if (chatResponse.getResult() != null) {
             Generation generation = chatResponse.getResult();
-            stepContext.addNewMessages(Collections.singletonList(generation.getOutput()));
-
             if (!stepContext.isFinished()) {
                 stepContext.setFinishReason(generation.getMetadata().getFinishReason());
             }
@@ -242,6 +256,8 @@ public class LlmStreamingAgent extends AbstractStreamAgent<LlmAgentInput, LlmAge
             List<MessagePart> messageParts = messageConverter.convert(
                     partIdGenerator, generation.getOutput(), Collections.emptyMap());
             outputMessages.addAll(messageParts);
+            // Deltas are buffered and committed as one assistant message when the model turn completes
+            stepContext.addStreamingMessageParts(messageParts);
 
             for (MessagePart messagePart : messageParts) {
                 if (messagePart instanceof ToolCallMessagePart) {
@@ -256,6 +272,27 @@ public class LlmStreamingAgent extends AbstractStreamAgent<LlmAgentInput, LlmAge
         return outputMessages;
     }
 
+    /**
+     * Aggregates the streamed deltas of the current model turn into a single assistant message
+     * and records it in the step context. Does nothing if no delta has been buffered.
+     *
+     * @param stepContext the step context
+     */
+    protected void commitStreamingMessage(LlmAgentStepContext stepContext) {
+        List<MessagePart> streamedParts = stepContext.drainStreamingMessageParts();
+        if (streamedParts.isEmpty()) {
+            return;
+        }
+
+        // Reasoning markers carry no content and would reset the aggregated reasoning text
+        List<MessagePart> contentParts = streamedParts.stream()
+                .filter(part -> !(part instanceof ReasoningMessagePart reasoningPart)
+                        || reasoningPart.status() == ReasoningMessagePart.ReasoningStatus.PROCESSING)
+                .toList();
+        List<MessagePart> aggregatedParts = LlmStreamMessageAggregator.INSTANCE.aggregate(contentParts);
+        stepContext.addNewMessages(List.of(messageConverter.toAssistantMessage(aggregatedParts)));
+    }
+
     protected ToolContext buildToolContext(LlmAgentContext agentContext, String executionId) {
         return agentContext.toolExecutorContext()
                 .newToolContextBuilder()
@@ -275,9 +312,9 @@ public class LlmStreamingAgent extends AbstractStreamAgent<LlmAgentInput, LlmAge
             throw new IllegalStateException("No tool call requested by the chat model");
         }
 
-        // Gets the tool calls
+        // Gets the tool calls, the assistant message must precede the tool responses
         AssistantMessage assistantMessage = toolCallGeneration.get().getOutput();
-        stepContext.addNewMessages(List.of(assistantMessage));
+        commitStreamingMessage(stepContext);
         List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
 
         ToolManager toolManager = agentContext.toolManager();
@@ -58,6 +58,7 @@ public class LlmAgentStepContext implements AgentStepContext {
     private final Map<String, ToolCallMessagePart> toolCallMessages;
     private MessageInfo outputMessageInfo;
     private List<MessagePart> outputMessageParts;
+    private final List<MessagePart> streamingMessageParts;
     private String finishReason;
     private TokenUsage tokenUsage;
 
@@ -68,6 +69,7 @@ public class LlmAgentStepContext implements AgentStepContext {
         this.newMessages = Lists.newArrayList();
         this.toolCallMessages = Maps.newHashMap();
         this.outputMessageParts = Lists.newArrayList();
+        this.streamingMessageParts = Lists.newArrayList();
         this.tokenUsage = TokenUsage.empty();
     }
 
@@ -96,6 +98,26 @@ public class LlmAgentStepContext implements AgentStepContext {
         this.outputMessageParts.addAll(outputMessageParts);
     }
 
+    /**
+     * Buffers the message parts streamed by the model in the current turn.
+     *
+     * @param messageParts the streamed message parts
+     */
+    public void addStreamingMessageParts(List<? extends MessagePart> messageParts) {
+        this.streamingMessageParts.addAll(messageParts);
+    }
+
+    /**
+     * Returns and clears the message parts streamed by the model in the current turn.
+     *
+     * @return the buffered message parts
+     */
+    public List<MessagePart> drainStreamingMessageParts() {
+        List<MessagePart> messageParts = new ArrayList<>(streamingMessageParts);
+        streamingMessageParts.clear();
+        return messageParts;
+    }
+
     public List<SystemMessage> getSystemMessages() {
         return systemMessages;
     }
@@ -149,10 +171,16 @@ public class LlmAgentStepContext implements AgentStepContext {
         return this.tokenUsage;
     }
 
+    @Override
+    public long getConsumedTokens() {
+        return tokenUsage.totalTokens();
+    }
+
     @Override
     public void reset() {
         loopCounter.set(0);
         newMessages.clear();
+        streamingMessageParts.clear();
         toolCallMessages.clear();
         tokenUsage = TokenUsage.empty();
     }
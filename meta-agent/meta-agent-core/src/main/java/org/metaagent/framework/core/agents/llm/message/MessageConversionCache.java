@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.agents.llm.message;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.metaagent.framework.core.agent.chat.conversation.ConversationListener;
+import org.metaagent.framework.core.agent.chat.message.Message;
+import org.metaagent.framework.core.agent.chat.message.MessageId;
+import org.metaagent.framework.core.agent.chat.message.part.MessagePart;
+import org.metaagent.framework.core.agent.chat.message.part.MessagePartId;
+import org.metaagent.framework.core.agent.chat.session.SessionId;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Cache of the Spring AI messages converted from the conversation messages.
+ * <p>
+ * Messages of a conversation rarely change once written, so their conversion is cached by message ID
+ * and revision. The revision is derived from the update time and the parts of the message, so an updated
+ * or still streaming message is converted again. The cache is bounded by the approximate number of
+ * characters of the converted messages; media is referenced and only counted with a fixed weight.
+ * Registered as a {@link ConversationListener}, it evicts the conversions of a session whose messages
+ * are edited, deleted or released.
+ *
+ * @author vyckey
+ */
+public class MessageConversionCache implements ConversationListener {
+    public static final long DEFAULT_MAX_WEIGHT = 16L * 1024 * 1024;
+    private static final int MESSAGE_OVERHEAD_WEIGHT = 64;
+
+    private final Cache<ConversionKey, List<org.springframework.ai.chat.messages.Message>> conversions;
+
+    public MessageConversionCache(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.conversions = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher(MessageConversionCache::weigh)
+                .build();
+    }
+
+    public MessageConversionCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * Returns the cache shared by all agents which do not configure their own cache.
+     *
+     * @return the shared cache
+     */
+    public static MessageConversionCache shared() {
+        return SharedCacheHolder.CACHE;
+    }
+
+    /**
+     * Returns the cached conversion of the message at its current revision, or converts and caches it.
+     *
+     * @param message   the message to convert
+     * @param converter the conversion function
+     * @return the immutable list of converted messages
+     */
+    public List<org.springframework.ai.chat.messages.Message> get(
+            Message message, Function<Message, List<org.springframework.ai.chat.messages.Message>> converter) {
+        if (message.info().id() == null) {
+            return converter.apply(message);
+        }
+        ConversionKey key = ConversionKey.of(message);
+        List<org.springframework.ai.chat.messages.Message> converted = conversions.getIfPresent(key);
+        if (converted == null) {
+            converted = List.copyOf(converter.apply(message));
+            conversions.put(key, converted);
+        }
+        return converted;
+    }
+
+    /**
+     * Evicts the cached conversions of a session, e.g. when its conversation is edited, cleared or closed.
+     *
+     * @param sessionId the session ID
+     */
+    public void invalidate(SessionId sessionId) {
+        conversions.asMap().keySet().removeIf(key -> Objects.equals(key.sessionId(), sessionId));
+    }
+
+    @Override
+    public void onMessagesChanged(SessionId sessionId) {
+        invalidate(sessionId);
+    }
+
+    public void invalidateAll() {
+        conversions.invalidateAll();
+    }
+
+    public long size() {
+        return conversions.size();
+    }
+
+    private static int weigh(ConversionKey key, List<org.springframework.ai.chat.messages.Message> messages) {
+        long weight = MESSAGE_OVERHEAD_WEIGHT;
+        for (org.springframework.ai.chat.messages.Message message : messages) {
+            weight += MESSAGE_OVERHEAD_WEIGHT + lengthOf(message.getText());
+            if (message instanceof AssistantMessage assistantMessage) {
+                for (AssistantMessage.ToolCall toolCall : assistantMessage.getToolCalls()) {
+                    weight += lengthOf(toolCall.name()) + lengthOf(toolCall.arguments());
+                }
+            } else if (message instanceof ToolResponseMessage toolResponseMessage) {
+                for (ToolResponseMessage.ToolResponse response : toolResponseMessage.getResponses()) {
+                    weight += lengthOf(response.name()) + lengthOf(response.responseData());
+                }
+            }
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private static int lengthOf(String text) {
+        return text != null ? text.length() : 0;
+    }
+
+    /**
+     * The cache key of a message revision.
+     */
+    record ConversionKey(SessionId sessionId, MessageId messageId, Instant updatedAt,
+                         int partCount, MessagePartId lastPartId, Instant lastPartUpdatedAt) {
+        static ConversionKey of(Message message) {
+            List<MessagePart> parts = message.parts();
+            MessagePart lastPart = parts.isEmpty() ? null : parts.get(parts.size() - 1);
+            return new ConversionKey(
+                    message.info().sessionId(),
+                    message.info().id(),
+                    message.info().updatedAt(),
+                    parts.size(),
+                    lastPart != null ? lastPart.id() : null,
+                    lastPart != null ? lastPart.updatedAt() : null
+            );
+        }
+    }
+
+    private static final class SharedCacheHolder {
+        static final MessageConversionCache CACHE = new MessageConversionCache();
+    }
+}
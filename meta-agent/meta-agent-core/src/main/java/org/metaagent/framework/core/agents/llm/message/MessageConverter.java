@@ -63,9 +63,30 @@ import static org.metaagent.framework.core.agent.chat.message.MessageMetadataKey
  * @author vyckey
  */
 public class MessageConverter implements Converter<Message, List<org.springframework.ai.chat.messages.Message>> {
+    private final MessageConversionCache conversionCache;
+
+    /**
+     * Creates a converter which memoizes the conversion of messages in the given cache.
+     *
+     * @param conversionCache the conversion cache, or {@code null} to convert messages every time
+     */
+    public MessageConverter(MessageConversionCache conversionCache) {
+        this.conversionCache = conversionCache;
+    }
+
+    public MessageConverter() {
+        this(null);
+    }
 
     @Override
     public List<org.springframework.ai.chat.messages.Message> convert(Message message) {
+        if (conversionCache != null) {
+            return conversionCache.get(message, this::doConvert);
+        }
+        return doConvert(message);
+    }
+
+    private List<org.springframework.ai.chat.messages.Message> doConvert(Message message) {
         List<org.springframework.ai.chat.messages.Message> result = new ArrayList<>();
         List<MessagePart> groupParts = new ArrayList<>();
         for (MessagePart messagePart : message.parts()) {
@@ -89,11 +110,7 @@ public class MessageConverter implements Converter<Message, List<org.springframe
     }
 
     private Media convertMedia(MediaMessagePart part) {
-        MediaResource mediaResource = part.media();
-        return Media.builder()
-                .mimeType(mediaResource.mimeType())
-                .data(mediaResource.data())
-                .build();
+        return convertMedia(part.media());
     }
 
     private List<org.springframework.ai.chat.messages.Message> convertGroupParts(
@@ -194,7 +211,54 @@ public class MessageConverter implements Converter<Message, List<org.springframe
     }
 
     private Media convertMedia(MediaResource resource) {
-        return Media.builder().mimeType(resource.mimeType()).name(resource.name()).data(resource.data()).build();
+        // reference the inline data or the URI of the resource instead of reading or copying the content
+        Object data = resource.data() != null ? resource.data() : resource.uri().toString();
+        return Media.builder().mimeType(resource.mimeType()).name(resource.name()).data(data).build();
+    }
+
+    /**
+     * Converts the aggregated output parts of a single model turn into one assistant message
+     * which carries the text, reasoning, media and tool calls of the turn.
+     *
+     * @param messageParts the aggregated message parts
+     * @return the assistant message
+     */
+    public AssistantMessage toAssistantMessage(List<MessagePart> messageParts) {
+        StringBuilder text = new StringBuilder();
+        StringBuilder reasoning = new StringBuilder();
+        List<Media> media = new ArrayList<>();
+        List<AssistantMessage.ToolCall> toolCalls = new ArrayList<>();
+        MetadataProvider metadata = MetadataProvider.create();
+        for (MessagePart messagePart : messageParts) {
+            if (messagePart instanceof TextMessagePart textMessagePart) {
+                text.append(textMessagePart.text());
+            } else if (messagePart instanceof ReasoningMessagePart reasoningPart) {
+                reasoning.append(reasoningPart.text());
+            } else if (messagePart instanceof MediaMessagePart mediaMessagePart) {
+                media.add(convertMedia(mediaMessagePart));
+            } else if (messagePart instanceof ToolCallMessagePart toolCallMessagePart
+                    && toolCallMessagePart.arguments() != null) {
+                toolCalls.add(new AssistantMessage.ToolCall(
+                        toolCallMessagePart.callId(),
+                        "function",
+                        toolCallMessagePart.toolName(),
+                        toolCallMessagePart.arguments()
+                ));
+            } else {
+                continue;
+            }
+            metadata.merge(messagePart.metadata());
+        }
+        if (!reasoning.isEmpty()) {
+            metadata.setProperty(KEY_REASONING_CONTENT, reasoning.toString());
+        }
+
+        return AssistantMessage.builder()
+                .content(text.toString())
+                .media(media)
+                .toolCalls(toolCalls)
+                .properties(metadata.getProperties())
+                .build();
     }
 
     public List<MessagePart> convert(IdGenerator<MessagePartId> partIdGenerator,
@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.chat.cache;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cached chat model call, either a single response or the chunks of a stream.
+ * Only the generations, the finish reasons and the usage are kept, so the entries can be persisted as JSON.
+ *
+ * @param createdAtMillis the time the entry was created
+ * @param responses       the responses, in the order they were emitted
+ * @author vyckey
+ */
+record CachedChatResponse(long createdAtMillis, List<ResponseData> responses) {
+
+    static CachedChatResponse of(List<ChatResponse> responses) {
+        return new CachedChatResponse(System.currentTimeMillis(), responses.stream().map(ResponseData::of).toList());
+    }
+
+    boolean isExpired(long ttlMillis) {
+        return System.currentTimeMillis() - createdAtMillis > ttlMillis;
+    }
+
+    List<ChatResponse> toChatResponses() {
+        return responses.stream().map(ResponseData::toChatResponse).toList();
+    }
+
+    record ResponseData(String id, String model, Integer promptTokens, Integer completionTokens,
+                        List<GenerationData> generations) {
+
+        static ResponseData of(ChatResponse response) {
+            ChatResponseMetadata metadata = response.getMetadata();
+            Usage usage = metadata.getUsage();
+            return new ResponseData(metadata.getId(), metadata.getModel(),
+                    usage != null ? usage.getPromptTokens() : null,
+                    usage != null ? usage.getCompletionTokens() : null,
+                    response.getResults().stream().map(GenerationData::of).toList());
+        }
+
+        ChatResponse toChatResponse() {
+            ChatResponseMetadata metadata = ChatResponseMetadata.builder()
+                    .id(id)
+                    .model(model)
+                    .usage(new DefaultUsage(promptTokens, completionTokens))
+                    .keyValue(CachingChatModel.CACHE_HIT_KEY, true)
+                    .build();
+            return new ChatResponse(generations.stream().map(GenerationData::toGeneration).toList(), metadata);
+        }
+    }
+
+    record GenerationData(String text, List<AssistantMessage.ToolCall> toolCalls,
+                          Map<String, Object> properties, String finishReason) {
+
+        static GenerationData of(Generation generation) {
+            AssistantMessage output = generation.getOutput();
+            Map<String, Object> properties = new HashMap<>();
+            output.getMetadata().forEach((key, value) -> {
+                // other values cannot be restored from JSON with their types
+                if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+                    properties.put(key, value);
+                }
+            });
+            String finishReason = generation.getMetadata() != null ? generation.getMetadata().getFinishReason() : null;
+            return new GenerationData(output.getText(), output.getToolCalls(), properties, finishReason);
+        }
+
+        Generation toGeneration() {
+            AssistantMessage message = AssistantMessage.builder()
+                    .content(text)
+                    .properties(properties != null ? properties : Map.of())
+                    .toolCalls(toolCalls != null ? toolCalls : List.of())
+                    .build();
+            return new Generation(message, ChatGenerationMetadata.builder().finishReason(finishReason).build());
+        }
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.chat.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.content.MediaContent;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A chat model decorator which caches the responses of identical calls.
+ * <p>
+ * Calls are keyed by a hash of the prompt messages, the portable {@link ChatOptions} and the tool
+ * definitions, so that retries, evaluation runs and repeated queries are answered without calling
+ * the model. The responses are kept in a bounded in-memory tier and optionally in a disk tier,
+ * which survives restarts and can be used to replay model calls in offline test runs. Streams
+ * are replayed chunk by chunk as they were received, and only cached once they have completed.
+ * </p>
+ * <p>
+ * Calls with media or with tools executed internally by the chat model are never cached, since
+ * their result depends on more than the key. Options specific to a provider are not part of the
+ * key either, so a cache directory should not be shared by differently configured chat models
+ * unless they use distinct {@link CacheConfig#namespace(String) namespaces}.
+ * Cached responses are marked with the {@link #CACHE_HIT_KEY} metadata.
+ * </p>
+ *
+ * @author vyckey
+ */
+@Slf4j
+public class CachingChatModel implements ChatModel {
+    /**
+     * Metadata key of the responses which are replayed from the cache.
+     */
+    public static final String CACHE_HIT_KEY = "cacheHit";
+
+    private final ChatModel delegate;
+    private final CacheConfig config;
+    private final Cache<HashCode, CachedChatResponse> memoryCache;
+    private final DiskResponseCache diskCache;
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+
+    public CachingChatModel(ChatModel delegate, CacheConfig config) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate is required");
+        this.config = Objects.requireNonNull(config, "config is required");
+        this.memoryCache = CacheBuilder.newBuilder()
+                .maximumSize(config.maxMemoryEntries)
+                .expireAfterWrite(config.ttl)
+                .build();
+        this.diskCache = config.directory != null
+                ? new DiskResponseCache(config.directory, config.maxDiskBytes, config.ttl.toMillis()) : null;
+    }
+
+    public CachingChatModel(ChatModel delegate) {
+        this(delegate, new CacheConfig());
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        if (!isCacheable(prompt)) {
+            bypassed.incrementAndGet();
+            return delegate.call(prompt);
+        }
+        HashCode key = cacheKey(prompt, false);
+        CachedChatResponse cached = lookup(key);
+        if (cached != null) {
+            return cached.toChatResponses().get(0);
+        }
+
+        ChatResponse response = delegate.call(prompt);
+        store(key, List.of(response));
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        if (!isCacheable(prompt)) {
+            return Flux.defer(() -> {
+                bypassed.incrementAndGet();
+                return delegate.stream(prompt);
+            });
+        }
+        return Flux.defer(() -> {
+            HashCode key = cacheKey(prompt, true);
+            CachedChatResponse cached = lookup(key);
+            if (cached != null) {
+                return Flux.fromIterable(cached.toChatResponses());
+            }
+
+            List<ChatResponse> chunks = new ArrayList<>();
+            return delegate.stream(prompt)
+                    .doOnNext(chunks::add)
+                    .doOnComplete(() -> store(key, chunks));
+        });
+    }
+
+    private CachedChatResponse lookup(HashCode key) {
+        CachedChatResponse cached = memoryCache.getIfPresent(key);
+        if (cached != null) {
+            // Entries loaded from disk expire with the time they were created, not loaded
+            if (!cached.isExpired(config.ttl.toMillis())) {
+                memoryHits.incrementAndGet();
+                return cached;
+            }
+            memoryCache.invalidate(key);
+        }
+        if (diskCache != null) {
+            cached = diskCache.get(key);
+            if (cached != null) {
+                diskHits.incrementAndGet();
+                memoryCache.put(key, cached);
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private void store(HashCode key, List<ChatResponse> responses) {
+        // Chunks without a result, e.g. a trailing usage chunk, carry nothing to replay
+        List<ChatResponse> resultResponses = responses.stream().filter(response -> response.getResult() != null).toList();
+        if (resultResponses.isEmpty()) {
+            return;
+        }
+        CachedChatResponse cached;
+        try {
+            cached = CachedChatResponse.of(resultResponses);
+        } catch (RuntimeException e) {
+            log.warn("Failed to cache chat response: {}", e.getMessage());
+            return;
+        }
+        memoryCache.put(key, cached);
+        if (diskCache != null) {
+            diskCache.put(key, cached);
+        }
+    }
+
+    private boolean isCacheable(Prompt prompt) {
+        ChatOptions options = prompt.getOptions();
+        if (config.deterministicOnly && (options == null || options.getTemperature() == null
+                || options.getTemperature() != 0)) {
+            return false;
+        }
+        if (options instanceof ToolCallingChatOptions toolOptions
+                && ToolCallingChatOptions.isInternalToolExecutionEnabled(toolOptions)
+                && (!toolOptions.getToolCallbacks().isEmpty() || !toolOptions.getToolNames().isEmpty())) {
+            return false;
+        }
+        for (Message message : prompt.getInstructions()) {
+            if (message instanceof MediaContent mediaContent && !mediaContent.getMedia().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the canonical key of a call. All strings are length-prefixed, so that distinct
+     * prompts cannot produce the same input of the hash function.
+     */
+    private HashCode cacheKey(Prompt prompt, boolean streaming) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        putString(hasher, config.namespace);
+        hasher.putBoolean(streaming);
+        List<Message> messages = prompt.getInstructions();
+        hasher.putInt(messages.size());
+        for (Message message : messages) {
+            putString(hasher, message.getMessageType().name());
+            putString(hasher, message.getText());
+            if (message instanceof AssistantMessage assistantMessage) {
+                hasher.putInt(assistantMessage.getToolCalls().size());
+                for (AssistantMessage.ToolCall toolCall : assistantMessage.getToolCalls()) {
+                    putString(hasher, toolCall.id());
+                    putString(hasher, toolCall.name());
+                    putString(hasher, toolCall.arguments());
+                }
+            } else if (message instanceof ToolResponseMessage toolResponseMessage) {
+                hasher.putInt(toolResponseMessage.getResponses().size());
+                for (ToolResponseMessage.ToolResponse response : toolResponseMessage.getResponses()) {
+                    putString(hasher, response.id());
+                    putString(hasher, response.name());
+                    putString(hasher, response.responseData());
+                }
+            }
+        }
+        putOptions(hasher, prompt.getOptions());
+        return hasher.hash();
+    }
+
+    private static void putOptions(Hasher hasher, ChatOptions options) {
+        if (options == null) {
+            hasher.putBoolean(false);
+            return;
+        }
+        hasher.putBoolean(true);
+        putString(hasher, options.getModel());
+        putString(hasher, Objects.toString(options.getTemperature(), null));
+        putString(hasher, Objects.toString(options.getTopP(), null));
+        putString(hasher, Objects.toString(options.getTopK(), null));
+        putString(hasher, Objects.toString(options.getMaxTokens(), null));
+        putString(hasher, Objects.toString(options.getFrequencyPenalty(), null));
+        putString(hasher, Objects.toString(options.getPresencePenalty(), null));
+        putStrings(hasher, options.getStopSequences());
+        if (options instanceof ToolCallingChatOptions toolOptions) {
+            putStrings(hasher, toolOptions.getToolNames());
+            List<ToolDefinition> toolDefinitions = toolOptions.getToolCallbacks().stream()
+                    .map(ToolCallback::getToolDefinition)
+                    .sorted(Comparator.comparing(ToolDefinition::name))
+                    .toList();
+            hasher.putInt(toolDefinitions.size());
+            for (ToolDefinition toolDefinition : toolDefinitions) {
+                putString(hasher, toolDefinition.name());
+                putString(hasher, toolDefinition.description());
+                putString(hasher, toolDefinition.inputSchema());
+            }
+        }
+    }
+
+    private static void putStrings(Hasher hasher, Collection<String> values) {
+        if (values == null) {
+            hasher.putInt(-1);
+            return;
+        }
+        hasher.putInt(values.size());
+        values.stream().sorted().forEach(value -> putString(hasher, value));
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Removes all cached responses from both tiers.
+     */
+    public void invalidateAll() {
+        memoryCache.invalidateAll();
+        if (diskCache != null) {
+            diskCache.clear();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(memoryHits.get(), diskHits.get(), misses.get(), bypassed.get(), memoryCache.size(),
+                diskCache != null ? diskCache.size() : 0, diskCache != null ? diskCache.sizeInBytes() : 0);
+    }
+
+    /**
+     * Statistics of the cache.
+     *
+     * @param memoryHits    the number of calls answered from the memory tier
+     * @param diskHits      the number of calls answered from the disk tier
+     * @param misses        the number of cacheable calls forwarded to the chat model
+     * @param bypassed      the number of calls which were not cacheable
+     * @param memoryEntries the number of entries in the memory tier
+     * @param diskEntries   the number of entries in the disk tier
+     * @param diskBytes     the size of the disk tier
+     */
+    public record Stats(long memoryHits, long diskHits, long misses, long bypassed,
+                        long memoryEntries, int diskEntries, long diskBytes) {
+        /**
+         * Gets the ratio of cacheable calls answered from the cache.
+         */
+        public double hitRatio() {
+            long hits = memoryHits + diskHits;
+            return hits + misses == 0 ? 0 : hits * 1.0 / (hits + misses);
+        }
+    }
+
+    public static class CacheConfig {
+        private String namespace = "";
+        private Duration ttl = Duration.ofDays(1);
+        private int maxMemoryEntries = 1000;
+        private Path directory;
+        private long maxDiskBytes = 256L * 1024 * 1024;
+        private boolean deterministicOnly;
+
+        /**
+         * Sets the namespace which is part of all keys, e.g. to separate differently configured models.
+         */
+        public CacheConfig namespace(String namespace) {
+            this.namespace = Objects.requireNonNull(namespace);
+            return this;
+        }
+
+        /**
+         * Sets how long the responses are cached, 1 day by default.
+         */
+        public CacheConfig ttl(Duration ttl) {
+            if (ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("ttl must be positive");
+            }
+            this.ttl = ttl;
+            return this;
+        }
+
+        public CacheConfig ttl(long ttl, TimeUnit unit) {
+            return ttl(Duration.ofNanos(unit.toNanos(ttl)));
+        }
+
+        /**
+         * Sets the maximum number of entries of the memory tier, 1000 by default.
+         */
+        public CacheConfig maxMemoryEntries(int maxMemoryEntries) {
+            if (maxMemoryEntries < 0) {
+                throw new IllegalArgumentException("maxMemoryEntries must not be negative");
+            }
+            this.maxMemoryEntries = maxMemoryEntries;
+            return this;
+        }
+
+        /**
+         * Sets the directory of the disk tier, which is disabled by default.
+         */
+        public CacheConfig directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of the disk tier, 256MB by default.
+         */
+        public CacheConfig maxDiskBytes(long maxDiskBytes) {
+            if (maxDiskBytes <= 0) {
+                throw new IllegalArgumentException("maxDiskBytes must be positive");
+            }
+            this.maxDiskBytes = maxDiskBytes;
+            return this;
+        }
+
+        /**
+         * Sets whether only calls with a temperature of 0 are cached, false by default.
+         */
+        public CacheConfig deterministicOnly(boolean deterministicOnly) {
+            this.deterministicOnly = deterministicOnly;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.chat.cache;
+
+import com.google.common.hash.HashCode;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Disk tier of {@link CachingChatModel}, one JSON file per entry.
+ * <p>
+ * The entries are evicted in least recently used order when the total size exceeds the limit,
+ * and dropped on read once they have expired. Read and write failures are logged and reported
+ * as cache misses, so that a broken cache directory never fails a model call.
+ * </p>
+ *
+ * @author vyckey
+ */
+@Slf4j
+final class DiskResponseCache {
+    private static final String FILE_SUFFIX = ".json";
+    private static final JsonMapper JSON_MAPPER = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long ttlMillis;
+    // entry sizes in least recently used order
+    private final LinkedHashMap<HashCode, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    DiskResponseCache(Path directory, long maxBytes, long ttlMillis) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        try {
+            Files.createDirectories(directory);
+            loadEntries();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open chat response cache " + directory, e);
+        }
+    }
+
+    private void loadEntries() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(file -> file.getFileName().toString().endsWith(FILE_SUFFIX)).toList();
+        }
+        Map<Path, Long> lastModified = new LinkedHashMap<>();
+        for (Path file : files) {
+            lastModified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        for (Path file : files.stream().sorted(Comparator.comparing(lastModified::get)).toList()) {
+            String fileName = file.getFileName().toString();
+            try {
+                HashCode key = HashCode.fromString(fileName.substring(0, fileName.length() - FILE_SUFFIX.length()));
+                long size = Files.size(file);
+                entries.put(key, size);
+                totalBytes += size;
+            } catch (IllegalArgumentException e) {
+                log.debug("Ignore unknown file in chat response cache: {}", file);
+            }
+        }
+        evict();
+    }
+
+    private Path file(HashCode key) {
+        return directory.resolve(key + FILE_SUFFIX);
+    }
+
+    CachedChatResponse get(HashCode key) {
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                return null;
+            }
+        }
+        try {
+            CachedChatResponse response = JSON_MAPPER.readValue(Files.readAllBytes(file(key)), CachedChatResponse.class);
+            if (!response.isExpired(ttlMillis)) {
+                return response;
+            }
+        } catch (NoSuchFileException e) {
+            // removed concurrently
+        } catch (IOException | JacksonException e) {
+            log.warn("Failed to read chat response cache entry {}: {}", key, e.getMessage());
+        }
+        remove(key);
+        return null;
+    }
+
+    void put(HashCode key, CachedChatResponse response) {
+        Path file = file(key);
+        long size;
+        try {
+            byte[] bytes = JSON_MAPPER.writeValueAsBytes(response);
+            Path tempFile = Files.createTempFile(directory, key.toString(), ".tmp");
+            try {
+                Files.write(tempFile, bytes);
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            size = bytes.length;
+        } catch (IOException | JacksonException e) {
+            log.warn("Failed to write chat response cache entry {}: {}", key, e.getMessage());
+            return;
+        }
+
+        synchronized (this) {
+            Long oldSize = entries.put(key, size);
+            totalBytes += size - (oldSize != null ? oldSize : 0);
+            evict();
+        }
+    }
+
+    synchronized void remove(HashCode key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+            deleteFile(key);
+        }
+    }
+
+    synchronized void clear() {
+        for (HashCode key : entries.keySet()) {
+            deleteFile(key);
+        }
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long sizeInBytes() {
+        return totalBytes;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<HashCode, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<HashCode, Long> entry = iterator.next();
+            iterator.remove();
+            totalBytes -= entry.getValue();
+            deleteFile(entry.getKey());
+        }
+    }
+
+    private void deleteFile(HashCode key) {
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException e) {
+            log.warn("Failed to delete chat response cache entry {}: {}", key, e.getMessage());
+        }
+    }
+}
@@ -27,6 +27,7 @@ package org.metaagent.framework.core.model.chat.compression;
 import com.google.common.collect.Lists;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.metaagent.framework.core.model.token.TokenCounter;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
@@ -50,11 +51,18 @@ public class ChatCompressionModel implements CompressionModel {
     private final ChatModel chatModel;
     private final ChatOptions chatOptions;
     private final SystemMessage systemPrompt;
+    private final TokenCounter tokenCounter;
 
-    public ChatCompressionModel(ChatModel chatModel, ChatOptions chatOptions, SystemMessage systemPrompt) {
+    public ChatCompressionModel(ChatModel chatModel, ChatOptions chatOptions, SystemMessage systemPrompt,
+                                TokenCounter tokenCounter) {
         this.chatModel = Objects.requireNonNull(chatModel, "chatModel is required");
         this.chatOptions = chatOptions;
         this.systemPrompt = Objects.requireNonNull(systemPrompt, "systemPrompt is required");
+        this.tokenCounter = Objects.requireNonNull(tokenCounter, "tokenCounter is required");
+    }
+
+    public ChatCompressionModel(ChatModel chatModel, ChatOptions chatOptions, SystemMessage systemPrompt) {
+        this(chatModel, chatOptions, systemPrompt, TokenCounter.defaultCounter());
     }
 
     public ChatCompressionModel(ChatModel chatModel, SystemMessage systemPrompt) {
@@ -62,29 +70,15 @@ public class ChatCompressionModel implements CompressionModel {
     }
 
     /**
-     * Counts the number of tokens in a list of messages.
-     * Default implementation uses the length of the message text which isn't very accurate, and it's merely a rough estimation.
+     * Counts the number of tokens in a list of messages with the configured {@link TokenCounter}.
+     * The default counter memoizes the counts, so recounting messages that have been seen is cheap.
      *
      * @param messages the list of messages to count tokens for
      * @return the total number of tokens in the messages
      */
     @Override
     public int countTokens(List<Message> messages) {
-        int totalTokenCount = 0;
-        for (Message message : messages) {
-            if (message instanceof AssistantMessage assistantMessage && assistantMessage.hasToolCalls()) {
-                for (AssistantMessage.ToolCall toolCall : assistantMessage.getToolCalls()) {
-                    totalTokenCount += toolCall.name().length();
-                    totalTokenCount += toolCall.arguments().length();
-                }
-            } else if (message instanceof ToolResponseMessage toolResponseMessage) {
-                for (ToolResponseMessage.ToolResponse toolResponse : toolResponseMessage.getResponses()) {
-                    totalTokenCount += toolResponse.responseData().length();
-                }
-            }
-            totalTokenCount += Objects.requireNonNull(message.getText()).length();
-        }
-        return totalTokenCount;
+        return tokenCounter.countTokens(messages);
     }
 
     @Override
@@ -123,7 +117,7 @@ public class ChatCompressionModel implements CompressionModel {
         // build the compression results
         List<CompressionResult> compressionResults = Lists.newArrayListWithCapacity(chatResponse.getResults().size());
         for (Generation generation : chatResponse.getResults()) {
-            float compressionRatio = countTokens(List.of(generation.getOutput())) * 1.0f / totalTokenCount;
+            float compressionRatio = tokenCounter.countTokens(generation.getOutput()) * 1.0f / totalTokenCount;
             CompressionResult compressionResult = resultBuilder.compressed(true)
                     .summary(generation.getOutput())
                     .compressionRatio(compressionRatio)
@@ -146,7 +140,7 @@ public class ChatCompressionModel implements CompressionModel {
             if (totalTokenCount >= compressOptions.getMaxTokens()) {
                 return i + 1;
             }
-            totalTokenCount += countTokens(List.of(messages.get(i)));
+            totalTokenCount += tokenCounter.countTokens(messages.get(i));
         }
         return messages.size() - reservedMessageCount - 1;
     }
@@ -0,0 +1,409 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.chat.compression;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.metaagent.framework.core.agent.chat.message.MessageMetadataKeys;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link CompressionModel} which compresses the history incrementally and in the background.
+ * <p>
+ * Summaries are rolling: each one summarizes the previous summary plus the messages appended
+ * since, so the history is never summarized twice. Every summary is cached under a fingerprint of
+ * the message prefix it covers, which identifies the compressed range without message IDs and
+ * works for any number of conversations sharing this model. Once the context crosses a soft
+ * threshold below {@link CompressOptions#getMaxTokens()}, the next summary is computed on a
+ * background thread while the caller continues with the current one. A finished summary is
+ * picked up by the next call that finds it in the cache. The caller only waits if the context
+ * reaches the hard limit before the background summary is done, and continues with the latest
+ * summary if that one fails. Summary messages are tagged with
+ * {@link MessageMetadataKeys#KEY_COMPRESSION_SUMMARY}.
+ * </p>
+ * <p>
+ * The model is opt-in, e.g. set it on {@code ChatAgent} to persist the summaries into the conversation.
+ * </p>
+ *
+ * @author vyckey
+ */
+@Slf4j
+public class IncrementalCompressionModel implements CompressionModel, Closeable {
+    private final CompressionModel delegate;
+    private final CompressionConfig config;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Cache<HashCode, Summary> summaries;
+    private final Map<HashCode, CompletableFuture<Summary>> pendingSummaries = new ConcurrentHashMap<>();
+    private final AtomicLong backgroundCompressions = new AtomicLong();
+    private final AtomicLong blockingCompressions = new AtomicLong();
+    private final AtomicLong failedCompressions = new AtomicLong();
+
+    /**
+     * Creates an incremental compression model.
+     *
+     * @param delegate the model which summarizes a chunk of messages, e.g. {@link ChatCompressionModel}
+     * @param config   the compression configuration
+     */
+    public IncrementalCompressionModel(CompressionModel delegate, CompressionConfig config) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate is required");
+        this.config = Objects.requireNonNull(config, "config is required");
+        this.ownsExecutor = config.executor == null;
+        this.executor = ownsExecutor ? Executors.newFixedThreadPool(config.threads,
+                new ThreadFactoryBuilder().setNameFormat("CompressionModel-T%d").setDaemon(true).build())
+                : config.executor;
+        this.summaries = CacheBuilder.newBuilder().maximumSize(config.maxCachedSummaries).build();
+    }
+
+    public IncrementalCompressionModel(CompressionModel delegate) {
+        this(delegate, new CompressionConfig());
+    }
+
+    @Override
+    public int countTokens(List<Message> messages) {
+        return delegate.countTokens(messages);
+    }
+
+    @Override
+    public CompressionResponse call(CompressionRequest compressionRequest) {
+        List<Message> messages = compressionRequest.getInstructions();
+        CompressOptions options = compressionRequest.getOptions();
+        int maxTokens = options.getMaxTokens();
+        int softMaxTokens = (int) (maxTokens * config.softThresholdRatio);
+
+        int totalTokenCount = countTokens(messages);
+        if (totalTokenCount < softMaxTokens) {
+            return uncompressed(messages);
+        }
+
+        HashCode[] prefixKeys = prefixKeys(messages);
+        Summary summary = latestSummary(prefixKeys);
+        int coveredCount = summary != null ? summary.messageCount() : 0;
+        int effectiveTokenCount = summary != null
+                ? summary.tokenCount() + countTokens(messages.subList(coveredCount, messages.size()))
+                : totalTokenCount;
+        int boundary = Math.max(0, messages.size() - options.getReservedMessageCount());
+
+        if (effectiveTokenCount >= softMaxTokens && boundary > coveredCount) {
+            boolean blocking = effectiveTokenCount >= maxTokens;
+            CompletableFuture<Summary> future = extendSummary(summary, messages, prefixKeys, boundary, options, blocking);
+            if (blocking && future != null) {
+                // The background summary has not caught up, the caller has to wait for it
+                blockingCompressions.incrementAndGet();
+                try {
+                    summary = join(future);
+                } catch (RuntimeException e) {
+                    // The prompt goes on with the latest summary, or uncompressed if there is none
+                    log.warn("Failed to compress {} messages, continue with the latest summary", boundary, e);
+                }
+            }
+        }
+        return summary != null ? compressed(summary, messages, totalTokenCount) : uncompressed(messages);
+    }
+
+    /**
+     * Finds the summary covering the longest prefix of the messages.
+     */
+    private Summary latestSummary(HashCode[] prefixKeys) {
+        for (int count = prefixKeys.length - 1; count > 0; count--) {
+            Summary summary = summaries.getIfPresent(prefixKeys[count]);
+            if (summary != null) {
+                return summary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Extends the summary up to the boundary, reusing a pending summary of a shorter prefix.
+     * Without blocking, no further work is scheduled while a summary is pending, so it is
+     * extended by the call which finds it done.
+     *
+     * @return the future of the summary covering the boundary, or null if none is scheduled
+     */
+    private CompletableFuture<Summary> extendSummary(Summary summary, List<Message> messages, HashCode[] prefixKeys,
+                                                     int boundary, CompressOptions options, boolean blocking) {
+        int coveredCount = summary != null ? summary.messageCount() : 0;
+        for (int count = boundary; count > coveredCount; count--) {
+            CompletableFuture<Summary> pending = pendingSummaries.get(prefixKeys[count]);
+            if (pending == null) {
+                continue;
+            }
+            if (count == boundary) {
+                return pending;
+            }
+            if (!blocking) {
+                return null;
+            }
+            int pendingCount = count;
+            List<Message> segment = List.copyOf(messages.subList(pendingCount, boundary));
+            return pending.thenCompose(pendingSummary ->
+                    scheduleSummary(pendingSummary, segment, prefixKeys[boundary], options));
+        }
+        List<Message> segment = List.copyOf(messages.subList(coveredCount, boundary));
+        return scheduleSummary(summary, segment, prefixKeys[boundary], options);
+    }
+
+    private CompletableFuture<Summary> scheduleSummary(Summary previous, List<Message> segment,
+                                                       HashCode key, CompressOptions options) {
+        CompletableFuture<Summary> future = new CompletableFuture<>();
+        CompletableFuture<Summary> pending = pendingSummaries.putIfAbsent(key, future);
+        if (pending != null) {
+            return pending;
+        }
+
+        backgroundCompressions.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    Summary summary = summarize(previous, segment, options);
+                    summaries.put(key, summary);
+                    future.complete(summary);
+                } catch (Throwable e) {
+                    failedCompressions.incrementAndGet();
+                    log.warn("Failed to compress {} messages in background", segment.size(), e);
+                    future.completeExceptionally(e);
+                } finally {
+                    pendingSummaries.remove(key, future);
+                }
+            });
+        } catch (RuntimeException e) {
+            pendingSummaries.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Summarizes the previous summary together with the new segment of messages.
+     */
+    protected Summary summarize(Summary previous, List<Message> segment, CompressOptions options) {
+        List<Message> messages = new ArrayList<>(segment.size() + 1);
+        if (previous != null) {
+            messages.add(previous.message());
+        }
+        messages.addAll(segment);
+
+        // Everything in the request is compressed, the caller already excluded the reserved messages
+        CompressOptions chunkOptions = DefaultCompressOptions.builder()
+                .maxTokens(0).reservedMessagesCount(0).compressPrompt(options.getCompressPrompt()).build();
+        CompressionResult result = delegate.call(new CompressionRequest(messages, chunkOptions)).getResult();
+        if (result == null || !result.isCompressed() || result.getSummary() == null) {
+            throw new IllegalStateException("Compression model returned no summary");
+        }
+        int messageCount = (previous != null ? previous.messageCount() : 0) + segment.size();
+        Message summaryMessage = tagSummary(result.getSummary());
+        return new Summary(messageCount, summaryMessage, countTokens(List.of(summaryMessage)));
+    }
+
+    /**
+     * Tags the summary message with {@link MessageMetadataKeys#KEY_COMPRESSION_SUMMARY}.
+     */
+    private static Message tagSummary(Message summaryMessage) {
+        Map<String, Object> properties = new HashMap<>(summaryMessage.getMetadata());
+        properties.put(MessageMetadataKeys.KEY_COMPRESSION_SUMMARY, true);
+        return AssistantMessage.builder()
+                .content(summaryMessage.getText())
+                .properties(properties)
+                .build();
+    }
+
+    private Summary join(CompletableFuture<Summary> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private CompressionResponse uncompressed(List<Message> messages) {
+        CompressionResult result = DefaultCompressionResult.builder().compressed(false).retainedMessages(messages).build();
+        return new CompressionResponse(List.of(result));
+    }
+
+    private CompressionResponse compressed(Summary summary, List<Message> messages, int totalTokenCount) {
+        CompressionResult result = DefaultCompressionResult.builder()
+                .compressed(true)
+                .summary(summary.message())
+                .compressionRatio(summary.tokenCount() * 1.0f / totalTokenCount)
+                .removedMessages(messages.subList(0, summary.messageCount()))
+                .retainedMessages(messages.subList(summary.messageCount(), messages.size()))
+                .build();
+        return new CompressionResponse(List.of(result));
+    }
+
+    /**
+     * Computes rolling fingerprints of all prefixes, the key at index {@code n} identifies the first n messages.
+     */
+    private static HashCode[] prefixKeys(List<Message> messages) {
+        HashCode[] keys = new HashCode[messages.size() + 1];
+        keys[0] = HashCode.fromLong(0);
+        for (int i = 0; i < messages.size(); i++) {
+            Hasher hasher = Hashing.murmur3_128().newHasher().putBytes(keys[i].asBytes());
+            putMessage(hasher, messages.get(i));
+            keys[i + 1] = hasher.hash();
+        }
+        return keys;
+    }
+
+    private static void putMessage(Hasher hasher, Message message) {
+        hasher.putString(message.getClass().getName(), StandardCharsets.UTF_8);
+        hasher.putString(Objects.toString(message.getText(), ""), StandardCharsets.UTF_8);
+        if (message instanceof AssistantMessage assistantMessage && assistantMessage.hasToolCalls()) {
+            for (AssistantMessage.ToolCall toolCall : assistantMessage.getToolCalls()) {
+                hasher.putString(Objects.toString(toolCall.id(), ""), StandardCharsets.UTF_8)
+                        .putString(Objects.toString(toolCall.arguments(), ""), StandardCharsets.UTF_8);
+            }
+        } else if (message instanceof ToolResponseMessage toolResponseMessage) {
+            for (ToolResponseMessage.ToolResponse response : toolResponseMessage.getResponses()) {
+                hasher.putString(Objects.toString(response.id(), ""), StandardCharsets.UTF_8)
+                        .putString(Objects.toString(response.responseData(), ""), StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    /**
+     * Gets the statistics of this model.
+     */
+    public Stats stats() {
+        return new Stats(summaries.size(), pendingSummaries.size(), backgroundCompressions.get(),
+                blockingCompressions.get(), failedCompressions.get());
+    }
+
+    @Override
+    public void close() {
+        if (!ownsExecutor) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A rolling summary of the first {@code messageCount} messages of a conversation.
+     *
+     * @param messageCount the number of messages covered by the summary
+     * @param message      the summary message
+     * @param tokenCount   the number of tokens of the summary message
+     */
+    public record Summary(int messageCount, Message message, int tokenCount) {
+    }
+
+    /**
+     * Statistics of an {@link IncrementalCompressionModel}.
+     *
+     * @param cachedSummaries        the number of cached summaries
+     * @param pendingSummaries       the number of summaries being computed
+     * @param backgroundCompressions the number of summaries scheduled in the background
+     * @param blockingCompressions   the number of calls which had to wait for a summary
+     * @param failedCompressions     the number of summaries which failed
+     */
+    public record Stats(long cachedSummaries, int pendingSummaries, long backgroundCompressions,
+                        long blockingCompressions, long failedCompressions) {
+    }
+
+    /**
+     * Configuration for {@link IncrementalCompressionModel}.
+     */
+    public static class CompressionConfig {
+        /**
+         * Ratio of the max tokens at which a summary is computed in the background.
+         */
+        private double softThresholdRatio = 0.75;
+        /**
+         * Maximum number of cached summaries.
+         */
+        private long maxCachedSummaries = 256;
+        /**
+         * Number of background threads, if no executor is given.
+         */
+        private int threads = 2;
+        /**
+         * Executor to compute summaries on, it is not shut down by the model.
+         */
+        private ExecutorService executor;
+
+        public CompressionConfig softThresholdRatio(double softThresholdRatio) {
+            if (softThresholdRatio <= 0 || softThresholdRatio > 1) {
+                throw new IllegalArgumentException("softThresholdRatio must be in (0, 1]");
+            }
+            this.softThresholdRatio = softThresholdRatio;
+            return this;
+        }
+
+        public CompressionConfig maxCachedSummaries(long maxCachedSummaries) {
+            if (maxCachedSummaries <= 0) {
+                throw new IllegalArgumentException("maxCachedSummaries must be positive");
+            }
+            this.maxCachedSummaries = maxCachedSummaries;
+            return this;
+        }
+
+        public CompressionConfig threads(int threads) {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("threads must be positive");
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        public CompressionConfig executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.chat.routing;
+
+/**
+ * Circuit breaker of a model endpoint.
+ * <p>
+ * The circuit opens after a number of consecutive failures, and rejects calls until the open
+ * duration has passed. Then a single trial call is let through in the half-open state: the
+ * circuit closes if it succeeds and opens again if it fails.
+ * </p>
+ * <p>
+ * Every state transition starts a new generation, and a permission belongs to the generation it
+ * was taken in. Outcomes of calls permitted before the latest transition are ignored, so a slow
+ * call of a closed circuit can not close it again after it has been opened in the meantime.
+ * </p>
+ *
+ * @author vyckey
+ */
+public class CircuitBreaker {
+    /**
+     * Returned by {@link #tryAcquirePermission()} if the call is not permitted.
+     */
+    public static final long NOT_PERMITTED = -1;
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntilNanos;
+    private boolean trialInFlight;
+    private long generation;
+
+    public CircuitBreaker(int failureThreshold, long openDurationMillis) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold must be positive");
+        }
+        if (openDurationMillis < 0) {
+            throw new IllegalArgumentException("openDurationMillis must not be negative");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDurationMillis * 1_000_000L;
+    }
+
+    /**
+     * Gets the current state.
+     */
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Checks whether a call would be permitted now, without taking the permission.
+     */
+    public synchronized boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> System.nanoTime() - openUntilNanos >= 0;
+            case HALF_OPEN -> !trialInFlight;
+        };
+    }
+
+    /**
+     * Takes the permission for a call, in the half-open state only one trial call is permitted.
+     *
+     * @return the generation of the permission to report the outcome with, or {@link #NOT_PERMITTED}
+     */
+    public synchronized long tryAcquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openUntilNanos >= 0) {
+            transitionTo(State.HALF_OPEN);
+        }
+        return switch (state) {
+            case CLOSED -> generation;
+            case OPEN -> NOT_PERMITTED;
+            case HALF_OPEN -> {
+                if (trialInFlight) {
+                    yield NOT_PERMITTED;
+                }
+                trialInFlight = true;
+                yield generation;
+            }
+        };
+    }
+
+    /**
+     * Reports a successful call.
+     *
+     * @param generation the generation of the permission of the call
+     */
+    public synchronized void onSuccess(long generation) {
+        if (generation != this.generation) {
+            return;
+        }
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    /**
+     * Reports a failed call.
+     *
+     * @param generation the generation of the permission of the call
+     */
+    public synchronized void onFailure(long generation) {
+        if (generation != this.generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            transitionTo(State.OPEN);
+            openUntilNanos = System.nanoTime() + openDurationNanos;
+        }
+    }
+
+    /**
+     * Releases the permission of a call which has been cancelled without an outcome.
+     *
+     * @param generation the generation of the permission of the call
+     */
+    public synchronized void onCancel(long generation) {
+        if (generation == this.generation) {
+            trialInFlight = false;
+        }
+    }
+
+    private void transitionTo(State newState) {
+        state = newState;
+        generation++;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * State of a circuit breaker.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.chat.routing;
+
+import org.springframework.ai.chat.model.ChatModel;
+
+import java.util.Objects;
+
+/**
+ * An endpoint of a {@link RoutingChatModel}, e.g. one API key or one deployment of a model.
+ *
+ * @param name              the endpoint name, used in logs and statistics
+ * @param chatModel         the chat model of the endpoint
+ * @param weight            the relative share of calls routed to this endpoint
+ * @param requestsPerMinute the request rate limit, 0 if unlimited
+ * @param tokensPerMinute   the token rate limit, 0 if unlimited
+ * @author vyckey
+ */
+public record ModelEndpoint(
+        String name,
+        ChatModel chatModel,
+        int weight,
+        int requestsPerMinute,
+        int tokensPerMinute
+) {
+    public ModelEndpoint {
+        Objects.requireNonNull(name, "name is required");
+        Objects.requireNonNull(chatModel, "chatModel is required");
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be positive");
+        }
+        if (requestsPerMinute < 0 || tokensPerMinute < 0) {
+            throw new IllegalArgumentException("rate limits must not be negative");
+        }
+    }
+
+    private ModelEndpoint(Builder builder) {
+        this(builder.name, builder.chatModel, builder.weight, builder.requestsPerMinute, builder.tokensPerMinute);
+    }
+
+    public static ModelEndpoint of(String name, ChatModel chatModel) {
+        return new ModelEndpoint(name, chatModel, 1, 0, 0);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+
+    public static class Builder {
+        private String name;
+        private ChatModel chatModel;
+        private int weight = 1;
+        private int requestsPerMinute;
+        private int tokensPerMinute;
+
+        private Builder() {
+        }
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder chatModel(ChatModel chatModel) {
+            this.chatModel = chatModel;
+            return this;
+        }
+
+        public Builder weight(int weight) {
+            this.weight = weight;
+            return this;
+        }
+
+        public Builder requestsPerMinute(int requestsPerMinute) {
+            this.requestsPerMinute = requestsPerMinute;
+            return this;
+        }
+
+        public Builder tokensPerMinute(int tokensPerMinute) {
+            this.tokensPerMinute = tokensPerMinute;
+            return this;
+        }
+
+        public ModelEndpoint build() {
+            return new ModelEndpoint(this);
+        }
+    }
+}
@@ -0,0 +1,500 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.chat.routing;
+
+import com.google.common.collect.ImmutableList;
+import lombok.extern.slf4j.Slf4j;
+import org.metaagent.framework.core.model.token.TokenCounter;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A chat model which routes calls over multiple endpoints of one or more providers.
+ * <p>
+ * Each call is routed to an endpoint selected by the configured {@link Balancing} strategy among
+ * the endpoints whose circuit is not open and whose request and token rate limits allow the call.
+ * If all endpoints are rate limited, the call waits until one becomes available, up to a maximum
+ * wait time. A failed call is retried on another endpoint, and a stream fails over as long as it
+ * has not emitted any response. Streams can optionally be hedged: if the first endpoint has not
+ * responded after a delay, the stream is also started on another endpoint and the first one to
+ * respond wins.
+ * </p>
+ * <p>
+ * Token limits are checked against an estimate of the prompt size, which is reconciled with the
+ * actual usage reported by the endpoint once the call has completed.
+ * </p>
+ *
+ * @author vyckey
+ */
+@Slf4j
+public class RoutingChatModel implements ChatModel {
+    private final List<Route> routes;
+    private final RouterConfig config;
+    private final boolean tokenLimited;
+    private final AtomicLong rotation = new AtomicLong();
+
+    public RoutingChatModel(List<ModelEndpoint> endpoints, RouterConfig config) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one endpoint is required");
+        }
+        this.config = Objects.requireNonNull(config, "config is required");
+        this.routes = endpoints.stream().map(endpoint -> new Route(endpoint, config)).collect(ImmutableList.toImmutableList());
+        this.tokenLimited = endpoints.stream().anyMatch(endpoint -> endpoint.tokensPerMinute() > 0);
+    }
+
+    public RoutingChatModel(List<ModelEndpoint> endpoints) {
+        this(endpoints, new RouterConfig());
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return routes.get(0).endpoint.chatModel().getDefaultOptions();
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        int estimatedTokens = estimateTokens(prompt);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.maxWaitMillis);
+        Set<Route> tried = new HashSet<>();
+        RuntimeException lastError = null;
+        for (int attempt = 0; attempt < config.maxAttempts; attempt++) {
+            Selection selection;
+            try {
+                selection = acquire(tried, estimatedTokens, deadline);
+            } catch (ModelRoutingException e) {
+                if (lastError != null) {
+                    lastError.addSuppressed(e);
+                    throw lastError;
+                }
+                throw e;
+            }
+
+            Route route = selection.route;
+            tried.add(route);
+            long startNanos = System.nanoTime();
+            try {
+                ChatResponse response = route.endpoint.chatModel().call(prompt);
+                route.release(SignalType.ON_COMPLETE, selection.generation, System.nanoTime() - startNanos,
+                        estimatedTokens, usedTokens(response, estimatedTokens));
+                return response;
+            } catch (RuntimeException e) {
+                route.release(SignalType.ON_ERROR, selection.generation, System.nanoTime() - startNanos,
+                        estimatedTokens, estimatedTokens);
+                log.warn("Chat model call failed on endpoint {} (attempt {}/{}): {}",
+                        route.endpoint.name(), attempt + 1, config.maxAttempts, e.getMessage());
+                lastError = e;
+            }
+        }
+        throw Objects.requireNonNull(lastError);
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            int estimatedTokens = estimateTokens(prompt);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.maxWaitMillis);
+            Set<Route> tried = ConcurrentHashMap.newKeySet();
+            Flux<ChatResponse> primary = streamWithFailover(prompt, estimatedTokens, deadline, tried, 0);
+            if (config.hedgeDelayMillis <= 0 || routes.size() < 2) {
+                return primary;
+            }
+            Flux<ChatResponse> hedge = Mono.delay(Duration.ofMillis(config.hedgeDelayMillis))
+                    .flatMapMany(ignored -> streamWithFailover(prompt, estimatedTokens, deadline, tried, config.maxAttempts - 1));
+            // When both fail, firstWithValue signals a NoSuchElementException, surface the error of the primary instead
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            AtomicReference<Throwable> hedgeError = new AtomicReference<>();
+            return Flux.firstWithValue(primary.doOnError(primaryError::set), hedge.doOnError(hedgeError::set))
+                    .onErrorMap(NoSuchElementException.class, e -> {
+                        Throwable error = primaryError.get() != null ? primaryError.get() : hedgeError.get();
+                        return error != null ? error : e;
+                    });
+        });
+    }
+
+    private Flux<ChatResponse> streamWithFailover(Prompt prompt, int estimatedTokens, long deadline,
+                                                  Set<Route> tried, int attempt) {
+        return Flux.defer(() -> {
+            Selection selection = select(tried, estimatedTokens);
+            if (selection.route == null) {
+                if (System.nanoTime() + selection.waitNanos - deadline > 0) {
+                    return Flux.error(new ModelRoutingException("Rate limits of all chat model endpoints are exhausted"));
+                }
+                return Mono.delay(Duration.ofNanos(selection.waitNanos))
+                        .thenMany(streamWithFailover(prompt, estimatedTokens, deadline, tried, attempt));
+            }
+
+            Route route = selection.route;
+            tried.add(route);
+            long startNanos = System.nanoTime();
+            AtomicLong firstResponseNanos = new AtomicLong(-1);
+            AtomicReference<ChatResponse> lastResponse = new AtomicReference<>();
+            return route.endpoint.chatModel().stream(prompt)
+                    .doOnNext(response -> {
+                        firstResponseNanos.compareAndSet(-1, System.nanoTime() - startNanos);
+                        lastResponse.set(response);
+                    })
+                    .doFinally(signal -> {
+                        long latencyNanos = firstResponseNanos.get() >= 0
+                                ? firstResponseNanos.get() : System.nanoTime() - startNanos;
+                        route.release(signal, selection.generation, latencyNanos, estimatedTokens,
+                                usedTokens(lastResponse.get(), estimatedTokens));
+                    })
+                    .onErrorResume(e -> {
+                        if (firstResponseNanos.get() >= 0 || attempt + 1 >= config.maxAttempts) {
+                            return Flux.error(e);
+                        }
+                        log.warn("Chat model stream failed on endpoint {} (attempt {}/{}): {}",
+                                route.endpoint.name(), attempt + 1, config.maxAttempts, e.getMessage());
+                        return streamWithFailover(prompt, estimatedTokens, deadline, tried, attempt + 1)
+                                .onErrorResume(ModelRoutingException.class, routingError -> Flux.error(e));
+                    });
+        });
+    }
+
+    /**
+     * Gets the statistics of all endpoints.
+     */
+    public List<EndpointStats> stats() {
+        return routes.stream().map(Route::stats).toList();
+    }
+
+    private int estimateTokens(Prompt prompt) {
+        return tokenLimited ? config.tokenCounter.countTokens(prompt.getInstructions()) : 0;
+    }
+
+    private static int usedTokens(ChatResponse response, int estimatedTokens) {
+        ChatResponseMetadata metadata = response != null ? response.getMetadata() : null;
+        Usage usage = metadata != null ? metadata.getUsage() : null;
+        Integer totalTokens = usage != null ? usage.getTotalTokens() : null;
+        return totalTokens != null && totalTokens > 0 ? totalTokens : estimatedTokens;
+    }
+
+    private Selection acquire(Set<Route> excluded, int estimatedTokens, long deadline) {
+        while (true) {
+            Selection selection = select(excluded, estimatedTokens);
+            if (selection.route != null) {
+                return selection;
+            }
+            if (System.nanoTime() + selection.waitNanos - deadline > 0) {
+                throw new ModelRoutingException("Rate limits of all chat model endpoints are exhausted");
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(selection.waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ModelRoutingException("Interrupted while waiting for a chat model endpoint", e);
+            }
+        }
+    }
+
+    /**
+     * Selects an endpoint and acquires its permits, or returns the time to wait if all
+     * available endpoints are rate limited.
+     */
+    private Selection select(Collection<Route> excluded, int estimatedTokens) {
+        List<Route> candidates = new ArrayList<>(routes.size());
+        for (Route route : routes) {
+            if (!excluded.contains(route) && route.breaker.isCallPermitted()) {
+                candidates.add(route);
+            }
+        }
+        if (candidates.isEmpty()) {
+            throw new ModelRoutingException("No chat model endpoint is available");
+        }
+
+        long waitNanos = Long.MAX_VALUE;
+        for (Route route : order(candidates)) {
+            Selection selection = route.tryAcquire(estimatedTokens);
+            if (selection != null && selection.route != null) {
+                return selection;
+            } else if (selection != null) {
+                waitNanos = Math.min(waitNanos, selection.waitNanos);
+            }
+        }
+        if (waitNanos == Long.MAX_VALUE) {
+            throw new ModelRoutingException("No chat model endpoint is available");
+        }
+        return new Selection(null, waitNanos, CircuitBreaker.NOT_PERMITTED);
+    }
+
+    /**
+     * Orders the candidates by preference of the balancing strategy.
+     */
+    private List<Route> order(List<Route> candidates) {
+        if (candidates.size() == 1) {
+            return candidates;
+        }
+        return switch (config.balancing) {
+            case WEIGHTED_RANDOM -> {
+                // weighted random sampling without replacement
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Comparator<Route> comparator = Comparator.comparingDouble(
+                        route -> -Math.log(random.nextDouble()) / route.endpoint.weight());
+                yield candidates.stream().sorted(comparator).toList();
+            }
+            case LEAST_OUTSTANDING -> {
+                // rotate before the stable sort, so that ties are spread over the endpoints
+                int offset = (int) (rotation.getAndIncrement() % candidates.size());
+                List<Route> rotated = new ArrayList<>(candidates.subList(offset, candidates.size()));
+                rotated.addAll(candidates.subList(0, offset));
+                rotated.sort(Comparator.comparingDouble(
+                        route -> route.outstanding.get() * 1.0 / route.endpoint.weight()));
+                yield rotated;
+            }
+        };
+    }
+
+    /**
+     * The route of a call with the circuit breaker generation of its permission, or the time to wait if none.
+     */
+    private record Selection(Route route, long waitNanos, long generation) {
+    }
+
+    private static final class Route {
+        private final ModelEndpoint endpoint;
+        private final long slowCallThresholdNanos;
+        private final TokenBucket requestBucket;
+        private final TokenBucket tokenBucket;
+        private final CircuitBreaker breaker;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong tokens = new AtomicLong();
+
+        Route(ModelEndpoint endpoint, RouterConfig config) {
+            this.endpoint = endpoint;
+            this.slowCallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.slowCallThresholdMillis);
+            this.requestBucket = TokenBucket.perMinute(endpoint.requestsPerMinute());
+            this.tokenBucket = TokenBucket.perMinute(endpoint.tokensPerMinute());
+            this.breaker = new CircuitBreaker(config.failureThreshold, config.openDurationMillis);
+        }
+
+        /**
+         * Acquires the permits of a call.
+         *
+         * @return the selection of this route if acquired, the time to wait if rate limited,
+         * or null if the circuit is open
+         */
+        synchronized Selection tryAcquire(int estimatedTokens) {
+            long waitNanos = requestBucket != null ? requestBucket.nanosUntilAvailable(1) : 0;
+            if (tokenBucket != null) {
+                waitNanos = Math.max(waitNanos, tokenBucket.nanosUntilAvailable(estimatedTokens));
+            }
+            if (waitNanos > 0) {
+                return new Selection(null, waitNanos, CircuitBreaker.NOT_PERMITTED);
+            }
+            long generation = breaker.tryAcquirePermission();
+            if (generation == CircuitBreaker.NOT_PERMITTED) {
+                return null;
+            }
+            if (requestBucket != null) {
+                requestBucket.consume(1);
+            }
+            if (tokenBucket != null) {
+                tokenBucket.consume(estimatedTokens);
+            }
+            outstanding.incrementAndGet();
+            return new Selection(this, 0, generation);
+        }
+
+        void release(SignalType signal, long generation, long latencyNanos, int estimatedTokens, int usedTokens) {
+            outstanding.decrementAndGet();
+            calls.incrementAndGet();
+            tokens.addAndGet(usedTokens);
+            if (tokenBucket != null && usedTokens != estimatedTokens) {
+                synchronized (this) {
+                    tokenBucket.consume(usedTokens - estimatedTokens);
+                }
+            }
+
+            if (signal == SignalType.ON_ERROR) {
+                failures.incrementAndGet();
+                breaker.onFailure(generation);
+            } else if (signal == SignalType.ON_COMPLETE) {
+                if (slowCallThresholdNanos > 0 && latencyNanos > slowCallThresholdNanos) {
+                    log.debug("Slow chat model call on endpoint {}: {}ms", endpoint.name(),
+                            TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+                    breaker.onFailure(generation);
+                } else {
+                    breaker.onSuccess(generation);
+                }
+            } else {
+                breaker.onCancel(generation);
+            }
+        }
+
+        EndpointStats stats() {
+            return new EndpointStats(endpoint.name(), breaker.state(), outstanding.get(),
+                    calls.get(), failures.get(), tokens.get());
+        }
+    }
+
+    /**
+     * Statistics of an endpoint.
+     *
+     * @param name        the endpoint name
+     * @param state       the circuit state
+     * @param outstanding the number of calls in progress
+     * @param calls       the number of finished calls
+     * @param failures    the number of failed calls
+     * @param tokens      the number of used tokens, estimated if not reported by the endpoint
+     */
+    public record EndpointStats(String name, CircuitBreaker.State state, int outstanding,
+                                long calls, long failures, long tokens) {
+    }
+
+    /**
+     * Strategy to balance the calls over the available endpoints.
+     */
+    public enum Balancing {
+        /**
+         * Picks an endpoint at random, in proportion to the endpoint weights.
+         */
+        WEIGHTED_RANDOM,
+        /**
+         * Picks the endpoint with the fewest calls in progress relative to its weight.
+         */
+        LEAST_OUTSTANDING
+    }
+
+    public static class RouterConfig {
+        private Balancing balancing = Balancing.LEAST_OUTSTANDING;
+        private int maxAttempts = 3;
+        private long maxWaitMillis = 30_000;
+        private int failureThreshold = 5;
+        private long openDurationMillis = 30_000;
+        private long slowCallThresholdMillis;
+        private long hedgeDelayMillis;
+        private TokenCounter tokenCounter = TokenCounter.defaultCounter();
+
+        /**
+         * Sets the balancing strategy, least outstanding by default.
+         */
+        public RouterConfig balancing(Balancing balancing) {
+            this.balancing = Objects.requireNonNull(balancing);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of endpoints a call is attempted on, 3 by default.
+         */
+        public RouterConfig maxAttempts(int maxAttempts) {
+            if (maxAttempts <= 0) {
+                throw new IllegalArgumentException("maxAttempts must be positive");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time a call waits for the rate limits, 30 seconds by default.
+         */
+        public RouterConfig maxWaitMillis(long maxWaitMillis) {
+            if (maxWaitMillis < 0) {
+                throw new IllegalArgumentException("maxWaitMillis must not be negative");
+            }
+            this.maxWaitMillis = maxWaitMillis;
+            return this;
+        }
+
+        /**
+         * Sets the number of consecutive failures which open the circuit of an endpoint, 5 by default.
+         */
+        public RouterConfig failureThreshold(int failureThreshold) {
+            if (failureThreshold <= 0) {
+                throw new IllegalArgumentException("failureThreshold must be positive");
+            }
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        /**
+         * Sets how long an open circuit rejects calls before a trial call, 30 seconds by default.
+         */
+        public RouterConfig openDurationMillis(long openDurationMillis) {
+            if (openDurationMillis < 0) {
+                throw new IllegalArgumentException("openDurationMillis must not be negative");
+            }
+            this.openDurationMillis = openDurationMillis;
+            return this;
+        }
+
+        /**
+         * Sets the latency above which a successful call counts as a failure for the circuit breaker,
+         * the time to the first response for streams. 0 (default) disables it.
+         */
+        public RouterConfig slowCallThresholdMillis(long slowCallThresholdMillis) {
+            if (slowCallThresholdMillis < 0) {
+                throw new IllegalArgumentException("slowCallThresholdMillis must not be negative");
+            }
+            this.slowCallThresholdMillis = slowCallThresholdMillis;
+            return this;
+        }
+
+        /**
+         * Sets the delay after which a stream without a response is hedged on another endpoint.
+         * 0 (default) disables hedging.
+         */
+        public RouterConfig hedgeDelayMillis(long hedgeDelayMillis) {
+            if (hedgeDelayMillis < 0) {
+                throw new IllegalArgumentException("hedgeDelayMillis must not be negative");
+            }
+            this.hedgeDelayMillis = hedgeDelayMillis;
+            return this;
+        }
+
+        /**
+         * Sets the token counter used to estimate the prompt size for the token rate limits.
+         */
+        public RouterConfig tokenCounter(TokenCounter tokenCounter) {
+            this.tokenCounter = Objects.requireNonNull(tokenCounter);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.chat.routing;
+
+/**
+ * Token bucket used to enforce request and token rate limits of a model endpoint.
+ * A bucket may go into debt when the actual usage of a call exceeds its estimate,
+ * which delays the following calls accordingly. It is not thread-safe.
+ *
+ * @author vyckey
+ */
+final class TokenBucket {
+    private final double capacity;
+    private final double refillPerNanos;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(long capacity, long refillPeriodNanos) {
+        this.capacity = capacity;
+        this.refillPerNanos = capacity * 1.0 / refillPeriodNanos;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Creates a bucket which allows the given amount per minute, or null if it is unlimited.
+     */
+    static TokenBucket perMinute(long amount) {
+        return amount > 0 ? new TokenBucket(amount, 60_000_000_000L) : null;
+    }
+
+    /**
+     * Gets the time until the given amount is available, 0 if it is available now.
+     * Amounts larger than the capacity are clamped to the capacity, so they are not starved.
+     */
+    long nanosUntilAvailable(long amount) {
+        refill();
+        double required = Math.min(amount, capacity);
+        if (tokens >= required) {
+            return 0;
+        }
+        return (long) Math.ceil((required - tokens) / refillPerNanos);
+    }
+
+    /**
+     * Takes the given amount, negative amounts are given back.
+     */
+    void consume(long amount) {
+        refill();
+        tokens = Math.min(capacity, tokens - amount);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerNanos);
+        lastRefillNanos = now;
+    }
+}
@@ -23,4 +23,13 @@ public non-sealed interface PromptTemplate extends Prompt {
      * @return the formatted prompt
      */
     PromptValue format(Map<String, Object> args);
+
+    /**
+     * Compile the prompt template ahead of time, so that formatting it is mostly variable substitution.
+     * Templates which need compilation compile themselves on first use otherwise.
+     *
+     * @throws PromptFormatException if the template is invalid
+     */
+    default void compile() {
+    }
 }
@@ -1,12 +1,14 @@
 package org.metaagent.framework.core.model.prompt;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.metaagent.framework.common.io.IOUtils;
 import org.metaagent.framework.common.io.MarkdownUtils;
+import org.metaagent.framework.common.template.CompiledTemplate;
 import org.metaagent.framework.common.template.TemplateRenderException;
 import org.metaagent.framework.common.template.TemplateRenderer;
 import org.metaagent.framework.common.template.TemplateRendererRegistry;
@@ -28,6 +30,8 @@ public class StringPromptTemplate implements PromptTemplate {
     private final TemplateRenderer templateRenderer;
     private final String template;
     private final Optional<List<String>> variables;
+    @Getter(AccessLevel.NONE)
+    private volatile CompiledTemplate compiledTemplate;
 
     public StringPromptTemplate(TemplateRenderer templateRenderer, String template, List<String> variables) {
         this.templateRenderer = Objects.requireNonNull(templateRenderer, "templateRender must not be null");
@@ -96,10 +100,29 @@ public class StringPromptTemplate implements PromptTemplate {
         }
     }
 
+    @Override
+    public void compile() {
+        compiledTemplate();
+    }
+
+    private CompiledTemplate compiledTemplate() {
+        CompiledTemplate compiled = compiledTemplate;
+        if (compiled == null) {
+            try {
+                compiled = templateRenderer.compile(template);
+            } catch (TemplateRenderException e) {
+                throw new PromptFormatException("Failed to compile prompt", e);
+            }
+            compiledTemplate = compiled;
+        }
+        return compiled;
+    }
+
     @Override
     public PromptValue format(Object... args) {
+        CompiledTemplate compiled = compiledTemplate();
         try {
-            String value = templateRenderer.render(template, args);
+            String value = compiled.render(args);
             return PromptValue.from(value);
         } catch (TemplateRenderException e) {
             throw new PromptFormatException("Failed to format prompt", e);
@@ -108,8 +131,9 @@ public class StringPromptTemplate implements PromptTemplate {
 
     @Override
     public PromptValue format(Map<String, Object> args) {
+        CompiledTemplate compiled = compiledTemplate();
         try {
-            String value = templateRenderer.render(template, args);
+            String value = compiled.render(args);
             return PromptValue.from(value);
         } catch (TemplateRenderException e) {
             throw new PromptFormatException("Failed to format prompt", e);
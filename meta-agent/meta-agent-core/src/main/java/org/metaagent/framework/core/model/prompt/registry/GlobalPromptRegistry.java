@@ -122,6 +122,7 @@ public final class GlobalPromptRegistry implements PromptRegistry {
             throw new IllegalArgumentException("Prompt template name cannot be null or empty");
         }
         Objects.requireNonNull(promptTemplate, "Prompt template cannot be null");
+        promptTemplate.compile();
         if (templateMap.putIfAbsent(name, promptTemplate) != null) {
             throw new IllegalStateException(String.format("Prompt template '%s' is already registered, please use replace operation.", name));
         }
@@ -130,6 +131,7 @@ public final class GlobalPromptRegistry implements PromptRegistry {
     @Override
     public PromptTemplate replacePromptTemplate(String name, PromptTemplate newPromptTemplate) {
         Objects.requireNonNull(newPromptTemplate, "Prompt template cannot be null");
+        newPromptTemplate.compile();
         PromptTemplate oldPromptTemplate = templateMap.replace(name, newPromptTemplate);
         if (oldPromptTemplate == null) {
             throw new IllegalStateException(String.format("Prompt template '%s' does not exist, please use register operation.", name));
@@ -199,10 +199,12 @@ public interface PromptRegistry {
 
     /**
      * Registers a prompt template with the specified name.
+     * The template is compiled at registration, see {@link PromptTemplate#compile()}.
      *
      * @param name           the name of the prompt template
      * @param promptTemplate the prompt template to register
      * @throws IllegalStateException if a prompt template with the same name already exists
+     * @throws org.metaagent.framework.core.model.prompt.PromptFormatException if the template is invalid
      */
     void registerPromptTemplate(String name, PromptTemplate promptTemplate);
 
@@ -213,6 +215,7 @@ public interface PromptRegistry {
      * @param newPromptTemplate the new prompt template to replace the existing one
      * @return the replaced prompt template
      * @throws IllegalStateException if the prompt template with the specified name does not exist
+     * @throws org.metaagent.framework.core.model.prompt.PromptFormatException if the template is invalid
      */
     PromptTemplate replacePromptTemplate(String name, PromptTemplate newPromptTemplate);
 
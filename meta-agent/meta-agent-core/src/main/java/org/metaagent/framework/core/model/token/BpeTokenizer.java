@@ -0,0 +1,258 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.token;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Byte-level BPE tokenizer implemented in pure Java.
+ * <p>
+ * The vocabulary uses the tiktoken file format: one token per line, written as the Base64 encoded
+ * token bytes followed by its rank. Text is split into pieces by a pre-tokenization pattern, and each
+ * piece is encoded by repeatedly merging the adjacent parts whose concatenation has the lowest rank.
+ * Vocabularies such as {@code cl100k_base.tiktoken} can be loaded with {@link #load(InputStream, Pattern)}.
+ * The bundled default vocabulary is trained on English prose and source code and also covers common CJK
+ * characters. Its counts of English prose stay within about a quarter of {@code cl100k_base}. The vocabulary
+ * is built by {@code scripts/tokenizer/train_bpe.py}, see {@code scripts/tokenizer/README.md} for the corpus.
+ * </p>
+ *
+ * @author vyckey
+ */
+public class BpeTokenizer implements TokenCounter {
+    public static final String DEFAULT_VOCABULARY = "tokenizer/metaagent-bpe.tiktoken";
+    public static final Pattern DEFAULT_PATTERN = Pattern.compile(
+            "'(?i:[sdmt]|ll|ve|re)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*"
+                    + "|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+");
+    private static final int NO_RANK = Integer.MAX_VALUE;
+
+    // Tokens are keyed by their bytes decoded as ISO-8859-1, which maps every byte to one char
+    private final Map<String, Integer> ranks;
+    private final String[] tokens;
+    private final Pattern pattern;
+
+    public BpeTokenizer(Map<String, Integer> ranks, Pattern pattern) {
+        this.ranks = Map.copyOf(Objects.requireNonNull(ranks, "ranks is required"));
+        this.pattern = Objects.requireNonNull(pattern, "pattern is required");
+        int maxRank = ranks.values().stream().mapToInt(Integer::intValue).max().orElse(-1);
+        this.tokens = new String[maxRank + 1];
+        ranks.forEach((token, rank) -> tokens[rank] = token);
+    }
+
+    /**
+     * Returns the tokenizer with the bundled default vocabulary, which is loaded once on first use.
+     *
+     * @return the default tokenizer
+     */
+    public static BpeTokenizer defaultTokenizer() {
+        return DefaultTokenizerHolder.TOKENIZER;
+    }
+
+    /**
+     * Loads a tokenizer from a vocabulary resource on the classpath.
+     *
+     * @param resourceLocation the resource location of the vocabulary
+     * @param pattern          the pre-tokenization pattern
+     * @return the tokenizer
+     * @throws IOException if the vocabulary can not be read
+     */
+    public static BpeTokenizer fromResource(String resourceLocation, Pattern pattern) throws IOException {
+        ClassLoader classLoader = BpeTokenizer.class.getClassLoader();
+        try (InputStream inputStream = classLoader.getResourceAsStream(resourceLocation)) {
+            if (inputStream == null) {
+                throw new IOException("Resource not found: " + resourceLocation);
+            }
+            return load(inputStream, pattern);
+        }
+    }
+
+    /**
+     * Loads a tokenizer from a vocabulary in the tiktoken file format.
+     *
+     * @param inputStream the vocabulary input stream, which is not closed
+     * @param pattern     the pre-tokenization pattern
+     * @return the tokenizer
+     * @throws IOException if the vocabulary can not be read or is malformed
+     */
+    public static BpeTokenizer load(InputStream inputStream, Pattern pattern) throws IOException {
+        Map<String, Integer> ranks = new HashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int separator = line.indexOf(' ');
+            if (separator <= 0) {
+                throw new IOException("Malformed vocabulary line: " + line);
+            }
+            try {
+                byte[] token = Base64.getDecoder().decode(line.substring(0, separator));
+                int rank = Integer.parseInt(line.substring(separator + 1).trim());
+                ranks.put(new String(token, StandardCharsets.ISO_8859_1), rank);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed vocabulary line: " + line, e);
+            }
+        }
+        return new BpeTokenizer(ranks, pattern);
+    }
+
+    /**
+     * Returns the number of tokens in the vocabulary.
+     *
+     * @return the vocabulary size
+     */
+    public int vocabularySize() {
+        return ranks.size();
+    }
+
+    @Override
+    public int countTokens(String text) {
+        int tokenCount = 0;
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            String piece = toByteString(matcher.group());
+            tokenCount += ranks.containsKey(piece) ? 1 : bytePairMerge(piece).length - 1;
+        }
+        return tokenCount;
+    }
+
+    /**
+     * Encodes a text to token ranks.
+     *
+     * @param text the text to encode
+     * @return the token ranks
+     */
+    public List<Integer> encode(String text) {
+        List<Integer> result = new ArrayList<>();
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            String piece = toByteString(matcher.group());
+            Integer rank = ranks.get(piece);
+            if (rank != null) {
+                result.add(rank);
+                continue;
+            }
+            int[] boundaries = bytePairMerge(piece);
+            for (int i = 0; i < boundaries.length - 1; i++) {
+                result.add(ranks.get(piece.substring(boundaries[i], boundaries[i + 1])));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Decodes token ranks to text.
+     *
+     * @param tokenRanks the token ranks
+     * @return the decoded text
+     * @throws IllegalArgumentException if a rank is not in the vocabulary
+     */
+    public String decode(List<Integer> tokenRanks) {
+        StringBuilder sb = new StringBuilder();
+        for (int rank : tokenRanks) {
+            if (rank < 0 || rank >= tokens.length || tokens[rank] == null) {
+                throw new IllegalArgumentException("Unknown token rank: " + rank);
+            }
+            sb.append(tokens[rank]);
+        }
+        return new String(sb.toString().getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
+    }
+
+    private static String toByteString(String text) {
+        return new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Merges the bytes of a piece into tokens and returns the start offsets of the tokens,
+     * followed by the length of the piece.
+     */
+    private int[] bytePairMerge(String piece) {
+        int size = piece.length() + 1;
+        int[] starts = new int[size];
+        int[] pairRanks = new int[size];
+        for (int i = 0; i < size; i++) {
+            starts[i] = i;
+        }
+        for (int i = 0; i < size - 2; i++) {
+            pairRanks[i] = rank(piece, starts[i], starts[i + 2]);
+        }
+
+        while (size > 2) {
+            int minIndex = -1;
+            int minRank = NO_RANK;
+            for (int i = 0; i < size - 2; i++) {
+                if (pairRanks[i] < minRank) {
+                    minRank = pairRanks[i];
+                    minIndex = i;
+                }
+            }
+            if (minIndex < 0) {
+                break;
+            }
+
+            // Merge the part at minIndex with the next part
+            System.arraycopy(starts, minIndex + 2, starts, minIndex + 1, size - minIndex - 2);
+            System.arraycopy(pairRanks, minIndex + 2, pairRanks, minIndex + 1, size - minIndex - 2);
+            size--;
+            pairRanks[minIndex] = minIndex + 2 < size ? rank(piece, starts[minIndex], starts[minIndex + 2]) : NO_RANK;
+            if (minIndex > 0) {
+                pairRanks[minIndex - 1] = rank(piece, starts[minIndex - 1], starts[minIndex + 1]);
+            }
+        }
+
+        int[] boundaries = new int[size];
+        System.arraycopy(starts, 0, boundaries, 0, size);
+        return boundaries;
+    }
+
+    private int rank(String piece, int start, int end) {
+        return ranks.getOrDefault(piece.substring(start, end), NO_RANK);
+    }
+
+    private static final class DefaultTokenizerHolder {
+        static final BpeTokenizer TOKENIZER = loadDefaultTokenizer();
+
+        private static BpeTokenizer loadDefaultTokenizer() {
+            try {
+                return fromResource(DEFAULT_VOCABULARY, DEFAULT_PATTERN);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load default BPE vocabulary", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.token;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.Objects;
+
+/**
+ * TokenCounter decorator that memoizes the token counts of texts.
+ * <p>
+ * Counts are keyed by a 128-bit hash and the length of the text, so a chat message is only tokenized
+ * when its content is seen for the first time, and counting a growing conversation costs time
+ * proportional to the new messages. The texts themselves are not retained, every cached count takes
+ * a fixed amount of memory however long its text is. Texts shorter than {@code minCachedLength} are
+ * counted directly, and the cache is bounded by the number of cached counts.
+ * </p>
+ *
+ * @author vyckey
+ */
+public class CachingTokenCounter implements TokenCounter {
+    public static final int DEFAULT_MIN_CACHED_LENGTH = 16;
+    public static final long DEFAULT_MAX_CACHED_TEXTS = 16 * 1024;
+    private static final HashFunction TEXT_HASH = Hashing.murmur3_128();
+
+    private final TokenCounter delegate;
+    private final int minCachedLength;
+    private final Cache<TextKey, Integer> tokenCounts;
+
+    public CachingTokenCounter(TokenCounter delegate, int minCachedLength, long maxCachedTexts) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate is required");
+        if (maxCachedTexts <= 0) {
+            throw new IllegalArgumentException("maxCachedTexts must be positive");
+        }
+        this.minCachedLength = minCachedLength;
+        this.tokenCounts = CacheBuilder.newBuilder()
+                .maximumSize(maxCachedTexts)
+                .build();
+    }
+
+    public CachingTokenCounter(TokenCounter delegate) {
+        this(delegate, DEFAULT_MIN_CACHED_LENGTH, DEFAULT_MAX_CACHED_TEXTS);
+    }
+
+    /**
+     * Returns the shared caching counter backed by the default BPE tokenizer.
+     *
+     * @return the default token counter
+     */
+    public static CachingTokenCounter defaultCounter() {
+        return DefaultCounterHolder.COUNTER;
+    }
+
+    @Override
+    public int countTokens(String text) {
+        if (text.length() < minCachedLength) {
+            return delegate.countTokens(text);
+        }
+
+        TextKey key = new TextKey(TEXT_HASH.hashUnencodedChars(text), text.length());
+        Integer count = tokenCounts.getIfPresent(key);
+        if (count == null) {
+            count = delegate.countTokens(text);
+            tokenCounts.put(key, count);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of cached token counts.
+     *
+     * @return the cache size
+     */
+    public long cacheSize() {
+        return tokenCounts.size();
+    }
+
+    private record TextKey(HashCode hash, int length) {
+    }
+
+    private static final class DefaultCounterHolder {
+        static final CachingTokenCounter COUNTER = new CachingTokenCounter(BpeTokenizer.defaultTokenizer());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.token;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+
+import java.util.List;
+
+/**
+ * TokenCounter counts the tokens a model consumes for texts and chat messages.
+ *
+ * @author vyckey
+ */
+public interface TokenCounter {
+    /**
+     * The number of tokens every chat message costs in addition to its content.
+     */
+    int TOKENS_PER_MESSAGE = 3;
+
+    /**
+     * Returns the default token counter, which uses the bundled BPE vocabulary and caches the counts.
+     *
+     * @return the default token counter
+     */
+    static TokenCounter defaultCounter() {
+        return CachingTokenCounter.defaultCounter();
+    }
+
+    /**
+     * Counts the tokens of a text.
+     *
+     * @param text the text to count tokens for
+     * @return the number of tokens
+     */
+    int countTokens(String text);
+
+    /**
+     * Counts the tokens of a chat message, including tool calls and tool responses.
+     *
+     * @param message the message to count tokens for
+     * @return the number of tokens
+     */
+    default int countTokens(Message message) {
+        int tokenCount = TOKENS_PER_MESSAGE;
+        if (message instanceof AssistantMessage assistantMessage && assistantMessage.hasToolCalls()) {
+            for (AssistantMessage.ToolCall toolCall : assistantMessage.getToolCalls()) {
+                tokenCount += countTokens(toolCall.name());
+                tokenCount += countTokens(toolCall.arguments());
+            }
+        } else if (message instanceof ToolResponseMessage toolResponseMessage) {
+            for (ToolResponseMessage.ToolResponse toolResponse : toolResponseMessage.getResponses()) {
+                tokenCount += countTokens(toolResponse.responseData());
+            }
+        }
+        String text = message.getText();
+        if (text != null) {
+            tokenCount += countTokens(text);
+        }
+        return tokenCount;
+    }
+
+    /**
+     * Counts the tokens of a list of chat messages.
+     *
+     * @param messages the messages to count tokens for
+     * @return the total number of tokens
+     */
+    default int countTokens(List<? extends Message> messages) {
+        int tokenCount = 0;
+        for (Message message : messages) {
+            tokenCount += countTokens(message);
+        }
+        return tokenCount;
+    }
+}
@@ -24,13 +24,13 @@
 
 package org.metaagent.framework.core.tool.container;
 
-import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
 import org.metaagent.framework.core.tool.Tool;
 import org.metaagent.framework.core.tool.manager.ToolChangeListener;
 import org.metaagent.framework.core.tool.manager.ToolManager;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Abstract implementation of {@link ToolManager}
@@ -39,12 +39,14 @@ import java.util.List;
  */
 @Slf4j
 public abstract class AbstractToolContainer implements ToolContainer {
-    protected final List<ToolChangeListener> listeners = Lists.newArrayList();
+    protected final List<ToolChangeListener> listeners = new CopyOnWriteArrayList<>();
 
+    @Override
     public void addToolChangeListener(ToolChangeListener listener) {
         listeners.add(listener);
     }
 
+    @Override
     public void removeToolChangeListener(ToolChangeListener listener) {
         listeners.remove(listener);
     }
@@ -25,6 +25,7 @@
 package org.metaagent.framework.core.tool.container;
 
 import org.metaagent.framework.core.tool.Tool;
+import org.metaagent.framework.core.tool.manager.ToolChangeListener;
 
 import java.util.List;
 import java.util.Set;
@@ -105,4 +106,20 @@ public interface ToolContainer {
      * Removes all tools from the manager.
      */
     void removeAll();
+
+    /**
+     * Add a tool change listener. Containers whose tools never change may ignore the listener.
+     *
+     * @param listener the tool change listener.
+     */
+    default void addToolChangeListener(ToolChangeListener listener) {
+    }
+
+    /**
+     * Remove a tool change listener.
+     *
+     * @param listener the tool change listener.
+     */
+    default void removeToolChangeListener(ToolChangeListener listener) {
+    }
 }
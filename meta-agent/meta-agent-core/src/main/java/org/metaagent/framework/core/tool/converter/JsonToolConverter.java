@@ -24,12 +24,21 @@
 
 package org.metaagent.framework.core.tool.converter;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.metaagent.framework.common.converter.JsonBiConverter;
 import org.metaagent.framework.common.converter.JsonStringConverter;
+import org.metaagent.framework.core.tool.schema.ToolArgsSchema;
+import org.metaagent.framework.core.tool.schema.ToolArgsValidator;
 
 /**
  * A converter that handles JSON serialization and deserialization for tool inputs and outputs.
+ * <p>
+ * Converters created for an input class validate the raw JSON arguments against the compiled
+ * schema of the class before converting them, so that all the violations are reported at once.
+ * </p>
  *
  * @author vyckey
  */
@@ -39,11 +48,35 @@ public class JsonToolConverter<I, O> extends DefaultToolConverter<I, O> implemen
     }
 
     public static <I, O> JsonToolConverter<I, O> create(Class<I> inputType) {
-        return new JsonToolConverter<>(JsonBiConverter.create(inputType));
+        return new JsonToolConverter<>(new ValidatingJsonConverter<>(JsonBiConverter.OBJECT_MAPPER, inputType));
     }
 
     public static <I, O> JsonToolConverter<I, O> create(TypeReference<I> inputType) {
         return new JsonToolConverter<>(JsonBiConverter.create(inputType));
     }
 
+    private static final class ValidatingJsonConverter<I> extends JsonBiConverter<I> {
+        private final Class<I> inputType;
+        private final ToolArgsSchema argsSchema;
+
+        ValidatingJsonConverter(ObjectMapper objectMapper, Class<I> inputType) {
+            super(objectMapper);
+            this.inputType = inputType;
+            this.argsSchema = ToolArgsValidator.schemaOf(inputType);
+        }
+
+        @Override
+        public I convert(String json) {
+            try {
+                JsonNode arguments = objectMapper.readTree(json);
+                if (arguments.isMissingNode()) {
+                    return objectMapper.readValue(json, inputType);
+                }
+                ToolArgsValidator.validateArguments(arguments, argsSchema);
+                return objectMapper.treeToValue(arguments, inputType);
+            } catch (JsonProcessingException e) {
+                throw wrapException(json, e);
+            }
+        }
+    }
 }
@@ -25,6 +25,7 @@
 package org.metaagent.framework.core.tool.definition;
 
 import org.metaagent.framework.common.metadata.ClassMetadataProvider;
+import org.metaagent.framework.common.metadata.MetadataProvider;
 
 /**
  * Default implementation of {@link ToolMetadata}
@@ -63,6 +64,28 @@ public class DefaultToolMetadata extends ClassMetadataProvider implements ToolMe
         this.returnDirectly = returnDirectly;
     }
 
+    @Override
+    public Object getProperty(String key) {
+        return switch (key) {
+            case KEY_CONCURRENCY_SAFE -> concurrencySafe;
+            case KEY_READ_ONLY -> readOnly;
+            case KEY_RETURN_DIRECTLY -> returnDirectly;
+            default -> super.getProperty(key);
+        };
+    }
+
+    @Override
+    public MetadataProvider setProperty(String key, Object value) {
+        // The metadata keys differ from the bean property names, so they are mapped to the fields here
+        switch (key) {
+            case KEY_CONCURRENCY_SAFE -> this.concurrencySafe = Boolean.TRUE.equals(value);
+            case KEY_READ_ONLY -> this.readOnly = Boolean.TRUE.equals(value);
+            case KEY_RETURN_DIRECTLY -> this.returnDirectly = Boolean.TRUE.equals(value);
+            default -> super.setProperty(key, value);
+        }
+        return this;
+    }
+
     @Override
     public boolean isEmpty() {
         return false;
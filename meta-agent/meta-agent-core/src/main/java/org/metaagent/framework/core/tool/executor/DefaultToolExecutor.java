@@ -25,6 +25,7 @@
 package org.metaagent.framework.core.tool.executor;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.metaagent.framework.core.security.SecurityLevel;
@@ -34,16 +35,31 @@ import org.metaagent.framework.core.tool.ToolContext;
 import org.metaagent.framework.core.tool.approval.ToolApprovalRequest;
 import org.metaagent.framework.core.tool.config.ToolExecutionConfig;
 import org.metaagent.framework.core.tool.config.ToolPattern;
+import org.metaagent.framework.core.tool.definition.ToolMetadata;
+import org.metaagent.framework.core.tool.exception.ToolExecutionError;
 import org.metaagent.framework.core.tool.exception.ToolExecutionException;
 import org.metaagent.framework.core.tool.exception.ToolRejectException;
 import org.metaagent.framework.core.tool.manager.ToolManager;
 import org.metaagent.framework.core.tool.tracker.ToolCallRecord;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Default implementation of {@link ToolExecutor}.
+ * <p>
+ * Consecutive tool calls of a batch whose tools are both concurrency-safe and read-only are run in
+ * parallel on a bounded executor, while other calls run serially in their original order. The outputs
+ * are always returned in the order of the inputs.
+ * </p>
  *
  * @author vyckey
  */
@@ -51,6 +67,37 @@ import java.util.Optional;
 public class DefaultToolExecutor implements ToolExecutor {
     public static final DefaultToolExecutor INSTANCE = new DefaultToolExecutor();
 
+    private final ExecutorService parallelExecutor;
+
+    /**
+     * Creates a tool executor which runs parallel tool calls on the given executor.
+     *
+     * @param parallelExecutor the executor for parallel tool calls, or {@code null} to run all calls serially
+     */
+    public DefaultToolExecutor(ExecutorService parallelExecutor) {
+        this.parallelExecutor = parallelExecutor;
+    }
+
+    public DefaultToolExecutor() {
+        this(ParallelExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * Creates a bounded executor for parallel tool calls. Idle threads are released after one minute.
+     *
+     * @param threadCount the maximum number of tool calls running at the same time
+     * @return the executor
+     */
+    public static ExecutorService createParallelExecutor(int threadCount) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("ToolExecutor-T%d").setDaemon(true).build()
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     @Override
     public <I, O> O execute(ToolContext toolContext, Tool<I, O> tool, I input) throws ToolExecutionException {
         ToolExecuteDelegate<I, O> delegate = new ToolExecuteDelegate<>(tool);
@@ -101,31 +148,121 @@ public class DefaultToolExecutor implements ToolExecutor {
 
     @Override
     public BatchToolOutputs execute(BatchToolInputs toolInputs) {
-        List<BatchToolOutputs.ToolOutput> outputs = Lists.newArrayList();
-        for (BatchToolInputs.ToolInput toolInput : toolInputs.inputs()) {
+        List<BatchToolInputs.ToolInput> inputs = toolInputs.inputs();
+        BatchToolOutputs.ToolOutput[] outputs = new BatchToolOutputs.ToolOutput[inputs.size()];
+        List<Integer> parallelGroup = Lists.newArrayList();
+        for (int i = 0; i < inputs.size(); i++) {
+            if (canRunInParallel(inputs.get(i))) {
+                parallelGroup.add(i);
+                continue;
+            }
+
+            // An unsafe call waits for the preceding parallel calls and blocks the following ones
+            executeInParallel(inputs, parallelGroup, outputs);
+            parallelGroup.clear();
+            outputs[i] = executeToolInput(inputs.get(i), false);
+        }
+        executeInParallel(inputs, parallelGroup, outputs);
+        return new BatchToolOutputs(Arrays.asList(outputs));
+    }
+
+    protected boolean canRunInParallel(BatchToolInputs.ToolInput toolInput) {
+        if (parallelExecutor == null) {
+            return false;
+        }
+        Tool<?, ?> tool = toolInput.toolContext().getToolManager().getTool(toolInput.toolName());
+        if (tool == null) {
+            return false;
+        }
+        ToolMetadata metadata = tool.getDefinition().metadata();
+        return metadata.isConcurrencySafe() && metadata.isReadOnly();
+    }
+
+    private void executeInParallel(List<BatchToolInputs.ToolInput> inputs, List<Integer> group,
+                                   BatchToolOutputs.ToolOutput[] outputs) {
+        if (group.size() <= 1) {
+            group.forEach(index -> outputs[index] = executeToolInput(inputs.get(index), false));
+            return;
+        }
+
+        // Approvals may prompt the user, so they are requested one by one before any call starts
+        List<FutureTask<BatchToolOutputs.ToolOutput>> tasks = Lists.newArrayListWithCapacity(group.size());
+        for (int index : group) {
+            BatchToolInputs.ToolInput toolInput = inputs.get(index);
             ToolContext toolContext = toolInput.toolContext();
-            ToolManager toolManager = toolContext.getToolManager();
-            Tool<?, ?> tool = toolManager.getTool(toolInput.toolName());
-
-            String output;
-            boolean hasError = false;
-            if (tool == null) {
-                hasError = true;
-                output = "tool not found: " + toolInput.toolName();
+            Tool<?, ?> tool = toolContext.getToolManager().getTool(toolInput.toolName());
+            if (approvalRequired(toolContext, tool, toolInput.input())) {
+                requestToolApproval(toolContext, tool, toolInput.input());
+            }
+            tasks.add(new FutureTask<>(() -> executeToolInput(toolInput, true)));
+        }
+
+        for (int i = 1; i < tasks.size(); i++) {
+            try {
+                parallelExecutor.execute(tasks.get(i));
+            } catch (RejectedExecutionException e) {
+                log.debug("Tool executor rejected parallel tool call, run it in caller thread");
+            }
+        }
+
+        // The caller thread runs the tasks not started yet, so nested batches can not starve the executor
+        for (int i = 0; i < tasks.size(); i++) {
+            FutureTask<BatchToolOutputs.ToolOutput> task = tasks.get(i);
+            task.run();
+            outputs[group.get(i)] = awaitToolOutput(task, tasks);
+        }
+    }
+
+    private BatchToolOutputs.ToolOutput awaitToolOutput(FutureTask<BatchToolOutputs.ToolOutput> task,
+                                                        List<FutureTask<BatchToolOutputs.ToolOutput>> tasks) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            tasks.forEach(t -> t.cancel(true));
+            throw new ToolExecutionError("Tool calls execution interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ToolExecutionError(e.getCause());
+        }
+    }
+
+    protected BatchToolOutputs.ToolOutput executeToolInput(BatchToolInputs.ToolInput toolInput, boolean approved) {
+        ToolContext toolContext = toolInput.toolContext();
+        ToolManager toolManager = toolContext.getToolManager();
+        Tool<?, ?> tool = toolManager.getTool(toolInput.toolName());
+
+        String output;
+        boolean hasError = false;
+        if (tool == null) {
+            hasError = true;
+            output = "tool not found: " + toolInput.toolName();
+        } else if (toolContext.getAbortSignal().isAborted()) {
+            hasError = true;
+            output = "tool call aborted: " + toolInput.toolName();
+        } else {
+            if (approved) {
+                output = new ToolExecuteDelegate<>(tool).call(toolContext, toolInput.input());
             } else {
                 output = execute(toolContext, tool, toolInput.input());
-                // check if there was an error
-                Optional<ToolCallRecord> callRecordOptional = toolContext.getToolCallTracker()
-                        .findById(toolContext.getExecutionId());
-                if (callRecordOptional.isPresent()) {
-                    hasError = callRecordOptional.get().getException() != null;
-                }
             }
-
-            outputs.add(new BatchToolOutputs.ToolOutput(
-                    toolContext.getExecutionId(), toolInput.toolName(), output, hasError
-            ));
+            // check if there was an error
+            Optional<ToolCallRecord> callRecordOptional = toolContext.getToolCallTracker()
+                    .findById(toolContext.getExecutionId());
+            if (callRecordOptional.isPresent()) {
+                hasError = callRecordOptional.get().getException() != null;
+            }
         }
-        return new BatchToolOutputs(outputs);
+
+        return new BatchToolOutputs.ToolOutput(
+                toolContext.getExecutionId(), toolInput.toolName(), output, hasError
+        );
+    }
+
+    private static final class ParallelExecutorHolder {
+        static final ExecutorService EXECUTOR = createParallelExecutor(
+                Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
     }
 }
@@ -1,7 +1,7 @@
 /*
  * MIT License
  *
- * Copyright (c) 2025 MetaAgent
+ * Copyright (c) 2026 MetaAgent
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -24,9 +24,9 @@
 
 package org.metaagent.framework.core.tool.manager;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import lombok.extern.slf4j.Slf4j;
 import org.metaagent.framework.core.tool.Tool;
 import org.metaagent.framework.core.tool.ToolContext;
 import org.metaagent.framework.core.tool.container.ToolContainerImpl;
@@ -35,102 +35,125 @@ import org.metaagent.framework.core.tool.definition.ToolDefinition;
 import org.metaagent.framework.core.tool.exception.ToolExecutionException;
 import org.metaagent.framework.core.tool.toolkit.Toolkit;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Default implementation of {@link ToolManager}.
+ * <p>
+ * All tools, including the ones from toolkits, are kept in a concurrent name index, so looking up a tool
+ * is O(1) and allocation-free. The index is kept consistent with the toolkits through their change listeners;
+ * toolkits that do not report changes are indexed with the tools they have when they are added.
+ * Listing methods return the immutable views of the current {@link ToolSnapshot}.
  *
  * @author vyckey
  */
+@Slf4j
 public class DefaultToolManager extends ToolContainerImpl implements ToolManager {
     protected final Map<String, ToolkitWrapper> toolkitMap;
+    private final Map<String, IndexedTool> toolIndex = Maps.newConcurrentMap();
+    private final AtomicLong version = new AtomicLong();
+    private volatile ToolSnapshot snapshot = ToolSnapshot.empty();
 
     public DefaultToolManager(Map<String, Tool<?, ?>> tools) {
         super(tools);
-        this.toolkitMap = Maps.newHashMap();
+        this.toolkitMap = Maps.newConcurrentMap();
+        tools.forEach((name, tool) -> toolIndex.put(name, new IndexedTool(tool, null)));
+        if (!tools.isEmpty()) {
+            version.incrementAndGet();
+        }
     }
 
     public DefaultToolManager() {
-        this(Maps.newHashMap());
+        this(Maps.newConcurrentMap());
     }
 
     @Override
-    public Set<String> getToolNames() {
-        Set<String> toolNames = Sets.newHashSet(tools.keySet());
-        for (ToolkitWrapper toolkitWrapper : toolkitMap.values()) {
-            toolNames.addAll(toolkitWrapper.availableToolNames());
+    public long version() {
+        return version.get();
+    }
+
+    @Override
+    public ToolSnapshot snapshot() {
+        ToolSnapshot current = this.snapshot;
+        long currentVersion = version.get();
+        if (current.version() != currentVersion) {
+            // tools listed after reading the version are at least as new as the version,
+            // a concurrent change bumps the version again and triggers another rebuild
+            current = new ToolSnapshot(currentVersion, toolIndex.values().stream().map(IndexedTool::tool).toList());
+            this.snapshot = current;
         }
-        return toolNames;
+        return current;
+    }
+
+    @Override
+    protected void notifyChangeListeners(Tool<?, ?> tool, ToolChangeListener.EventType eventType) {
+        version.incrementAndGet();
+        super.notifyChangeListeners(tool, eventType);
+    }
+
+    @Override
+    public Set<String> getToolNames() {
+        return snapshot().toolNames();
     }
 
     @Override
     public List<Tool<?, ?>> listTools() {
-        List<Tool<?, ?>> toolList = Lists.newArrayList(tools.values());
-        for (ToolkitWrapper toolkitWrapper : toolkitMap.values()) {
-            toolList.addAll(toolkitWrapper.toolkit.listTools());
-        }
-        return toolList.stream().filter(Objects::nonNull).toList();
+        return snapshot().tools();
     }
 
     @Override
     public boolean hasTool(String name) {
-        if (tools.containsKey(name)) {
-            return true;
-        }
-        for (ToolkitWrapper toolkitWrapper : toolkitMap.values()) {
-            if (toolkitWrapper.availableToolNames().contains(name)) {
-                return true;
-            }
-        }
-        return false;
+        return toolIndex.containsKey(name);
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public <I, O> Tool<I, O> getTool(String name) {
-        if (tools.containsKey(name)) {
-            return (Tool<I, O>) tools.get(name);
-        }
-        for (ToolkitWrapper wrapper : toolkitMap.values()) {
-            if (wrapper.availableToolNames().contains(name)) {
-                return wrapper.getTool(name);
-            }
-        }
-        return null;
+        IndexedTool indexedTool = toolIndex.get(name);
+        return indexedTool != null ? (Tool<I, O>) indexedTool.tool() : null;
     }
 
     @Override
-    public void addTool(Tool<?, ?> tool) {
-        if (tools.containsKey(tool.getName())) {
+    public synchronized void addTool(Tool<?, ?> tool) {
+        if (toolIndex.putIfAbsent(tool.getName(), new IndexedTool(tool, null)) != null) {
             throw new IllegalStateException("Tool with name '" + tool.getName() + "' already exists.");
         }
-        for (ToolkitWrapper wrapper : toolkitMap.values()) {
-            if (wrapper.availableToolNames().contains(tool.getName())) {
-                throw new IllegalStateException("Tool with name '" + tool.getName() + "' already exists.");
-            }
-        }
         this.tools.put(tool.getName(), tool);
         notifyChangeListeners(tool, ToolChangeListener.EventType.ADDED);
     }
 
     @Override
-    public void removeTool(String name) {
-        if (tools.containsKey(name)) {
-            Tool<?, ?> removedTool = tools.remove(name);
-            notifyChangeListeners(removedTool, ToolChangeListener.EventType.REMOVED);
+    public synchronized void removeTool(String name) {
+        IndexedTool indexedTool = toolIndex.get(name);
+        if (indexedTool == null) {
+            return;
+        }
+        ToolkitWrapper wrapper = indexedTool.toolkit();
+        if (wrapper == null) {
+            toolIndex.remove(name);
+            this.tools.remove(name);
         } else {
-            for (ToolkitWrapper wrapper : toolkitMap.values()) {
-                Tool<?, ?> removedTool = wrapper.removeTool(name);
-                if (removedTool != null) {
-                    notifyChangeListeners(removedTool, ToolChangeListener.EventType.REMOVED);
-                    return;
-                }
+            // toolkits report the removal through their change listeners, which updates the index
+            wrapper.toolkit().removeTool(wrapper.toolkitToolName(name));
+            if (!toolIndex.remove(name, indexedTool)) {
+                return;
             }
         }
+        notifyChangeListeners(indexedTool.tool(), ToolChangeListener.EventType.REMOVED);
+    }
+
+    @Override
+    public synchronized void removeAll() {
+        List<Tool<?, ?>> removedTools = List.copyOf(this.tools.values());
+        this.tools.clear();
+        removedTools.forEach(tool -> {
+            toolIndex.remove(tool.getName());
+            notifyChangeListeners(tool, ToolChangeListener.EventType.REMOVED);
+        });
     }
 
     @Override
@@ -140,68 +163,116 @@ public class DefaultToolManager extends ToolContainerImpl implements ToolManager
 
     @Override
     public ToolManager addToolkit(Toolkit toolkit, String... toolNames) {
-        String toolkitName = Objects.requireNonNull(toolkit).getName();
-        ToolkitWrapper wrapper = new ToolkitWrapper(toolkit, Lists.newArrayList(toolNames));
-        if (toolkitMap.putIfAbsent(toolkitName, wrapper) != null) {
-            throw new IllegalArgumentException("Toolkit already exists: " + toolkitName);
-        }
-        return this;
+        return registerToolkit(new ToolkitWrapper(Objects.requireNonNull(toolkit), Sets.newHashSet(toolNames), null));
     }
 
     @Override
     public ToolManager addToolkit(String namespace, Toolkit toolkit, String... toolNames) {
-        String toolkitName = Objects.requireNonNull(toolkit).getName();
-        ToolkitWrapper wrapper = new ToolkitWrapper(toolkit, Lists.newArrayList(toolNames), namespace);
+        return registerToolkit(new ToolkitWrapper(Objects.requireNonNull(toolkit), Sets.newHashSet(toolNames), namespace));
+    }
+
+    private synchronized ToolManager registerToolkit(ToolkitWrapper wrapper) {
+        String toolkitName = wrapper.toolkit().getName();
         if (toolkitMap.putIfAbsent(toolkitName, wrapper) != null) {
             throw new IllegalArgumentException("Toolkit already exists: " + toolkitName);
         }
+        for (Tool<?, ?> tool : wrapper.toolkit().listTools()) {
+            indexToolkitTool(wrapper, tool);
+        }
+        wrapper.toolkit().addToolChangeListener(wrapper.listener);
+        version.incrementAndGet();
         return this;
     }
 
     @Override
-    public void removeToolkit(String toolkitName) {
-        this.toolkitMap.remove(toolkitName);
+    public synchronized void removeToolkit(String toolkitName) {
+        ToolkitWrapper wrapper = this.toolkitMap.remove(toolkitName);
+        if (wrapper != null) {
+            wrapper.toolkit().removeToolChangeListener(wrapper.listener);
+            toolIndex.values().removeIf(indexedTool -> indexedTool.toolkit() == wrapper);
+            version.incrementAndGet();
+        }
     }
 
-    record ToolkitWrapper(Toolkit toolkit, List<String> toolNames, String namespace) {
-        ToolkitWrapper(Toolkit toolkit, List<String> toolNames) {
-            this(toolkit, toolNames, null);
+    private synchronized void onToolkitToolChange(ToolkitWrapper wrapper, Tool<?, ?> tool,
+                                                  ToolChangeListener.EventType eventType) {
+        if (toolkitMap.get(wrapper.toolkit().getName()) != wrapper) {
+            return;
         }
-
-        static String getToolName(String namespace, String toolName) {
-            return namespace != null ? namespace + "." + toolName : toolName;
+        IndexedTool indexedTool = eventType == ToolChangeListener.EventType.REMOVED
+                ? unindexToolkitTool(wrapper, tool) : indexToolkitTool(wrapper, tool);
+        if (indexedTool != null) {
+            notifyChangeListeners(indexedTool.tool(), eventType);
         }
+    }
 
-        Collection<String> availableToolNames() {
-            Collection<String> availableToolNames = toolNames.isEmpty() ? toolkit.getToolNames() : toolNames;
-            if (namespace == null) {
-                return availableToolNames;
+    private IndexedTool indexToolkitTool(ToolkitWrapper wrapper, Tool<?, ?> tool) {
+        if (tool == null || !wrapper.isAvailable(tool.getName())) {
+            return null;
+        }
+        String name = wrapper.managedToolName(tool.getName());
+        IndexedTool indexedTool = new IndexedTool(wrapper.wrapTool(tool), wrapper);
+        IndexedTool existing = toolIndex.putIfAbsent(name, indexedTool);
+        if (existing != null) {
+            if (existing.toolkit() != wrapper) {
+                log.warn("Tool {} of toolkit {} is ignored because a tool with the same name already exists",
+                        name, wrapper.toolkit().getName());
+                return null;
             }
-            return availableToolNames.stream().map(name -> getToolName(namespace, name)).toList();
+            toolIndex.put(name, indexedTool);
         }
+        return indexedTool;
+    }
 
-        <I, O> Tool<I, O> getTool(String name) {
-            if (namespace != null) {
-                if (!name.startsWith(namespace)) {
-                    return null;
-                }
-                return toolkit.getTool(name.substring(namespace.length() + 1));
-            }
-            return toolkit.getTool(name);
+    private IndexedTool unindexToolkitTool(ToolkitWrapper wrapper, Tool<?, ?> tool) {
+        String name = wrapper.managedToolName(tool.getName());
+        IndexedTool indexedTool = toolIndex.get(name);
+        if (indexedTool != null && indexedTool.toolkit() == wrapper && toolIndex.remove(name, indexedTool)) {
+            return indexedTool;
         }
+        return null;
+    }
 
-        Tool<?, ?> removeTool(String name) {
-            if (namespace != null) {
-                if (name.startsWith(namespace)) {
-                    name = name.substring(namespace.length() + 1);
-                }
-            }
-            if (toolkit.hasTool(name)) {
-                Tool<Object, Object> removedTool = toolkit.getTool(name);
-                toolkit.removeTool(name);
-                return namespace == null ? removedTool : new ToolWithNamespace<>(removedTool, namespace);
-            }
-            return null;
+    /**
+     * An entry of the tool index.
+     *
+     * @param tool    the tool, namespaced if its toolkit has a namespace
+     * @param toolkit the toolkit which provides the tool, or {@code null} if the tool is added directly
+     */
+    record IndexedTool(Tool<?, ?> tool, ToolkitWrapper toolkit) {
+    }
+
+    final class ToolkitWrapper {
+        private final Toolkit toolkit;
+        private final Set<String> toolNames;
+        private final String namespace;
+        private final ToolChangeListener listener;
+
+        ToolkitWrapper(Toolkit toolkit, Set<String> toolNames, String namespace) {
+            this.toolkit = toolkit;
+            this.toolNames = Set.copyOf(toolNames);
+            this.namespace = namespace;
+            this.listener = (tool, eventType) -> onToolkitToolChange(this, tool, eventType);
+        }
+
+        Toolkit toolkit() {
+            return toolkit;
+        }
+
+        boolean isAvailable(String toolkitToolName) {
+            return toolNames.isEmpty() || toolNames.contains(toolkitToolName);
+        }
+
+        String managedToolName(String toolkitToolName) {
+            return namespace != null ? namespace + "." + toolkitToolName : toolkitToolName;
+        }
+
+        String toolkitToolName(String managedToolName) {
+            return namespace != null ? managedToolName.substring(namespace.length() + 1) : managedToolName;
+        }
+
+        Tool<?, ?> wrapTool(Tool<?, ?> tool) {
+            return namespace != null ? new ToolWithNamespace<>(tool, managedToolName(tool.getName())) : tool;
         }
     }
 
@@ -209,13 +280,13 @@ public class DefaultToolManager extends ToolContainerImpl implements ToolManager
         final Tool<I, O> tool;
         final ToolDefinition definition;
 
-        ToolWithNamespace(Tool<I, O> tool, String namespace) {
+        ToolWithNamespace(Tool<I, O> tool, String toolName) {
             this.tool = tool;
-            String toolName = ToolkitWrapper.getToolName(namespace, tool.getName());
             this.definition = ToolDefinition.builder(toolName)
                     .description(tool.getDefinition().description())
                     .inputSchema(tool.getDefinition().inputSchema())
                     .outputSchema(tool.getDefinition().outputSchema())
+                    .metadata(tool.getDefinition().metadata())
                     .build();
         }
 
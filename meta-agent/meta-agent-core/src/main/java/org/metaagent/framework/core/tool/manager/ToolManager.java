@@ -71,6 +71,23 @@ public interface ToolManager extends ToolContainer {
         return toolManager;
     }
 
+    /**
+     * Returns the version of the tools, which increases whenever a tool or toolkit is added,
+     * removed or updated, including changes reported by the toolkits themselves.
+     *
+     * @return the current version
+     */
+    long version();
+
+    /**
+     * Returns an immutable snapshot of the current tools.
+     * The same snapshot instance is returned until the {@link #version()} changes,
+     * so values derived from it can be cached on the snapshot.
+     *
+     * @return the tool snapshot
+     */
+    ToolSnapshot snapshot();
+
     /**
      * Add toolkit to the tool manager.
      *
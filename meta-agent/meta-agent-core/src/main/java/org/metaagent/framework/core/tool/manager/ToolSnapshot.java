@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.tool.manager;
+
+import org.metaagent.framework.core.tool.Tool;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * An immutable view of the tools of a {@link ToolManager} at a given version.
+ * <p>
+ * The snapshot is rebuilt by the tool manager only when its tools change, so it can be shared
+ * by every step and every agent that uses the same tool manager. Values derived from the tool
+ * definitions (e.g. model specific tool callbacks) can be attached to the snapshot with
+ * {@link #computeIfAbsent(Object, Function)}; they are dropped together with the snapshot
+ * once the tools change.
+ *
+ * @author vyckey
+ */
+public final class ToolSnapshot {
+    private static final ToolSnapshot EMPTY = new ToolSnapshot(0, List.of());
+    private final long version;
+    private final List<Tool<?, ?>> tools;
+    private final Set<String> toolNames;
+    private final Map<Object, Object> derivedValues = new ConcurrentHashMap<>();
+
+    public ToolSnapshot(long version, List<Tool<?, ?>> tools) {
+        this.version = version;
+        this.tools = List.copyOf(tools);
+        Set<String> names = new LinkedHashSet<>();
+        for (Tool<?, ?> tool : this.tools) {
+            names.add(tool.getName());
+        }
+        this.toolNames = Set.copyOf(names);
+    }
+
+    public static ToolSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the version of the tool manager this snapshot was taken at.
+     *
+     * @return the version
+     */
+    public long version() {
+        return version;
+    }
+
+    public List<Tool<?, ?>> tools() {
+        return tools;
+    }
+
+    public Set<String> toolNames() {
+        return toolNames;
+    }
+
+    /**
+     * Returns the value derived from this snapshot for the given key, computing it at most once.
+     *
+     * @param key      the key of the derived value, it should implement {@code equals} and {@code hashCode}
+     * @param function the function to compute the value from this snapshot,
+     *                 it must not compute other derived values of this snapshot
+     * @param <T>      the type of the value
+     * @return the derived value
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T computeIfAbsent(Object key, Function<ToolSnapshot, T> function) {
+        Objects.requireNonNull(key, "key is required");
+        return (T) derivedValues.computeIfAbsent(key, k -> function.apply(this));
+    }
+
+    @Override
+    public String toString() {
+        return "ToolSnapshot{version=" + version + ", tools=" + toolNames + "}";
+    }
+}
@@ -0,0 +1,507 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.core.tool.schema;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * ToolArgsSchema is a JSON schema of tool arguments compiled into a tree of checks, so that raw
+ * JSON arguments can be validated before they are converted, and all the violations can be
+ * reported to the model at once.
+ * <p>
+ * The supported keywords are the ones emitted by {@code JsonSchemaGenerator}: {@code type},
+ * {@code properties}, {@code required}, {@code additionalProperties}, {@code items}, {@code enum},
+ * {@code const}, length, size and range bounds, {@code pattern}, {@code allOf}, {@code anyOf},
+ * {@code oneOf} and local {@code $ref}s. Other keywords are ignored. Checks follow what the JSON
+ * converters accept rather than the letter of the specification: {@code null} values pass the type
+ * checks, numbers and booleans may be given as strings, and values of {@code object} schemas are
+ * only checked when they are objects, since such types may have custom deserializers.
+ * </p>
+ *
+ * @author vyckey
+ */
+public final class ToolArgsSchema {
+    /**
+     * A schema that accepts any arguments.
+     */
+    public static final ToolArgsSchema ANY = new ToolArgsSchema(new Node());
+    private static final String ROOT_PATH = "arguments";
+
+    private final Node root;
+
+    private ToolArgsSchema(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Compiles a JSON schema.
+     *
+     * @param schema the JSON schema
+     * @return the compiled schema
+     * @throws IllegalArgumentException if the schema is invalid
+     */
+    public static ToolArgsSchema compile(JsonNode schema) {
+        return new ToolArgsSchema(new Compiler(schema).compile());
+    }
+
+    /**
+     * Compiles the JSON schema of a bean type, along with the Jakarta Bean Validation constraints
+     * ({@code @NotNull}, {@code @NotBlank}, {@code @NotEmpty}, {@code @Size}, {@code @Min}, {@code @Max}
+     * and {@code @Pattern}) declared on its fields.
+     *
+     * @param schema   the JSON schema of the bean type
+     * @param beanType the bean type
+     * @return the compiled schema
+     * @throws IllegalArgumentException if the schema is invalid
+     */
+    public static ToolArgsSchema compile(JsonNode schema, Class<?> beanType) {
+        Node root = new Compiler(schema).compile();
+        JsonIgnoreProperties ignoreProperties = beanType.getAnnotation(JsonIgnoreProperties.class);
+        if (ignoreProperties != null && ignoreProperties.ignoreUnknown()) {
+            root.additionalProperties = true;
+        }
+        for (Class<?> type = beanType; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    addConstraints(root, field);
+                }
+            }
+        }
+        return new ToolArgsSchema(root);
+    }
+
+    private static void addConstraints(Node root, Field field) {
+        JsonProperty jsonProperty = field.getAnnotation(JsonProperty.class);
+        String name = jsonProperty != null && !jsonProperty.value().isEmpty() ? jsonProperty.value() : field.getName();
+        Node property = null;
+        if (field.getAnnotation(NotNull.class) != null) {
+            property = propertyOf(root, name);
+            property.presence = Presence.NOT_NULL;
+            property.presenceMessage = messageOf(field.getAnnotation(NotNull.class).message(), "must not be null");
+        }
+        if (field.getAnnotation(NotEmpty.class) != null) {
+            property = propertyOf(root, name);
+            property.presence = Presence.NOT_EMPTY;
+            property.presenceMessage = messageOf(field.getAnnotation(NotEmpty.class).message(), "must not be empty");
+        }
+        if (field.getAnnotation(NotBlank.class) != null) {
+            property = propertyOf(root, name);
+            property.presence = Presence.NOT_BLANK;
+            property.presenceMessage = messageOf(field.getAnnotation(NotBlank.class).message(), "must not be blank");
+        }
+        Size size = field.getAnnotation(Size.class);
+        if (size != null) {
+            property = propertyOf(root, name);
+            property.minSize = size.min() > 0 ? size.min() : property.minSize;
+            property.maxSize = size.max() < Integer.MAX_VALUE ? size.max() : property.maxSize;
+        }
+        Min min = field.getAnnotation(Min.class);
+        if (min != null) {
+            property = propertyOf(root, name);
+            property.minimum = BigDecimal.valueOf(min.value());
+            property.minimumMessage = messageOf(min.message(), null);
+        }
+        Max max = field.getAnnotation(Max.class);
+        if (max != null) {
+            property = propertyOf(root, name);
+            property.maximum = BigDecimal.valueOf(max.value());
+            property.maximumMessage = messageOf(max.message(), null);
+        }
+        jakarta.validation.constraints.Pattern pattern = field.getAnnotation(jakarta.validation.constraints.Pattern.class);
+        if (pattern != null) {
+            property = propertyOf(root, name);
+            // Bean Validation matches the whole value, while JSON schema patterns are searched
+            property.pattern = Pattern.compile("^(?:" + pattern.regexp() + ")$");
+            property.patternMessage = messageOf(pattern.message(), null);
+        }
+    }
+
+    private static Node propertyOf(Node root, String name) {
+        return root.properties.computeIfAbsent(name, key -> new Node());
+    }
+
+    private static String messageOf(String message, String defaultMessage) {
+        return message.startsWith("{") ? defaultMessage : message;
+    }
+
+    /**
+     * Validates the arguments against this schema.
+     *
+     * @param arguments the raw JSON arguments
+     * @return the violations in the form of {@code "path: message"}, or an empty list if the arguments are valid
+     */
+    public List<String> validate(JsonNode arguments) {
+        List<String> violations = new ArrayList<>();
+        root.validate(ROOT_PATH, arguments, violations);
+        return violations;
+    }
+
+    private enum Presence {
+        OPTIONAL, NOT_NULL, NOT_EMPTY, NOT_BLANK
+    }
+
+    private static final class Node {
+        private Set<String> types;
+        private final Map<String, Node> properties = new LinkedHashMap<>();
+        private final Set<String> required = new LinkedHashSet<>();
+        private boolean additionalProperties = true;
+        private Node items;
+        private Set<JsonNode> enumValues;
+        private Integer minSize;
+        private Integer maxSize;
+        private BigDecimal minimum;
+        private String minimumMessage;
+        private BigDecimal maximum;
+        private String maximumMessage;
+        private boolean exclusiveMinimum;
+        private boolean exclusiveMaximum;
+        private Pattern pattern;
+        private String patternMessage;
+        private Presence presence = Presence.OPTIONAL;
+        private String presenceMessage;
+        private final List<Node> allOf = new ArrayList<>();
+        private final List<Node> anyOf = new ArrayList<>();
+
+        void validate(String path, JsonNode value, List<String> violations) {
+            if (value == null || value.isNull() || value.isMissingNode()) {
+                if (presence != Presence.OPTIONAL) {
+                    violations.add(path + ": " + presenceMessage);
+                }
+                return;
+            }
+            if (types != null && !matchesType(value)) {
+                violations.add(path + ": must be of type " + String.join(" or ", types));
+                return;
+            }
+            validatePresence(path, value, violations);
+            if (enumValues != null && !enumValues.contains(value)
+                    && !(value.isTextual() && enumValues.stream().anyMatch(e -> e.asText().equals(value.asText())))) {
+                violations.add(path + ": must be one of " + enumValues);
+            }
+
+            if (value.isObject()) {
+                validateObject(path, value, violations);
+            } else if (value.isArray()) {
+                validateSize(path, value.size(), "must have at least %d items", "must have at most %d items", violations);
+                if (items != null) {
+                    for (int i = 0; i < value.size(); i++) {
+                        items.validate(path + "[" + i + "]", value.get(i), violations);
+                    }
+                }
+            } else if (value.isTextual()) {
+                String text = value.asText();
+                validateSize(path, text.codePointCount(0, text.length()),
+                        "length must be at least %d", "length must be at most %d", violations);
+                if (pattern != null && !pattern.matcher(text).find()) {
+                    violations.add(path + ": " + (patternMessage != null ? patternMessage
+                            : "must match pattern \"" + pattern.pattern() + "\""));
+                }
+            }
+            validateRange(path, value, violations);
+
+            for (Node node : allOf) {
+                node.validate(path, value, violations);
+            }
+            if (!anyOf.isEmpty() && anyOf.stream().noneMatch(node -> node.isValid(value))) {
+                violations.add(path + ": must match one of the allowed schemas");
+            }
+        }
+
+        private boolean isValid(JsonNode value) {
+            List<String> violations = new ArrayList<>();
+            validate("", value, violations);
+            return violations.isEmpty();
+        }
+
+        private boolean matchesType(JsonNode value) {
+            for (String type : types) {
+                boolean matched = switch (type) {
+                    case "string" -> value.isValueNode();
+                    case "integer" -> isInteger(value);
+                    case "number" -> value.isNumber() || value.isTextual() && toNumber(value) != null;
+                    case "boolean" -> value.isBoolean()
+                            || value.isTextual() && ("true".equals(value.asText()) || "false".equals(value.asText()));
+                    case "array" -> value.isArray();
+                    case "null" -> false;
+                    default -> true;
+                };
+                if (matched) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isInteger(JsonNode value) {
+            if (value.isIntegralNumber()) {
+                return true;
+            }
+            BigDecimal number = value.isNumber() || value.isTextual() ? toNumber(value) : null;
+            return number != null && number.stripTrailingZeros().scale() <= 0;
+        }
+
+        private static BigDecimal toNumber(JsonNode value) {
+            if (value.isNumber()) {
+                return value.decimalValue();
+            }
+            if (value.isTextual()) {
+                try {
+                    return new BigDecimal(value.asText().trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        private void validatePresence(String path, JsonNode value, List<String> violations) {
+            boolean violated = switch (presence) {
+                case NOT_EMPTY -> value.isTextual() ? value.asText().isEmpty() : value.isContainerNode() && value.isEmpty();
+                case NOT_BLANK -> value.isTextual() && StringUtils.isBlank(value.asText());
+                default -> false;
+            };
+            if (violated) {
+                violations.add(path + ": " + presenceMessage);
+            }
+        }
+
+        private void validateObject(String path, JsonNode value, List<String> violations) {
+            validateSize(path, value.size(), "must have at least %d properties", "must have at most %d properties", violations);
+            for (String name : required) {
+                Node property = properties.get(name);
+                if (!value.has(name) && (property == null || property.presence == Presence.OPTIONAL)) {
+                    violations.add(childPath(path, name) + ": is required");
+                }
+            }
+            for (Map.Entry<String, Node> entry : properties.entrySet()) {
+                JsonNode propertyValue = value.get(entry.getKey());
+                if (propertyValue != null || entry.getValue().presence != Presence.OPTIONAL) {
+                    entry.getValue().validate(childPath(path, entry.getKey()), propertyValue, violations);
+                }
+            }
+            if (!additionalProperties) {
+                for (Iterator<String> names = value.fieldNames(); names.hasNext(); ) {
+                    String name = names.next();
+                    if (!properties.containsKey(name)) {
+                        violations.add(childPath(path, name) + ": is not a known property");
+                    }
+                }
+            }
+        }
+
+        private static String childPath(String path, String name) {
+            return ROOT_PATH.equals(path) || path.isEmpty() ? name : path + "." + name;
+        }
+
+        private void validateSize(String path, int size, String minFormat, String maxFormat, List<String> violations) {
+            if (minSize != null && size < minSize) {
+                violations.add(path + ": " + String.format(minFormat, minSize));
+            }
+            if (maxSize != null && size > maxSize) {
+                violations.add(path + ": " + String.format(maxFormat, maxSize));
+            }
+        }
+
+        private void validateRange(String path, JsonNode value, List<String> violations) {
+            if (minimum == null && maximum == null || !value.isNumber() && !value.isTextual()) {
+                return;
+            }
+            BigDecimal number = toNumber(value);
+            if (number == null) {
+                return;
+            }
+            if (minimum != null) {
+                int compared = number.compareTo(minimum);
+                if (compared < 0 || exclusiveMinimum && compared == 0) {
+                    violations.add(path + ": " + (minimumMessage != null ? minimumMessage
+                            : "must be greater than " + (exclusiveMinimum ? "" : "or equal to ") + minimum.toPlainString()));
+                }
+            }
+            if (maximum != null) {
+                int compared = number.compareTo(maximum);
+                if (compared > 0 || exclusiveMaximum && compared == 0) {
+                    violations.add(path + ": " + (maximumMessage != null ? maximumMessage
+                            : "must be less than " + (exclusiveMaximum ? "" : "or equal to ") + maximum.toPlainString()));
+                }
+            }
+        }
+    }
+
+    private static final class Compiler {
+        private static final String DEFINITIONS_PREFIX = "#/$defs/";
+        private static final String LEGACY_DEFINITIONS_PREFIX = "#/definitions/";
+
+        private final JsonNode rootSchema;
+        private final Map<String, Node> references = new HashMap<>();
+        private Node root;
+
+        Compiler(JsonNode rootSchema) {
+            if (rootSchema == null || !rootSchema.isObject()) {
+                throw new IllegalArgumentException("JSON schema must be an object");
+            }
+            this.rootSchema = rootSchema;
+        }
+
+        Node compile() {
+            root = new Node();
+            fill(root, rootSchema);
+            return root;
+        }
+
+        private Node compile(JsonNode schema) {
+            if (schema == null || !schema.isObject()) {
+                return new Node();
+            }
+            // a fresh node wraps the referenced one, so that constraints added to a property
+            // do not leak into the other properties of the same type
+            Node node = new Node();
+            fill(node, schema);
+            return node;
+        }
+
+        private Node resolve(String reference) {
+            if ("#".equals(reference)) {
+                return root;
+            }
+            Node node = references.get(reference);
+            if (node != null) {
+                return node;
+            }
+            JsonNode schema;
+            if (reference.startsWith(DEFINITIONS_PREFIX)) {
+                schema = rootSchema.path("$defs").get(reference.substring(DEFINITIONS_PREFIX.length()));
+            } else if (reference.startsWith(LEGACY_DEFINITIONS_PREFIX)) {
+                schema = rootSchema.path("definitions").get(reference.substring(LEGACY_DEFINITIONS_PREFIX.length()));
+            } else {
+                schema = null;
+            }
+            node = new Node();
+            references.put(reference, node);
+            if (schema != null && schema.isObject()) {
+                fill(node, schema);
+            }
+            return node;
+        }
+
+        private void fill(Node node, JsonNode schema) {
+            if (schema.path("$ref").isTextual()) {
+                Node referenced = resolve(schema.get("$ref").asText());
+                if (referenced != node) {
+                    node.allOf.add(referenced);
+                }
+            }
+            JsonNode type = schema.get("type");
+            if (type != null) {
+                node.types = new LinkedHashSet<>();
+                if (type.isArray()) {
+                    type.forEach(element -> node.types.add(element.asText().toLowerCase()));
+                } else {
+                    node.types.add(type.asText().toLowerCase());
+                }
+                if (node.types.contains("object")) {
+                    node.types = null;
+                }
+            }
+
+            schema.path("properties").fields().forEachRemaining(entry ->
+                    node.properties.put(entry.getKey(), compile(entry.getValue())));
+            schema.path("required").forEach(name -> node.required.add(name.asText()));
+            JsonNode additionalProperties = schema.get("additionalProperties");
+            node.additionalProperties = additionalProperties == null
+                    || !additionalProperties.isBoolean() || additionalProperties.booleanValue();
+            if (schema.has("items")) {
+                node.items = compile(schema.get("items"));
+            }
+
+            if (schema.has("enum")) {
+                node.enumValues = new LinkedHashSet<>();
+                schema.get("enum").forEach(node.enumValues::add);
+            } else if (schema.has("const")) {
+                node.enumValues = new LinkedHashSet<>(List.of(schema.get("const")));
+            }
+
+            node.minSize = firstInt(schema, "minLength", "minItems", "minProperties");
+            node.maxSize = firstInt(schema, "maxLength", "maxItems", "maxProperties");
+            if (schema.path("minimum").isNumber()) {
+                node.minimum = schema.get("minimum").decimalValue();
+            }
+            if (schema.path("exclusiveMinimum").isNumber()) {
+                node.minimum = schema.get("exclusiveMinimum").decimalValue();
+                node.exclusiveMinimum = true;
+            }
+            if (schema.path("maximum").isNumber()) {
+                node.maximum = schema.get("maximum").decimalValue();
+            }
+            if (schema.path("exclusiveMaximum").isNumber()) {
+                node.maximum = schema.get("exclusiveMaximum").decimalValue();
+                node.exclusiveMaximum = true;
+            }
+            if (schema.path("pattern").isTextual()) {
+                try {
+                    node.pattern = Pattern.compile(schema.get("pattern").asText());
+                } catch (PatternSyntaxException e) {
+                    throw new IllegalArgumentException("Invalid pattern in JSON schema: " + e.getMessage(), e);
+                }
+            }
+
+            schema.path("allOf").forEach(subschema -> node.allOf.add(compile(subschema)));
+            schema.path("anyOf").forEach(subschema -> node.anyOf.add(compile(subschema)));
+            schema.path("oneOf").forEach(subschema -> node.anyOf.add(compile(subschema)));
+        }
+
+        private static Integer firstInt(JsonNode schema, String... names) {
+            for (String name : names) {
+                if (schema.path(name).isIntegralNumber()) {
+                    return schema.get(name).intValue();
+                }
+            }
+            return null;
+        }
+    }
+}
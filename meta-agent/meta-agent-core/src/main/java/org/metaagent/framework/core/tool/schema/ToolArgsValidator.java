@@ -24,23 +24,50 @@
 
 package org.metaagent.framework.core.tool.schema;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
 import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.metaagent.framework.common.json.JsonSchemaGenerator;
 import org.metaagent.framework.core.tool.exception.ToolArgumentException;
 
+import java.lang.reflect.Type;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 /**
  * ToolArgsValidator is a utility class for validating tool arguments.
+ * <p>
+ * Converted inputs are validated with Jakarta Bean Validation, while raw JSON arguments are
+ * validated with {@link ToolArgsSchema}s, which are compiled once per input type or schema.
+ * </p>
  *
  * @author vyckey
  */
 public final class ToolArgsValidator {
     private static final Validator VALIDATOR;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ClassValue<ToolArgsSchema> CLASS_SCHEMAS = new ClassValue<>() {
+        @Override
+        protected ToolArgsSchema computeValue(Class<?> type) {
+            return ToolArgsSchema.compile(parseSchema(JsonSchemaGenerator.generateForType(type)), type);
+        }
+    };
+    private static final Cache<Type, ToolArgsSchema> TYPE_SCHEMAS = CacheBuilder.newBuilder()
+            .maximumSize(1024)
+            .build();
+    private static final Cache<String, ToolArgsSchema> SCHEMAS = CacheBuilder.newBuilder()
+            .maximumSize(1024)
+            .build();
 
     static {
         try (ValidatorFactory factory = Validation.byDefaultProvider()
@@ -63,4 +90,59 @@ public final class ToolArgsValidator {
             throw new ToolArgumentException(message);
         }
     }
+
+    /**
+     * Returns the compiled schema of an input type, which includes the Jakarta Bean Validation
+     * constraints declared on the fields of the type.
+     *
+     * @param inputType the input type
+     * @return the compiled schema
+     */
+    public static ToolArgsSchema schemaOf(Type inputType) {
+        if (inputType instanceof Class<?> beanType) {
+            return CLASS_SCHEMAS.get(beanType);
+        }
+        return TYPE_SCHEMAS.asMap().computeIfAbsent(inputType,
+                type -> ToolArgsSchema.compile(parseSchema(JsonSchemaGenerator.generateForType(type))));
+    }
+
+    /**
+     * Returns the compiled form of a JSON schema.
+     *
+     * @param inputSchema the JSON schema
+     * @return the compiled schema
+     * @throws IllegalArgumentException if the schema is invalid
+     */
+    public static ToolArgsSchema schemaOf(String inputSchema) {
+        try {
+            return SCHEMAS.get(inputSchema, () -> ToolArgsSchema.compile(parseSchema(inputSchema)));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalArgumentException("Invalid JSON schema", e.getCause());
+        }
+    }
+
+    private static JsonNode parseSchema(String schema) {
+        try {
+            return OBJECT_MAPPER.readTree(schema);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON schema: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * Validates raw JSON arguments against a compiled schema.
+     *
+     * @param arguments the raw JSON arguments
+     * @param schema    the compiled schema
+     * @throws ToolArgumentException if the arguments are invalid, with all the violations in the message
+     */
+    public static void validateArguments(JsonNode arguments, ToolArgsSchema schema) throws ToolArgumentException {
+        List<String> violations = schema.validate(arguments);
+        if (!violations.isEmpty()) {
+            throw new ToolArgumentException(String.join("; ", violations));
+        }
+    }
 }
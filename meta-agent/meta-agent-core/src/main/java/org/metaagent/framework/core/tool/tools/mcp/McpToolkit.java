@@ -131,11 +131,7 @@ public abstract class McpToolkit extends DefaultToolkit {
             do {
                 McpSchema.ListToolsResult toolsResult = (nextCursor == null)
                         ? mcpSyncClient.listTools() : mcpSyncClient.listTools(nextCursor);
-                List<McpSchema.Tool> tools = toolsResult.tools();
-                for (McpSchema.Tool tool : tools) {
-                    McpTool mcpTool = new McpTool(mcpSyncClient, tool);
-                    this.tools.put(mcpTool.getDefinition().name(), mcpTool);
-                }
+                onToolsChange(toolsResult.tools());
                 nextCursor = toolsResult.nextCursor();
             } while (StringUtils.isNotEmpty(nextCursor));
         }
@@ -167,11 +163,7 @@ public abstract class McpToolkit extends DefaultToolkit {
                 Mono<McpSchema.ListToolsResult> toolsResultMono = (nextCursor == null)
                         ? mcpAsyncClient.listTools() : mcpAsyncClient.listTools(nextCursor);
                 McpSchema.ListToolsResult toolsResult = toolsResultMono.block();
-                List<McpSchema.Tool> tools = toolsResult.tools();
-                for (McpSchema.Tool tool : tools) {
-                    McpTool mcpTool = new McpTool(mcpAsyncClient, tool);
-                    this.tools.put(mcpTool.getDefinition().name(), mcpTool);
-                }
+                onToolsChange(toolsResult.tools());
                 nextCursor = toolsResult.nextCursor();
             } while (StringUtils.isNotEmpty(nextCursor));
         }
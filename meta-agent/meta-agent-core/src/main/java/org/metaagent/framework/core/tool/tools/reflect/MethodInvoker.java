@@ -0,0 +1,227 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.core.tool.tools.reflect;
+
+import org.metaagent.framework.common.json.JsonObjectMapper;
+import org.metaagent.framework.core.tool.ToolContext;
+import org.metaagent.framework.core.tool.exception.ToolArgumentException;
+import org.springframework.ai.util.json.JsonParser;
+import tools.jackson.databind.JavaType;
+import tools.jackson.databind.type.TypeFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * MethodInvoker binds a tool method once, so that each invocation only costs the argument
+ * binding and a {@link MethodHandle} call.
+ * <p>
+ * The method is resolved to a handle bound to the target object and spread over an argument
+ * array, and every parameter gets an {@link ArgumentBinder} chosen from its declared type.
+ * Arguments that already have the right type, numbers, booleans and enum names are bound
+ * directly, other classes fall back to {@link JsonParser}, and generic types are converted
+ * from the parsed argument tree without a JSON round trip.
+ * </p>
+ *
+ * @author vyckey
+ */
+final class MethodInvoker {
+    private static final TypeFactory TYPE_FACTORY = TypeFactory.createDefaultInstance();
+
+    private final MethodHandle methodHandle;
+    private final ArgumentBinder[] binders;
+
+    MethodInvoker(Method method, Object target) {
+        if (!Modifier.isStatic(method.getModifiers()) && target == null) {
+            throw new IllegalArgumentException("Target object is required by instance method " + method);
+        }
+        this.methodHandle = resolveMethodHandle(method, target);
+        Parameter[] parameters = method.getParameters();
+        this.binders = new ArgumentBinder[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            binders[i] = createBinder(parameters[i]);
+        }
+    }
+
+    private static MethodHandle resolveMethodHandle(Method method, Object target) {
+        if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())
+                || !Modifier.isPublic(method.getModifiers())) {
+            method.setAccessible(true);
+        }
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Method " + method + " is not accessible", e);
+        }
+        if (!Modifier.isStatic(method.getModifiers())) {
+            handle = handle.bindTo(target);
+        }
+        return handle.asSpreader(Object[].class, method.getParameterCount())
+                .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    Object[] bindArguments(ToolContext context, Map<String, Object> input) throws ToolArgumentException {
+        Object[] arguments = new Object[binders.length];
+        for (int i = 0; i < binders.length; i++) {
+            arguments[i] = binders[i].bind(context, input);
+        }
+        return arguments;
+    }
+
+    Object invoke(Object[] arguments) throws Exception {
+        try {
+            return (Object) methodHandle.invokeExact(arguments);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    private static ArgumentBinder createBinder(Parameter parameter) {
+        Class<?> type = parameter.getType();
+        if (type.isAssignableFrom(ToolContext.class)) {
+            return (context, input) -> context;
+        }
+
+        String name = parameter.getName();
+        Type genericType = parameter.getParameterizedType();
+        ValueConverter converter = genericType instanceof Class<?>
+                ? classConverter(type)
+                : genericConverter(TYPE_FACTORY.constructType(genericType));
+        boolean primitive = type.isPrimitive();
+        return (context, input) -> {
+            Object value = input.get(name);
+            if (value == null) {
+                if (primitive) {
+                    throw new ToolArgumentException("Missing required argument \"" + name + "\"");
+                }
+                return null;
+            }
+            try {
+                return converter.convert(value);
+            } catch (ToolArgumentException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new ToolArgumentException("Invalid argument \"" + name + "\": " + e.getMessage(), e);
+            }
+        };
+    }
+
+    private static ValueConverter classConverter(Class<?> type) {
+        Class<?> boxedType = type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+        ValueConverter fallback = value -> JsonParser.toTypedObject(value, boxedType);
+        ValueConverter fastPath = fastPathConverter(boxedType);
+        return value -> {
+            if (boxedType.isInstance(value)) {
+                return value;
+            }
+            Object converted = fastPath != null ? fastPath.convert(value) : null;
+            return converted != null ? converted : fallback.convert(value);
+        };
+    }
+
+    /**
+     * Returns a converter for the common scalar types that returns {@code null} when it
+     * cannot convert the value, or {@code null} if the type has no fast path.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ValueConverter fastPathConverter(Class<?> type) {
+        if (type == Integer.class) {
+            return value -> exactLong(value, Integer.MIN_VALUE, Integer.MAX_VALUE, v -> (int) v);
+        } else if (type == Long.class) {
+            return value -> exactLong(value, Long.MIN_VALUE, Long.MAX_VALUE, v -> v);
+        } else if (type == Short.class) {
+            return value -> exactLong(value, Short.MIN_VALUE, Short.MAX_VALUE, v -> (short) v);
+        } else if (type == Byte.class) {
+            return value -> exactLong(value, Byte.MIN_VALUE, Byte.MAX_VALUE, v -> (byte) v);
+        } else if (type == Double.class) {
+            return value -> value instanceof Number number ? number.doubleValue() : null;
+        } else if (type == Float.class) {
+            return value -> value instanceof Number number ? number.floatValue() : null;
+        } else if (type == BigDecimal.class) {
+            return value -> value instanceof Number number ? new BigDecimal(number.toString()) : null;
+        } else if (type == Boolean.class) {
+            return value -> value instanceof String text && ("true".equals(text) || "false".equals(text))
+                    ? Boolean.valueOf(text) : null;
+        } else if (type == String.class) {
+            return value -> value instanceof Number || value instanceof Boolean ? value.toString() : null;
+        } else if (type.isEnum()) {
+            Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+            return value -> {
+                if (value instanceof String text) {
+                    try {
+                        return Enum.valueOf(enumType, text);
+                    } catch (IllegalArgumentException e) {
+                        return null;
+                    }
+                }
+                return null;
+            };
+        }
+        return null;
+    }
+
+    private static Object exactLong(Object value, long min, long max, LongFunction<?> narrow) {
+        long longValue;
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            longValue = ((Number) value).longValue();
+        } else if (value instanceof BigInteger bigInteger && bigInteger.bitLength() < 64) {
+            longValue = bigInteger.longValue();
+        } else {
+            return null;
+        }
+        if (longValue < min || longValue > max) {
+            throw new ArithmeticException("Value " + value + " is out of range");
+        }
+        return narrow.apply(longValue);
+    }
+
+    private static ValueConverter genericConverter(JavaType javaType) {
+        return value -> JsonObjectMapper.CAMEL_CASE.convert(value, javaType);
+    }
+
+    @FunctionalInterface
+    private interface ArgumentBinder {
+        Object bind(ToolContext context, Map<String, Object> input) throws ToolArgumentException;
+    }
+
+    @FunctionalInterface
+    private interface ValueConverter {
+        Object convert(Object value);
+    }
+}
@@ -33,20 +33,16 @@ import org.metaagent.framework.core.tool.converter.ToolConverters;
 import org.metaagent.framework.core.tool.definition.ToolDefinition;
 import org.metaagent.framework.core.tool.exception.ToolExecutionError;
 import org.metaagent.framework.core.tool.exception.ToolExecutionException;
-import org.springframework.ai.util.json.JsonParser;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-import java.lang.reflect.Type;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Stream;
 
 /**
  * MethodTool is an implementation of the Tool interface that wraps a Java Method.
  * It allows invoking the method with input parameters and converting the input and output
- * using the specified ToolConverter.
+ * using the specified ToolConverter. The method is bound to a method handle and argument
+ * binders once at construction, so each run avoids reflective lookups and JSON round trips.
  *
  * @author vyckey
  */
@@ -60,6 +56,7 @@ public class MethodTool implements Tool<Map<String, Object>, Object> {
     private final ToolConverter<Map<String, Object>, Object> toolConverter;
     private final Method toolMethod;
     private final Object toolObject;
+    private final MethodInvoker toolMethodInvoker;
 
     public MethodTool(ToolDefinition toolDefinition,
                       ToolConverter<Map<String, Object>, Object> toolConverter,
@@ -69,6 +66,7 @@ public class MethodTool implements Tool<Map<String, Object>, Object> {
         this.toolConverter = Objects.requireNonNull(toolConverter, "ToolConverter is required");
         this.toolMethod = Objects.requireNonNull(toolMethod, "Tool method is required");
         this.toolObject = toolObject;
+        this.toolMethodInvoker = new MethodInvoker(toolMethod, toolObject);
     }
 
     public MethodTool(Method toolMethod, Object toolObject) {
@@ -92,45 +90,14 @@ public class MethodTool implements Tool<Map<String, Object>, Object> {
 
     @Override
     public Object run(ToolContext context, Map<String, Object> input) throws ToolExecutionException {
-        if (toolObject != null && !Modifier.isPublic(toolObject.getClass().getModifiers())
-                || !Modifier.isPublic(toolMethod.getModifiers())) {
-            toolMethod.setAccessible(true);
-        }
-
+        // Argument failures are thrown as ToolArgumentException, errors of the JVM are not wrapped
+        Object[] arguments = toolMethodInvoker.bindArguments(context, input != null ? input : Map.of());
         try {
-            Object[] arguments = buildMethodArguments(context, input);
-            return toolMethod.invoke(toolObject, arguments);
-        } catch (InvocationTargetException | IllegalAccessException e) {
+            return toolMethodInvoker.invoke(arguments);
+        } catch (Exception e) {
             throw new ToolExecutionError("Failed to execute tool " + getName()
                     + " caused by invoking method " + toolMethod + " occurs errors", e);
-        } catch (Exception e) {
-            throw new ToolExecutionException("Failed to execute tool " + getName()
-                    + " caused by invoking method " + toolMethod + " occurs exceptions", e);
-        }
-    }
-
-    private Object[] buildMethodArguments(ToolContext toolContext, Map<String, Object> toolInputArguments) {
-        return Stream.of(toolMethod.getParameters()).map(parameter -> {
-            if (parameter.getType().isAssignableFrom(ToolContext.class)) {
-                return toolContext;
-            }
-            Object rawArgument = toolInputArguments.get(parameter.getName());
-            return buildTypedArgument(rawArgument, parameter.getParameterizedType());
-        }).toArray();
-    }
-
-    private Object buildTypedArgument(Object value, Type type) {
-        if (value == null) {
-            return null;
         }
-
-        if (type instanceof Class<?>) {
-            return JsonParser.toTypedObject(value, (Class<?>) type);
-        }
-
-        // For generic types, use the fromJson method that accepts Type
-        String json = JsonParser.toJson(value);
-        return JsonParser.fromJson(json, type);
     }
 
     @Override
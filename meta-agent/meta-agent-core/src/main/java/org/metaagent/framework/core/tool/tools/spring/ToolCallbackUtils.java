@@ -32,6 +32,7 @@ import org.metaagent.framework.core.tool.Tool;
 import org.metaagent.framework.core.tool.ToolContext;
 import org.metaagent.framework.core.tool.executor.ToolExecutor;
 import org.metaagent.framework.core.tool.manager.ToolManager;
+import org.metaagent.framework.core.tool.manager.ToolSnapshot;
 import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.model.tool.DefaultToolCallingChatOptions;
 import org.springframework.ai.model.tool.ToolCallingChatOptions;
@@ -48,17 +49,56 @@ import java.util.Map;
  * @author vyckey
  */
 public abstract class ToolCallbackUtils {
-    public static void addToolsToChatOptions(ToolCallingChatOptions chatOptions,
-                                             ToolManager toolManager, ToolExecutor toolExecutor) {
-        List<ToolCallback> toolCallbacks = Lists.newArrayList();
-        for (String toolName : toolManager.getToolNames()) {
-            Tool<Object, Object> tool = toolManager.getTool(toolName);
+    private static final ClassValue<Field> TOOL_CONTEXT_FIELDS = new ClassValue<>() {
+        @Override
+        protected Field computeValue(Class<?> type) {
+            Field contextField = ReflectionUtils.findField(type, "toolContext");
+            if (contextField != null) {
+                contextField.setAccessible(true);
+            }
+            return contextField;
+        }
+    };
+
+    /**
+     * Returns the Spring tool callbacks of the current tools of the tool manager.
+     * The callbacks are cached on the {@link ToolSnapshot}, so they are only recreated when the tools change
+     * and are shared by all agents using the same tool manager and tool executor.
+     *
+     * @param toolManager  the tool manager
+     * @param toolExecutor the tool executor used by the callbacks, may be {@code null}
+     * @return the immutable list of tool callbacks
+     */
+    public static List<ToolCallback> getToolCallbacks(ToolManager toolManager, ToolExecutor toolExecutor) {
+        return getToolCallbacks(toolManager.snapshot(), toolExecutor);
+    }
+
+    private static List<ToolCallback> getToolCallbacks(ToolSnapshot snapshot, ToolExecutor toolExecutor) {
+        return snapshot.computeIfAbsent(new ToolCallbacksKey(toolExecutor),
+                s -> buildToolCallbacks(s, toolExecutor));
+    }
+
+    private static List<ToolCallback> buildToolCallbacks(ToolSnapshot snapshot, ToolExecutor toolExecutor) {
+        List<ToolCallback> toolCallbacks = Lists.newArrayListWithCapacity(snapshot.tools().size());
+        for (Tool<?, ?> tool : snapshot.tools()) {
             toolCallbacks.add(new ToolCallbackDelegate(tool, toolExecutor));
         }
+        return List.copyOf(toolCallbacks);
+    }
+
+    public static void addToolsToChatOptions(ToolCallingChatOptions chatOptions,
+                                             ToolManager toolManager, ToolExecutor toolExecutor) {
+        ToolSnapshot snapshot = toolManager.snapshot();
+        addToolsToChatOptions(chatOptions, snapshot, getToolCallbacks(snapshot, toolExecutor));
+    }
+
+    private static void addToolsToChatOptions(ToolCallingChatOptions chatOptions,
+                                              ToolSnapshot snapshot, List<ToolCallback> snapshotCallbacks) {
+        List<ToolCallback> toolCallbacks = Lists.newArrayList(snapshotCallbacks);
         if (CollectionUtils.isEmpty(chatOptions.getToolNames())) {
-            chatOptions.setToolNames(toolManager.getToolNames());
+            chatOptions.setToolNames(snapshot.toolNames());
         } else {
-            chatOptions.setToolNames(Sets.union(chatOptions.getToolNames(), toolManager.getToolNames()));
+            chatOptions.setToolNames(Sets.union(chatOptions.getToolNames(), snapshot.toolNames()));
         }
         if (CollectionUtils.isNotEmpty(chatOptions.getToolCallbacks())) {
             toolCallbacks.addAll(chatOptions.getToolCallbacks());
@@ -85,14 +125,41 @@ public abstract class ToolCallbackUtils {
         return chatOptions;
     }
 
+    /**
+     * Builds the chat options with the current tools of the tool manager and no other options.
+     * The options are built once per {@link ToolSnapshot} and a copy is returned on each call,
+     * so the caller is free to modify it (e.g. by {@link #setToolContext(ChatOptions, ToolContext)}).
+     *
+     * @param toolManager                  the tool manager
+     * @param toolExecutor                 the tool executor used by the callbacks, may be {@code null}
+     * @param internalToolExecutionEnabled whether the chat model executes the tools internally
+     * @return a copy of the cached chat options
+     */
+    public static ToolCallingChatOptions buildChatOptionsWithTools(ToolManager toolManager,
+                                                                   ToolExecutor toolExecutor,
+                                                                   Boolean internalToolExecutionEnabled) {
+        ToolSnapshot snapshot = toolManager.snapshot();
+        List<ToolCallback> toolCallbacks = getToolCallbacks(snapshot, toolExecutor);
+        ToolCallingChatOptions chatOptions = snapshot.computeIfAbsent(
+                new ChatOptionsKey(toolExecutor, internalToolExecutionEnabled),
+                s -> {
+                    ToolCallingChatOptions options = new DefaultToolCallingChatOptions();
+                    addToolsToChatOptions(options, s, toolCallbacks);
+                    options.setToolContext(Maps.newHashMap());
+                    options.setInternalToolExecutionEnabled(internalToolExecutionEnabled);
+                    return options;
+                }
+        );
+        return chatOptions.copy();
+    }
+
     public static boolean setToolContext(ChatOptions chatOptions, ToolContext toolContext) {
         if (chatOptions instanceof ToolCallingChatOptions toolChatOptions) {
             try {
                 Map<String, Object> toolContextMap = Maps.newHashMap(toolChatOptions.getToolContext());
                 toolContextMap.put(ToolCallbackDelegate.CONTEXT_KEY, toolContext);
 
-                Field contextField = ReflectionUtils.findField(chatOptions.getClass(), "toolContext");
-                contextField.setAccessible(true);
+                Field contextField = TOOL_CONTEXT_FIELDS.get(chatOptions.getClass());
                 contextField.set(chatOptions, toolContextMap);
                 return true;
             } catch (Exception e) {
@@ -102,4 +169,10 @@ public abstract class ToolCallbackUtils {
         return false;
     }
 
+    private record ToolCallbacksKey(ToolExecutor toolExecutor) {
+    }
+
+    private record ChatOptionsKey(ToolExecutor toolExecutor, Boolean internalToolExecutionEnabled) {
+    }
+
 }
@@ -24,57 +24,225 @@
 
 package org.metaagent.framework.core.tool.tracker;
 
-import com.google.common.collect.Lists;
-
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 /**
- * description is here
+ * Default thread-safe implementation of {@link ToolCallTracker}.
+ * <p>
+ * Records are indexed by id and by tool name, and only a retention window of the most recent
+ * records is kept, bounded by count and optionally by age. The per-tool statistics cover all
+ * tracked calls regardless of the retention, with latency percentiles over the recent calls.
+ * </p>
  *
  * @author vyckey
  */
 public class DefaultToolCallTracker implements ToolCallTracker {
-    protected final List<ToolCallRecord> records;
+    private final TrackerConfig config;
+    private final Deque<ToolCallRecord> records = new ArrayDeque<>();
+    private final Map<String, Deque<ToolCallRecord>> recordsByToolName = new HashMap<>();
+    private final Map<String, ToolCallRecord> recordsById = new ConcurrentHashMap<>();
+    private final Map<String, ToolAggregate> aggregates = new ConcurrentHashMap<>();
 
-    public DefaultToolCallTracker(List<ToolCallRecord> records) {
-        this.records = Objects.requireNonNull(records);
+    public DefaultToolCallTracker(TrackerConfig config) {
+        this.config = Objects.requireNonNull(config, "config is required");
     }
 
     public DefaultToolCallTracker() {
-        this(Lists.newArrayList());
+        this(new TrackerConfig());
     }
 
     @Override
     public void track(ToolCallRecord record) {
-        this.records.add(record);
+        aggregates.computeIfAbsent(record.getToolName(), ToolAggregate::new).add(record, config.latencyWindowSize);
+        synchronized (this) {
+            records.addLast(record);
+            recordsByToolName.computeIfAbsent(record.getToolName(), key -> new ArrayDeque<>()).addLast(record);
+            if (record.getId() != null) {
+                recordsById.put(record.getId(), record);
+            }
+            evict();
+        }
+    }
+
+    private void evict() {
+        Instant minStartTime = config.maxAge != null ? Instant.now().minus(config.maxAge) : null;
+        while (!records.isEmpty()) {
+            ToolCallRecord oldest = records.peekFirst();
+            boolean expired = minStartTime != null && oldest.getStartTime() != null
+                    && oldest.getStartTime().isBefore(minStartTime);
+            if (records.size() <= config.maxRecords && !expired) {
+                break;
+            }
+            records.pollFirst();
+            Deque<ToolCallRecord> toolRecords = recordsByToolName.get(oldest.getToolName());
+            // records are appended to both deques under the lock, so the oldest record is first in both
+            toolRecords.pollFirst();
+            if (toolRecords.isEmpty()) {
+                recordsByToolName.remove(oldest.getToolName());
+            }
+            if (oldest.getId() != null) {
+                recordsById.remove(oldest.getId(), oldest);
+            }
+        }
     }
 
     @Override
-    public List<ToolCallRecord> find(Predicate<ToolCallRecord> predicate) {
-        return this.records.stream().filter(predicate).toList();
+    public synchronized List<ToolCallRecord> find(Predicate<ToolCallRecord> predicate) {
+        return records.stream().filter(predicate).toList();
     }
 
     @Override
     public Optional<ToolCallRecord> findById(String executionId) {
-        return this.records.stream().filter(record -> record.getId().equals(executionId)).findFirst();
+        return Optional.ofNullable(recordsById.get(executionId));
+    }
+
+    @Override
+    public synchronized List<ToolCallRecord> findByToolName(String toolName) {
+        Deque<ToolCallRecord> toolRecords = recordsByToolName.get(toolName);
+        return toolRecords != null ? List.copyOf(toolRecords) : Collections.emptyList();
     }
 
     @Override
-    public List<ToolCallRecord> findByToolName(String toolName) {
-        return find(record -> record.getToolName().equals(toolName));
+    public Optional<ToolCallStats> getStats(String toolName) {
+        return Optional.ofNullable(aggregates.get(toolName)).map(ToolAggregate::toStats);
+    }
+
+    @Override
+    public Map<String, ToolCallStats> getAllStats() {
+        Map<String, ToolCallStats> stats = new HashMap<>();
+        aggregates.forEach((toolName, aggregate) -> stats.put(toolName, aggregate.toStats()));
+        return stats;
     }
 
     @Override
     public void merge(ToolCallTracker other) {
-        this.records.addAll(other.find(record -> true));
+        other.find(record -> true).forEach(this::track);
     }
 
     @Override
     public void clear() {
-        this.records.clear();
+        synchronized (this) {
+            records.clear();
+            recordsByToolName.clear();
+            recordsById.clear();
+        }
+        aggregates.clear();
+    }
+
+    static long utf8Length(String text) {
+        if (text == null) {
+            return 0;
+        }
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800 || Character.isSurrogate(c)) {
+                // a surrogate pair is encoded in 4 bytes
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
     }
 
+    /**
+     * Running statistics of a tool, with the latencies of the recent calls in a ring buffer.
+     */
+    private static final class ToolAggregate {
+        private final String toolName;
+        private long calls;
+        private long errors;
+        private long inputBytes;
+        private long outputBytes;
+        private long[] latencyNanos;
+        private int latencyCount;
+
+        ToolAggregate(String toolName) {
+            this.toolName = toolName;
+        }
+
+        synchronized void add(ToolCallRecord record, int windowSize) {
+            calls++;
+            if (record.getException() != null) {
+                errors++;
+            }
+            inputBytes += utf8Length(record.getToolInput());
+            outputBytes += utf8Length(record.getToolOutput());
+            if (record.getStartTime() != null && record.getEndTime() != null) {
+                if (latencyNanos == null) {
+                    latencyNanos = new long[windowSize];
+                }
+                long latency = Duration.between(record.getStartTime(), record.getEndTime()).toNanos();
+                latencyNanos[latencyCount++ % latencyNanos.length] = latency;
+            }
+        }
+
+        synchronized ToolCallStats toStats() {
+            Duration p50 = Duration.ZERO;
+            Duration p99 = Duration.ZERO;
+            if (latencyCount > 0) {
+                long[] sorted = Arrays.copyOf(latencyNanos, Math.min(latencyCount, latencyNanos.length));
+                Arrays.sort(sorted);
+                p50 = Duration.ofNanos(percentile(sorted, 0.5));
+                p99 = Duration.ofNanos(percentile(sorted, 0.99));
+            }
+            return new ToolCallStats(toolName, calls, errors, p50, p99, inputBytes, outputBytes);
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)];
+        }
+    }
+
+    public static class TrackerConfig {
+        private int maxRecords = 10000;
+        private Duration maxAge;
+        private int latencyWindowSize = 1024;
+
+        /**
+         * Sets the maximum number of retained records, 10000 by default.
+         */
+        public TrackerConfig maxRecords(int maxRecords) {
+            if (maxRecords <= 0) {
+                throw new IllegalArgumentException("maxRecords must be positive");
+            }
+            this.maxRecords = maxRecords;
+            return this;
+        }
+
+        /**
+         * Sets the maximum age of retained records, unlimited by default.
+         */
+        public TrackerConfig maxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        /**
+         * Sets the number of recent calls per tool the latency percentiles are computed over, 1024 by default.
+         */
+        public TrackerConfig latencyWindowSize(int latencyWindowSize) {
+            if (latencyWindowSize <= 0) {
+                throw new IllegalArgumentException("latencyWindowSize must be positive");
+            }
+            this.latencyWindowSize = latencyWindowSize;
+            return this;
+        }
+    }
 }
@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.tool.tracker;
+
+import java.time.Duration;
+
+/**
+ * Aggregated statistics of the calls of a tool.
+ *
+ * @param toolName    the tool name
+ * @param calls       the number of calls
+ * @param errors      the number of failed calls
+ * @param p50Latency  the median latency of the recent calls
+ * @param p99Latency  the 99th percentile latency of the recent calls
+ * @param inputBytes  the total UTF-8 size of the inputs
+ * @param outputBytes the total UTF-8 size of the outputs
+ * @author vyckey
+ */
+public record ToolCallStats(
+        String toolName,
+        long calls,
+        long errors,
+        Duration p50Latency,
+        Duration p99Latency,
+        long inputBytes,
+        long outputBytes
+) {
+    /**
+     * Returns the ratio of failed calls.
+     *
+     * @return the error rate between 0 and 1
+     */
+    public double errorRate() {
+        return calls == 0 ? 0 : errors * 1.0 / calls;
+    }
+}
@@ -24,7 +24,9 @@
 
 package org.metaagent.framework.core.tool.tracker;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Predicate;
 
@@ -83,6 +85,25 @@ public interface ToolCallTracker {
      */
     List<ToolCallRecord> findByToolName(String toolName);
 
+    /**
+     * Returns the aggregated statistics of the calls of a tool.
+     *
+     * @param toolName the name of the tool
+     * @return the statistics, or empty if the tool has not been called
+     */
+    default Optional<ToolCallStats> getStats(String toolName) {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the aggregated statistics of all called tools.
+     *
+     * @return the statistics by tool name
+     */
+    default Map<String, ToolCallStats> getAllStats() {
+        return Collections.emptyMap();
+    }
+
     /**
      * Merges another ToolCallTracker into this one.
      *
@@ -0,0 +1,210 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.core.agent;
+
+import org.junit.jupiter.api.Test;
+import org.metaagent.framework.common.abort.AbortController;
+import org.metaagent.framework.common.abort.AbortException;
+import org.metaagent.framework.common.abort.AbortSignal;
+import org.metaagent.framework.core.agent.context.AgentContext;
+import org.metaagent.framework.core.agent.context.AgentContextBuilder;
+import org.metaagent.framework.core.agent.context.AgentStepContext;
+import org.metaagent.framework.core.agent.event.AgentEventBus;
+import org.metaagent.framework.core.agent.input.AgentInput;
+import org.metaagent.framework.core.agent.output.AgentStreamOutput;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the step loop of {@link AbstractStreamAgent}.
+ *
+ * @author vyckey
+ */
+class AbstractStreamAgentTest {
+
+    private static TestInput input(AbortSignal abortSignal) {
+        return new TestInput(new TestContext(abortSignal));
+    }
+
+    @Test
+    void runManyStepsWithConstantStackDepth() {
+        StepAgent agent = new StepAgent(150);
+        agent.setStepLoopConfig(new AbstractStreamAgent.StepLoopConfig().maxSteps(0));
+
+        List<Integer> steps = agent.run(input(new AbortController().signal())).stream().collectList().block();
+        assertEquals(IntStream.range(0, 150).boxed().toList(), steps);
+        assertEquals(agent.stackDepths.get(10), agent.stackDepths.get(149), agent.stackDepths.toString());
+    }
+
+    @Test
+    void stopAtMaxSteps() {
+        StepAgent agent = new StepAgent(Integer.MAX_VALUE);
+        agent.setStepLoopConfig(new AbstractStreamAgent.StepLoopConfig().maxSteps(3));
+
+        TestInput input = input(new AbortController().signal());
+        TestStepContext stepContext = agent.createStepContext(input);
+        List<Integer> steps = agent.runStream(input, stepContext).collectList().block();
+        assertEquals(List.of(0, 1, 2), steps);
+        assertEquals(2, stepContext.getLoopCounter().get());
+    }
+
+    @Test
+    void stopWhenTokenBudgetExhausted() {
+        StepAgent agent = new StepAgent(Integer.MAX_VALUE);
+        agent.setStepLoopConfig(new AbstractStreamAgent.StepLoopConfig().maxSteps(0).tokenBudget(250));
+
+        List<Integer> steps = agent.run(input(new AbortController().signal())).stream().collectList().block();
+        assertEquals(List.of(0, 1, 2), steps);
+    }
+
+    @Test
+    void abortRunningLoop() {
+        AbortController abortController = new AbortController();
+        StepAgent agent = new StepAgent(Integer.MAX_VALUE);
+        agent.setStepLoopConfig(new AbstractStreamAgent.StepLoopConfig().maxSteps(0));
+        agent.onStep = step -> {
+            if (step == 4) {
+                abortController.abort("stopped by user");
+            }
+        };
+
+        List<Integer> received = new ArrayList<>();
+        Flux<Integer> stream = agent.run(input(abortController.signal())).stream().doOnNext(received::add);
+        assertThrows(AbortException.class, stream::blockLast);
+        assertTrue(received.size() <= 5, received.toString());
+        assertEquals(5, agent.stackDepths.size());
+    }
+
+    @Test
+    void abortBeforeFirstStep() {
+        AbortController abortController = new AbortController();
+        abortController.abort();
+        StepAgent agent = new StepAgent(Integer.MAX_VALUE);
+
+        Flux<Integer> stream = agent.run(input(abortController.signal())).stream();
+        assertThrows(AbortException.class, stream::blockLast);
+        assertTrue(agent.stackDepths.isEmpty());
+    }
+
+    record TestInput(AgentContext context) implements AgentInput {
+    }
+
+    record TestOutput(Flux<Integer> stream) implements AgentStreamOutput<Integer> {
+    }
+
+    record TestContext(AbortSignal abortSignal) implements AgentContext {
+        @Override
+        public AgentEventBus agentEventBus() {
+            return null;
+        }
+
+        @Override
+        public Executor executor() {
+            return Runnable::run;
+        }
+
+        @Override
+        public AgentContextBuilder<?> toBuilder() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    static class TestStepContext implements AgentStepContext {
+        private final AtomicInteger loopCounter = new AtomicInteger();
+        private long consumedTokens;
+
+        @Override
+        public AtomicInteger getLoopCounter() {
+            return loopCounter;
+        }
+
+        @Override
+        public long getConsumedTokens() {
+            return consumedTokens;
+        }
+
+        @Override
+        public void reset() {
+            loopCounter.set(0);
+            consumedTokens = 0;
+        }
+    }
+
+    /**
+     * Agent emitting the index of each step, and consuming 100 tokens per step.
+     */
+    static class StepAgent extends AbstractStreamAgent<TestInput, TestOutput, TestStepContext, Integer> {
+        private final int steps;
+        private final List<Integer> stackDepths = new ArrayList<>();
+        private Consumer<Integer> onStep = step -> {
+        };
+
+        StepAgent(int steps) {
+            super("step-agent");
+            this.steps = steps;
+        }
+
+        @Override
+        public TestStepContext createStepContext(TestInput agentInput) {
+            return new TestStepContext();
+        }
+
+        @Override
+        protected TestOutput buildAgentOutput(TestInput agentInput, TestStepContext stepContext, Flux<Integer> stream) {
+            return new TestOutput(stream);
+        }
+
+        @Override
+        protected boolean shouldContinueLoop(TestInput agentInput, TestStepContext stepContext) {
+            return stepContext.getLoopCounter().get() + 1 < steps;
+        }
+
+        @Override
+        protected Flux<Integer> doStepStream(TestInput agentInput, TestStepContext stepContext) {
+            return Flux.defer(() -> {
+                int step = stepContext.getLoopCounter().get();
+                stackDepths.add(Thread.currentThread().getStackTrace().length);
+                stepContext.consumedTokens += 100;
+                onStep.accept(step);
+                return Flux.just(step);
+            });
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.agent.chat.conversation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.metaagent.framework.common.util.PageResult;
+import org.metaagent.framework.core.agent.chat.message.Message;
+import org.metaagent.framework.core.agent.chat.message.MessageId;
+import org.metaagent.framework.core.agent.chat.message.RoleMessage;
+import org.metaagent.framework.core.agent.chat.message.RoleMessageInfo;
+import org.metaagent.framework.core.agent.chat.message.part.TextMessagePart;
+import org.metaagent.framework.core.agent.chat.session.SessionId;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the indexes of {@link InMemoryConversationStore}.
+ *
+ * @author vyckey
+ */
+class InMemoryConversationStoreTest {
+    private SessionId sessionId;
+    private InMemoryConversationStore store;
+
+    @BeforeEach
+    void setUp() {
+        sessionId = SessionId.of("test-session");
+        store = new InMemoryConversationStore();
+    }
+
+    private Message createMessage(String id, String parentId) {
+        return RoleMessage.builder()
+                .info(RoleMessageInfo.user()
+                        .sessionId(sessionId).id(MessageId.of(id))
+                        .parentId(parentId != null ? MessageId.of(parentId) : null)
+                        .build()
+                )
+                .addPart(new TextMessagePart("Content " + id))
+                .build();
+    }
+
+    private void appendChain(int count) {
+        for (int i = 0; i < count; i++) {
+            store.appendMessage(sessionId, createMessage("msg" + i, i > 0 ? "msg" + (i - 1) : null));
+        }
+    }
+
+    private List<String> ids(PageResult<Message> page) {
+        return page.items().stream().map(message -> message.info().id().value()).toList();
+    }
+
+    @Test
+    void cursorPaging() {
+        appendChain(10);
+
+        PageResult<Message> before = store.loadMessagesBefore(sessionId, MessageId.of("msg7"), 3, null);
+        assertEquals(List.of("msg6", "msg5", "msg4"), ids(before));
+        assertTrue(before.hasMore());
+        before = store.loadMessagesBefore(sessionId, MessageId.of("msg7"), 5, before.nextCursor());
+        assertEquals(List.of("msg3", "msg2", "msg1", "msg0"), ids(before));
+        assertFalse(before.hasMore());
+
+        PageResult<Message> after = store.loadMessagesAfter(sessionId, MessageId.of("msg2"), 4, null);
+        assertEquals(List.of("msg3", "msg4", "msg5", "msg6"), ids(after));
+        after = store.loadMessagesAfter(sessionId, MessageId.of("msg2"), 10, after.nextCursor());
+        assertEquals(List.of("msg7", "msg8", "msg9"), ids(after));
+        assertFalse(after.hasMore());
+    }
+
+    @Test
+    void leavesFollowAppendsAndSubtreeDeletes() {
+        appendChain(3);
+        store.appendMessage(sessionId, createMessage("alt", "msg0"));
+        assertEquals(List.of(MessageId.of("msg2"), MessageId.of("alt")), store.getLeafMessageIds(sessionId));
+
+        Set<MessageId> deleted = store.deleteMessages(sessionId, MessageId.of("msg1"), true);
+        assertEquals(Set.of(MessageId.of("msg1"), MessageId.of("msg2")), deleted);
+        assertEquals(List.of(MessageId.of("alt")), store.getLeafMessageIds(sessionId));
+        assertEquals("alt", store.getLastMessage(sessionId).orElseThrow().info().id().value());
+
+        store.deleteMessages(sessionId, MessageId.of("msg0"), false);
+        assertEquals(List.of(MessageId.of("msg0")), store.getLeafMessageIds(sessionId));
+        assertEquals(1, store.getMessageCount(sessionId));
+    }
+
+    @Test
+    void deleteOverlappingSubtrees() {
+        appendChain(5);
+        store.appendMessage(sessionId, createMessage("alt", "msg1"));
+        SessionId forkId = SessionId.of("fork-session");
+        store.forkSession(sessionId, MessageId.of("msg3"), forkId);
+        store.appendMessage(forkId, createMessage("fork4", "msg3"));
+
+        assertEquals(Set.of(MessageId.of("msg3"), MessageId.of("msg4")),
+                store.deleteMessages(sessionId, MessageId.of("msg3"), true));
+        assertEquals(Set.of(MessageId.of("msg2"), MessageId.of("alt")),
+                store.deleteMessages(sessionId, MessageId.of("msg1"), false));
+        assertEquals(List.of(MessageId.of("msg1")), store.getLeafMessageIds(sessionId));
+        assertEquals(Set.of(MessageId.of("msg0"), MessageId.of("msg1")),
+                store.deleteMessages(sessionId, MessageId.of("msg0"), true));
+        assertEquals(0, store.getMessageCount(sessionId));
+
+        assertEquals(Set.of(MessageId.of("fork4")), store.deleteMessages(forkId, MessageId.of("msg3"), false));
+        assertEquals(Set.of(MessageId.of("msg2"), MessageId.of("msg3")),
+                store.deleteMessages(forkId, MessageId.of("msg2"), true));
+        assertEquals(List.of("msg0", "msg1"), ids(store.loadMessagesAfter(forkId, null, 10, null)));
+        assertEquals(List.of(MessageId.of("msg1")), store.getLeafMessageIds(forkId));
+    }
+
+    @Test
+    void appendMessagesValidatesBatch() {
+        appendChain(1);
+        assertThrows(IllegalArgumentException.class, () -> store.appendMessages(sessionId,
+                List.of(createMessage("a", "msg0"), createMessage("a", "msg0"))));
+        assertThrows(IllegalArgumentException.class, () -> store.appendMessages(sessionId,
+                List.of(createMessage("b", "missing"))));
+        assertEquals(1, store.getMessageCount(sessionId));
+
+        store.appendMessages(sessionId, List.of(createMessage("a", "msg0"), createMessage("b", "a")));
+        assertEquals(List.of(MessageId.of("b")), store.getLeafMessageIds(sessionId));
+    }
+
+    @Test
+    void forkSharesPathCopyOnWrite() {
+        appendChain(5);
+        store.appendMessage(sessionId, createMessage("alt", "msg1"));
+        SessionId forkId = SessionId.of("fork-session");
+        store.forkSession(sessionId, MessageId.of("msg2"), forkId);
+
+        assertEquals(List.of(MessageId.of("msg2")), store.getLeafMessageIds(forkId));
+        assertEquals(3, store.getMessageCount(forkId));
+        assertTrue(store.getMessage(forkId, MessageId.of("alt")).isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> store.forkSession(sessionId, MessageId.of("msg1"), forkId));
+
+        store.appendMessage(forkId, createMessage("fork3", "msg2"));
+        store.updateMessage(sessionId, createMessage("msg1", "msg0").toBuilder()
+                .parts(List.of(new TextMessagePart("Updated"))).build());
+        assertEquals("Content msg1", store.getMessage(forkId, MessageId.of("msg1")).orElseThrow().content());
+        assertEquals(List.of("fork3", "msg2", "msg1", "msg0"), ids(store.loadMessagesBefore(forkId, null, 10, null)));
+
+        // Deleting the shared path in the source copies it into the fork
+        store.deleteMessages(sessionId, MessageId.of("msg0"), false);
+        assertEquals(List.of("msg0", "msg1", "msg2", "fork3"), ids(store.loadMessagesAfter(forkId, null, 10, null)));
+        assertEquals(List.of(MessageId.of("fork3")), store.getLeafMessageIds(forkId));
+        assertEquals(List.of(MessageId.of("msg0")), store.getLeafMessageIds(sessionId));
+    }
+}
@@ -31,6 +31,7 @@ import org.junit.jupiter.api.Test;
 import org.metaagent.framework.common.util.PageResult;
 import org.metaagent.framework.core.agent.chat.message.Message;
 import org.metaagent.framework.core.agent.chat.message.MessageId;
+import org.metaagent.framework.core.agent.chat.message.MessageInfo;
 import org.metaagent.framework.core.agent.chat.message.RoleMessage;
 import org.metaagent.framework.core.agent.chat.message.RoleMessageInfo;
 import org.metaagent.framework.core.agent.chat.message.part.TextMessagePart;
@@ -261,6 +262,36 @@ class InMemoryConversationTest {
                 conv.clear();
             }
         }
+
+        @Test
+        @DisplayName("Buffered bytes limit should flush in caller thread")
+        void bufferedBytesBackpressure() throws IOException {
+            ConversationFlusher flusher = new ConversationFlusher(1);
+            DefaultConversation.ConversationConfig boundedConfig =
+                    new DefaultConversation.ConversationConfig()
+                            .maxMessageBufferSize(10)
+                            .flushIntervalMillis(60_000)
+                            .maxBufferedBytes(256)
+                            .flusher(flusher);
+
+            try (DefaultConversation conv = new DefaultConversation(sessionId, store, boundedConfig)) {
+                conv.appendMessage(createMessage("msg1", null, "short"));
+                assertEquals(0, store.getMessageCount(sessionId));
+                assertEquals(1, flusher.stats().queueSize());
+
+                conv.appendMessage(createMessage("msg2", "msg1", "x".repeat(200)));
+                assertEquals(2, store.getMessageCount(sessionId));
+
+                conv.appendMessage(createMessage("msg3", "msg2", "short"));
+                assertEquals(2, store.getMessageCount(sessionId));
+            } finally {
+                flusher.close();
+            }
+
+            // Closing the conversation flushes and cancels the pending write-behind flush
+            assertEquals(3, store.getMessageCount(sessionId));
+            assertEquals(0, flusher.stats().queueSize());
+        }
     }
 
     // ==================== Update and Reset Tests ====================
@@ -578,6 +609,86 @@ class InMemoryConversationTest {
         }
     }
 
+    // ==================== Streaming Part Tests ====================
+
+    @Nested
+    @DisplayName("Streaming Message Parts")
+    class StreamingPartTests {
+
+        private MessageInfo assistantInfo(String id) {
+            return RoleMessageInfo.assistant().sessionId(sessionId).id(MessageId.of(id)).build();
+        }
+
+        @Test
+        @DisplayName("Open message is visible and persisted once when sealed")
+        void appendPartsAndSeal() throws IOException {
+            conversation.appendMessage(createMessage("root", null));
+            conversation.flush();
+
+            MessageInfo info = assistantInfo("reply");
+            for (int i = 0; i < 10; i++) {
+                conversation.appendMessagePart(info, new TextMessagePart("part" + i));
+            }
+
+            Message reply = conversation.lastMessage().orElseThrow();
+            assertEquals(MessageId.of("root"), reply.info().parentId());
+            assertEquals(10, reply.parts().size());
+            assertFalse(store.getMessage(sessionId, MessageId.of("reply")).isPresent());
+
+            conversation.sealMessage(MessageId.of("reply"));
+            conversation.flush();
+
+            Message stored = store.getMessage(sessionId, MessageId.of("reply")).orElseThrow();
+            assertEquals(10, stored.parts().size());
+            assertThrows(IllegalArgumentException.class,
+                    () -> conversation.appendMessagePart(info, new TextMessagePart("late")));
+        }
+
+        @Test
+        @DisplayName("Explicit flush persists open message deltas")
+        void flushOpenMessage() throws IOException {
+            MessageInfo info = assistantInfo("reply");
+            conversation.appendMessagePart(info, new TextMessagePart("a"));
+            conversation.flush();
+            assertEquals(1, store.getMessage(sessionId, MessageId.of("reply")).orElseThrow().parts().size());
+
+            conversation.appendMessagePart(info, new TextMessagePart("b"));
+            conversation.appendMessagePart(info, new TextMessagePart("c"));
+            conversation.sealMessage(MessageId.of("reply"));
+
+            Message stored = store.getMessage(sessionId, MessageId.of("reply")).orElseThrow();
+            assertEquals("a\nb\nc", stored.content());
+        }
+
+        @Test
+        @DisplayName("Appending a child message seals the open parent")
+        void appendChildSealsOpenMessage() throws IOException {
+            conversation.appendMessagePart(assistantInfo("reply"), new TextMessagePart("answer"));
+            conversation.appendMessage(createMessage("next", "reply"));
+            conversation.flush();
+
+            assertEquals(2, store.getMessageCount(sessionId));
+            assertThrows(IllegalArgumentException.class,
+                    () -> conversation.appendMessagePart(assistantInfo("reply"), new TextMessagePart("late")));
+        }
+
+        @Test
+        @DisplayName("Closed conversation rejects writes instead of dropping them")
+        void closedConversationRejectsWrites() throws IOException {
+            MessageInfo info = assistantInfo("reply");
+            conversation.appendMessagePart(info, new TextMessagePart("a"));
+            conversation.close();
+            assertEquals(1, store.getMessage(sessionId, MessageId.of("reply")).orElseThrow().parts().size());
+
+            assertThrows(IllegalStateException.class,
+                    () -> conversation.appendMessagePart(info, new TextMessagePart("b")));
+            assertThrows(IllegalStateException.class, () -> conversation.sealMessage(MessageId.of("reply")));
+            assertThrows(IllegalStateException.class,
+                    () -> conversation.appendMessage(createMessage("next", "reply")));
+            assertEquals(1, store.getMessage(sessionId, MessageId.of("reply")).orElseThrow().parts().size());
+        }
+    }
+
     // ==================== Edge Case Tests ====================
 
     @Nested
@@ -635,6 +746,27 @@ class InMemoryConversationTest {
             }
         }
 
+        @Test
+        @DisplayName("Branch conversation shares history")
+        void branchConversation() throws IOException {
+            conversation.appendMessage(createMessage("root", null));
+            conversation.appendMessage(createMessage("a", "root"));
+
+            try (Conversation branch = conversation.branch(SessionId.of("branch-session"))) {
+                assertEquals(Optional.of(MessageId.of("a")), branch.currentLeafId());
+                branch.appendMessage(createMessage("b", "a"));
+                conversation.appendMessage(createMessage("c", "a"));
+                branch.flush();
+                conversation.flush();
+
+                assertEquals(List.of("root", "a", "b"), branch.getPathFromRoot(MessageId.of("b")).stream()
+                        .map(message -> message.info().id().value()).toList());
+                assertTrue(conversation.getMessage(MessageId.of("b")).isEmpty());
+                assertEquals(3, store.getMessageCount(SessionId.of("branch-session")));
+                branch.clear();
+            }
+        }
+
         @Test
         @DisplayName("Large message chain with pagination")
         void largeMessageChain() throws IOException {
@@ -666,6 +798,39 @@ class InMemoryConversationTest {
             assertEquals(10, page4.items().size());
             assertFalse(page4.hasMore());
         }
+
+        @Test
+        @DisplayName("Bounded message cache should reload evicted messages from store")
+        void boundedMessageCache() throws IOException {
+            DefaultConversation.ConversationConfig smallCacheConfig =
+                    new DefaultConversation.ConversationConfig()
+                            .messageLoadPageSize(7)
+                            .maxCachedBytes(2048);
+
+            try (DefaultConversation conv = new DefaultConversation(sessionId, store, smallCacheConfig)) {
+                Message prev = null;
+                for (int i = 1; i <= 100; i++) {
+                    String parentId = prev != null ? prev.info().id().value() : null;
+                    prev = createMessage("msg" + i, parentId);
+                    conv.appendMessage(prev);
+                }
+                conv.flush();
+
+                List<Message> forward = new ArrayList<>();
+                conv.forEach(forward::add);
+                assertEquals(100, forward.size());
+                assertEquals("msg1", forward.get(0).info().id().value());
+
+                List<Message> backward = new ArrayList<>();
+                conv.reverse().forEachRemaining(backward::add);
+                assertEquals(100, backward.size());
+                assertEquals("msg100", backward.get(0).info().id().value());
+
+                assertEquals("Content msg3", conv.getMessage(MessageId.of("msg3")).orElseThrow().content());
+                assertTrue(conv.cacheStats().evictionCount() > 0);
+                assertTrue(conv.cacheStats().missCount() > 0);
+            }
+        }
     }
 
     // ==================== Helper Classes ====================
@@ -0,0 +1,250 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.agent.chat.conversation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.metaagent.framework.common.util.PageResult;
+import org.metaagent.framework.core.agent.chat.message.Message;
+import org.metaagent.framework.core.agent.chat.message.MessageId;
+import org.metaagent.framework.core.agent.chat.message.RoleMessage;
+import org.metaagent.framework.core.agent.chat.message.RoleMessageInfo;
+import org.metaagent.framework.core.agent.chat.message.part.TextMessagePart;
+import org.metaagent.framework.core.agent.chat.session.SessionId;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link SegmentedLogConversationStore}.
+ *
+ * @author vyckey
+ */
+class SegmentedLogConversationStoreTest {
+    @TempDir
+    Path tempDir;
+
+    private SessionId sessionId;
+    private SegmentedLogConversationStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        sessionId = SessionId.of("test-session");
+        store = newStore();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    private SegmentedLogConversationStore newStore() throws IOException {
+        return new SegmentedLogConversationStore(tempDir, new SegmentedLogConversationStore.StoreConfig()
+                .maxSegmentBytes(512)
+                .compactionMinStaleBytes(Long.MAX_VALUE));
+    }
+
+    private Message createMessage(String id, String parentId, String content) {
+        return RoleMessage.builder()
+                .info(RoleMessageInfo.user()
+                        .sessionId(sessionId).id(MessageId.of(id))
+                        .parentId(parentId != null ? MessageId.of(parentId) : null)
+                        .build()
+                )
+                .addPart(new TextMessagePart(content))
+                .build();
+    }
+
+    private void appendChain(int count) {
+        for (int i = 0; i < count; i++) {
+            store.appendMessage(sessionId, createMessage("msg" + i, i > 0 ? "msg" + (i - 1) : null, "Content " + i));
+        }
+    }
+
+    private List<String> ids(PageResult<Message> page) {
+        return page.items().stream().map(message -> message.info().id().value()).toList();
+    }
+
+    @Test
+    void appendAndGetMessage() {
+        appendChain(3);
+
+        assertEquals("Content 1", store.getMessage(sessionId, MessageId.of("msg1")).orElseThrow().content());
+        assertEquals("msg2", store.getLastMessage(sessionId).orElseThrow().info().id().value());
+        assertTrue(store.getMessage(sessionId, MessageId.of("missing")).isEmpty());
+        assertEquals(List.of(MessageId.of("msg2")), store.getLeafMessageIds(sessionId));
+    }
+
+    @Test
+    void appendWithInvalidParentShouldThrow() {
+        appendChain(1);
+        assertThrows(IllegalArgumentException.class,
+                () -> store.appendMessage(sessionId, createMessage("msg1", "non-existent", "x")));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.appendMessage(sessionId, createMessage("msg0", null, "duplicate")));
+    }
+
+    @Test
+    void cursorPaging() {
+        appendChain(10);
+
+        PageResult<Message> before = store.loadMessagesBefore(sessionId, MessageId.of("msg7"), 3, null);
+        assertEquals(List.of("msg6", "msg5", "msg4"), ids(before));
+        assertTrue(before.hasMore());
+        before = store.loadMessagesBefore(sessionId, MessageId.of("msg7"), 5, before.nextCursor());
+        assertEquals(List.of("msg3", "msg2", "msg1", "msg0"), ids(before));
+        assertFalse(before.hasMore());
+
+        PageResult<Message> after = store.loadMessagesAfter(sessionId, null, 4, null);
+        assertEquals(List.of("msg0", "msg1", "msg2", "msg3"), ids(after));
+        after = store.loadMessagesAfter(sessionId, null, 10, after.nextCursor());
+        assertEquals(6, after.items().size());
+        assertFalse(after.hasMore());
+    }
+
+    @Test
+    void deleteSubtreeShouldRestoreParentAsLeaf() {
+        appendChain(3);
+        store.appendMessage(sessionId, createMessage("alt", "msg0", "Alternative"));
+
+        Set<MessageId> deleted = store.deleteMessages(sessionId, MessageId.of("msg1"), true);
+        assertEquals(Set.of(MessageId.of("msg1"), MessageId.of("msg2")), deleted);
+        assertEquals(List.of(MessageId.of("alt")), store.getLeafMessageIds(sessionId));
+
+        store.deleteMessages(sessionId, MessageId.of("msg0"), false);
+        assertEquals(List.of(MessageId.of("msg0")), store.getLeafMessageIds(sessionId));
+    }
+
+    @Test
+    void reloadFromDiskAfterUpdateAndCompaction() throws IOException {
+        appendChain(20);
+        store.updateMessage(sessionId, createMessage("msg5", "msg4", "Updated"));
+        store.deleteMessages(sessionId, MessageId.of("msg15"), true);
+        store.compact(sessionId);
+        store.appendMessage(sessionId, createMessage("msg15b", "msg14", "After compaction"));
+        store.close();
+
+        store = newStore();
+        assertEquals("Updated", store.getMessage(sessionId, MessageId.of("msg5")).orElseThrow().content());
+        assertTrue(store.getMessage(sessionId, MessageId.of("msg16")).isEmpty());
+        assertEquals("msg15b", store.getLastMessage(sessionId).orElseThrow().info().id().value());
+        assertEquals(List.of(MessageId.of("msg15b")), store.getLeafMessageIds(sessionId));
+
+        PageResult<Message> page = store.loadMessagesAfter(sessionId, null, 100, null);
+        assertEquals(16, page.items().size());
+    }
+
+    @Test
+    void readAcrossSegmentsBeforeAndAfterCompaction() throws IOException {
+        appendChain(40);
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 40; i++) {
+                assertEquals("Content " + i, store.getMessage(sessionId, MessageId.of("msg" + i)).orElseThrow().content());
+            }
+        }
+
+        store.deleteMessages(sessionId, MessageId.of("msg30"), true);
+        store.compact(sessionId);
+        for (int i = 0; i < 30; i++) {
+            assertEquals("Content " + i, store.getMessage(sessionId, MessageId.of("msg" + i)).orElseThrow().content());
+        }
+        assertEquals(30, store.loadMessagesAfter(sessionId, null, 100, null).items().size());
+
+        Path sessionDirectory = tempDir.resolve("session-" + sessionId.value());
+        try (Stream<Path> files = Files.list(sessionDirectory)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void deleteSession() {
+        appendChain(3);
+        store.deleteMessages(sessionId);
+
+        assertTrue(store.getLastMessage(sessionId).isEmpty());
+        assertTrue(store.getLeafMessageIds(sessionId).isEmpty());
+        appendChain(1);
+        assertEquals("msg0", store.getLastMessage(sessionId).orElseThrow().info().id().value());
+    }
+
+    @Test
+    void forkSharesSegmentsWithSource() throws IOException {
+        appendChain(10);
+        SessionId forkId = SessionId.of("fork-session");
+        store.forkSession(sessionId, MessageId.of("msg6"), forkId);
+        store.appendMessage(forkId, createMessage("fork7", "msg6", "Fork 7"));
+
+        store.deleteMessages(sessionId, MessageId.of("msg3"), true);
+        store.compact(sessionId);
+        store.close();
+
+        store = newStore();
+        PageResult<Message> page = store.loadMessagesAfter(forkId, null, 100, null);
+        assertEquals(List.of("msg0", "msg1", "msg2", "msg3", "msg4", "msg5", "msg6", "fork7"), ids(page));
+        assertEquals(List.of(MessageId.of("fork7")), store.getLeafMessageIds(forkId));
+        assertEquals(List.of("msg0", "msg1", "msg2"), ids(store.loadMessagesAfter(sessionId, null, 100, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.forkSession(sessionId, MessageId.of("msg1"), forkId));
+    }
+
+    @Test
+    void releasedSessionIsReloadedLazily() {
+        appendChain(5);
+        store.releaseSession(sessionId);
+        assertEquals(0, store.loadedSessionCount());
+
+        assertEquals("msg4", store.getLastMessage(sessionId).orElseThrow().info().id().value());
+        assertEquals(1, store.loadedSessionCount());
+        store.releaseSession(sessionId);
+        store.appendMessage(sessionId, createMessage("msg5", "msg4", "After release"));
+        assertEquals(6, store.loadMessagesAfter(sessionId, null, 100, null).items().size());
+    }
+
+    @Test
+    void evictIdleSessions() throws Exception {
+        store.close();
+        store = new SegmentedLogConversationStore(tempDir, new SegmentedLogConversationStore.StoreConfig()
+                .idleEvictionMillis(50));
+        appendChain(3);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (store.loadedSessionCount() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "idle session is not evicted");
+            Thread.sleep(20);
+        }
+        assertEquals("Content 2", store.getMessage(sessionId, MessageId.of("msg2")).orElseThrow().content());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.agent.chat.session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.metaagent.framework.core.agent.chat.conversation.InMemoryConversationStore;
+import org.metaagent.framework.core.agent.chat.message.Message;
+import org.metaagent.framework.core.agent.chat.message.MessageId;
+import org.metaagent.framework.core.agent.chat.message.RoleMessage;
+import org.metaagent.framework.core.agent.chat.message.RoleMessageInfo;
+import org.metaagent.framework.core.agent.chat.message.part.TextMessagePart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link SessionManager}.
+ *
+ * @author vyckey
+ */
+class SessionManagerTest {
+    private InMemoryConversationStore store;
+    private SessionManager sessionManager;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryConversationStore();
+        sessionManager = new SessionManager(store, new SessionManager.ManagerConfig()
+                .maxResidentSessions(2)
+                .idleTtlMillis(60_000));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionManager.close();
+    }
+
+    private Message createMessage(SessionId sessionId, String id) {
+        return RoleMessage.builder()
+                .info(RoleMessageInfo.user().sessionId(sessionId).id(MessageId.of(id)).build())
+                .addPart(new TextMessagePart("Content " + id))
+                .build();
+    }
+
+    @Test
+    void hibernateLeastRecentlyUsedAndRehydrate() {
+        for (int i = 0; i < 4; i++) {
+            Session session = sessionManager.createSession(SessionId.of("session" + i), null, "Session " + i);
+            session.conversation().appendMessage(createMessage(session.id(), "msg" + i));
+        }
+
+        SessionManager.Stats stats = sessionManager.stats();
+        assertEquals(2, stats.residentSessions());
+        assertEquals(2, stats.hibernatedSessions());
+        // Hibernated conversations have been flushed to the store
+        assertEquals(1, store.getMessageCount(SessionId.of("session0")));
+
+        Session session = sessionManager.getSession(SessionId.of("session0"));
+        assertEquals("Content msg0", session.conversation().lastMessage().orElseThrow().content());
+        assertEquals(2, sessionManager.stats().residentSessions());
+    }
+
+    @Test
+    void busySessionIsNotHibernated() {
+        Session session = sessionManager.getOrCreateSession(SessionId.of("busy"));
+        session.conversation();
+        session.setStatus(SessionStatus.BUSY);
+        sessionManager.createSession(SessionId.of("other1"), null, "Other").conversation();
+        sessionManager.createSession(SessionId.of("other2"), null, "Other").conversation();
+
+        SessionManager.Stats stats = sessionManager.stats();
+        assertEquals(2, stats.residentSessions());
+        assertEquals(1, stats.hibernationCount());
+        assertFalse(sessionManager.findSession(SessionId.of("missing")).isPresent());
+        assertThrows(SessionNotFoundException.class, () -> sessionManager.getSession(SessionId.of("missing")));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.core.agents.llm;
+
+import org.junit.jupiter.api.Test;
+import org.metaagent.framework.core.agent.chat.message.part.MessagePart;
+import org.metaagent.framework.core.agent.chat.message.part.MessagePartId;
+import org.metaagent.framework.core.agents.llm.context.LlmAgentStepContext;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the streaming message handling of {@link LlmStreamingAgent}.
+ *
+ * @author vyckey
+ */
+class LlmStreamingAgentTest {
+    private final LlmStreamingAgent agent = new LlmStreamingAgent("test-agent");
+    private final LlmAgentStepContext stepContext = new LlmAgentStepContext();
+
+    private static ChatResponse chunk(AssistantMessage message, String finishReason) {
+        Generation generation = new Generation(message,
+                ChatGenerationMetadata.builder().finishReason(finishReason).build());
+        return new ChatResponse(List.of(generation), ChatResponseMetadata.builder().build());
+    }
+
+    private static ChatResponse textChunk(String text) {
+        return chunk(AssistantMessage.builder().content(text).build(), null);
+    }
+
+    private List<MessagePart> stream(ChatResponse chatResponse) {
+        return agent.parseOutputMessageParts(chatResponse, stepContext, MessagePartId::next);
+    }
+
+    @Test
+    void streamedDeltasAreCommittedAsOneAssistantMessage() {
+        assertEquals(1, stream(textChunk("Hello")).size());
+        assertEquals(1, stream(textChunk(", ")).size());
+        assertEquals(1, stream(chunk(AssistantMessage.builder().content("world").build(), "STOP")).size());
+        assertTrue(stepContext.getNewMessages().isEmpty());
+
+        agent.commitStreamingMessage(stepContext);
+
+        List<Message> newMessages = stepContext.getNewMessages();
+        assertEquals(1, newMessages.size());
+        AssistantMessage message = assertInstanceOf(AssistantMessage.class, newMessages.get(0));
+        assertEquals("Hello, world", message.getText());
+        assertTrue(message.getToolCalls().isEmpty());
+        assertTrue(stepContext.isFinished());
+    }
+
+    @Test
+    void toolCallsAreAggregatedIntoTheAssistantMessage() {
+        stream(textChunk("Let me check "));
+        stream(textChunk("the weather."));
+        AssistantMessage.ToolCall toolCall = new AssistantMessage.ToolCall(
+                "call-1", "function", "get_weather", "{\"city\":\"Paris\"}");
+        stream(chunk(AssistantMessage.builder().toolCalls(List.of(toolCall)).build(), "TOOL_CALLS"));
+
+        agent.commitStreamingMessage(stepContext);
+
+        AssistantMessage message = assertInstanceOf(AssistantMessage.class, stepContext.getNewMessages().get(0));
+        assertEquals("Let me check the weather.", message.getText());
+        assertEquals(List.of(toolCall), message.getToolCalls());
+    }
+
+    @Test
+    void eachModelTurnIsCommittedOnce() {
+        agent.commitStreamingMessage(stepContext);
+        assertTrue(stepContext.getNewMessages().isEmpty());
+
+        stream(textChunk("first turn"));
+        agent.commitStreamingMessage(stepContext);
+        agent.commitStreamingMessage(stepContext);
+        stream(textChunk("second turn"));
+        agent.commitStreamingMessage(stepContext);
+
+        List<String> texts = stepContext.getNewMessages().stream()
+                .map(message -> ((AssistantMessage) message).getText())
+                .toList();
+        assertEquals(List.of("first turn", "second turn"), texts);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.core.agents.llm.message;
+
+import org.junit.jupiter.api.Test;
+import org.metaagent.framework.core.agent.chat.conversation.DefaultConversation;
+import org.metaagent.framework.core.agent.chat.conversation.InMemoryConversationStore;
+import org.metaagent.framework.core.agent.chat.message.Message;
+import org.metaagent.framework.core.agent.chat.message.MessageId;
+import org.metaagent.framework.core.agent.chat.message.RoleMessage;
+import org.metaagent.framework.core.agent.chat.message.RoleMessageInfo;
+import org.metaagent.framework.core.agent.chat.message.part.TextMessagePart;
+import org.metaagent.framework.core.agent.chat.session.SessionId;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for {@link MessageConversionCache}.
+ *
+ * @author vyckey
+ */
+class MessageConversionCacheTest {
+    private static final Instant CREATED_AT = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final MessageConversionCache cache = new MessageConversionCache();
+    private final AtomicInteger conversions = new AtomicInteger();
+    private final Function<Message, List<org.springframework.ai.chat.messages.Message>> converter = message -> {
+        conversions.incrementAndGet();
+        return List.of(UserMessage.builder().text(message.info().id().value()).build());
+    };
+
+    private static Message message(SessionId sessionId, String id, Instant updatedAt, String... texts) {
+        return message(sessionId, id, null, updatedAt, texts);
+    }
+
+    private static Message message(SessionId sessionId, String id, String parentId, Instant updatedAt, String... texts) {
+        RoleMessage.Builder builder = RoleMessage.builder()
+                .info(RoleMessageInfo.user().id(MessageId.of(id))
+                        .createdAt(CREATED_AT).updatedAt(updatedAt)
+                        .parentId(parentId != null ? MessageId.of(parentId) : null)
+                        .sessionId(sessionId)
+                        .build());
+        for (String text : texts) {
+            builder.addPart(new TextMessagePart(text));
+        }
+        return builder.build();
+    }
+
+    @Test
+    void hitSameRevision() {
+        SessionId sessionId = SessionId.of("session");
+        Message message = message(sessionId, "msg1", CREATED_AT, "hello");
+
+        List<org.springframework.ai.chat.messages.Message> converted = cache.get(message, converter);
+        assertSame(converted, cache.get(message, converter));
+        assertEquals(1, conversions.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void missNewRevision() {
+        SessionId sessionId = SessionId.of("session");
+        cache.get(message(sessionId, "msg1", CREATED_AT, "hello"), converter);
+        cache.get(message(sessionId, "msg1", CREATED_AT, "hello", "world"), converter);
+        cache.get(message(sessionId, "msg1", CREATED_AT.plusSeconds(1), "hello", "world"), converter);
+        assertEquals(3, conversions.get());
+    }
+
+    @Test
+    void invalidateSession() {
+        SessionId sessionId = SessionId.of("session");
+        SessionId otherSessionId = SessionId.of("other");
+        Message message = message(sessionId, "msg1", CREATED_AT, "hello");
+        cache.get(message, converter);
+        cache.get(message(otherSessionId, "msg1", CREATED_AT, "hello"), converter);
+
+        cache.invalidate(sessionId);
+        assertEquals(1, cache.size());
+        cache.get(message, converter);
+        assertEquals(3, conversions.get());
+    }
+
+    @Test
+    void invalidateOnConversationChanges() throws Exception {
+        SessionId sessionId = SessionId.of("session");
+        DefaultConversation conversation = new DefaultConversation(sessionId, new InMemoryConversationStore());
+        conversation.addListener(cache);
+        Message message1 = message(sessionId, "msg1", CREATED_AT, "hello");
+        Message message2 = message(sessionId, "msg2", "msg1", CREATED_AT, "world");
+        conversation.appendMessage(message1);
+        conversation.appendMessage(message2);
+
+        cache.get(message1, converter);
+        cache.get(message2, converter);
+        assertEquals(2, cache.size());
+
+        conversation.updateMessage(message(sessionId, "msg2", "msg1", CREATED_AT, "edited"));
+        assertEquals(0, cache.size());
+
+        cache.get(message1, converter);
+        conversation.deleteMessagesAfter(MessageId.of("msg2"), true);
+        assertEquals(0, cache.size());
+
+        cache.get(message1, converter);
+        conversation.close();
+        assertEquals(0, cache.size());
+    }
+}
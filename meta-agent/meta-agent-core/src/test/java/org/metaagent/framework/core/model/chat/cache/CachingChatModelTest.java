@@ -0,0 +1,179 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.chat.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link CachingChatModel}.
+ *
+ * @author vyckey
+ */
+class CachingChatModelTest {
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final ChatModel countingModel = prompt -> {
+        int call = calls.incrementAndGet();
+        AssistantMessage message = AssistantMessage.builder()
+                .content("answer " + call + " to " + prompt.getContents())
+                .toolCalls(List.of(new AssistantMessage.ToolCall("call-" + call, "function", "search", "{}")))
+                .build();
+        return new ChatResponse(List.of(new Generation(message)),
+                ChatResponseMetadata.builder().model("fake").usage(new DefaultUsage(10, 5)).build());
+    };
+
+    private static Prompt prompt(String text, double temperature) {
+        return new Prompt(text, ChatOptions.builder().model("fake").temperature(temperature).build());
+    }
+
+    @Test
+    void repeatedCallIsServedFromMemory() {
+        CachingChatModel model = new CachingChatModel(countingModel);
+
+        ChatResponse first = model.call(prompt("hello", 0));
+        ChatResponse second = model.call(prompt("hello", 0));
+        assertEquals(1, calls.get());
+        assertEquals(first.getResult().getOutput().getText(), second.getResult().getOutput().getText());
+        assertNull(first.getMetadata().get(CachingChatModel.CACHE_HIT_KEY));
+
+        model.call(prompt("hello", 0.5));
+        model.call(prompt("hello again", 0));
+        assertEquals(3, calls.get());
+
+        CachingChatModel.Stats stats = model.stats();
+        assertEquals(1, stats.memoryHits());
+        assertEquals(3, stats.misses());
+        assertEquals(0.25, stats.hitRatio(), 1e-9);
+    }
+
+    @Test
+    void diskTierSurvivesRestart() {
+        CachingChatModel.CacheConfig config = new CachingChatModel.CacheConfig().directory(tempDir);
+        ChatResponse response = new CachingChatModel(countingModel, config).call(prompt("hello", 0));
+
+        CachingChatModel restarted = new CachingChatModel(countingModel, config);
+        ChatResponse replayed = restarted.call(prompt("hello", 0));
+        assertEquals(1, calls.get());
+        assertEquals(1, restarted.stats().diskHits());
+        assertEquals(response.getResult().getOutput().getText(), replayed.getResult().getOutput().getText());
+        assertEquals(response.getResult().getOutput().getToolCalls(), replayed.getResult().getOutput().getToolCalls());
+        assertEquals(15, replayed.getMetadata().getUsage().getTotalTokens().intValue());
+        assertEquals(Boolean.TRUE, replayed.getMetadata().get(CachingChatModel.CACHE_HIT_KEY));
+    }
+
+    @Test
+    void diskTierEvictsBeyondSizeLimit() {
+        CachingChatModel model = new CachingChatModel(countingModel, new CachingChatModel.CacheConfig()
+                .directory(tempDir).maxMemoryEntries(0).maxDiskBytes(1000));
+        for (int i = 0; i < 20; i++) {
+            model.call(prompt("question " + i, 0));
+        }
+        CachingChatModel.Stats stats = model.stats();
+        assertTrue(stats.diskBytes() <= 1000);
+        assertTrue(stats.diskEntries() < 20);
+
+        model.call(prompt("question 19", 0));
+        assertEquals(20, calls.get());
+        assertEquals(1, model.stats().diskHits());
+    }
+
+    @Test
+    void streamIsCachedWithoutResultlessChunks() {
+        ChatModel streamingModel = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Flux<ChatResponse> stream(Prompt prompt) {
+                calls.incrementAndGet();
+                ChatResponse usageChunk = new ChatResponse(List.of(),
+                        ChatResponseMetadata.builder().usage(new DefaultUsage(10, 5)).build());
+                return Flux.just(chunk("Hello"), chunk(" world"), usageChunk);
+            }
+        };
+        CachingChatModel model = new CachingChatModel(streamingModel);
+
+        assertEquals(3, model.stream(prompt("hello", 0)).collectList().block().size());
+        List<ChatResponse> replayed = model.stream(prompt("hello", 0)).collectList().block();
+        assertEquals(1, calls.get());
+        assertEquals(List.of("Hello", " world"),
+                replayed.stream().map(response -> response.getResult().getOutput().getText()).toList());
+    }
+
+    private static ChatResponse chunk(String text) {
+        return new ChatResponse(List.of(new Generation(AssistantMessage.builder().content(text).build())));
+    }
+
+    @Test
+    void diskHitExpiresWithItsCreationTime() throws InterruptedException {
+        CachingChatModel.CacheConfig config = new CachingChatModel.CacheConfig()
+                .directory(tempDir).ttl(600, TimeUnit.MILLISECONDS);
+        new CachingChatModel(countingModel, config).call(prompt("hello", 0));
+        Thread.sleep(400);
+
+        CachingChatModel restarted = new CachingChatModel(countingModel, config);
+        restarted.call(prompt("hello", 0));
+        assertEquals(1, restarted.stats().diskHits());
+
+        // Loading the entry from disk does not extend its time to live in memory
+        Thread.sleep(400);
+        restarted.call(prompt("hello", 0));
+        assertEquals(2, calls.get());
+        assertEquals(0, restarted.stats().memoryHits());
+    }
+
+    @Test
+    void deterministicOnlySkipsSampledCalls() {
+        CachingChatModel model = new CachingChatModel(countingModel,
+                new CachingChatModel.CacheConfig().deterministicOnly(true));
+        model.call(prompt("hello", 0.7));
+        model.call(prompt("hello", 0.7));
+        assertEquals(2, calls.get());
+        assertEquals(2, model.stats().bypassed());
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.chat.compression;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.metaagent.framework.core.agent.chat.message.MessageMetadataKeys;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link IncrementalCompressionModel}.
+ *
+ * @author vyckey
+ */
+class IncrementalCompressionModelTest {
+    private static final int TOKENS_PER_MESSAGE = 10;
+
+    private SummarizingModel delegate;
+    private IncrementalCompressionModel model;
+    private final List<Message> messages = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        delegate = new SummarizingModel();
+        model = new IncrementalCompressionModel(delegate,
+                new IncrementalCompressionModel.CompressionConfig().softThresholdRatio(0.5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        delegate.release.countDown();
+        model.close();
+    }
+
+    private CompressionResult compress(int maxTokens) {
+        CompressOptions options = DefaultCompressOptions.builder()
+                .maxTokens(maxTokens).reservedMessagesCount(2).build();
+        return model.call(new CompressionRequest(List.copyOf(messages), options)).getResult();
+    }
+
+    private void appendMessages(int count) {
+        for (int i = 0; i < count; i++) {
+            messages.add(UserMessage.builder().text("message " + messages.size()).build());
+        }
+    }
+
+    @Test
+    void summarizesInBackgroundAfterSoftThreshold() throws Exception {
+        appendMessages(4);
+        assertFalse(compress(100).isCompressed());
+        assertEquals(0, model.stats().backgroundCompressions());
+
+        // 60 tokens cross the soft threshold, the caller does not wait for the summary
+        appendMessages(2);
+        assertFalse(compress(100).isCompressed());
+        assertEquals(1, model.stats().backgroundCompressions());
+        delegate.release.countDown();
+        delegate.awaitCalls(1);
+
+        // The next call swaps in the cached summary of the first four messages
+        CompressionResult result = compress(100);
+        assertTrue(result.isCompressed());
+        assertEquals("summary of 4", result.getSummary().getText());
+        assertEquals(4, result.getRemovedMessages().size());
+        assertEquals(2, result.getRetainedMessages().size());
+        assertEquals(0, model.stats().blockingCompressions());
+    }
+
+    @Test
+    void extendsPreviousSummaryWithNewMessagesOnly() throws Exception {
+        delegate.release.countDown();
+        appendMessages(6);
+        compress(100);
+        delegate.awaitCalls(1);
+
+        // Summary (10) and retained messages reach the soft threshold again
+        appendMessages(3);
+        CompressionResult result = compress(100);
+        assertEquals("summary of 4", result.getSummary().getText());
+        delegate.awaitCalls(2);
+
+        List<Message> input = delegate.inputs.get(1);
+        assertEquals(List.of("summary of 4", "message 4", "message 5", "message 6"),
+                input.stream().map(Message::getText).toList());
+        assertEquals("summary of 7", compress(100).getSummary().getText());
+    }
+
+    @Test
+    void blocksOnlyWhenHardLimitIsReached() {
+        delegate.release.countDown();
+        appendMessages(12);
+
+        CompressionResult result = compress(100);
+        assertTrue(result.isCompressed());
+        assertEquals("summary of 10", result.getSummary().getText());
+        assertEquals(true, result.getSummary().getMetadata().get(MessageMetadataKeys.KEY_COMPRESSION_SUMMARY));
+        assertEquals(1, model.stats().blockingCompressions());
+    }
+
+    @Test
+    void fallBackToUncompressedWhenBlockingCompressionFails() {
+        delegate.failing = true;
+        delegate.release.countDown();
+        appendMessages(12);
+
+        CompressionResult result = compress(100);
+        assertFalse(result.isCompressed());
+        assertEquals(12, result.getRetainedMessages().size());
+        assertEquals(1, model.stats().blockingCompressions());
+        assertEquals(1, model.stats().failedCompressions());
+    }
+
+    /**
+     * Summarizes any request into one message once released, and records its inputs.
+     */
+    private static class SummarizingModel implements CompressionModel {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<List<Message>> inputs = new CopyOnWriteArrayList<>();
+        private volatile boolean failing;
+
+        @Override
+        public int countTokens(List<Message> messages) {
+            return messages.size() * TOKENS_PER_MESSAGE;
+        }
+
+        @Override
+        public CompressionResponse call(CompressionRequest compressionRequest) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failing) {
+                throw new IllegalStateException("Summarization failed");
+            }
+            List<Message> messages = compressionRequest.getInstructions();
+            String previous = messages.get(0).getText();
+            int count = messages.size() + (previous.startsWith("summary of ")
+                    ? Integer.parseInt(previous.substring("summary of ".length())) - 1 : 0);
+            CompressionResult result = DefaultCompressionResult.builder()
+                    .compressed(true)
+                    .summary(AssistantMessage.builder().content("summary of " + count).build())
+                    .removedMessages(messages)
+                    .retainedMessages(List.of())
+                    .build();
+            inputs.add(List.copyOf(messages));
+            return new CompressionResponse(List.of(result));
+        }
+
+        void awaitCalls(int calls) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (inputs.size() < calls && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            // The summary is cached right after the call returns
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.chat.routing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link RoutingChatModel}.
+ *
+ * @author vyckey
+ */
+class RoutingChatModelTest {
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(AssistantMessage.builder().content(text).build())));
+    }
+
+    private static ChatModel respondingModel(String text) {
+        return prompt -> response(text);
+    }
+
+    private static ChatModel failingModel(AtomicInteger calls) {
+        return prompt -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("unavailable");
+        };
+    }
+
+    private static ChatModel failingStreamModel(String name, List<String> calls) {
+        return new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                throw new IllegalStateException(name + " unavailable");
+            }
+
+            @Override
+            public Flux<ChatResponse> stream(Prompt prompt) {
+                calls.add(name);
+                return Flux.error(new IllegalStateException(name + " unavailable"));
+            }
+        };
+    }
+
+    private static String call(RoutingChatModel model) {
+        return model.call(new Prompt("hello")).getResult().getOutput().getText();
+    }
+
+    private static Map<String, RoutingChatModel.EndpointStats> stats(RoutingChatModel model) {
+        return model.stats().stream().collect(Collectors.toMap(RoutingChatModel.EndpointStats::name, stats -> stats));
+    }
+
+    @Test
+    void failsOverToNextEndpoint() {
+        AtomicInteger failedCalls = new AtomicInteger();
+        RoutingChatModel model = new RoutingChatModel(List.of(
+                ModelEndpoint.builder().name("primary").chatModel(failingModel(failedCalls)).weight(100).build(),
+                ModelEndpoint.of("secondary", respondingModel("from secondary"))
+        ), new RoutingChatModel.RouterConfig().balancing(RoutingChatModel.Balancing.WEIGHTED_RANDOM));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("from secondary", call(model));
+        }
+        Map<String, RoutingChatModel.EndpointStats> stats = stats(model);
+        assertEquals(failedCalls.get(), stats.get("primary").failures());
+        assertEquals(5, stats.get("secondary").calls());
+        assertEquals(0, stats.get("secondary").outstanding());
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailures() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        ChatModel flaky = prompt -> {
+            if (calls.incrementAndGet() <= 2) {
+                throw new IllegalStateException("unavailable");
+            }
+            return response("recovered");
+        };
+        RoutingChatModel model = new RoutingChatModel(List.of(ModelEndpoint.of("flaky", flaky)),
+                new RoutingChatModel.RouterConfig().failureThreshold(2).openDurationMillis(50));
+
+        assertThrows(IllegalStateException.class, () -> call(model));
+        assertThrows(IllegalStateException.class, () -> call(model));
+        assertEquals(CircuitBreaker.State.OPEN, model.stats().get(0).state());
+        assertThrows(ModelRoutingException.class, () -> call(model));
+        assertEquals(2, calls.get());
+
+        Thread.sleep(100);
+        assertEquals("recovered", call(model));
+        assertEquals(CircuitBreaker.State.CLOSED, model.stats().get(0).state());
+    }
+
+    @Test
+    void rateLimitSpreadsCallsAndRejectsWhenExhausted() {
+        RoutingChatModel model = new RoutingChatModel(List.of(
+                ModelEndpoint.builder().name("a").chatModel(respondingModel("a")).requestsPerMinute(1).build(),
+                ModelEndpoint.builder().name("b").chatModel(respondingModel("b")).requestsPerMinute(1).build()
+        ), new RoutingChatModel.RouterConfig().maxWaitMillis(0));
+
+        String first = call(model);
+        String second = call(model);
+        assertTrue(first.equals("a") && second.equals("b") || first.equals("b") && second.equals("a"));
+        assertThrows(ModelRoutingException.class, () -> call(model));
+    }
+
+    @Test
+    void weightedRandomFollowsWeights() {
+        RoutingChatModel model = new RoutingChatModel(List.of(
+                ModelEndpoint.builder().name("light").chatModel(respondingModel("light")).weight(1).build(),
+                ModelEndpoint.builder().name("heavy").chatModel(respondingModel("heavy")).weight(9).build()
+        ), new RoutingChatModel.RouterConfig().balancing(RoutingChatModel.Balancing.WEIGHTED_RANDOM));
+
+        for (int i = 0; i < 1000; i++) {
+            call(model);
+        }
+        assertTrue(stats(model).get("heavy").calls() > 800);
+    }
+
+    @Test
+    void hedgedStreamSurfacesErrorOfPrimary() {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        RoutingChatModel model = new RoutingChatModel(List.of(
+                ModelEndpoint.of("a", failingStreamModel("a", calls)),
+                ModelEndpoint.of("b", failingStreamModel("b", calls))
+        ), new RoutingChatModel.RouterConfig().maxAttempts(1).hedgeDelayMillis(10));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> model.stream(new Prompt("hello")).blockLast());
+        assertEquals(2, calls.size());
+        assertEquals(calls.get(0) + " unavailable", error.getMessage());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.model.token;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link BpeTokenizer} and {@link CachingTokenCounter}.
+ *
+ * @author vyckey
+ */
+class BpeTokenizerTest {
+
+    @Test
+    void encodeAndDecodeRoundTrip() {
+        BpeTokenizer tokenizer = BpeTokenizer.defaultTokenizer();
+        for (String text : List.of("Hello, world! How are you today?",
+                "public static void main(String[] args) { return; }",
+                "你好，世界。こんにちは 안녕하세요", "emoji 🙂 and tabs\t\n")) {
+            List<Integer> tokens = tokenizer.encode(text);
+            assertEquals(text, tokenizer.decode(tokens));
+            assertEquals(tokens.size(), tokenizer.countTokens(text));
+        }
+    }
+
+    @Test
+    void countTokensFewerThanCharacters() {
+        BpeTokenizer tokenizer = BpeTokenizer.defaultTokenizer();
+        String text = "The conversation is compressed when the token count exceeds the threshold.";
+        assertTrue(tokenizer.countTokens(text) < text.length() / 2);
+        assertEquals(0, tokenizer.countTokens(""));
+    }
+
+    @Test
+    void countNaturalLanguageCloseToModelVocabulary() {
+        BpeTokenizer tokenizer = BpeTokenizer.defaultTokenizer();
+        // Token counts of the cl100k_base encoding
+        Map<String, Integer> references = Map.of(
+                "The quick brown fox jumps over the lazy dog.", 10,
+                "Hello, world! How are you today?", 9,
+                "Please summarize the following article about climate change and its effects on agriculture"
+                        + " in developing countries.", 17,
+                "She walked into the kitchen, poured herself a cup of coffee, and sat down by the window"
+                        + " to read the morning newspaper before her children woke up.", 30,
+                "Machine learning models are trained on large datasets to recognize patterns and make predictions"
+                        + " about new information. When the conversation grows too long, older messages are summarized"
+                        + " so that the most recent turns still fit into the context window of the model.", 45);
+
+        int expected = references.values().stream().mapToInt(Integer::intValue).sum();
+        int actual = references.keySet().stream().mapToInt(tokenizer::countTokens).sum();
+        assertTrue(actual >= expected * 0.9 && actual <= expected * 1.25,
+                "expected about " + expected + " tokens but counted " + actual);
+    }
+
+    @Test
+    void countCjkTextCloseToModelVocabulary() {
+        BpeTokenizer tokenizer = BpeTokenizer.defaultTokenizer();
+        // cl100k_base takes about 1 to 2 tokens per CJK character, a byte level fallback takes 3
+        List<String> texts = List.of(
+                "今天天气很好，我们一起去公园散步吧。",
+                "会话过长时，较早的消息会被压缩成摘要。",
+                "このツールはファイルの内容を検索します。",
+                "東京は日本の首都です。",
+                "오늘 날씨가 정말 좋네요.");
+        for (String text : texts) {
+            int characters = text.codePointCount(0, text.length());
+            int tokens = tokenizer.countTokens(text);
+            assertTrue(tokens >= characters * 0.7 && tokens <= characters * 2,
+                    "counted " + tokens + " tokens for " + characters + " characters of " + text);
+        }
+    }
+
+    @Test
+    void countSourceCodeCloseToModelVocabulary() {
+        BpeTokenizer tokenizer = BpeTokenizer.defaultTokenizer();
+        // cl100k_base averages about 3 to 4 characters per token on source code
+        List<String> snippets = List.of(
+                "public static void main(String[] args) {\n    System.out.println(\"Hello, world!\");\n}\n",
+                "for (int i = 0; i < items.size(); i++) {\n    total += items.get(i).getPrice();\n}\n",
+                "def fibonacci(n):\n    if n < 2:\n        return n\n    return fibonacci(n - 1) + fibonacci(n - 2)\n",
+                "SELECT id, name FROM users WHERE created_at > NOW() - INTERVAL 1 DAY;");
+
+        int characters = snippets.stream().mapToInt(String::length).sum();
+        int tokens = snippets.stream().mapToInt(tokenizer::countTokens).sum();
+        double charactersPerToken = (double) characters / tokens;
+        assertTrue(charactersPerToken >= 2.5 && charactersPerToken <= 5,
+                "counted " + tokens + " tokens for " + characters + " characters of source code");
+    }
+
+    @Test
+    void cachingCounterMemoizesLongTexts() {
+        AtomicInteger calls = new AtomicInteger();
+        TokenCounter delegate = text -> {
+            calls.incrementAndGet();
+            return text.length();
+        };
+        CachingTokenCounter counter = new CachingTokenCounter(delegate, 8, 1024);
+
+        String longText = "a long enough text to be cached";
+        assertEquals(longText.length(), counter.countTokens(longText));
+        assertEquals(longText.length(), counter.countTokens(longText));
+        assertEquals(1, calls.get());
+
+        counter.countTokens("short");
+        counter.countTokens("short");
+        assertEquals(3, calls.get());
+        assertEquals(1, counter.cacheSize());
+
+        String otherText = "a long enough text to be cached!";
+        assertEquals(otherText.length(), counter.countTokens(otherText));
+        assertEquals(4, calls.get());
+        assertEquals(2, counter.cacheSize());
+    }
+}
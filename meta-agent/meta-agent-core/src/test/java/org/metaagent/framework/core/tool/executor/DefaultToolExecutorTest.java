@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.core.tool.executor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.metaagent.framework.core.agent.MetaAgent;
+import org.metaagent.framework.core.security.SecurityLevel;
+import org.metaagent.framework.core.tool.Tool;
+import org.metaagent.framework.core.tool.ToolContext;
+import org.metaagent.framework.core.tool.converter.ToolConverter;
+import org.metaagent.framework.core.tool.converter.ToolConverters;
+import org.metaagent.framework.core.tool.definition.ToolDefinition;
+import org.metaagent.framework.core.tool.exception.ToolExecutionException;
+import org.metaagent.framework.core.tool.manager.ToolManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link DefaultToolExecutor}.
+ *
+ * @author vyckey
+ */
+class DefaultToolExecutorTest {
+    private final ExecutorService parallelExecutor = DefaultToolExecutor.createParallelExecutor(4);
+    private final DefaultToolExecutor toolExecutor = new DefaultToolExecutor(parallelExecutor);
+    private final MetaAgent<?, ?> agent = mock(MetaAgent.class);
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        parallelExecutor.shutdownNow();
+    }
+
+    private BatchToolInputs batch(ToolManager toolManager, String... toolNames) {
+        List<BatchToolInputs.ToolInput> inputs = new ArrayList<>();
+        for (int i = 0; i < toolNames.length; i++) {
+            ToolContext toolContext = ToolContext.builder()
+                    .agent(agent)
+                    .toolManager(toolManager)
+                    .securityLevel(SecurityLevel.UNRESTRICTED_DANGEROUSLY)
+                    .executionId("call-" + i)
+                    .build();
+            inputs.add(new BatchToolInputs.ToolInput(toolContext, toolNames[i], "input-" + i));
+        }
+        return new BatchToolInputs(inputs);
+    }
+
+    private static void assertOutputsInOrder(BatchToolOutputs outputs, String... toolNames) {
+        assertEquals(toolNames.length, outputs.outputs().size());
+        for (int i = 0; i < toolNames.length; i++) {
+            BatchToolOutputs.ToolOutput output = outputs.outputs().get(i);
+            assertEquals("call-" + i, output.id());
+            assertEquals(toolNames[i], output.toolName());
+            assertEquals(toolNames[i] + ":input-" + i, output.output());
+            assertFalse(output.hasError(), output.output());
+        }
+    }
+
+    @Test
+    void safeCallsRunInParallel() {
+        // Each call waits for the others, so the batch only succeeds if all of them run at the same time
+        CyclicBarrier barrier = new CyclicBarrier(3);
+        ToolManager toolManager = ToolManager.fromTools(
+                new TestTool("a", true, () -> barrier.await(5, TimeUnit.SECONDS)),
+                new TestTool("b", true, () -> barrier.await(5, TimeUnit.SECONDS)),
+                new TestTool("c", true, () -> barrier.await(5, TimeUnit.SECONDS)));
+
+        BatchToolOutputs outputs = toolExecutor.execute(batch(toolManager, "a", "b", "c"));
+        assertOutputsInOrder(outputs, "a", "b", "c");
+    }
+
+    @Test
+    void unsafeCallIsBarrier() {
+        ToolManager toolManager = ToolManager.fromTools(
+                new TestTool("a", true, () -> Thread.sleep(50)),
+                new TestTool("b", true, () -> Thread.sleep(20)),
+                new TestTool("write", false, () -> Thread.sleep(20)),
+                new TestTool("c", true, () -> Thread.sleep(20)),
+                new TestTool("d", true, () -> Thread.sleep(20)));
+
+        BatchToolOutputs outputs = toolExecutor.execute(batch(toolManager, "a", "b", "write", "c", "d"));
+        assertOutputsInOrder(outputs, "a", "b", "write", "c", "d");
+
+        int writeStart = events.indexOf("start:write");
+        int writeEnd = events.indexOf("end:write");
+        assertEquals(writeStart + 1, writeEnd, events.toString());
+        assertTrue(events.indexOf("end:a") < writeStart, events.toString());
+        assertTrue(events.indexOf("end:b") < writeStart, events.toString());
+        assertTrue(events.indexOf("start:c") > writeEnd, events.toString());
+        assertTrue(events.indexOf("start:d") > writeEnd, events.toString());
+    }
+
+    @Test
+    void outputsKeepInputOrder() {
+        ToolManager toolManager = ToolManager.fromTools(
+                new TestTool("slow", true, () -> Thread.sleep(100)),
+                new TestTool("medium", true, () -> Thread.sleep(50)),
+                new TestTool("fast", true, () -> {
+                }));
+
+        BatchToolOutputs outputs = toolExecutor.execute(batch(toolManager, "slow", "medium", "fast", "missing"));
+        assertEquals(4, outputs.outputs().size());
+        assertEquals(List.of("slow", "medium", "fast", "missing"),
+                outputs.outputs().stream().map(BatchToolOutputs.ToolOutput::toolName).toList());
+        assertTrue(events.indexOf("end:fast") < events.indexOf("end:slow"), events.toString());
+        assertTrue(outputs.outputs().get(3).hasError());
+        assertEquals("tool not found: missing", outputs.outputs().get(3).output());
+    }
+
+    @Test
+    void runSeriallyWithoutParallelExecutor() {
+        DefaultToolExecutor serialExecutor = new DefaultToolExecutor(null);
+        ToolManager toolManager = ToolManager.fromTools(
+                new TestTool("a", true, () -> Thread.sleep(20)),
+                new TestTool("b", true, () -> {
+                }));
+
+        BatchToolOutputs outputs = serialExecutor.execute(batch(toolManager, "a", "b"));
+        assertOutputsInOrder(outputs, "a", "b");
+        assertEquals(List.of("start:a", "end:a", "start:b", "end:b"), events);
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private class TestTool implements Tool<String, String> {
+        private final ToolDefinition definition;
+        private final Action action;
+
+        TestTool(String name, boolean concurrencySafe, Action action) {
+            this.definition = ToolDefinition.builder(name).description(name)
+                    .isConcurrencySafe(concurrencySafe)
+                    .isReadOnly(concurrencySafe)
+                    .build();
+            this.action = action;
+        }
+
+        @Override
+        public ToolDefinition getDefinition() {
+            return definition;
+        }
+
+        @Override
+        public ToolConverter<String, String> getConverter() {
+            return ToolConverters.stringConverter();
+        }
+
+        @Override
+        public String run(ToolContext context, String input) throws ToolExecutionException {
+            events.add("start:" + getName());
+            try {
+                action.run();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            events.add("end:" + getName());
+            return getName() + ":" + input;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.tool.manager;
+
+import org.junit.jupiter.api.Test;
+import org.metaagent.framework.core.tool.Tool;
+import org.metaagent.framework.core.tool.definition.ToolDefinition;
+import org.metaagent.framework.core.tool.toolkit.DefaultToolkit;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultToolManager}.
+ *
+ * @author vyckey
+ */
+class DefaultToolManagerTest {
+
+    private static Tool<?, ?> mockTool(String name) {
+        Tool<?, ?> tool = mock(Tool.class);
+        when(tool.getName()).thenReturn(name);
+        when(tool.getDefinition()).thenReturn(ToolDefinition.builder(name).description(name).build());
+        return tool;
+    }
+
+    @Test
+    void snapshotIsReusedUntilToolsChange() {
+        DefaultToolManager toolManager = new DefaultToolManager();
+        toolManager.addTool(mockTool("echo"));
+
+        ToolSnapshot snapshot = toolManager.snapshot();
+        assertEquals(Set.of("echo"), snapshot.toolNames());
+        assertSame(snapshot, toolManager.snapshot());
+        Object derived = snapshot.computeIfAbsent("key", s -> new Object());
+        assertSame(derived, toolManager.snapshot().computeIfAbsent("key", s -> new Object()));
+
+        toolManager.addTool(mockTool("grep"));
+        ToolSnapshot newSnapshot = toolManager.snapshot();
+        assertNotSame(snapshot, newSnapshot);
+        assertTrue(newSnapshot.version() > snapshot.version());
+        assertEquals(Set.of("echo", "grep"), newSnapshot.toolNames());
+    }
+
+    @Test
+    void toolkitChangesInvalidateSnapshot() {
+        DefaultToolManager toolManager = new DefaultToolManager();
+        DefaultToolkit toolkit = new DefaultToolkit("files", "File tools");
+        toolManager.addToolkit(toolkit);
+        ToolSnapshot snapshot = toolManager.snapshot();
+        assertTrue(snapshot.toolNames().isEmpty());
+
+        toolkit.addTool(mockTool("read_file"));
+        // the tools of a toolkit are namespaced by its name by default
+        assertEquals(Set.of("files.read_file"), toolManager.snapshot().toolNames());
+
+        long version = toolManager.version();
+        toolManager.removeToolkit(toolkit.getName());
+        assertTrue(toolManager.version() > version);
+        assertTrue(toolManager.snapshot().toolNames().isEmpty());
+
+        toolkit.addTool(mockTool("write_file"));
+        assertTrue(toolManager.snapshot().toolNames().isEmpty());
+    }
+
+    @Test
+    void snapshotOnlyHoldsAvailableTools() {
+        DefaultToolManager toolManager = new DefaultToolManager();
+        DefaultToolkit toolkit = new DefaultToolkit("files", "File tools");
+        toolkit.addTool(mockTool("read_file"));
+        toolkit.addTool(mockTool("write_file"));
+        toolManager.addToolkit(toolkit, "read_file");
+
+        assertEquals(Set.of("read_file"), toolManager.snapshot().toolNames());
+    }
+
+    @Test
+    void lookupToolsOfNamespacedToolkit() {
+        DefaultToolManager toolManager = new DefaultToolManager();
+        DefaultToolkit toolkit = new DefaultToolkit("files", "File tools");
+        toolkit.addTool(mockTool("read_file"));
+        toolkit.addTool(mockTool("write_file"));
+        toolManager.addToolkit("fs", toolkit, "read_file");
+
+        assertTrue(toolManager.hasTool("fs.read_file"));
+        assertEquals("fs.read_file", toolManager.getTool("fs.read_file").getName());
+        assertFalse(toolManager.hasTool("fs.write_file"));
+        assertNull(toolManager.getTool("read_file"));
+        assertEquals(Set.of("fs.read_file"), toolManager.getToolNames());
+        assertThrows(IllegalStateException.class, () -> toolManager.addTool(mockTool("fs.read_file")));
+
+        toolManager.removeTool("fs.read_file");
+        assertFalse(toolManager.hasTool("fs.read_file"));
+        assertFalse(toolkit.hasTool("read_file"));
+        assertTrue(toolManager.getToolNames().isEmpty());
+    }
+}
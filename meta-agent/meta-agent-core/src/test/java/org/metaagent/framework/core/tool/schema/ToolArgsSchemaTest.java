@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.core.tool.schema;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ToolArgsSchema}.
+ *
+ * @author vyckey
+ */
+class ToolArgsSchemaTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String SCHEMA = """
+            {"type":"object","properties":{
+              "path":{"type":"string"},
+              "limit":{"type":"integer","minimum":1},
+              "mode":{"type":"string","enum":["FAST","FULL"]},
+              "tags":{"type":"array","items":{"type":"string"},"maxItems":2},
+              "range":{"$ref":"#/$defs/Range"}
+            },"required":["path"],"additionalProperties":false,
+            "$defs":{"Range":{"type":"object","properties":{"start":{"type":"integer"},"end":{"type":"integer"}},"required":["start"]}}}
+            """;
+
+    static class SearchInput {
+        @NotBlank(message = "path is required")
+        private String path;
+        @Min(1)
+        private Integer limit;
+        @JsonProperty("version")
+        @Pattern(regexp = "\\d+\\.\\d+", message = "version must be like 1.0")
+        private String semanticVersion;
+    }
+
+    static class RangeInput {
+        @NotNull
+        private Range from;
+        private Range to;
+    }
+
+    static class Range {
+        private Integer start;
+        private Integer end;
+    }
+
+    private static JsonNode json(String json) throws Exception {
+        return OBJECT_MAPPER.readTree(json);
+    }
+
+    @Test
+    void validArgumentsHaveNoViolations() throws Exception {
+        ToolArgsSchema schema = ToolArgsSchema.compile(json(SCHEMA));
+
+        assertTrue(schema.validate(json("{\"path\":\"src\",\"limit\":10,\"mode\":\"FAST\",\"tags\":[\"a\"],"
+                + "\"range\":{\"start\":1}}")).isEmpty());
+        // numbers given as strings and null values are accepted like the JSON converters do
+        assertTrue(schema.validate(json("{\"path\":\"src\",\"limit\":\"10\",\"mode\":null}")).isEmpty());
+    }
+
+    @Test
+    void reportsAllViolations() throws Exception {
+        ToolArgsSchema schema = ToolArgsSchema.compile(json(SCHEMA));
+
+        List<String> violations = schema.validate(json("{\"limit\":0.5,\"mode\":\"SLOW\",\"tags\":[\"a\",1,{}],"
+                + "\"range\":{\"end\":2},\"extra\":true}"));
+        assertEquals(List.of(
+                "path: is required",
+                "limit: must be of type integer",
+                "mode: must be one of [\"FAST\", \"FULL\"]",
+                "tags: must have at most 2 items",
+                "tags[2]: must be of type string",
+                "range.start: is required",
+                "extra: is not a known property"
+        ), violations);
+    }
+
+    @Test
+    void compilesBeanValidationConstraints() throws Exception {
+        ToolArgsSchema schema = ToolArgsSchema.compile(json("{\"type\":\"object\",\"properties\":{"
+                + "\"path\":{\"type\":\"string\"},\"limit\":{\"type\":\"integer\"},\"version\":{\"type\":\"string\"}}}"),
+                SearchInput.class);
+
+        assertTrue(schema.validate(json("{\"path\":\"src\",\"limit\":3,\"version\":\"1.2\"}")).isEmpty());
+        assertEquals(List.of(
+                "path: path is required",
+                "limit: must be greater than or equal to 1",
+                "version: version must be like 1.0"
+        ), schema.validate(json("{\"limit\":0,\"version\":\"v1.2.3\"}")));
+        assertEquals(List.of("path: path is required"), schema.validate(json("{\"path\":\"  \"}")));
+    }
+
+    @Test
+    void constraintsDoNotLeakIntoPropertiesOfTheSameType() throws Exception {
+        ToolArgsSchema schema = ToolArgsSchema.compile(json("{\"type\":\"object\",\"properties\":{"
+                + "\"from\":{\"$ref\":\"#/$defs/Range\"},\"to\":{\"$ref\":\"#/$defs/Range\"}},"
+                + "\"$defs\":{\"Range\":{\"type\":\"object\",\"properties\":{\"start\":{\"type\":\"integer\"},"
+                + "\"end\":{\"type\":\"integer\"}},\"required\":[\"start\"]}}}"), RangeInput.class);
+
+        assertEquals(List.of("from: must not be null"), schema.validate(json("{\"to\":null}")));
+        assertEquals(List.of("to.start: is required"), schema.validate(json("{\"from\":{\"start\":1},\"to\":{\"end\":2}}")));
+    }
+}
@@ -29,11 +29,15 @@ import org.junit.jupiter.api.Test;
 import org.metaagent.framework.core.tool.ToolContext;
 import org.metaagent.framework.core.tool.converter.ToolConverter;
 import org.metaagent.framework.core.tool.definition.ToolDefinition;
+import org.metaagent.framework.core.tool.exception.ToolArgumentException;
+import org.metaagent.framework.core.tool.exception.ToolExecutionError;
 import org.metaagent.framework.core.tool.exception.ToolExecutionException;
 
 import java.lang.reflect.Method;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -128,6 +132,41 @@ class MethodToolTest {
         assertThrows(ToolExecutionException.class, () -> methodTool.run(context, input));
     }
 
+    @Test
+    void testRunWithGenericAndEnumParameters() throws Exception {
+        Method sumMethod = TestSampleClass.class.getMethod("sumMethod", List.class, TimeUnit.class);
+        MethodTool methodTool = new MethodTool(sumMethod, testSampleObject);
+        ToolContext context = mock(ToolContext.class);
+        Map<String, Object> input = new HashMap<>();
+        input.put("values", List.of(1, 2, 3000000000L));
+        input.put("unit", "SECONDS");
+
+        assertEquals("3000000003 SECONDS", methodTool.run(context, input));
+    }
+
+    @Test
+    void testRunWithOutOfRangeArgument() {
+        MethodTool methodTool = new MethodTool(testMethod, testSampleObject);
+        ToolContext context = mock(ToolContext.class);
+        Map<String, Object> input = new HashMap<>();
+        input.put("param1", "testValue");
+        input.put("param2", 3000000000L);
+
+        assertThrows(ToolArgumentException.class, () -> methodTool.run(context, input));
+    }
+
+    @Test
+    void testRunWithFailingMethod() throws NoSuchMethodException {
+        Method failingMethod = TestSampleClass.class.getMethod("failingMethod", String.class);
+        MethodTool methodTool = new MethodTool(failingMethod, testSampleObject);
+        ToolContext context = mock(ToolContext.class);
+
+        ToolExecutionError error = assertThrows(ToolExecutionError.class,
+                () -> methodTool.run(context, Map.of("kind", "exception")));
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        assertThrows(StackOverflowError.class, () -> methodTool.run(context, Map.of("kind", "error")));
+    }
+
     @Test
     void testToString() throws NoSuchMethodException {
         MethodTool methodTool = new MethodTool(testMethod, testSampleObject);
@@ -26,6 +26,9 @@ package org.metaagent.framework.core.tool.tools.reflect;
 
 import org.metaagent.framework.core.tool.ToolContext;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 public class TestSampleClass {
 
     @FunctionTool(name = "testMethod", description = "A test method for testing purposes")
@@ -46,4 +49,17 @@ public class TestSampleClass {
     public String contextMethod(ToolContext context, String message) {
         return "context: " + context + ", message: " + message;
     }
-}
\ No newline at end of file
+
+    @FunctionTool(name = "sumMethod", description = "A test method with generic and enum parameters")
+    public String sumMethod(List<Long> values, TimeUnit unit) {
+        return values.stream().mapToLong(Long::longValue).sum() + " " + unit;
+    }
+
+    @FunctionTool(name = "failingMethod", description = "A test method which fails with the given throwable")
+    public String failingMethod(String kind) {
+        if ("error".equals(kind)) {
+            throw new StackOverflowError(kind);
+        }
+        throw new IllegalStateException(kind);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.metaagent.framework.core.tool.tools.spring;
+
+import org.junit.jupiter.api.Test;
+import org.metaagent.framework.core.tool.Tool;
+import org.metaagent.framework.core.tool.definition.ToolDefinition;
+import org.metaagent.framework.core.tool.executor.ToolExecutor;
+import org.metaagent.framework.core.tool.manager.DefaultToolManager;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.tool.ToolCallback;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ToolCallbackUtils}.
+ *
+ * @author vyckey
+ */
+class ToolCallbackUtilsTest {
+
+    private static Tool<?, ?> mockTool(String name) {
+        Tool<?, ?> tool = mock(Tool.class);
+        when(tool.getName()).thenReturn(name);
+        when(tool.getDefinition()).thenReturn(ToolDefinition.builder(name).description(name).inputSchema("{}").build());
+        return tool;
+    }
+
+    private static Set<String> callbackNames(List<ToolCallback> toolCallbacks) {
+        return toolCallbacks.stream()
+                .map(toolCallback -> toolCallback.getToolDefinition().name())
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void cachedChatOptionsAreCopiedOnEveryCall() {
+        DefaultToolManager toolManager = new DefaultToolManager();
+        toolManager.addTool(mockTool("echo"));
+        ToolExecutor toolExecutor = mock(ToolExecutor.class);
+
+        ToolCallingChatOptions options = ToolCallbackUtils.buildChatOptionsWithTools(toolManager, toolExecutor, false);
+        options.setToolNames(Set.of("other"));
+        options.getToolContext().put("key", "value");
+
+        ToolCallingChatOptions otherOptions = ToolCallbackUtils.buildChatOptionsWithTools(toolManager, toolExecutor, false);
+        assertNotSame(options, otherOptions);
+        assertEquals(Set.of("echo"), otherOptions.getToolNames());
+        assertTrue(otherOptions.getToolContext().isEmpty());
+        assertEquals(Set.of("echo"), callbackNames(otherOptions.getToolCallbacks()));
+    }
+
+    @Test
+    void toolChangesInvalidateCachedCallbacks() {
+        DefaultToolManager toolManager = new DefaultToolManager();
+        toolManager.addTool(mockTool("echo"));
+        ToolExecutor toolExecutor = mock(ToolExecutor.class);
+
+        List<ToolCallback> toolCallbacks = ToolCallbackUtils.getToolCallbacks(toolManager, toolExecutor);
+        assertSame(toolCallbacks, ToolCallbackUtils.getToolCallbacks(toolManager, toolExecutor));
+        assertEquals(Set.of("echo"), callbackNames(toolCallbacks));
+
+        toolManager.addTool(mockTool("grep"));
+        List<ToolCallback> addedCallbacks = ToolCallbackUtils.getToolCallbacks(toolManager, toolExecutor);
+        assertNotSame(toolCallbacks, addedCallbacks);
+        assertEquals(Set.of("echo", "grep"), callbackNames(addedCallbacks));
+        assertEquals(Set.of("echo", "grep"),
+                ToolCallbackUtils.buildChatOptionsWithTools(toolManager, toolExecutor, false).getToolNames());
+
+        toolManager.removeTool("echo");
+        assertEquals(Set.of("grep"), callbackNames(ToolCallbackUtils.getToolCallbacks(toolManager, toolExecutor)));
+        assertEquals(Set.of("grep"),
+                ToolCallbackUtils.buildChatOptionsWithTools(toolManager, toolExecutor, false).getToolNames());
+    }
+
+    @Test
+    void callbacksAreNotSharedBetweenExecutors() {
+        DefaultToolManager toolManager = new DefaultToolManager();
+        toolManager.addTool(mockTool("echo"));
+        ToolExecutor toolExecutor = mock(ToolExecutor.class);
+        ToolExecutor otherExecutor = mock(ToolExecutor.class);
+
+        List<ToolCallback> toolCallbacks = ToolCallbackUtils.getToolCallbacks(toolManager, toolExecutor);
+        List<ToolCallback> otherCallbacks = ToolCallbackUtils.getToolCallbacks(toolManager, otherExecutor);
+        assertNotSame(toolCallbacks, otherCallbacks);
+        assertNotSame(toolCallbacks.get(0), otherCallbacks.get(0));
+        assertSame(otherCallbacks, ToolCallbackUtils.getToolCallbacks(toolManager, otherExecutor));
+
+        List<ToolCallback> optionCallbacks = ToolCallbackUtils.buildChatOptionsWithTools(
+                toolManager, otherExecutor, false).getToolCallbacks();
+        assertSame(otherCallbacks.get(0), optionCallbacks.get(0));
+    }
+}
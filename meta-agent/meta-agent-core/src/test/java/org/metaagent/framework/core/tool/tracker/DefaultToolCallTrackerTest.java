@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 MetaAgent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.metaagent.framework.core.tool.tracker;
+
+import org.junit.jupiter.api.Test;
+import org.metaagent.framework.core.tool.exception.ToolExecutionError;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link DefaultToolCallTracker}.
+ *
+ * @author vyckey
+ */
+class DefaultToolCallTrackerTest {
+
+    private static ToolCallRecord record(String id, String toolName, boolean failed) {
+        DefaultToolCallRecord.Builder builder = DefaultToolCallRecord.builder().id(id).toolName(toolName).toolInput("{}");
+        return failed ? builder.exception(new ToolExecutionError("failed")).build() : builder.toolOutput("ok").build();
+    }
+
+    @Test
+    void indexesRecordsByIdAndToolName() {
+        DefaultToolCallTracker tracker = new DefaultToolCallTracker();
+        tracker.track(record("1", "read", false));
+        tracker.track(record("2", "grep", true));
+        tracker.track(record("3", "read", false));
+
+        assertEquals("grep", tracker.findById("2").orElseThrow().getToolName());
+        assertTrue(tracker.findById("4").isEmpty());
+        assertEquals(List.of("1", "3"), tracker.findByToolName("read").stream().map(ToolCallRecord::getId).toList());
+        assertEquals(1, tracker.find(record -> record.getException() != null).size());
+    }
+
+    @Test
+    void retainsOnlyTheMostRecentRecords() {
+        DefaultToolCallTracker tracker = new DefaultToolCallTracker(new DefaultToolCallTracker.TrackerConfig().maxRecords(3));
+        for (int i = 0; i < 5; i++) {
+            tracker.track(record(String.valueOf(i), i % 2 == 0 ? "read" : "grep", false));
+        }
+
+        assertEquals(3, tracker.find(record -> true).size());
+        assertTrue(tracker.findById("1").isEmpty());
+        assertEquals(List.of("2", "4"), tracker.findByToolName("read").stream().map(ToolCallRecord::getId).toList());
+        assertEquals(3, tracker.getStats("read").orElseThrow().calls());
+    }
+
+    @Test
+    void dropsExpiredRecords() throws InterruptedException {
+        DefaultToolCallTracker tracker = new DefaultToolCallTracker(
+                new DefaultToolCallTracker.TrackerConfig().maxAge(Duration.ofMillis(50)));
+        tracker.track(record("old", "read", false));
+        Thread.sleep(100);
+        tracker.track(record("new", "read", false));
+
+        assertTrue(tracker.findById("old").isEmpty());
+        assertEquals(1, tracker.findByToolName("read").size());
+    }
+
+    @Test
+    void aggregatesConcurrentCalls() throws Exception {
+        DefaultToolCallTracker tracker = new DefaultToolCallTracker(new DefaultToolCallTracker.TrackerConfig().maxRecords(100));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        tracker.track(record(thread + "-" + i, "search", i % 10 == 0));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        ToolCallStats stats = tracker.getAllStats().get("search");
+        assertEquals(1000, stats.calls());
+        assertEquals(100, stats.errors());
+        assertEquals(0.1, stats.errorRate(), 1e-9);
+        assertEquals(2000, stats.inputBytes());
+        assertEquals(1800, stats.outputBytes());
+        assertTrue(stats.p50Latency().compareTo(stats.p99Latency()) <= 0);
+        assertEquals(100, tracker.find(record -> true).size());
+        assertEquals(100, tracker.findByToolName("search").size());
+    }
+}
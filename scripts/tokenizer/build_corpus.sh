@@ -0,0 +1,80 @@
+#!/bin/bash
+#
+# Builds the English prose corpus the bundled BPE vocabulary is trained on.
+#
+# The corpus is collected from documentation installed on a Debian based system: docstrings of the
+# Python standard library, manual pages, files under /usr/share/doc, Vim help files, READMEs of global
+# Node.js modules and Perl POD. Only lines which look like prose are kept.
+#
+# Usage: build_corpus.sh <output directory>
+
+set -euo pipefail
+
+OUTPUT_DIR=${1:?usage: build_corpus.sh <output directory>}
+mkdir -p "$OUTPUT_DIR"
+cd "$OUTPUT_DIR"
+
+# Docstrings of the Python standard library
+timeout 600 python3 - > py.txt 2>/dev/null <<'EOF' || true
+import contextlib, importlib, inspect, io, sys, warnings
+warnings.filterwarnings('ignore')
+seen = set()
+for name in sorted(sys.stdlib_module_names):
+    if name.startswith('_') or name in ('antigravity', 'this', 'idlelib', 'tkinter', 'turtle', 'turtledemo'):
+        continue
+    try:
+        with contextlib.redirect_stdout(io.StringIO()), contextlib.redirect_stderr(io.StringIO()):
+            module = importlib.import_module(name)
+    except BaseException:
+        continue
+    for obj in [module] + list(vars(module).values()):
+        doc = inspect.getdoc(obj) if hasattr(obj, '__doc__') else None
+        if doc and id(doc) not in seen and len(doc) > 200:
+            seen.add(id(doc))
+            print(doc)
+            print()
+EOF
+
+# Manual pages with the roff requests stripped
+find /usr/share/man/man1 /usr/share/man/man5 /usr/share/man/man7 /usr/share/man/man8 -name "*.gz" 2>/dev/null \
+    | head -1500 \
+    | while read -r page; do
+        zcat "$page" 2>/dev/null \
+            | grep -v '^\.\(TH\|SH\|SS\|TP\|PP\|IP\|br\|sp\|fi\|nf\|RS\|RE\|in\|ti\|ad\|na\|ne\|de\|ds\|ie\|el\|if\|so\|\\"\)' \
+            | sed -e 's/^\.[A-Z][A-Za-z]* //' -e 's/\\f[BIRP]//g' -e 's/\\(..//g' -e 's/\\-/-/g' -e 's/\\//g' || true
+    done > man.txt
+
+# Package documentation and licenses
+find /usr/share/doc -type f -name "*.gz" | head -2000 | xargs -I{} sh -c 'zcat "{}" 2>/dev/null' > docgz.txt || true
+find /usr/share/doc /usr/share/common-licenses -type f ! -name "*.gz" -size -200k -print0 \
+    | xargs -0 cat 2>/dev/null > doc.txt || true
+
+# Vim help, Node.js module READMEs and Perl POD
+(cat /usr/share/vim/vim*/doc/*.txt 2>/dev/null || true
+ find /usr/lib/node_modules -name "*.md" -size -500k -print0 2>/dev/null | xargs -0 cat 2>/dev/null || true
+ find / -path /proc -prune -o \( -name "*.pm" -o -name "*.pod" \) -print0 2>/dev/null | xargs -0 cat 2>/dev/null || true
+) > extra.txt
+
+# Keep lines of at least 7 words which consist mostly of letters and spaces,
+# at most 12M chars from each of the first four sources
+python3 - <<'EOF'
+def is_prose(line):
+    return len(line) >= 40 \
+        and sum(c.isalpha() or c == ' ' for c in line) / len(line) >= 0.85 \
+        and len(line.split()) >= 7
+
+with open('prose.txt', 'w', encoding='utf-8') as out:
+    for source, limit in [('py.txt', 12_000_000), ('man.txt', 12_000_000), ('doc.txt', 12_000_000),
+                          ('docgz.txt', 12_000_000), ('extra.txt', None)]:
+        size = 0
+        with open(source, encoding='utf-8', errors='ignore') as f:
+            for line in f:
+                line = line.strip()
+                if not is_prose(line):
+                    continue
+                out.write(line + '\n')
+                size += len(line)
+                if limit is not None and size > limit:
+                    break
+        print(source, size)
+EOF
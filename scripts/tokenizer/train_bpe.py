@@ -0,0 +1,150 @@
+#!/usr/bin/env python3
+"""Trains the byte-level BPE vocabulary bundled as tokenizer/metaagent-bpe.tiktoken.
+
+The corpus is the text files of this repository plus the prose corpus built by build_corpus.sh.
+Texts are split with the pre-tokenization pattern of BpeTokenizer.DEFAULT_PATTERN, and the most
+frequent adjacent token pair is merged until the requested number of merges is reached. The UTF-8
+prefixes of common Chinese, Japanese and Korean characters are appended afterwards, so that these
+characters are encoded in one token each.
+
+Usage: train_bpe.py <merges> <prose corpus> <output vocabulary>
+"""
+
+import base64
+import collections
+import heapq
+import os
+import re
+import subprocess
+import sys
+
+ROOT = os.path.abspath(os.path.join(os.path.dirname(__file__), '..', '..'))
+SOURCE_SUFFIXES = ('.java', '.md', '.json', '.yml', '.yaml', '.gradle', '.xml', '.properties', '.toml',
+                   '.txt', '.css', '.html', '.kts', '.py', '.sh')
+# Python equivalent of BpeTokenizer.DEFAULT_PATTERN
+PATTERN = re.compile(r"""'(?:[sdmtSDMT]|ll|ve|re|LL|VE|RE)|[^\r\n\w]?[^\W\d_]+|\d{1,3}"""
+                     r"""| ?(?:[^\s\w]|_)+[\r\n]*|\s*[\r\n]+|\s+(?!\S)|\s+""")
+CJK_PUNCTUATION = '，。、：；？！“”‘’（）《》【】…—·「」『』～'
+
+
+def read_corpus(prose_file):
+    files = subprocess.check_output(['git', '-C', ROOT, 'ls-files']).decode().split('\n')
+    texts = []
+    for file in files:
+        if file.endswith(SOURCE_SUFFIXES):
+            try:
+                with open(os.path.join(ROOT, file), encoding='utf-8') as f:
+                    texts.append(f.read())
+            except (OSError, UnicodeDecodeError):
+                pass
+    with open(prose_file, encoding='utf-8') as f:
+        texts.append(f.read())
+    return '\n'.join(texts)
+
+
+def train(corpus, merge_count):
+    words = collections.Counter(PATTERN.findall(corpus))
+    vocabulary = [bytes([i]) for i in range(256)]
+    sequences = [list(word.encode('utf-8')) for word in words]
+    counts = list(words.values())
+
+    pair_counts = collections.Counter()
+    pair_words = collections.defaultdict(set)
+    for index, sequence in enumerate(sequences):
+        for pair in zip(sequence, sequence[1:]):
+            pair_counts[pair] += counts[index]
+            pair_words[pair].add(index)
+
+    heap = [(-count, pair) for pair, count in pair_counts.items()]
+    heapq.heapify(heap)
+    merges = 0
+    while merges < merge_count and heap:
+        negative_count, pair = heapq.heappop(heap)
+        count = pair_counts.get(pair, 0)
+        if count <= 0:
+            continue
+        if -negative_count != count:
+            heapq.heappush(heap, (-count, pair))
+            continue
+        if count < 2:
+            break
+
+        token = len(vocabulary)
+        vocabulary.append(vocabulary[pair[0]] + vocabulary[pair[1]])
+        merges += 1
+        del pair_counts[pair]
+        changed = set()
+        for index in pair_words.pop(pair, ()):
+            sequence, word_count = sequences[index], counts[index]
+            for old_pair in zip(sequence, sequence[1:]):
+                if old_pair == pair:
+                    continue
+                pair_counts[old_pair] -= word_count
+                changed.add(old_pair)
+                if old_pair in pair_words:
+                    pair_words[old_pair].discard(index)
+            merged, i = [], 0
+            while i < len(sequence):
+                if i + 1 < len(sequence) and (sequence[i], sequence[i + 1]) == pair:
+                    merged.append(token)
+                    i += 2
+                else:
+                    merged.append(sequence[i])
+                    i += 1
+            sequences[index] = merged
+            for new_pair in zip(merged, merged[1:]):
+                pair_counts[new_pair] += word_count
+                pair_words[new_pair].add(index)
+                changed.add(new_pair)
+        for changed_pair in changed:
+            changed_count = pair_counts.get(changed_pair, 0)
+            if changed_count > 0:
+                heapq.heappush(heap, (-changed_count, changed_pair))
+            elif changed_pair in pair_counts:
+                del pair_counts[changed_pair]
+    print('merges', merges, file=sys.stderr)
+    return vocabulary
+
+
+def cjk_characters():
+    # The 3755 level-1 GB2312 hanzi, the KS X 1001 hangul syllables, kana and CJK punctuation
+    hanzi = []
+    for high in range(0xB0, 0xD8):
+        for low in range(0xA1, 0xFF):
+            try:
+                hanzi.append(bytes([high, low]).decode('gb2312'))
+            except UnicodeDecodeError:
+                pass
+    hangul = []
+    for high in range(0xB0, 0xC9):
+        for low in range(0xA1, 0xFF):
+            try:
+                hangul.append(bytes([high, low]).decode('euc-kr'))
+            except UnicodeDecodeError:
+                pass
+    kana = [chr(c) for c in range(0x3041, 0x3097)] + [chr(c) for c in range(0x30A1, 0x30FB)]
+    return hanzi[:3755] + hangul + kana + list(CJK_PUNCTUATION)
+
+
+def main():
+    if len(sys.argv) != 4:
+        sys.exit(__doc__)
+    merge_count, prose_file, output_file = int(sys.argv[1]), sys.argv[2], sys.argv[3]
+
+    vocabulary = train(read_corpus(prose_file), merge_count)
+    tokens = set(vocabulary)
+    for character in cjk_characters():
+        encoded = character.encode('utf-8')
+        for end in range(2, len(encoded) + 1):
+            if encoded[:end] not in tokens:
+                tokens.add(encoded[:end])
+                vocabulary.append(encoded[:end])
+    print('vocabulary', len(vocabulary), file=sys.stderr)
+
+    with open(output_file, 'w') as f:
+        for rank, token in enumerate(vocabulary):
+            f.write(base64.b64encode(token).decode() + ' ' + str(rank) + '\n')
+
+
+if __name__ == '__main__':
+    main()